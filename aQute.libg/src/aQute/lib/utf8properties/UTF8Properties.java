@@ -14,12 +14,19 @@ import java.io.Writer;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharsetDecoder;
+import java.util.AbstractCollection;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -45,6 +52,7 @@ public class UTF8Properties extends Properties {
 	private static final long								serialVersionUID	= 1L;
 	private static final List<ThreadLocal<CharsetDecoder>>	decoders			= Collections.unmodifiableList(
 		Arrays.asList(ThreadLocal.withInitial(UTF_8::newDecoder), ThreadLocal.withInitial(ISO_8859_1::newDecoder)));
+	private final AtomicLong								modifications		= new AtomicLong();
 
 	public UTF8Properties(Properties p) {
 		super(p);
@@ -221,4 +229,226 @@ public class UTF8Properties extends Properties {
 		}
 		return replaceAll(HERE_PATTERN, Matcher.quoteReplacement(here));
 	}
+
+	/**
+	 * Answer the number of modifications of these properties and their
+	 * defaults. The count changes whenever a property is added, changed, or
+	 * removed, also through the views like {@link #entrySet()}, so it can be
+	 * used to detect that values derived from the properties are out of date.
+	 *
+	 * @return the modification count, or -1 if the defaults are not
+	 *         {@code UTF8Properties} and their modifications cannot be counted
+	 */
+	public long getModificationCount() {
+		long count = modifications.get();
+		if (defaults == null) {
+			return count;
+		}
+		if (defaults instanceof UTF8Properties p) {
+			long inherited = p.getModificationCount();
+			return (inherited < 0) ? -1 : count + inherited;
+		}
+		return -1;
+	}
+
+	private <T> T modified(T result) {
+		modifications.incrementAndGet();
+		return result;
+	}
+
+	@Override
+	public synchronized Object put(Object key, Object value) {
+		return modified(super.put(key, value));
+	}
+
+	@Override
+	public synchronized void putAll(Map<?, ?> t) {
+		super.putAll(t);
+		modified(null);
+	}
+
+	@Override
+	public synchronized Object putIfAbsent(Object key, Object value) {
+		return modified(super.putIfAbsent(key, value));
+	}
+
+	@Override
+	public synchronized Object remove(Object key) {
+		return modified(super.remove(key));
+	}
+
+	@Override
+	public synchronized boolean remove(Object key, Object value) {
+		return modified(super.remove(key, value));
+	}
+
+	@Override
+	public synchronized Object replace(Object key, Object value) {
+		return modified(super.replace(key, value));
+	}
+
+	@Override
+	public synchronized boolean replace(Object key, Object oldValue, Object newValue) {
+		return modified(super.replace(key, oldValue, newValue));
+	}
+
+	@Override
+	public synchronized void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+		super.replaceAll(function);
+		modified(null);
+	}
+
+	@Override
+	public synchronized Object compute(Object key,
+		BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+		return modified(super.compute(key, remappingFunction));
+	}
+
+	@Override
+	public synchronized Object computeIfAbsent(Object key, Function<? super Object, ? extends Object> mappingFunction) {
+		return modified(super.computeIfAbsent(key, mappingFunction));
+	}
+
+	@Override
+	public synchronized Object computeIfPresent(Object key,
+		BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+		return modified(super.computeIfPresent(key, remappingFunction));
+	}
+
+	@Override
+	public synchronized Object merge(Object key, Object value,
+		BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+		return modified(super.merge(key, value, remappingFunction));
+	}
+
+	@Override
+	public synchronized void clear() {
+		super.clear();
+		modified(null);
+	}
+
+	@Override
+	public Set<Object> keySet() {
+		return new CountingSet<>(super.keySet(), UnaryOperator.identity());
+	}
+
+	@Override
+	public Set<Map.Entry<Object, Object>> entrySet() {
+		return new CountingSet<>(super.entrySet(), CountingEntry::new);
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return new CountingCollection<>(super.values(), UnaryOperator.identity());
+	}
+
+	/**
+	 * A view that counts the modifications made through it.
+	 */
+	private class CountingCollection<E> extends AbstractCollection<E> {
+		final Collection<E>		delegate;
+		final UnaryOperator<E>	wrap;
+
+		CountingCollection(Collection<E> delegate, UnaryOperator<E> wrap) {
+			this.delegate = delegate;
+			this.wrap = wrap;
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			Iterator<E> iterator = delegate.iterator();
+			return new Iterator<E>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public E next() {
+					return wrap.apply(iterator.next());
+				}
+
+				@Override
+				public void remove() {
+					iterator.remove();
+					modified(null);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return delegate.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return delegate.contains(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return modified(delegate.remove(o));
+		}
+
+		@Override
+		public void clear() {
+			delegate.clear();
+			modified(null);
+		}
+	}
+
+	private class CountingSet<E> extends CountingCollection<E> implements Set<E> {
+		CountingSet(Set<E> delegate, UnaryOperator<E> wrap) {
+			super(delegate, wrap);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return delegate.equals(o);
+		}
+
+		@Override
+		public int hashCode() {
+			return delegate.hashCode();
+		}
+	}
+
+	private class CountingEntry implements Map.Entry<Object, Object> {
+		private final Map.Entry<Object, Object> entry;
+
+		CountingEntry(Map.Entry<Object, Object> entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public Object getKey() {
+			return entry.getKey();
+		}
+
+		@Override
+		public Object getValue() {
+			return entry.getValue();
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			return modified(entry.setValue(value));
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return entry.equals(o);
+		}
+
+		@Override
+		public int hashCode() {
+			return entry.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return entry.toString();
+		}
+	}
 }
@@ -41,6 +41,12 @@ public class IndexCommand extends Processor {
 
 		@Description("The name of the index (default: name of the output file directory)")
 		String name();
+
+		@Description("The number of bundles to index concurrently (default: the number of processors)")
+		int parallel(int deflt);
+
+		@Description("Reuse the entries of the existing repository index file for the bundles that did not change")
+		boolean incremental();
 	}
 
 	public void _index(indexOptions opts) throws Exception {
@@ -86,11 +92,16 @@ public class IndexCommand extends Processor {
 			return;
 		}
 
-		new SimpleIndexer().reporter(bnd)
+		SimpleIndexer indexer = new SimpleIndexer().reporter(bnd)
 			.files(files)
 			.base(base)
 			.name(name)
 			.compress(compress)
-			.index(repositoryFile);
+			.parallel(opts.parallel(Runtime.getRuntime()
+				.availableProcessors()));
+		if (opts.incremental()) {
+			indexer.previous(repositoryFile);
+		}
+		indexer.index(repositoryFile);
 	}
 }
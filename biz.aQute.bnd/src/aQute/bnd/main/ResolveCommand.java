@@ -135,6 +135,9 @@ public class ResolveCommand extends Processor {
 		@Description("Show any unused entries. This will only try to resolve the workspace entries and then list the entries in the repos that are not used")
 		boolean unused();
 
+		@Description("Resolve up to this number of resources concurrently, default is 1")
+		int parallel(int deflt);
+
 	}
 
 	@Description("Resolve a repository index against a base to determine if the index is 'complete'")
@@ -167,6 +170,7 @@ public class ResolveCommand extends Processor {
 		try (ResolverValidator validator = new ResolverValidator(bnd)) {
 			validator.use(bnd);
 			validator.setSystem(system.build());
+			validator.setParallel(options.parallel(1));
 
 			List<Resolution> result;
 			if (args.isEmpty()) {
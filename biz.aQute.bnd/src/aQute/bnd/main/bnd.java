@@ -38,12 +38,10 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
@@ -70,6 +68,7 @@ import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 
 import aQute.bnd.build.Container;
+import aQute.bnd.build.ParallelBuild;
 import aQute.bnd.build.Project;
 import aQute.bnd.build.ProjectBuilder;
 import aQute.bnd.build.ProjectLauncher;
@@ -142,7 +141,6 @@ import aQute.libg.cryptography.MD5;
 import aQute.libg.cryptography.SHA1;
 import aQute.libg.cryptography.SHA256;
 import aQute.libg.cryptography.SHA512;
-import aQute.libg.forker.Forker;
 import aQute.libg.generics.Create;
 import aQute.libg.glob.Glob;
 import aQute.libg.qtokens.QuotedTokenizer;
@@ -3422,54 +3420,38 @@ public class bnd extends Processor {
 		}
 	}
 
-	@Description("experimental - parallel build")
+	@Description("Build projects concurrently, in dependency order, skipping the projects that are up to date")
 	interface ParallelBuildOptions extends buildoptions {
-		long synctime();
-	}
-
-	/**
-	 * Lets see if we can build in parallel
-	 *
-	 * @throws Exception
-	 */
-	public void __par(final ParallelBuildOptions options) throws Exception {
-		ExecutorService pool = Executors.newCachedThreadPool();
-		final AtomicBoolean quit = new AtomicBoolean();
+		@Description("The maximum number of projects to build at the same time, default is the number of processors")
+		int jobs();
 
-		try {
-			final Forker<Project> forker = new Forker<>(pool);
-
-			List<Project> projects = getFilteredProjects(options);
+		@Description("Continue to build the projects that do not depend on a failed project")
+		boolean keepgoing();
+	}
 
-			for (final Project proj : projects) {
-				forker.doWhen(proj.getDependson(), proj, () -> {
-					if (!quit.get()) {
+	@Description("Build projects concurrently, in dependency order, skipping the projects that are up to date")
+	public void _parallelbuild(ParallelBuildOptions options) throws Exception {
+		List<Project> projects = getFilteredProjects(options);
+		if (projects.isEmpty()) {
+			return;
+		}
 
-						try {
-							proj.getGenerate()
-								.generate(options.force());
-							if (!quit.get())
-								proj.compile(options.test());
-							if (!quit.get())
-								proj.build(options.test());
+		ParallelBuild build = new ParallelBuild(projects.get(0)
+			.getWorkspace()).setKeepGoing(options.keepgoing())
+				.setTest(options.test())
+				.setForce(options.force());
+		if (options.jobs() > 0) {
+			build.setParallelism(options.jobs());
+		}
 
-							if (!proj.isOk()) {
-								quit.set(true);
-							}
-						} catch (Exception e) {
-							e.printStackTrace();
-						}
-					}
-					getInfo(proj, proj + ": ");
-				});
+		ParallelBuild.Result result = build.build(projects);
+		for (ParallelBuild.Outcome outcome : result.getOutcomes()) {
+			if (options.verbose()) {
+				out.printf("%-40s %-8s %8sms%n", outcome.getProject(), outcome.getStatus(), outcome.getDuration());
 			}
-			err.flush();
-
-			long syncms = options.synctime() <= 0 ? 20000 : options.synctime();
-			forker.start(syncms);
-		} finally {
-			pool.shutdownNow();
+			getInfo(outcome.getProject(), outcome.getProject() + ": ");
 		}
+		out.println(result);
 	}
 
 	/**
@@ -0,0 +1,32 @@
+package aQute.bnd.bench;
+
+import java.util.jar.Manifest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import aQute.bnd.osgi.Analyzer;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Jar;
+
+/**
+ * Analyze a bundle and calculate its manifest.
+ */
+public class AnalyzerBenchmark {
+
+	@Benchmark
+	public Object analyze(Fixtures fixtures) throws Exception {
+		try (Analyzer analyzer = new Analyzer(new Jar(fixtures.bundles.get(0)))) {
+			analyzer.setProperty(Constants.EXPORT_PACKAGE, "*");
+			analyzer.analyze();
+			return analyzer.getImports();
+		}
+	}
+
+	@Benchmark
+	public Manifest calcManifest(Fixtures fixtures) throws Exception {
+		try (Analyzer analyzer = new Analyzer(new Jar(fixtures.bundles.get(0)))) {
+			analyzer.setProperty(Constants.EXPORT_PACKAGE, "*");
+			return analyzer.calcManifest();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package aQute.bnd.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aQute.bnd.osgi.Analyzer;
+import aQute.bnd.osgi.Clazz;
+import aQute.bnd.osgi.EmbeddedResource;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.Resource;
+
+/**
+ * Parse the class files of a bundle.
+ */
+@State(Scope.Benchmark)
+public class ClazzBenchmark {
+	Analyzer		analyzer;
+	List<String>	paths;
+	List<Resource>	classes;
+
+	@Setup(Level.Trial)
+	public void setup(Fixtures fixtures) throws Exception {
+		analyzer = new Analyzer();
+		paths = new ArrayList<>();
+		classes = new ArrayList<>();
+		try (Jar jar = new Jar(fixtures.bundles.get(0))) {
+			for (Map.Entry<String, Resource> entry : jar.getResources()
+				.entrySet()) {
+				if (entry.getKey()
+					.endsWith(".class")) {
+					paths.add(entry.getKey());
+					classes.add(new EmbeddedResource(entry.getValue()
+						.buffer(), 0L));
+				}
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		analyzer.close();
+	}
+
+	@Benchmark
+	public void parseClassFile(Blackhole blackhole) throws Exception {
+		for (int i = 0; i < classes.size(); i++) {
+			Clazz clazz = new Clazz(analyzer, paths.get(i), classes.get(i));
+			clazz.parseClassFile();
+			blackhole.consume(clazz);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package aQute.bnd.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Namespace;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.ResourceUtils;
+
+/**
+ * Parse the filters of the package requirements of the fixtures and match
+ * them against the package capabilities of the fixtures.
+ */
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+	List<String>							filters;
+	List<Predicate<Map<String, Object>>>	predicates;
+	List<Map<String, Object>>				attributes;
+
+	@Setup(Level.Trial)
+	public void setup(Fixtures fixtures) {
+		filters = new ArrayList<>();
+		attributes = new ArrayList<>();
+		for (Resource resource : fixtures.resources) {
+			for (Requirement requirement : resource.getRequirements(PackageNamespace.PACKAGE_NAMESPACE)) {
+				filters.add(requirement.getDirectives()
+					.get(Namespace.REQUIREMENT_FILTER_DIRECTIVE));
+			}
+			for (Capability capability : resource.getCapabilities(PackageNamespace.PACKAGE_NAMESPACE)) {
+				attributes.add(capability.getAttributes());
+			}
+		}
+		predicates = new ArrayList<>();
+		for (String filter : filters) {
+			predicates.add(ResourceUtils.filterPredicate(filter));
+		}
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		for (String filter : filters) {
+			blackhole.consume(ResourceUtils.filterPredicate(filter));
+		}
+	}
+
+	@Benchmark
+	public int match() {
+		int matches = 0;
+		for (Predicate<Map<String, Object>> predicate : predicates) {
+			for (Map<String, Object> map : attributes) {
+				if (predicate.test(map)) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+}
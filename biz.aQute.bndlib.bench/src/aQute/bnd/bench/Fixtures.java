@@ -0,0 +1,84 @@
+package aQute.bnd.bench;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.Analyzer;
+import aQute.bnd.osgi.Builder;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.repository.XMLResourceGenerator;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.lib.io.IO;
+
+/**
+ * The fixtures of the benchmarks.
+ * <p>
+ * The fixtures are generated locally from the bndlib classes on the class path
+ * so the benchmarks run offline: a set of bundles, one per bndlib package
+ * group, the resources of these bundles and an index of the resources.
+ */
+@State(Scope.Benchmark)
+public class Fixtures {
+	static final String[]	PACKAGES	= {
+		"aQute.bnd.osgi.*", "aQute.bnd.build.*", "aQute.bnd.header.*", "aQute.bnd.version.*", "aQute.bnd.service.*",
+		"aQute.bnd.maven.*", "aQute.bnd.help.*", "aQute.bnd.differ.*", "aQute.bnd.component.*", "aQute.bnd.metatype.*"
+	};
+
+	File					dir;
+	/**
+	 * The generated bundles, the first one is the largest.
+	 */
+	List<File>				bundles;
+	List<Resource>			resources;
+	File					index;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		dir = Files.createTempDirectory("bench")
+			.toFile();
+		File classpath = new File(Analyzer.class.getProtectionDomain()
+			.getCodeSource()
+			.getLocation()
+			.toURI());
+		bundles = new ArrayList<>();
+		resources = new ArrayList<>();
+		for (int i = 0; i < PACKAGES.length; i++) {
+			File bundle = new File(dir, "fixture." + i + ".jar");
+			try (Builder builder = new Builder()) {
+				builder.setProperty(Constants.BUNDLE_SYMBOLICNAME, "fixture." + i);
+				builder.setProperty(Constants.BUNDLE_VERSION, "1.0.0");
+				builder.setProperty(Constants.EXPORT_PACKAGE, PACKAGES[i]);
+				builder.addClasspath(classpath);
+				Jar jar = builder.build();
+				if (!builder.isOk()) {
+					throw new IllegalStateException("Generating " + bundle + " failed " + builder.getErrors());
+				}
+				jar.write(bundle);
+			}
+			bundles.add(bundle);
+			ResourceBuilder rb = new ResourceBuilder();
+			rb.addFile(bundle, new URI(bundle.getName()));
+			resources.add(rb.build());
+		}
+		index = new File(dir, "index.xml");
+		new XMLResourceGenerator().name("fixtures")
+			.resources(resources)
+			.save(index);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		IO.delete(dir);
+	}
+}
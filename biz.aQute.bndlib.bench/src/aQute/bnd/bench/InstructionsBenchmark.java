@@ -0,0 +1,46 @@
+package aQute.bnd.bench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import aQute.bnd.osgi.Instructions;
+
+/**
+ * Select the packages of a large bundle with a long list of package
+ * instructions.
+ */
+@State(Scope.Benchmark)
+public class InstructionsBenchmark {
+	Instructions	instructions;
+	List<String>	packages;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		StringJoiner joiner = new StringJoiner(",");
+		packages = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			joiner.add("!com.example.p" + i + ".internal.*");
+			joiner.add("com.example.p" + i + ".*");
+			joiner.add("org.example.p" + i + ".api");
+			for (int j = 0; j < 10; j++) {
+				packages.add("com.example.p" + i + ".m" + j);
+				packages.add("org.example.p" + i + ".m" + j);
+			}
+		}
+		joiner.add("*.spi");
+		instructions = new Instructions(joiner.toString());
+	}
+
+	@Benchmark
+	public Collection<String> select() {
+		return instructions.select(packages, false);
+	}
+}
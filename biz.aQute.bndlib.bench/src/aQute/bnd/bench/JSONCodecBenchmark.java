@@ -0,0 +1,71 @@
+package aQute.bnd.bench;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import aQute.lib.json.JSONCodec;
+
+/**
+ * Encode and decode a list of DTOs.
+ */
+@State(Scope.Benchmark)
+public class JSONCodecBenchmark {
+	public static class BundleDTO {
+		public String				bsn;
+		public String				version;
+		public long					size;
+		public boolean				fragment;
+		public List<String>			exports	= new ArrayList<>();
+		public Map<String, String>	headers	= new LinkedHashMap<>();
+	}
+
+	public static class IndexDTO {
+		public String			name;
+		public List<BundleDTO>	bundles	= new ArrayList<>();
+	}
+
+	final JSONCodec	codec	= new JSONCodec();
+	IndexDTO		index;
+	String			json;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		index = new IndexDTO();
+		index.name = "fixtures";
+		for (int i = 0; i < 100; i++) {
+			BundleDTO bundle = new BundleDTO();
+			bundle.bsn = "fixture." + i;
+			bundle.version = "1.0." + i;
+			bundle.size = 1024L * i;
+			bundle.fragment = (i % 10) == 0;
+			for (int j = 0; j < 10; j++) {
+				bundle.exports.add("fixture." + i + ".package" + j);
+				bundle.headers.put("Header-" + j, "value \"" + j + "\"\n");
+			}
+			index.bundles.add(bundle);
+		}
+		json = encode();
+	}
+
+	@Benchmark
+	public String encode() throws Exception {
+		return codec.enc()
+			.put(index)
+			.toString();
+	}
+
+	@Benchmark
+	public IndexDTO decode() throws Exception {
+		return codec.dec()
+			.from(json)
+			.get(IndexDTO.class);
+	}
+}
@@ -0,0 +1,55 @@
+package aQute.bnd.bench;
+
+import java.io.File;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.Resource;
+import aQute.lib.io.IO;
+
+/**
+ * Read and write a bundle.
+ */
+@State(Scope.Benchmark)
+public class JarBenchmark {
+	File	bundle;
+	Jar		jar;
+
+	@Setup(Level.Trial)
+	public void setup(Fixtures fixtures) throws Exception {
+		bundle = fixtures.bundles.get(0);
+		jar = new Jar(bundle);
+		// read the content of the resources once
+		for (Resource resource : jar.getResources()
+			.values()) {
+			resource.buffer();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		jar.close();
+	}
+
+	@Benchmark
+	public void read(Blackhole blackhole) throws Exception {
+		try (Jar jar = new Jar(bundle)) {
+			for (Resource resource : jar.getResources()
+				.values()) {
+				blackhole.consume(resource.buffer());
+			}
+		}
+	}
+
+	@Benchmark
+	public void write() throws Exception {
+		jar.write(IO.nullStream);
+	}
+}
@@ -0,0 +1,46 @@
+package aQute.bnd.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import aQute.bnd.osgi.Macro;
+import aQute.bnd.osgi.Processor;
+
+/**
+ * Process text with nested macros.
+ */
+@State(Scope.Benchmark)
+public class MacroBenchmark {
+	Processor	processor;
+	Macro		macro;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		processor = new Processor();
+		processor.setProperty("major", "7");
+		processor.setProperty("minor", "1");
+		processor.setProperty("micro", "0");
+		processor.setProperty("base.version", "${major}.${minor}.${micro}");
+		processor.setProperty("qualifier", "${if;${def;-snapshot};SNAPSHOT;RELEASE}");
+		processor.setProperty("Bundle-Version", "${base.version}.${toupper;${qualifier}}");
+		processor.setProperty("packages", "aQute.bnd.osgi,aQute.bnd.header,aQute.bnd.version,aQute.lib.io");
+		processor.setProperty("exports",
+			"${map;versioned;${filter;${split;,;${packages}};aQute\\.bnd\\..*}}");
+		processor.setProperty("versioned", "${1};version=${range;[==,+);${Bundle-Version}}");
+		macro = processor.getReplacer();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		processor.close();
+	}
+
+	@Benchmark
+	public String process() {
+		return macro.process("${exports} ${Bundle-Version} ${size;${packages}} ${sort;${packages}}");
+	}
+}
@@ -0,0 +1,44 @@
+package aQute.bnd.bench;
+
+import java.util.jar.Manifest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import aQute.bnd.header.OSGiHeader;
+import aQute.bnd.header.Parameters;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Jar;
+
+/**
+ * Parse the manifest headers of a bundle.
+ */
+@State(Scope.Benchmark)
+public class OSGiHeaderBenchmark {
+	String	exportPackage;
+	String	importPackage;
+
+	@Setup(Level.Trial)
+	public void setup(Fixtures fixtures) throws Exception {
+		try (Jar jar = new Jar(fixtures.bundles.get(0))) {
+			Manifest manifest = jar.getManifest();
+			exportPackage = manifest.getMainAttributes()
+				.getValue(Constants.EXPORT_PACKAGE);
+			importPackage = manifest.getMainAttributes()
+				.getValue(Constants.IMPORT_PACKAGE);
+		}
+	}
+
+	@Benchmark
+	public Parameters parseExportPackage() {
+		return OSGiHeader.parseHeader(exportPackage);
+	}
+
+	@Benchmark
+	public Parameters parseImportPackage() {
+		return OSGiHeader.parseHeader(importPackage);
+	}
+}
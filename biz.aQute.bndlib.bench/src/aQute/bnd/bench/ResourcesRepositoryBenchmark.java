@@ -0,0 +1,40 @@
+package aQute.bnd.bench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.repository.ResourcesRepository;
+
+/**
+ * Find the providers of all the requirements of the fixtures.
+ */
+@State(Scope.Benchmark)
+public class ResourcesRepositoryBenchmark {
+	ResourcesRepository	repository;
+	List<Requirement>	requirements;
+
+	@Setup(Level.Trial)
+	public void setup(Fixtures fixtures) {
+		repository = new ResourcesRepository(fixtures.resources);
+		requirements = new ArrayList<>();
+		for (Resource resource : fixtures.resources) {
+			requirements.addAll(resource.getRequirements(null));
+		}
+	}
+
+	@Benchmark
+	public Map<Requirement, Collection<Capability>> findProviders() {
+		return repository.findProviders(requirements);
+	}
+}
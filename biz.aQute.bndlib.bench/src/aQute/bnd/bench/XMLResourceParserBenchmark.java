@@ -0,0 +1,19 @@
+package aQute.bnd.bench;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.repository.XMLResourceParser;
+
+/**
+ * Parse the index of the fixtures.
+ */
+public class XMLResourceParserBenchmark {
+
+	@Benchmark
+	public List<Resource> parse(Fixtures fixtures) throws Exception {
+		return XMLResourceParser.getResources(fixtures.index);
+	}
+}
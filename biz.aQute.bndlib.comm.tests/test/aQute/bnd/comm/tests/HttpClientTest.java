@@ -2,18 +2,21 @@ package aQute.bnd.comm.tests;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.ByteBuffer;
+import java.security.KeyStore;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +26,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -495,6 +502,128 @@ public class HttpClientTest {
 		}
 	}
 
+	@Test
+	public void testHttp2ClearCacheOn404(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		try (HttpClient hc = new HttpClient();) {
+			hc.http2(true);
+			hc.setCache(tmp);
+			URLCache cache = hc.cache();
+
+			URI cheshire = httpServer.getBaseURI("cheshire");
+			TaggedData tag = hc.build()
+				.useCache()
+				.retries(0)
+				.asTag()
+				.go(cheshire);
+			assertNotNull(tag);
+			assertEquals(200, tag.getResponseCode());
+			assertThat(tag.getConnection()
+				.getClass()
+				.getSimpleName()).isEqualTo("Http2Connection");
+			assertThat(cache.isCached(cheshire)).isTrue();
+
+			httpServer.second = true;
+
+			tag = hc.build()
+				.useCache()
+				.retries(0)
+				.asTag()
+				.go(cheshire);
+			assertNotNull(tag);
+			assertEquals(404, tag.getResponseCode());
+			assertThat(tag.getConnection()
+				.getClass()
+				.getSimpleName()).isEqualTo("Http2Connection");
+			assertThat(cache.isCached(cheshire)).isFalse();
+		}
+	}
+
+	@Test
+	public void testHttp2WithHttpsVerification(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		try (Processor p = new Processor()) {
+			p.setProperty("-connection-http2", "true");
+			p.setProperty("-connection-settings", "server;id=\"" + httpsServer.getBaseURI() + "\";verify=" + true
+				+ ";trust=\"" + Strings.join(httpsServer.getTrustedCertificateFiles(tmp)) + "\"");
+			HttpClient client = new HttpClient();
+			client.setReporter(p);
+			ConnectionSettings cs = new ConnectionSettings(p, client);
+			cs.readSettings();
+
+			// the trust anchors of the server need the HttpURLConnection
+			TaggedData go = client.build()
+				.asTag()
+				.go(httpsServer.getBaseURI("get/foo"));
+			assertEquals(200, go.getResponseCode());
+			assertThat(go.getConnection()
+				.getClass()
+				.getSimpleName()).isNotEqualTo("Http2Connection");
+			assertThat(IO.collect(go.getInputStream())).contains("foo");
+
+			// the other requests use the JDK client
+			TaggedData go2 = client.build()
+				.asTag()
+				.go(httpServer.getBaseURI("get/foo"));
+			assertEquals(200, go2.getResponseCode());
+			assertThat(go2.getConnection()
+				.getClass()
+				.getSimpleName()).isEqualTo("Http2Connection");
+			assertThat(IO.collect(go2.getInputStream())).contains("foo");
+		}
+	}
+
+	@Test
+	public void testHttp2WithTls() throws Exception {
+		// the JDK client trusts the server through the default SSL context
+		KeyStore keystore = KeyStore.getInstance(KeyStore.getDefaultType());
+		keystore.load(null, null);
+		keystore.setCertificateEntry("server", httpsServer.getCertificateChain()[0]);
+		TrustManagerFactory trustManagerFactory = TrustManagerFactory
+			.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagerFactory.init(keystore);
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(null, trustManagerFactory.getTrustManagers(), null);
+
+		SSLContext previous = SSLContext.getDefault();
+		SSLContext.setDefault(context);
+		try (HttpClient client = new HttpClient()) {
+			client.http2(true);
+			TaggedData go = client.build()
+				.asTag()
+				.go(httpsServer.getBaseURI("get/foo"));
+			assertEquals(200, go.getResponseCode());
+			assertThat(go.getConnection()
+				.getClass()
+				.getSimpleName()).isEqualTo("Http2Connection");
+			assertThat(((HttpsURLConnection) go.getConnection()).getServerCertificates())
+				.containsExactly(httpsServer.getCertificateChain());
+			assertThat(IO.collect(go.getInputStream())).contains("foo");
+		} finally {
+			SSLContext.setDefault(previous);
+		}
+	}
+
+	@Test
+	public void testHttp2ReadTimeout() throws Exception {
+		try (HttpClient client = new HttpClient()) {
+			client.http2(true);
+			// the headers arrive, the end of the body is sent very slowly
+			TaggedData tag = client.build()
+				.retries(0)
+				.asTag()
+				.timeout(1000)
+				.go(httpServer.getBaseURI("timeout/10000"));
+			assertEquals(200, tag.getResponseCode());
+			assertThat(tag.getConnection()
+				.getClass()
+				.getSimpleName()).isEqualTo("Http2Connection");
+			long start = System.nanoTime();
+			assertThatExceptionOfType(IOException.class).isThrownBy(() -> IO.collect(tag.getInputStream()));
+			assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000L);
+		}
+	}
+
 	@Test
 	public void testCancel() throws Exception {
 		final long deadline = System.currentTimeMillis() + 1000L;
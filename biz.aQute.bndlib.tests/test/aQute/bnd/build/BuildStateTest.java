@@ -0,0 +1,49 @@
+package aQute.bnd.build;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.build.BuildState.Fingerprints;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class BuildStateTest {
+
+	@Test
+	public void testSameFileName(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File a = IO.getFile(tmp, "a/foo.jar");
+		File b = IO.getFile(tmp, "b/foo.jar");
+		IO.mkdirs(a.getParentFile());
+		IO.mkdirs(b.getParentFile());
+		IO.store("a", a);
+		IO.store("b", b);
+
+		Fingerprints fingerprints = new Fingerprints();
+		String digestA = fingerprints.digest(a);
+		String digestB = fingerprints.digest(b);
+		assertThat(digestA).isNotEqualTo(digestB);
+		assertThat(fingerprints.digest(IO.getFile(tmp, "b/../a/foo.jar"))).isEqualTo(digestA);
+		assertThat(fingerprints.size()).isEqualTo(2);
+
+		IO.store("changed", a);
+		assertThat(a.setLastModified(a.lastModified() + 10_000L)).isTrue();
+		assertThat(fingerprints.digest(a)).isNotEqualTo(digestA);
+		assertThat(fingerprints.digest(IO.getFile(tmp, "c/foo.jar"))).isNull();
+	}
+
+	@Test
+	public void testBounded(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File file = IO.getFile(tmp, "file");
+		IO.store("file", file);
+		Fingerprints fingerprints = new Fingerprints();
+		for (int i = 0; i < Fingerprints.MAX_FILES + 10; i++) {
+			fingerprints.digest(IO.getFile(tmp, "d" + i + "/../file"));
+		}
+		assertThat(fingerprints.size()).isEqualTo(1);
+	}
+}
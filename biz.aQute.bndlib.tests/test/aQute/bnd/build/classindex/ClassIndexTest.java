@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
@@ -196,4 +197,49 @@ public class ClassIndexTest {
 			.as("simple name")
 			.isEqualTo(expected);
 	}
+
+	@Test
+	public void classIndex_persistentIndex_Test() throws Exception {
+		Project pr = ws.createProject("test");
+		File bin = pr.getSrcOutput();
+		File dst = new File(bin, CLASS);
+		IO.mkdirs(dst);
+		File parentBin_test = new File("bin_test");
+		IO.copy(new File(parentBin_test, CLASS), dst);
+
+		pr.setExportPackage(Abc.class.getPackage()
+			.getName());
+		pr.build();
+
+		softly.assertThat(search("aQute.bnd.build.classindex.pa", "Abc"))
+			.as("split match")
+			.containsOnlyKeys(Abc.class.getName());
+
+		File[] indexes = ws.getCache("classindex")
+			.listFiles();
+		softly.assertThat(indexes)
+			.as("class index")
+			.hasSize(1);
+		softly.assertThat(IO.collect(indexes[0]))
+			.as("class index content")
+			.contains(CLASS);
+
+		// a new class index answers from the stored index without opening
+		// the bundle, the classes of a bundle that were not searched for a
+		// long time are pruned
+		IO.store(IO.collect(indexes[0]) + "aQute/bnd/build/classindex/pa/Xyz.class\n", indexes[0]);
+		File unused = new File(indexes[0].getParentFile(), "0123456789abcdef");
+		IO.store(CLASS, unused);
+		unused.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(60));
+		ws.refresh();
+		softly.assertThat(unused)
+			.as("pruned index")
+			.doesNotExist();
+		softly.assertThat(indexes[0])
+			.as("used index")
+			.exists();
+		softly.assertThat(search("aQute.bnd.build.classindex.pa", "Xyz"))
+			.as("stored index")
+			.containsOnlyKeys("aQute.bnd.build.classindex.pa.Xyz");
+	}
 }
@@ -0,0 +1,147 @@
+package aQute.bnd.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+import aQute.bnd.http.HttpClient.Statistics;
+import aQute.bnd.http.HttpRequest.Priority;
+
+public class DownloadSchedulerTest {
+	final PromiseFactory				promiseFactory	= new PromiseFactory(PromiseFactory.inlineExecutor());
+	final Map<String, Deferred<String>>	started			= new LinkedHashMap<>();
+
+	@Test
+	public void testLimitPerHost() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(promiseFactory, 10, 2);
+		List<Promise<String>> promises = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			promises.add(submit(scheduler, "http://a", Priority.NORMAL, "a" + i));
+		}
+		submit(scheduler, "http://b", Priority.NORMAL, "b0");
+		assertThat(started).containsOnlyKeys("a0", "a1", "b0");
+
+		finish("a1");
+		assertThat(promises.get(1)
+			.getValue()).isEqualTo("a1");
+		assertThat(started).containsOnlyKeys("a0", "a1", "b0", "a2");
+		assertThat(promises.get(2)
+			.isDone()).isFalse();
+
+		Statistics statistics = scheduler.statistics();
+		assertThat(statistics.queued()).isEqualTo(1);
+		assertThat(statistics.running()).isEqualTo(3);
+		assertThat(statistics.started()).isEqualTo(4);
+		assertThat(statistics.completed()).isEqualTo(1);
+	}
+
+	@Test
+	public void testLimitTotal() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(promiseFactory, 2, 0);
+		submit(scheduler, "http://a", Priority.NORMAL, "a0");
+		submit(scheduler, "http://b", Priority.NORMAL, "b0");
+		submit(scheduler, "http://c", Priority.NORMAL, "c0");
+		assertThat(started).containsOnlyKeys("a0", "b0");
+
+		finish("b0");
+		assertThat(started).containsOnlyKeys("a0", "b0", "c0");
+
+		scheduler.maxConnections(0);
+		submit(scheduler, "http://c", Priority.NORMAL, "c1");
+		submit(scheduler, "http://c", Priority.NORMAL, "c2");
+		assertThat(started).containsKeys("c1", "c2");
+	}
+
+	@Test
+	public void testPriority() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(promiseFactory, 1, 1);
+		submit(scheduler, "http://a", Priority.NORMAL, "first");
+		submit(scheduler, "http://a", Priority.LOW, "low");
+		submit(scheduler, "http://b", Priority.NORMAL, "normal");
+		submit(scheduler, "http://a", Priority.HIGH, "high");
+
+		finish("first");
+		finish("high");
+		finish("normal");
+		assertThat(started).containsOnlyKeys("first", "high", "normal", "low");
+		assertThat(new ArrayList<>(started.keySet())).containsExactly("first", "high", "normal", "low");
+	}
+
+	@Test
+	public void testHostsTakeTurns() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(promiseFactory, 1, 0);
+		for (int i = 0; i < 3; i++) {
+			submit(scheduler, "http://a", Priority.NORMAL, "a" + i);
+		}
+		submit(scheduler, "http://b", Priority.NORMAL, "b0");
+		submit(scheduler, "http://b", Priority.NORMAL, "b1");
+
+		finish("a0");
+		finish("b0");
+		finish("a1");
+		finish("b1");
+		assertThat(new ArrayList<>(started.keySet())).containsExactly("a0", "b0", "a1", "b1", "a2");
+	}
+
+	@Test
+	public void testFailedConnectionFreesSlot() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(promiseFactory, 1, 1);
+		Promise<String> failed = scheduler.submit("http://a", Priority.NORMAL, release -> {
+			throw new IllegalStateException("failed");
+		});
+		assertThat(failed.getFailure()).isInstanceOf(IllegalStateException.class);
+
+		submit(scheduler, "http://a", Priority.NORMAL, "a0");
+		started.get("a0")
+			.fail(new Exception("a0"));
+		submit(scheduler, "http://a", Priority.NORMAL, "a1");
+		assertThat(started).containsKeys("a1");
+		assertThat(scheduler.statistics()
+			.completed()).isEqualTo(2);
+	}
+
+	@Test
+	public void testSlotHeldUntilReleased() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler(promiseFactory, 1, 1);
+		List<Runnable> releases = new ArrayList<>();
+		Promise<String> streamed = scheduler.submit("http://a", Priority.NORMAL, release -> {
+			releases.add(release);
+			return promiseFactory.resolved("streamed");
+		});
+		assertThat(streamed.getValue()).isEqualTo("streamed");
+
+		submit(scheduler, "http://a", Priority.NORMAL, "a0");
+		assertThat(started).isEmpty();
+
+		releases.get(0)
+			.run();
+		releases.get(0)
+			.run();
+		assertThat(started).containsOnlyKeys("a0");
+		Statistics statistics = scheduler.statistics();
+		assertThat(statistics.running()).isEqualTo(1);
+		assertThat(statistics.completed()).isEqualTo(1);
+	}
+
+	private Promise<String> submit(DownloadScheduler scheduler, String host, Priority priority, String name) {
+		return scheduler.submit(host, priority, release -> {
+			Deferred<String> deferred = promiseFactory.deferred();
+			started.put(name, deferred);
+			return deferred.getPromise()
+				.onResolve(release);
+		});
+	}
+
+	private void finish(String name) {
+		started.get(name)
+			.resolve(name);
+	}
+}
@@ -0,0 +1,112 @@
+package aQute.bnd.osgi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+public class ExpansionCacheTest {
+
+	@Test
+	public void testChangeInvalidates() throws Exception {
+		try (Processor parent = new Processor(); Processor child = new Processor(parent)) {
+			parent.setProperty("a", "1");
+			child.setProperty("b", "${a}-x");
+			assertThat(child.getProperty("b")).isEqualTo("1-x");
+			assertThat(child.getProperty("b")).isEqualTo("1-x");
+
+			parent.setProperty("a", "2");
+			assertThat(child.getProperty("b")).isEqualTo("2-x");
+
+			child.getProperties()
+				.put("a", "3");
+			assertThat(child.getProperty("b")).isEqualTo("3-x");
+
+			child.getProperties()
+				.remove("a");
+			assertThat(child.getProperty("b")).isEqualTo("2-x");
+
+			try (Processor other = new Processor()) {
+				other.setProperty("a", "4");
+				child.setParent(other);
+				assertThat(child.getProperty("b")).isEqualTo("4-x");
+			}
+		}
+	}
+
+	@Test
+	public void testViewChangeInvalidates() throws Exception {
+		try (Processor parent = new Processor(); Processor child = new Processor(parent)) {
+			parent.setProperty("a", "1");
+			child.setProperty("b", "${a}-x");
+			assertThat(child.getProperty("b")).isEqualTo("1-x");
+
+			parent.getProperties()
+				.entrySet()
+				.forEach(e -> e.setValue("2"));
+			assertThat(child.getProperty("b")).isEqualTo("2-x");
+
+			child.getProperties()
+				.put("a", "3");
+			assertThat(child.getProperty("b")).isEqualTo("3-x");
+			child.getProperties()
+				.keySet()
+				.remove("a");
+			assertThat(child.getProperty("b")).isEqualTo("2-x");
+
+			child.getProperties()
+				.put("a", "4");
+			assertThat(child.getProperty("b")).isEqualTo("4-x");
+			child.getProperties()
+				.values()
+				.removeIf("4"::equals);
+			assertThat(child.getProperty("b")).isEqualTo("2-x");
+		}
+	}
+
+	@Test
+	public void testParentStateInvalidates() throws Exception {
+		try (Processor top = new Processor(); Processor parent = new Processor(top);
+			Processor child = new Processor(parent)) {
+			AtomicInteger expansions = new AtomicInteger();
+			Function<String, String> expand = k -> k + expansions.incrementAndGet();
+			assertThat(child.expansions.get("a", expand)).isEqualTo("a1");
+			assertThat(child.expansions.get("a", expand)).isEqualTo("a1");
+
+			parent.setForceLocal(List.of("a"));
+			assertThat(child.expansions.get("a", expand)).isEqualTo("a2");
+
+			top.propertiesChanged();
+			assertThat(child.expansions.get("a", expand)).isEqualTo("a3");
+			assertThat(child.expansions.get("a", expand)).isEqualTo("a3");
+		}
+	}
+
+	@Test
+	public void testUncacheableMacros() throws Exception {
+		try (Processor p = new Processor()) {
+			p.setProperty("counter", "${sum;1,2}");
+			p.setProperty("time", "${currenttime}");
+			assertThat(p.getProperty("counter")).isEqualTo("3");
+
+			String first = p.getProperty("time");
+			Thread.sleep(5);
+			assertThat(p.getProperty("time")).isNotEqualTo(first);
+		}
+	}
+
+	@Test
+	public void testWarningsReported() throws Exception {
+		try (Processor p = new Processor()) {
+			p.setProperty("x", "${unknown-macro}");
+			p.getProperty("x");
+			assertThat(p.getWarnings()).hasSize(1);
+			p.clear();
+			p.getProperty("x");
+			assertThat(p.getWarnings()).hasSize(1);
+		}
+	}
+}
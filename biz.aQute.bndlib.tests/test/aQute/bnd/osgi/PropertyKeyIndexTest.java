@@ -0,0 +1,62 @@
+package aQute.bnd.osgi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class PropertyKeyIndexTest {
+
+	@Test
+	public void testPrefix() {
+		assertThat(new Instruction("-buildpath.*").getPrefix()).isEqualTo("-buildpath");
+		assertThat(new Instruction("-runbundles+*").getPrefix()).isEqualTo("-runbundles");
+		assertThat(new Instruction("a.b*c").getPrefix()).isEqualTo("a.b");
+		assertThat(new Instruction("!foo*").getPrefix()).isEqualTo("foo");
+		assertThat(new Instruction("*").getPrefix()).isEqualTo("");
+		assertThat(new Instruction("a*|b*").getPrefix()).isEqualTo("");
+		assertThat(new Instruction("foo*:i").getPrefix()).isEqualTo("");
+		assertThat(new Instruction("{a,b}*").getPrefix()).isEqualTo("");
+	}
+
+	@Test
+	public void testMergeProperties() throws Exception {
+		try (Processor parent = new Processor(); Processor child = new Processor(parent)) {
+			parent.setProperty("-buildpath", "p0");
+			parent.setProperty("-buildpath.a", "p1");
+			parent.setProperty("-buildpathx", "p2");
+			parent.setProperty("-build", "p3");
+			child.setProperty("-buildpath.a", "c1");
+			child.setProperty("-buildpath.b", "c2");
+			child.setProperty("-runbundles+", "c3");
+
+			for (String wildcard : List.of("-buildpath.*", "-build*", "-b*", "*", "-buildpath.*|-runbundles*",
+				"-BUILDPATH*:i", "!-buildpath*", "-runbundles+*")) {
+				assertThat(child.getProperty(wildcard)).as(wildcard)
+					.isEqualTo(expected(child, wildcard));
+			}
+			assertThat(child.mergeProperties("-buildpath")).isEqualTo("p0,c1,c2");
+			assertThat(child.mergeLocalProperties("-buildpath")).isEqualTo("c1,c2");
+
+			child.getProperties()
+				.put("-buildpath.c", "c4");
+			parent.getProperties()
+				.remove("-buildpathx");
+			assertThat(child.mergeProperties("-buildpath")).isEqualTo("p0,c1,c2,c4");
+
+			child.setForceLocal(List.of("-buildpath"));
+			assertThat(child.mergeProperties("-buildpath")).isEqualTo("c1,c2,c4");
+		}
+	}
+
+	private static String expected(Processor p, String wildcard) {
+		Instruction ins = new Instruction(wildcard);
+		return p.stream()
+			.filter(ins::matches)
+			.sorted()
+			.map(p::getProperty)
+			.collect(Collectors.joining(","));
+	}
+}
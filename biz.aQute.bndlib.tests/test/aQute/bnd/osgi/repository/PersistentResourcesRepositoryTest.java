@@ -0,0 +1,116 @@
+package aQute.bnd.osgi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.RequirementBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.service.resource.SupportingResource;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class PersistentResourcesRepositoryTest {
+
+	@Test
+	public void testReload(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File dir = new File(tmp, "cache");
+		File osgi = IO.copy(IO.getFile("jar/osgi.jar"), new File(tmp, "osgi.jar"));
+		File ds = IO.copy(IO.getFile("jar/ds.jar"), new File(tmp, "ds.jar"));
+		Resource expected = ResourceBuilder.parse(osgi, osgi.toURI());
+
+		try (PersistentResourcesRepository repository = new PersistentResourcesRepository(dir)) {
+			SupportingResource resource = repository.getResource(osgi);
+			assertThat(resource).isEqualTo(expected);
+			assertThat(repository.getResource(osgi)).isSameAs(resource);
+			repository.getResource(ds);
+			assertThat(repository.getResources()).hasSize(2);
+		}
+
+		try (PersistentResourcesRepository repository = new PersistentResourcesRepository(dir)) {
+			List<Resource> resources = repository.getResources();
+			assertThat(resources).hasSize(2)
+				.contains(expected);
+			SupportingResource resource = repository.getResource(osgi);
+			assertThat(resources).contains(resource);
+			assertThat(resource).isEqualTo(expected);
+			assertThat(ResourceUtils.getContentCapability(resource)
+				.osgi_content()).isEqualTo(ResourceUtils.getContentCapability(expected)
+					.osgi_content());
+
+			Requirement requirement = new RequirementBuilder(PackageNamespace.PACKAGE_NAMESPACE)
+				.addFilter("(osgi.wiring.package=org.osgi.framework)")
+				.buildSyntheticRequirement();
+			Map<Requirement, Collection<Capability>> providers = repository.findProviders(List.of(requirement));
+			assertThat(providers.get(requirement)).isNotEmpty();
+		}
+	}
+
+	@Test
+	public void testStaleEntries(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File dir = new File(tmp, "cache");
+		File osgi = IO.copy(IO.getFile("jar/osgi.jar"), new File(tmp, "osgi.jar"));
+		File ds = IO.copy(IO.getFile("jar/ds.jar"), new File(tmp, "ds.jar"));
+
+		try (PersistentResourcesRepository repository = new PersistentResourcesRepository(dir)) {
+			repository.getResource(osgi);
+			repository.getResource(ds);
+		}
+
+		IO.delete(ds);
+		assertThat(osgi.setLastModified(osgi.lastModified() - 10_000L)).isTrue();
+
+		try (PersistentResourcesRepository repository = new PersistentResourcesRepository(dir)) {
+			assertThat(repository.getResources()).isEmpty();
+			SupportingResource resource = repository.getResource(osgi);
+			assertThat(repository.getResources()).containsExactly(resource);
+
+			assertThat(osgi.setLastModified(osgi.lastModified() - 10_000L)).isTrue();
+			repository.refresh();
+			assertThat(repository.getResources()).isEmpty();
+
+			repository.getResource(osgi);
+			assertThat(repository.remove(osgi)).isTrue();
+			assertThat(repository.remove(osgi)).isFalse();
+			assertThat(repository.getResources()).isEmpty();
+		}
+	}
+
+	@Test
+	public void testConcurrentParse(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File dir = new File(tmp, "cache");
+		File osgi = IO.copy(IO.getFile("jar/osgi.jar"), new File(tmp, "osgi.jar"));
+		Resource expected = ResourceBuilder.parse(osgi, osgi.toURI());
+
+		try (PersistentResourcesRepository repository = new PersistentResourcesRepository(dir)) {
+			List<Callable<SupportingResource>> tasks = Collections.nCopies(8, () -> repository.getResource(osgi));
+			ExecutorService executor = Executors.newFixedThreadPool(8);
+			try {
+				for (Future<SupportingResource> future : executor.invokeAll(tasks)) {
+					assertThat(future.get()).isEqualTo(expected);
+				}
+			} finally {
+				executor.shutdown();
+			}
+			assertThat(repository.getResources()).hasSize(1);
+		}
+	}
+}
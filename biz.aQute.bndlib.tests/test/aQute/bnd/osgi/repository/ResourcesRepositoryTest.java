@@ -0,0 +1,133 @@
+package aQute.bnd.osgi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.namespace.IdentityNamespace;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.namespace.service.ServiceNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.CapabilityBuilder;
+import aQute.bnd.osgi.resource.RequirementBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.osgi.resource.ResourceUtils;
+
+public class ResourcesRepositoryTest {
+
+	@Test
+	public void testPinnedPackage() throws Exception {
+		Resource a = resource("a", "com.example.a", "com.example.b");
+		Resource b = resource("b", "com.example.b");
+		Resource c = resource("c", "com.example.c");
+		ResourcesRepository repository = new ResourcesRepository(List.of(a, b, c));
+
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=com.example.b)"))
+			.containsExactly(a, b);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE,
+			"(&(osgi.wiring.package=com.example.b)(version>=1.0))")).containsExactly(a, b);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE,
+			"(&(osgi.wiring.package=com.example.b)(version>=2.0))")).isEmpty();
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE,
+			"(|(osgi.wiring.package=com.example.c)(osgi.wiring.package=com.example.a))")).containsExactly(a, c);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=com.example.x)"))
+			.isEmpty();
+	}
+
+	@Test
+	public void testUnpinnedFallsBackToScan() throws Exception {
+		Resource a = resource("a", "com.example.a");
+		Resource b = resource("b", "com.example.b");
+		ResourcesRepository repository = new ResourcesRepository(List.of(a, b));
+
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=com.example.*)"))
+			.containsExactly(a, b);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(!(osgi.wiring.package=com.example.a))"))
+			.containsExactly(b);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE,
+			"(|(osgi.wiring.package=com.example.a)(version>=1.0))")).containsExactly(a, b);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, null)).containsExactly(a, b);
+		assertThat(providers(repository, IdentityNamespace.IDENTITY_NAMESPACE, "(osgi.identity=b)"))
+			.containsExactly(b);
+	}
+
+	@Test
+	public void testMultiValuedAttribute() throws Exception {
+		ResourceBuilder rb = new ResourceBuilder();
+		rb.addCapability(new CapabilityBuilder(ServiceNamespace.SERVICE_NAMESPACE)
+			.addAttribute(ServiceNamespace.CAPABILITY_OBJECTCLASS_ATTRIBUTE, List.of("com.example.Foo", "com.example.Bar")));
+		Resource service = rb.build();
+		ResourcesRepository repository = new ResourcesRepository(service);
+
+		assertThat(providers(repository, ServiceNamespace.SERVICE_NAMESPACE, "(objectClass=com.example.Bar)"))
+			.containsExactly(service);
+		assertThat(providers(repository, ServiceNamespace.SERVICE_NAMESPACE,
+			"(|(objectClass=com.example.Foo)(objectClass=com.example.Bar))")).containsExactly(service);
+		assertThat(providers(repository, ServiceNamespace.SERVICE_NAMESPACE, "(objectClass=com.example.Baz)"))
+			.isEmpty();
+	}
+
+	@Test
+	public void testIndexFollowsChanges() throws Exception {
+		Resource a = resource("a", "com.example.a");
+		Resource b = resource("b", "com.example.a");
+		ResourcesRepository repository = new ResourcesRepository(a);
+		repository.add(a);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=com.example.a)"))
+			.containsExactly(a);
+
+		repository.add(b);
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=com.example.a)"))
+			.containsExactly(a, b);
+
+		repository.set(List.of(b));
+		assertThat(providers(repository, PackageNamespace.PACKAGE_NAMESPACE, "(osgi.wiring.package=com.example.a)"))
+			.containsExactly(b);
+	}
+
+	@Test
+	public void testFilterEqualityValues() {
+		assertThat(ResourceUtils.filterEqualityValues("(&(osgi.wiring.package=a)(version>=1.0))",
+			PackageNamespace.PACKAGE_NAMESPACE)).containsExactly("a");
+		assertThat(ResourceUtils.filterEqualityValues("(|(osgi.wiring.package=a)(osgi.wiring.package=b))",
+			PackageNamespace.PACKAGE_NAMESPACE)).containsExactly("a", "b");
+		assertThat(ResourceUtils.filterEqualityValues("(|(osgi.wiring.package=a)(version>=1.0))",
+			PackageNamespace.PACKAGE_NAMESPACE)).isEmpty();
+		assertThat(ResourceUtils.filterEqualityValues("(osgi.wiring.package>=a)", PackageNamespace.PACKAGE_NAMESPACE))
+			.isEmpty();
+		assertThat(ResourceUtils.filterEqualityValues("(!(osgi.wiring.package=a))", PackageNamespace.PACKAGE_NAMESPACE))
+			.isEmpty();
+		assertThat(ResourceUtils.filterEqualityValues("(osgi.wiring.package=a*)", PackageNamespace.PACKAGE_NAMESPACE))
+			.isEmpty();
+		assertThat(ResourceUtils.filterEqualityValues(null, PackageNamespace.PACKAGE_NAMESPACE)).isEmpty();
+	}
+
+	private static Resource resource(String bsn, String... packages) throws Exception {
+		ResourceBuilder rb = new ResourceBuilder();
+		rb.addCapability(new CapabilityBuilder(IdentityNamespace.IDENTITY_NAMESPACE)
+			.addAttribute(IdentityNamespace.IDENTITY_NAMESPACE, bsn));
+		for (String pkg : packages) {
+			rb.addCapability(new CapabilityBuilder(PackageNamespace.PACKAGE_NAMESPACE)
+				.addAttribute(PackageNamespace.PACKAGE_NAMESPACE, pkg)
+				.addAttribute(PackageNamespace.CAPABILITY_VERSION_ATTRIBUTE, "1.0.0"));
+		}
+		return rb.build();
+	}
+
+	private static List<Resource> providers(ResourcesRepository repository, String namespace, String filter) {
+		RequirementBuilder builder = new RequirementBuilder(namespace);
+		if (filter != null) {
+			builder.addFilter(filter);
+		}
+		Requirement requirement = builder.buildSyntheticRequirement();
+		List<Capability> capabilities = repository.findProvider(requirement);
+		return capabilities.stream()
+			.map(Capability::getResource)
+			.distinct()
+			.toList();
+	}
+}
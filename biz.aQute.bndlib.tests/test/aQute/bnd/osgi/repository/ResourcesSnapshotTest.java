@@ -0,0 +1,95 @@
+package aQute.bnd.osgi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class ResourcesSnapshotTest {
+
+	@Test
+	public void testRoundTrip(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(IO.getFile("testresources/xmlrepo/older.xml"));
+		assertThat(resources).isNotEmpty();
+
+		File snapshot = new File(tmp, "snapshot/older.bin");
+		ResourcesSnapshot.write(snapshot, "key", resources);
+
+		List<Resource> read = ResourcesSnapshot.read(snapshot, "key");
+		assertThat(read).isEqualTo(resources);
+		for (int i = 0; i < resources.size(); i++) {
+			assertThat(read.get(i)
+				.getCapabilities(null)).isEqualTo(resources.get(i)
+					.getCapabilities(null));
+			assertThat(read.get(i)
+				.getRequirements(null)).isEqualTo(resources.get(i)
+					.getRequirements(null));
+		}
+	}
+
+	@Test
+	public void testKeyMismatch(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(IO.getFile("testresources/xmlrepo/newer.xml"));
+		File snapshot = new File(tmp, "newer.bin");
+
+		assertThat(ResourcesSnapshot.read(snapshot, "key")).isNull();
+
+		ResourcesSnapshot.write(snapshot, "key", resources);
+		assertThat(ResourcesSnapshot.read(snapshot, "other")).isNull();
+
+		IO.store("damaged", snapshot);
+		assertThat(ResourcesSnapshot.read(snapshot, "key")).isNull();
+	}
+
+	@Test
+	public void testDamagedLength(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(IO.getFile("testresources/xmlrepo/newer.xml"));
+		File snapshot = new File(tmp, "newer.bin");
+		ResourcesSnapshot.write(snapshot, "key", resources);
+
+		byte[] bytes = IO.read(snapshot);
+		// the size of the table and the length of the first string in it
+		int offset = 4 + 4 + 4 + "key".length();
+		for (int i : new int[] {
+			offset, offset + 4
+		}) {
+			byte[] damaged = bytes.clone();
+			ByteBuffer.wrap(damaged)
+				.putInt(i, Integer.MAX_VALUE);
+			IO.write(damaged, snapshot);
+			assertThat(ResourcesSnapshot.read(snapshot, "key")).isNull();
+		}
+	}
+
+	@Test
+	public void testPrune(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(IO.getFile("testresources/xmlrepo/newer.xml"));
+		long now = System.currentTimeMillis();
+		File[] snapshots = new File[4];
+		for (int i = 0; i < snapshots.length; i++) {
+			snapshots[i] = new File(tmp, i + ".bin");
+			ResourcesSnapshot.write(snapshots[i], "key", resources);
+			snapshots[i].setLastModified(now - TimeUnit.DAYS.toMillis(i * 20L));
+		}
+		// reading marks a snapshot as used
+		assertThat(ResourcesSnapshot.read(snapshots[3], "key")).isNotNull();
+
+		ResourcesSnapshot.prune(tmp, TimeUnit.DAYS.toMillis(30), 2);
+		assertThat(snapshots[0]).isFile();
+		assertThat(snapshots[1]).doesNotExist();
+		assertThat(snapshots[2]).doesNotExist();
+		assertThat(snapshots[3]).isFile();
+	}
+}
@@ -0,0 +1,139 @@
+package aQute.bnd.osgi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Manifest;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.EmbeddedResource;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class SimpleIndexerTest {
+	private static final String[] JARS = {
+		"api-orig.jar", "api-consumerbump.jar", "api-providerbump.jar", "javax.json-api-1.1.3.jar",
+		"javax.json.bind-api-1.0.jar", "geronimo-jcdi_2.0_spec-1.1.jar", "osgi.annotation-7.0.0.jar"
+	};
+
+	private List<File> copyJars(File dir) throws Exception {
+		List<File> files = new ArrayList<>();
+		for (String jar : JARS) {
+			File file = IO.getFile(dir, jar);
+			IO.copy(IO.getFile("testresources/" + jar), file);
+			files.add(file);
+		}
+		return files;
+	}
+
+	private String index(SimpleIndexer indexer) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		indexer.increment(0L)
+			.index(out);
+		return out.toString("UTF-8");
+	}
+
+	@Test
+	public void testParallel(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		List<File> files = copyJars(tmp);
+		String sequential = index(new SimpleIndexer().files(files)
+			.base(tmp.toURI()));
+		String parallel = index(new SimpleIndexer().files(files)
+			.base(tmp.toURI())
+			.parallel(4));
+		assertThat(parallel).isEqualTo(sequential);
+		assertThat(sequential).contains("api-orig.jar", "javax.json.bind-api-1.0.jar");
+	}
+
+	@Test
+	public void testPrevious(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		List<File> files = copyJars(tmp);
+		File previous = IO.getFile(tmp, "index.xml");
+		Set<File> analyzed = ConcurrentHashMap.newKeySet();
+		new SimpleIndexer().files(files)
+			.base(tmp.toURI())
+			.analyzer((file, builder) -> analyzed.add(file))
+			.increment(0L)
+			.index(previous);
+		assertThat(analyzed).hasSize(JARS.length);
+
+		// unchanged files are not indexed again
+		analyzed.clear();
+		String reused = index(new SimpleIndexer().files(files)
+			.base(tmp.toURI())
+			.previous(previous)
+			.parallel(4)
+			.analyzer((file, builder) -> analyzed.add(file)));
+		assertThat(analyzed).isEmpty();
+		assertThat(reused).isEqualTo(IO.collect(previous));
+
+		// a touched file with the same content is not indexed again, a
+		// changed file is indexed again
+		File touched = files.get(0);
+		touched.setLastModified(previous.lastModified() + 10_000L);
+		File changed = files.get(1);
+		IO.copy(IO.getFile("testresources/api-orig.jar"), changed);
+		changed.setLastModified(previous.lastModified() + 10_000L);
+		analyzed.clear();
+		String incremental = index(new SimpleIndexer().files(files)
+			.base(tmp.toURI())
+			.previous(previous)
+			.analyzer((file, builder) -> analyzed.add(file)));
+		assertThat(analyzed).containsExactly(changed);
+		analyzed.clear();
+		String full = index(new SimpleIndexer().files(files)
+			.base(tmp.toURI())
+			.analyzer((file, builder) -> analyzed.add(file)));
+		assertThat(incremental).isEqualTo(full);
+		assertThat(full).isNotEqualTo(reused);
+	}
+
+	@Test
+	public void testPreviousSameSize(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File file = IO.getFile(tmp, "same.jar");
+		writeJar(file, "aaaa");
+		File previous = IO.getFile(tmp, "index.xml");
+		new SimpleIndexer().files(List.of(file))
+			.base(tmp.toURI())
+			.increment(0L)
+			.index(previous);
+
+		// a changed file of the same size that is older than the index is
+		// indexed again
+		writeJar(file, "bbbb");
+		file.setLastModified(previous.lastModified() - 10_000L);
+		Set<File> analyzed = ConcurrentHashMap.newKeySet();
+		String incremental = index(new SimpleIndexer().files(List.of(file))
+			.base(tmp.toURI())
+			.previous(previous)
+			.analyzer((f, builder) -> analyzed.add(f)));
+		assertThat(analyzed).containsExactly(file);
+		assertThat(incremental).isNotEqualTo(IO.collect(previous));
+	}
+
+	private void writeJar(File file, String content) throws Exception {
+		try (Jar jar = new Jar("same")) {
+			jar.setReproducible("true");
+			jar.setCompression(Jar.Compression.STORE);
+			Manifest manifest = new Manifest();
+			manifest.getMainAttributes()
+				.putValue("Manifest-Version", "1.0");
+			manifest.getMainAttributes()
+				.putValue(Constants.BUNDLE_SYMBOLICNAME, "same");
+			jar.setManifest(manifest);
+			jar.putResource("content.txt", new EmbeddedResource(content, 0L));
+			jar.write(file);
+		}
+	}
+}
@@ -127,6 +127,36 @@ public class AnalyzerTest {
 
 	}
 
+	/**
+	 * Parallel class file parsing must calculate the same manifest as the
+	 * sequential analysis
+	 */
+	@Test
+	public void testParallelAnalysis() throws Exception {
+		Manifest sequential = parallelAnalysis("false", false);
+		// force several workers, also on a machine with a single processor
+		Manifest parallel = parallelAnalysis("4", false);
+		assertThat(parallel.getMainAttributes()).isEqualTo(sequential.getMainAttributes());
+		assertThat(parallel.getEntries()).isEqualTo(sequential.getEntries());
+
+		sequential = parallelAnalysis("false", true);
+		parallel = parallelAnalysis("4", true);
+		assertThat(parallel.getMainAttributes()).isEqualTo(sequential.getMainAttributes());
+		assertThat(parallel.getEntries()).isEqualTo(sequential.getEntries());
+	}
+
+	private Manifest parallelAnalysis(String parallel, boolean noClassForName) throws Exception {
+		try (Analyzer a = new Analyzer(new Jar(IO.getFile("jar/osgi.jar")))) {
+			a.setProperty(Constants.PARALLELANALYSIS, parallel);
+			a.setProperty(Constants.NOCLASSFORNAME, Boolean.toString(noClassForName));
+			a.setProperty(Constants.EXPORT_PACKAGE, "*");
+			a.setProperty(Constants.NOEXTRAHEADERS, "true");
+			Manifest manifest = a.calcManifest();
+			assertTrue(a.check());
+			return manifest;
+		}
+	}
+
 	/**
 	 * #1352 support globbing during includeresource's buildpath reference
 	 * resolution
@@ -20,6 +20,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -62,6 +63,7 @@ import aQute.bnd.osgi.Packages;
 import aQute.bnd.osgi.Processor;
 import aQute.bnd.osgi.Resource;
 import aQute.bnd.osgi.Verifier;
+import aQute.bnd.service.AnalyzerPlugin;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.bnd.version.Version;
 import aQute.lib.collections.SortedList;
@@ -2372,6 +2374,136 @@ public class BuilderTest {
 		}
 	}
 
+	@Test
+	public void testParallelSub(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		String[] names = {
+			"e", "d", "c", "b", "a"
+		};
+		for (String name : names) {
+			IO.store("Bundle-SymbolicName: p." + name + "\nExport-Package: org.osgi.service.event\n",
+				IO.getFile(tmp, name + ".bnd"));
+		}
+		IO.store("Bundle-SymbolicName: p.f\nPrivate-Package: does.not.exist\n", IO.getFile(tmp, "f.bnd"));
+
+		try (Builder b = new Builder()) {
+			b.setBase(tmp);
+			b.setProperty(Constants.SUB, "e.bnd,d.bnd,c.bnd,b.bnd,a.bnd,f.bnd");
+			b.setProperty(Constants.PARALLELSUB, "true");
+			b.addClasspath(IO.getFile("jar/osgi.jar"));
+			Jar[] jars = b.builds();
+
+			assertThat(Stream.of(jars)
+				.map(Jar::getName)).containsExactly("p.e", "p.d", "p.c", "p.b", "p.a", "p.f");
+			for (int i = 0; i < names.length; i++) {
+				assertThat(jars[i].getResource("org/osgi/service/event/Event.class")).isNotNull();
+			}
+			assertThat(b.getWarnings()).hasSize(2)
+				.allMatch(w -> w.startsWith("p.f: "));
+		}
+	}
+
+	/**
+	 * A failure of a concurrently built sub builder is reported on the sub
+	 * builder and the callbacks are called in the order of the sub builders.
+	 */
+	@Test
+	public void testParallelSubFailure(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		String[] names = {
+			"a", "b", "c", "d"
+		};
+		for (String name : names) {
+			IO.store("Bundle-SymbolicName: p." + name + "\nExport-Package: org.osgi.service.event\n",
+				IO.getFile(tmp, name + ".bnd"));
+		}
+		List<String> callbacks = Collections.synchronizedList(new ArrayList<>());
+		try (Builder b = new Builder() {
+			@Override
+			protected void startBuild(Builder builder) throws Exception {
+				callbacks.add("start " + builder.getBsn());
+			}
+
+			@Override
+			protected void doneBuild(Builder builder) throws Exception {
+				callbacks.add("done " + builder.getBsn());
+			}
+		}) {
+			b.setBase(tmp);
+			b.setProperty(Constants.SUB, "a.bnd,b.bnd,c.bnd,d.bnd");
+			b.setProperty(Constants.PARALLELSUB, "true");
+			b.addClasspath(IO.getFile("jar/osgi.jar"));
+			b.addBasicPlugin((AnalyzerPlugin) analyzer -> {
+				if ("p.b".equals(analyzer.getBsn())) {
+					throw new AssertionError("failed p.b");
+				}
+				return false;
+			});
+			Jar[] jars = b.builds();
+
+			assertThat(Stream.of(jars)
+				.map(Jar::getName)).containsExactly("p.a", "p.c", "p.d");
+			assertThat(b.getErrors()).allMatch(e -> e.startsWith("p.b: "))
+				.anyMatch(e -> e.startsWith("p.b: Exception Building p.b"));
+			assertThat(callbacks.stream()
+				.filter(c -> c.startsWith("start"))).containsExactly("start p.a", "start p.b", "start p.c",
+					"start p.d");
+			assertThat(callbacks.stream()
+				.filter(c -> c.startsWith("done"))).containsExactly("done p.a", "done p.c", "done p.d");
+			for (String name : new String[] {
+				"p.a", "p.c", "p.d"
+			}) {
+				assertThat(callbacks.indexOf("start " + name)).isLessThan(callbacks.indexOf("done " + name));
+			}
+		}
+	}
+
+	/**
+	 * The sub builders share the classpath jars of the parent builder, also
+	 * when they are built concurrently.
+	 */
+	@Test
+	public void testParallelSubSharedClasspath(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		for (int i = 0; i < 8; i++) {
+			IO.store("Bundle-SymbolicName: p." + i + "\nExport-Package: org.osgi.service.*\n"
+				+ "Private-Package: org.objectweb.asm.*, org.eclipse.equinox.ds.model\n",
+				IO.getFile(tmp, i + ".bnd"));
+		}
+		for (boolean inMemory : new boolean[] {
+			false, true
+		}) {
+			List<Manifest> sequential = subManifests(tmp, "false", inMemory);
+			List<Manifest> parallel = subManifests(tmp, "true", inMemory);
+			assertThat(parallel).hasSize(8)
+				.isEqualTo(sequential);
+		}
+	}
+
+	private List<Manifest> subManifests(File tmp, String parallel, boolean inMemory) throws Exception {
+		try (Builder b = new Builder()) {
+			b.setBase(tmp);
+			b.setProperty(Constants.SUB, "*.bnd");
+			b.setProperty(Constants.PARALLELSUB, parallel);
+			b.setProperty(Constants.NOEXTRAHEADERS, "true");
+			b.addClasspath(IO.getFile("jar/osgi.jar"));
+			b.addClasspath(IO.getFile("jar/asm.jar"));
+			if (inMemory) {
+				Jar jar = new Jar("memory");
+				jar.putResource("memory/readme.txt", new EmbeddedResource("memory", 0L));
+				b.addClasspath(jar);
+			}
+			b.addClasspath(IO.getFile("jar/ds.jar"));
+			Jar[] jars = b.builds();
+			assertTrue(b.check());
+			List<Manifest> manifests = new ArrayList<>();
+			for (Jar jar : jars) {
+				manifests.add(jar.getManifest());
+			}
+			return manifests;
+		}
+	}
+
 	@Test
 	public void testConduit() throws Exception {
 		Properties p = new Properties();
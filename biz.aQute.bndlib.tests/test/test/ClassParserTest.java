@@ -17,10 +17,12 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -35,6 +37,7 @@ import aQute.bnd.osgi.Descriptors.PackageRef;
 import aQute.bnd.osgi.FileResource;
 import aQute.bnd.osgi.Jar;
 import aQute.bnd.service.Plugin;
+import aQute.bnd.service.classparser.ClassParser;
 import aQute.lib.io.IO;
 import aQute.service.reporter.Reporter;
 
@@ -145,6 +148,46 @@ public class ClassParserTest {
 		b.close();
 	}
 
+	/**
+	 * A class data collector is only dispatched the classes with the
+	 * annotations it is interested in.
+	 */
+	@Test
+	public void testRelevantAnnotations() throws Exception {
+		Set<String> annotated = new TreeSet<>();
+		Set<String> all = new TreeSet<>();
+		try (Builder b = new Builder()) {
+			b.addClasspath(IO.getFile("java8/type_annotations/bin"));
+			b.setExportPackage("reference.*");
+			b.addBasicPlugin((ClassParser) analyzer -> new ClassDataCollector() {
+				@Override
+				public Set<String> relevantAnnotations() {
+					return Collections.singleton("runtime.annotations.RuntimeTypeAnnotation");
+				}
+
+				@Override
+				public boolean classStart(Clazz c) {
+					annotated.add(c.getFQN());
+					return false;
+				}
+			});
+			b.addBasicPlugin((ClassParser) analyzer -> new ClassDataCollector() {
+				@Override
+				public boolean classStart(Clazz c) {
+					all.add(c.getFQN());
+					return false;
+				}
+			});
+			b.build();
+			assertTrue(b.check());
+		}
+		assertThat(annotated).containsExactly("reference.runtime.annotations.Foo",
+			"reference.runtime.annotations.ReferenceRuntime");
+		assertThat(all).contains("reference.invisible.annotations.ReferenceInvisible",
+			"reference.runtime.annotations.Bar", "reference.runtime.annotations.Foo",
+			"reference.runtime.annotations.ReferenceRuntime");
+	}
+
 	/**
 	 * https://jira.codehaus.org/browse/GROOVY-6169 There are several components
 	 * involved here, but the symptoms point to the Groovy compiler. Gradle uses
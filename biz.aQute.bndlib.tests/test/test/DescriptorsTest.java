@@ -2,6 +2,8 @@ package test;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.File;
+
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
 import org.junit.jupiter.api.Test;
@@ -9,9 +11,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import aQute.bnd.build.Workspace;
+import aQute.bnd.osgi.Analyzer;
 import aQute.bnd.osgi.Descriptors;
 import aQute.bnd.osgi.Descriptors.PackageRef;
 import aQute.bnd.osgi.Descriptors.TypeRef;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
 
 @ExtendWith(SoftAssertionsExtension.class)
 public class DescriptorsTest {
@@ -35,6 +41,46 @@ public class DescriptorsTest {
 
 	}
 
+	@Test
+	public void testSharedJavaReferences(SoftAssertions softly, @InjectTemporaryDirectory
+	File tmp) throws Exception {
+		Descriptors d1 = new Descriptors();
+		Descriptors d2 = new Descriptors();
+		softly.assertThat(d1.getTypeRef("java/lang/String"))
+			.isNotSameAs(d2.getTypeRef("java/lang/String"));
+
+		IO.copy(IO.getFile("testresources/ws"), tmp);
+		try (Workspace ws = new Workspace(tmp); Analyzer a1 = new Analyzer(ws); Analyzer a2 = new Analyzer(ws)) {
+			softly.assertThat(a1.getTypeRef("java/lang/String"))
+				.isNotSameAs(a2.getTypeRef("java/lang/String"));
+		}
+
+		File build = IO.getFile(tmp, "cnf/build.bnd");
+		IO.store(IO.collect(build) + "\n-shareddescriptors: true\n", build);
+		try (Workspace ws = new Workspace(tmp); Analyzer a1 = new Analyzer(ws); Analyzer a2 = new Analyzer(ws)) {
+			softly.assertThat(a1.getTypeRef("java/lang/String"))
+				.isSameAs(a2.getTypeRefFromFQN("java.lang.String"));
+			softly.assertThat(a1.getPackageRef("java.lang"))
+				.isSameAs(a2.getPackageRef("java/lang"))
+				.isSameAs(a1.getTypeRef("java/lang/String")
+					.getPackageRef());
+			softly.assertThat(a1.getTypeRef("[Ljava/lang/String;")
+				.getComponentTypeRef())
+				.isSameAs(a2.getTypeRef("java/lang/String"));
+
+			softly.assertThat(a1.getTypeRef("com/example/Foo"))
+				.isNotSameAs(a2.getTypeRef("com/example/Foo"))
+				.isSameAs(a1.getTypeRef("com/example/Foo"));
+			softly.assertThat(a1.getPackageRef("com.example"))
+				.isNotSameAs(a2.getPackageRef("com.example"));
+
+			try (Workspace other = new Workspace(tmp); Analyzer a3 = new Analyzer(other)) {
+				softly.assertThat(a3.getTypeRef("java/lang/String"))
+					.isNotSameAs(a1.getTypeRef("java/lang/String"));
+			}
+		}
+	}
+
 	@Test
 	public void testDetermine(SoftAssertions softly) {
 		softly.assertThat(Descriptors.determine("simple")
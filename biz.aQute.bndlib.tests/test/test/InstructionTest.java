@@ -354,4 +354,41 @@ public class InstructionTest {
 		assertThat(i.matches("com/foo/bar/baz")).isTrue();
 		assertThat(i.matches("com/bar")).isFalse();
 	}
+
+	@Test
+	public void testMatcherFirstMatch() {
+		Instructions instructions = new Instructions(
+			"!com.foo.bar.*,com.foo.*,=com.fo,com.fo,!com.foobar,COM.FOO.X:i,com.*.impl,*.spi,!org.*,org.osgi.framework,*");
+		String[] values = {
+			"com.foo.bar", "com.foo.bar.baz", "com.foo", "com.foox", "com.fo", "com.f", "com.foobar", "COM.FOO.X",
+			"com.foo.x", "com.x.impl", "org.x.spi", "org.osgi.framework", "net.x", ""
+		};
+		for (String value : values) {
+			Instruction expected = instructions.keySet()
+				.stream()
+				.filter(instruction -> instruction.matches(value))
+				.findFirst()
+				.orElse(null);
+			assertThat(instructions.matcher(value)).as(value)
+				.isSameAs(expected);
+		}
+		assertThat(instructions.matcher("com.foo.bar.baz")
+			.isNegated()).isTrue();
+		assertThat(instructions.matches("org.osgi.framework")).isFalse();
+		assertThat(instructions.matches("net.x")).isTrue();
+
+		// first match wins for the selected values and keeps the order of
+		// the instructions
+		assertThat(new Instructions("b*,a*,!c*,*").select(Arrays.asList("a1", "b1", "c1", "d1", "b2"), false))
+			.containsExactly("b1", "b2", "a1", "d1");
+
+		// a modification is taken into account
+		Instructions modified = new Instructions("a,b,c,d.*");
+		assertThat(modified.matches("e")).isFalse();
+		modified.put(new Instruction("e"), null);
+		assertThat(modified.matches("e")).isTrue();
+		modified.remove(modified.matcher("a"));
+		assertThat(modified.matches("a")).isFalse();
+		assertThat(modified.matches("d.x")).isTrue();
+	}
 }
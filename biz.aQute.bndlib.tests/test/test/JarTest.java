@@ -1,5 +1,6 @@
 package test;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.assertj.core.data.Offset.strictOffset;
@@ -13,11 +14,19 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.Test;
@@ -28,8 +37,11 @@ import aQute.bnd.osgi.EmbeddedResource;
 import aQute.bnd.osgi.FileResource;
 import aQute.bnd.osgi.Jar;
 import aQute.bnd.osgi.Resource;
+import aQute.bnd.osgi.WriteResource;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.base64.Base64;
 import aQute.lib.io.IO;
+import aQute.lib.zip.ZipUtil;
 import aQute.libg.cryptography.SHA256;
 
 public class JarTest {
@@ -316,6 +328,204 @@ public class JarTest {
 		}
 	}
 
+	@Test
+	public void testCopyCompressedEntries(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File in = IO.getFile("jar/osgi.core-4.3.0.jar");
+		File out = new File(tmp, "out.jar");
+		try (Jar jar = new Jar(in)) {
+			jar.putResource("generated/a.txt", new EmbeddedResource("generated", 0L));
+			jar.setReproducible("true");
+			jar.write(out);
+
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			jar.write(bout);
+			assertThat(bout.toByteArray()).isEqualTo(IO.read(out));
+		}
+
+		try (ZipFile source = new ZipFile(in); ZipFile target = new ZipFile(out)) {
+			for (ZipEntry entry : Collections.list(source.entries())) {
+				if (entry.isDirectory() || entry.getName()
+					.equals(JarFile.MANIFEST_NAME)) {
+					continue;
+				}
+				ZipEntry copy = target.getEntry(entry.getName());
+				assertThat(copy.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+				assertThat(copy.getCrc()).isEqualTo(entry.getCrc());
+				assertThat(copy.getCompressedSize()).isEqualTo(entry.getCompressedSize());
+				assertThat(IO.read(target.getInputStream(copy))).isEqualTo(IO.read(source.getInputStream(entry)));
+			}
+			assertThat(IO.collect(target.getInputStream(target.getEntry("generated/a.txt")))).isEqualTo("generated");
+			for (ZipEntry entry : Collections.list(target.entries())) {
+				assertThat(ZipUtil.getModifiedTime(entry)).as(entry.getName())
+					.isEqualTo(318211200000L);
+			}
+		}
+
+		try (JarInputStream jin = new JarInputStream(IO.stream(out))) {
+			assertThat(jin.getManifest()).isNotNull();
+			int count = 0;
+			while (jin.getNextEntry() != null) {
+				count++;
+			}
+			assertThat(count).isGreaterThan(200);
+		}
+	}
+
+	@Test
+	public void testDirectoryEntries() throws Exception {
+		try (Jar jar = new Jar("dirs")) {
+			jar.putResource("a/b/c.txt", new EmbeddedResource("c", 0L));
+			jar.setReproducible("true");
+			for (Jar.Compression compression : Jar.Compression.values()) {
+				jar.setCompression(compression);
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				jar.write(bout);
+				try (ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(bout.toByteArray()))) {
+					int directories = 0;
+					for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
+						if (entry.isDirectory()) {
+							directories++;
+							assertThat(entry.getMethod()).as(entry.getName())
+								.isEqualTo((compression == Jar.Compression.STORE) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+						}
+					}
+					assertThat(directories).isEqualTo(3);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDigests(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File large = new File(tmp, "large.bin");
+		byte[] data = new byte[3 * 1024 * 1024];
+		new Random(17).nextBytes(data);
+		IO.store(data, large);
+		AtomicInteger writes = new AtomicInteger();
+		File out = new File(tmp, "out.jar");
+		try (Jar source = new Jar(IO.getFile("jar/osgi.core-4.3.0.jar")); Jar jar = new Jar("digests")) {
+			jar.setManifest(new Manifest());
+			jar.putResource("a/embedded.txt", new EmbeddedResource("embedded", 0L));
+			jar.putResource("a/large.bin", new FileResource(large));
+			jar.putResource("b/generated.bin", new WriteResource() {
+				@Override
+				public void write(OutputStream out) throws Exception {
+					// different content each time it is written
+					int n = writes.incrementAndGet();
+					for (int i = 0; i < 2 * 1024; i++) {
+						out.write(data, n * i, 1024);
+					}
+				}
+
+				@Override
+				public long lastModified() {
+					return 0L;
+				}
+			});
+			jar.putResource("b/zip.class", source.getResource("org/osgi/framework/Bundle.class"));
+			jar.setDigestAlgorithms(new String[] {
+				"SHA-256", "MD5"
+			});
+			jar.write(out);
+			assertThat(jar.getManifest()
+				.getEntries()).isEmpty();
+		}
+		assertThat(writes.get()).isEqualTo(1);
+
+		try (Jar jar = new Jar(out)) {
+			Manifest manifest = jar.getManifest();
+			assertThat(manifest.getEntries()).hasSize(4);
+			for (String path : manifest.getEntries()
+				.keySet()) {
+				Attributes attributes = manifest.getAttributes(path);
+				byte[] content = IO.read(jar.getResource(path)
+					.openInputStream());
+				assertThat(attributes.getValue("SHA-256-Digest")).as(path)
+					.isEqualTo(Base64.encodeBase64(MessageDigest.getInstance("SHA-256")
+						.digest(content)));
+				assertThat(attributes.getValue("MD5-Digest")).as(path)
+					.isEqualTo(Base64.encodeBase64(MessageDigest.getInstance("MD5")
+						.digest(content)));
+			}
+		}
+	}
+
+	@Test
+	public void testParallelDeflate() throws Exception {
+		Random random = new Random(42);
+		byte[][] contents = new byte[24][];
+		for (int i = 0; i < contents.length; i++) {
+			StringBuilder sb = new StringBuilder();
+			for (int j = 0, n = 20_000 + random.nextInt(20_000); j < n; j++) {
+				sb.append("word")
+					.append(random.nextInt(1000))
+					.append(' ');
+			}
+			contents[i] = sb.toString()
+				.getBytes(UTF_8);
+		}
+
+		// embedded resources can be deflated ahead of the writer
+		ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+		try (Jar jar = new Jar("parallel")) {
+			jar.setReproducible("true");
+			for (int i = 0; i < contents.length; i++) {
+				jar.putResource("data/" + i + ".txt", new EmbeddedResource(contents[i], 0L));
+			}
+			jar.write(parallel);
+		}
+
+		// write resources are always deflated by the writer
+		ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+		try (Jar jar = new Jar("sequential")) {
+			jar.setReproducible("true");
+			for (int i = 0; i < contents.length; i++) {
+				byte[] content = contents[i];
+				jar.putResource("data/" + i + ".txt", new WriteResource() {
+					@Override
+					public void write(OutputStream out) throws Exception {
+						out.write(content);
+					}
+
+					@Override
+					public long lastModified() {
+						return 0L;
+					}
+				});
+			}
+			jar.write(sequential);
+		}
+
+		assertThat(parallel.toByteArray()).isEqualTo(sequential.toByteArray());
+		try (Jar jar = new Jar("read", new ByteArrayInputStream(parallel.toByteArray()))) {
+			for (int i = 0; i < contents.length; i++) {
+				assertThat(IO.read(jar.getResource("data/" + i + ".txt")
+					.openInputStream())).isEqualTo(contents[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testParallelDeflateFailure() throws Exception {
+		byte[] content = new byte[256 * 1024];
+		try (Jar jar = new Jar("failure")) {
+			for (int i = 0; i < 16; i++) {
+				jar.putResource("data/" + i + ".bin", new EmbeddedResource(content, 0L));
+			}
+			jar.putResource("data/fail.bin", new EmbeddedResource(content, 0L) {
+				@Override
+				public void write(OutputStream out) throws Exception {
+					throw new IOException("failed");
+				}
+			});
+			Throwable failure = catchThrowable(() -> jar.write(new ByteArrayOutputStream()));
+			assertThat(failure).hasMessage("Problem writing resource data/fail.bin")
+				.hasRootCauseMessage("failed");
+		}
+	}
+
 	@Test
 	public void testZipSlip(@InjectTemporaryDirectory
 	File tmp) throws Exception {
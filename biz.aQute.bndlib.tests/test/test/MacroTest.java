@@ -2164,4 +2164,25 @@ public class MacroTest {
 				.process("${format;%,6d;100000}"));
 		}
 	}
+
+	/**
+	 * A line is parsed once, the macros in it must still be expanded against
+	 * the current properties every time.
+	 */
+	@Test
+	public void testSameLineExpandedAgain() throws IOException {
+		try (Processor processor = new Processor()) {
+			processor.setProperty("a", "1");
+			String line = "x${a}y${if;${a};${a}}\\;z$";
+			assertThat(processor.getReplacer()
+				.process(line)).isEqualTo("x1y1;z$");
+			processor.setProperty("a", "2");
+			assertThat(processor.getReplacer()
+				.process(line)).isEqualTo("x2y2;z$");
+			processor.unsetProperty("a");
+			assertThat(processor.getReplacer()
+				.process(line)).isEqualTo("x${a}y${a};z$");
+			assertThat(processor.getWarnings()).hasSize(1);
+		}
+	}
 }
@@ -0,0 +1,108 @@
+package test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.build.ParallelBuild;
+import aQute.bnd.build.ParallelBuild.Outcome;
+import aQute.bnd.build.ParallelBuild.Result;
+import aQute.bnd.build.ParallelBuild.Status;
+import aQute.bnd.build.Project;
+import aQute.bnd.build.Workspace;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class ParallelBuildTest {
+
+	@Test
+	public void testBuildAndSkipUpToDate(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		IO.copy(IO.getFile("testresources/ws"), tmp);
+		try (Workspace ws = new Workspace(tmp)) {
+			Project top = ws.getProject("p-stale");
+			Project bottom = ws.getProject("p-stale-dep");
+
+			Result result = new ParallelBuild(ws).build(List.of(top));
+			assertThat(result.isOk()).isTrue();
+			assertThat(result.getOutcomes()
+				.stream()
+				.map(Outcome::getProject)).containsExactly(bottom, top);
+			assertThat(result.count(Status.BUILT)).isEqualTo(2);
+			assertThat(result.getCriticalPath()).containsExactly(bottom, top);
+			assertThat(top.getBuildFiles(false)).isNotNull();
+
+			result = new ParallelBuild(ws).build(List.of(top));
+			assertThat(result.count(Status.UPTODATE)).isEqualTo(2);
+
+			result = new ParallelBuild(ws).setForce(true)
+				.build(List.of(top));
+			assertThat(result.count(Status.BUILT)).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void testFailure(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		IO.copy(IO.getFile("testresources/ws"), tmp);
+		try (Workspace ws = new Workspace(tmp)) {
+			Project top = ws.getProject("p-stale");
+			Project bottom = ws.getProject("p-stale-dep");
+			bottom.setProperty("Include-Resource", "does-not-exist.txt");
+
+			Result result = new ParallelBuild(ws).setKeepGoing(true)
+				.setParallelism(1)
+				.build(List.of(top));
+			assertThat(result.isOk()).isFalse();
+			assertThat(result.getOutcomes()
+				.stream()
+				.map(Outcome::getStatus)).containsExactly(Status.FAILED, Status.SKIPPED);
+			assertThat(bottom.getErrors()).isNotEmpty();
+		}
+	}
+
+	@Test
+	public void testCycle(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		IO.copy(IO.getFile("testresources/ws"), tmp);
+		try (Workspace ws = new Workspace(tmp)) {
+			Project top = ws.getProject("p-stale");
+			Project bottom = ws.getProject("p-stale-dep");
+			bottom.setProperty("-dependson", "p-stale");
+
+			Result result = new ParallelBuild(ws).build(List.of(top));
+			assertThat(result.isOk()).isFalse();
+			assertThat(result.getOutcomes()
+				.stream()
+				.map(Outcome::getStatus)).containsExactly(Status.FAILED);
+			assertThat(top.getErrors()).anyMatch(e -> e.contains("Circular dependency"));
+		}
+	}
+
+	@Test
+	public void testCycleOfPreparedProjects(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		IO.copy(IO.getFile("testresources/ws"), tmp);
+		try (Workspace ws = new Workspace(tmp)) {
+			Project top = ws.getProject("p-stale");
+			Project bottom = ws.getProject("p-stale-dep");
+			assertThat(top.getDependson()).containsExactly(bottom);
+			// top is not prepared again
+			bottom.setProperty("-dependson", "p-stale");
+			bottom.setChanged();
+			assertThat(bottom.getDependson()).containsExactly(top);
+
+			Result result = new ParallelBuild(ws).setKeepGoing(true)
+				.build(List.of(top));
+			assertThat(result.isOk()).isFalse();
+			assertThat(result.getOutcomes()
+				.stream()
+				.map(Outcome::getStatus)).containsExactly(Status.FAILED, Status.FAILED);
+			assertThat(top.getErrors()).anyMatch(e -> e.contains("Circular dependency"));
+			assertThat(bottom.getErrors()).anyMatch(e -> e.contains("Circular dependency"));
+		}
+	}
+}
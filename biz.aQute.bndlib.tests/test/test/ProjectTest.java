@@ -9,6 +9,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -532,6 +533,47 @@ public class ProjectTest {
 		// assertFalse(bottom.isStale());
 	}
 
+	/**
+	 * Check isStale with -buildfingerprint
+	 */
+
+	@Test
+	public void testIsStaleFingerprint() throws Exception {
+		Workspace ws = getWorkspace(IO.getFile("testresources/ws"));
+		ws.setProperty(Constants.BUILDFINGERPRINT, "true");
+		Project top = ws.getProject("p-stale");
+		Project bottom = ws.getProject("p-stale-dep");
+		assertTrue(top.isStale());
+		bottom.build();
+		top.build();
+		assertTrue(new File(top.getTarget(), Constants.BUILDSTATE).isFile());
+		assertFalse(top.isStale());
+		assertFalse(bottom.isStale());
+
+		// timestamps alone do not make a project stale
+		stale(top, true);
+		stale(bottom, true);
+		top.getPropertiesFile()
+			.setLastModified(System.currentTimeMillis() + 10000);
+		assertFalse(top.isStale());
+		assertFalse(bottom.isStale());
+
+		// a changed dependency does
+		File dep = bottom.getBuildFiles(false)[0];
+		IO.store("changed", dep);
+		assertTrue(top.isStale());
+		assertTrue(bottom.isStale());
+		bottom.build();
+		assertFalse(bottom.isStale());
+		assertTrue(top.isStale());
+		top.build();
+		assertFalse(top.isStale());
+
+		// and so does a changed bnd file
+		IO.store(IO.collect(top.getPropertiesFile()) + "\nfoo: bar\n", top.getPropertiesFile());
+		assertTrue(top.isStale());
+	}
+
 	private void stale(Project project, boolean b) throws Exception {
 		File file = project.getBuildFiles(false)[0];
 		if (b)
@@ -1095,6 +1137,85 @@ public class ProjectTest {
 		}
 	}
 
+	/**
+	 * Test -inprocessjavac
+	 */
+	@Test
+	public void testInProcessJavac() throws Exception {
+		Workspace ws = getWorkspace(IO.getFile("testresources/ws"));
+		File p = IO.getFile(tmp, "inprocess");
+		IO.mkdirs(IO.getFile(p, "src/a"));
+		IO.mkdirs(IO.getFile(p, "src/b"));
+		IO.store("package a; public class A { b.B b; }", IO.getFile(p, "src/a/A.java"));
+		IO.store("package b; public class B {}", IO.getFile(p, "src/b/B.java"));
+		IO.store("-inprocessjavac: true\njavac.source: 11\njavac.target: 11\n", IO.getFile(p, "bnd.bnd"));
+
+		try (ws; Project project = ws.getProject("inprocess")) {
+			File[] classes = {
+				IO.getFile(project.getOutput(), "a/A.class"), IO.getFile(project.getOutput(), "b/B.class")
+			};
+			project.compile(false);
+			assertTrue(project.check());
+			assertThat(classes).allMatch(File::isFile);
+
+			// compile again with the pooled file manager
+			IO.delete(project.getOutput());
+			project.compile(false);
+			assertTrue(project.check());
+			assertThat(classes).allMatch(File::isFile);
+
+			IO.store("package a; public class A { c.C c; }", IO.getFile(p, "src/a/A.java"));
+			project.compile(false);
+			assertTrue(project.check("javac failed"));
+		}
+	}
+
+	/**
+	 * Test -inprocessjavac does not reuse a file manager with the boot class
+	 * path or encoding of another project
+	 */
+	@Test
+	public void testInProcessJavacOptions() throws Exception {
+		Workspace ws = getWorkspace(IO.getFile("testresources/ws"));
+		String common = "-inprocessjavac: true\njavac.source: 1.8\njavac.target: 1.8\n";
+		File lib = IO.getFile(tmp, "inprocesslib");
+		IO.mkdirs(IO.getFile(lib, "src/boot"));
+		IO.store("package boot; public class Boot {}", IO.getFile(lib, "src/boot/Boot.java"));
+		IO.store(common, IO.getFile(lib, "bnd.bnd"));
+		File boot = IO.getFile(tmp, "inprocessboot");
+		IO.mkdirs(IO.getFile(boot, "src/a"));
+		IO.store("package a; public class A { boot.Boot b; }", IO.getFile(boot, "src/a/A.java"));
+		IO.store(common + "-buildpath: ../inprocesslib/bin;version=file;boot=true\n", IO.getFile(boot, "bnd.bnd"));
+		File plain = IO.getFile(tmp, "inprocessplain");
+		IO.mkdirs(IO.getFile(plain, "src/a"));
+		IO.store("package a; public class A { boot.Boot b; }", IO.getFile(plain, "src/a/A.java"));
+		IO.store(common, IO.getFile(plain, "bnd.bnd"));
+		File latin = IO.getFile(tmp, "inprocesslatin");
+		IO.mkdirs(IO.getFile(latin, "src/a"));
+		IO.write("package a; public class A { String s = \"\u00e9\"; }".getBytes(StandardCharsets.ISO_8859_1),
+			IO.getFile(latin, "src/a/A.java"));
+		IO.store(common + "javac.encoding: ISO-8859-1\n", IO.getFile(latin, "bnd.bnd"));
+
+		try (ws) {
+			Project project = ws.getProject("inprocesslib");
+			project.compile(false);
+			assertTrue(project.check());
+
+			project = ws.getProject("inprocessboot");
+			project.compile(false);
+			assertTrue(project.check());
+
+			// boot.Boot is only on the boot class path of inprocessboot
+			project = ws.getProject("inprocessplain");
+			project.compile(false);
+			assertTrue(project.check("javac failed"));
+
+			project = ws.getProject("inprocesslatin");
+			project.compile(false);
+			assertTrue(project.check());
+		}
+	}
+
 	private Workspace getWorkspace(File file) throws Exception {
 		IO.copy(file, tmp);
 		return new Workspace(tmp);
@@ -57,4 +57,37 @@ public class PersistentResourceTest {
 		assertEquals(0, capability.getDirectives()
 			.size());
 	}
+
+	@Test
+	public void testOrder() throws Exception {
+		ResourceBuilder rb = new ResourceBuilder();
+		rb.addCapability(new CapReqBuilder("zeta").addAttribute("zeta", "1"));
+		rb.addCapability(new CapReqBuilder("alpha").addAttribute("alpha", "1"));
+		rb.addCapability(new CapReqBuilder("zeta").addAttribute("zeta", "2"));
+		rb.addRequirement(new CapReqBuilder("beta").addDirective("filter", "(beta=1)"));
+		rb.addRequirement(new CapReqBuilder("alpha").addDirective("filter", "(alpha=1)"));
+		Resource r = rb.build();
+
+		PersistentResource pr = new PersistentResource(r);
+		String s = new JSONCodec().enc()
+			.put(pr)
+			.toString();
+		Resource r2 = new JSONCodec().dec()
+			.from(s)
+			.get(PersistentResource.class)
+			.getResource();
+
+		assertEquals(r.getCapabilities(null)
+			.toString(),
+			r2.getCapabilities(null)
+				.toString());
+		assertEquals(r.getRequirements(null)
+			.toString(),
+			r2.getRequirements(null)
+				.toString());
+		assertEquals("(alpha=1)", r2.getRequirements("alpha")
+			.get(0)
+			.getDirectives()
+			.get("filter"));
+	}
 }
@@ -0,0 +1,259 @@
+package aQute.bnd.build;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+import aQute.lib.io.IO;
+import aQute.lib.utf8properties.UTF8Properties;
+import aQute.libg.cryptography.Digester;
+import aQute.libg.cryptography.SHA256;
+
+/**
+ * The fingerprints of the inputs and outputs of the last build of a project.
+ * <p>
+ * The fingerprints are the SHA-256 digests of the contents of the bnd files of
+ * the project and the workspace, the source and output directories, the
+ * build path, the bundles of the projects it depends on, and of the built
+ * bundles. They are stored in the {@link Constants#BUILDSTATE} file next to
+ * the {@link Constants#BUILDFILES} file. Files are named relative to the
+ * workspace, so the state remains valid when the workspace is checked out
+ * again or restored from a cache, also on another machine. Files outside the
+ * workspace are named by their absolute path.
+ * <p>
+ * With {@link Constants#BUILDFINGERPRINT} a project is stale when the current
+ * fingerprints differ from the stored fingerprints, independent of the
+ * modification times of the files.
+ */
+class BuildState {
+	private final static String						INPUT	= "in:";
+	private final static String						OUTPUT	= "out:";
+	private final Project							project;
+	private final Fingerprints						digests;
+
+	BuildState(Project project) {
+		this.project = project;
+		this.digests = project.getWorkspace()
+			.getFingerprints();
+	}
+
+	File getFile() throws Exception {
+		return new File(project.getTarget(), Constants.BUILDSTATE);
+	}
+
+	/**
+	 * Store the fingerprints after a successful build.
+	 *
+	 * @param files the built files
+	 */
+	void save(Collection<File> files) throws Exception {
+		UTF8Properties state = new UTF8Properties();
+		inputs().forEach((k, v) -> state.setProperty(INPUT + k, v));
+		outputs(files).forEach((k, v) -> state.setProperty(OUTPUT + k, v));
+		File file = getFile();
+		state.store(file);
+		project.getWorkspace()
+			.changedFile(file);
+	}
+
+	/**
+	 * Check if the project is stale. It is stale when the fingerprints of its
+	 * last build are missing or differ from the current fingerprints, or when
+	 * a project it depends on is stale.
+	 */
+	boolean isStale(Set<Project> visited) throws Exception {
+		File[] files = project.getBuildFiles(false);
+		if (files == null) {
+			return true;
+		}
+		File file = getFile();
+		if (!file.isFile()) {
+			return true;
+		}
+
+		for (Project dependency : project.getDependson()) {
+			if ((dependency != project) && !dependency.isNoBundles() && dependency.isStale(visited)) {
+				return true;
+			}
+		}
+
+		UTF8Properties state = new UTF8Properties();
+		try (InputStream in = IO.stream(file)) {
+			state.load(in);
+		}
+		Map<String, String> stored = new TreeMap<>();
+		state.forEach((k, v) -> stored.put((String) k, (String) v));
+
+		Map<String, String> current = new TreeMap<>();
+		inputs().forEach((k, v) -> current.put(INPUT + k, v));
+		outputs(Arrays.asList(files)).forEach((k, v) -> current.put(OUTPUT + k, v));
+		return !current.equals(stored);
+	}
+
+	private Map<String, String> inputs() throws Exception {
+		Map<String, String> inputs = new TreeMap<>();
+		for (Processor p = project; p != null; p = p.getParent()) {
+			add(inputs, "bnd:", p.getPropertiesFile());
+			for (File included : p.getIncluded()) {
+				add(inputs, "bnd:", included);
+			}
+		}
+		for (File source : project.getSourcePath()) {
+			add(inputs, "src:", source);
+		}
+		add(inputs, "bin:", project.getOutput());
+		for (Container container : Container.flatten(project.getBuildpath())) {
+			add(inputs, "buildpath:", container.getFile());
+		}
+		for (Project dependency : project.getDependson()) {
+			if ((dependency != project) && !dependency.isNoBundles()) {
+				File[] files = dependency.getBuildFiles(false);
+				if (files != null) {
+					for (File file : files) {
+						add(inputs, "dependency:", file);
+					}
+				}
+			}
+		}
+		return inputs;
+	}
+
+	private Map<String, String> outputs(Collection<File> files) throws Exception {
+		Map<String, String> outputs = new TreeMap<>();
+		for (File file : files) {
+			add(outputs, "", file);
+		}
+		return outputs;
+	}
+
+	private void add(Map<String, String> fingerprints, String kind, File file) throws Exception {
+		if (file == null) {
+			return;
+		}
+		String digest = file.isDirectory() ? directory(file) : digests.digest(file);
+		if (digest != null) {
+			fingerprints.put(kind + name(file), digest);
+		}
+	}
+
+	/**
+	 * The name of a file relative to the workspace, or the absolute path when
+	 * the file is outside the workspace, e.g. in a repository cache.
+	 */
+	private String name(File file) {
+		Path base = project.getWorkspace()
+			.getBase()
+			.toPath()
+			.toAbsolutePath()
+			.normalize();
+		Path path = file.toPath()
+			.toAbsolutePath()
+			.normalize();
+		if (path.startsWith(base)) {
+			return IO.normalizePath(base.relativize(path));
+		}
+		return IO.normalizePath(path);
+	}
+
+	private String directory(File dir) throws Exception {
+		Digester<SHA256> digester = SHA256.getDigester();
+		List<File> files = new ArrayList<>();
+		collect(dir, files);
+		Path base = dir.toPath();
+		for (File file : files) {
+			String digest = digests.digest(file);
+			if (digest != null) {
+				digester.write(IO.normalizePath(base.relativize(file.toPath()))
+					.getBytes(UTF_8));
+				digester.write(0);
+				digester.write(digest.getBytes(UTF_8));
+			}
+		}
+		return digester.digest()
+			.asHex();
+	}
+
+	private static void collect(File dir, List<File> files) {
+		File[] children = dir.listFiles();
+		if (children == null) {
+			return;
+		}
+		Arrays.sort(children);
+		for (File child : children) {
+			if (child.isDirectory()) {
+				collect(child, files);
+			} else if (child.isFile()) {
+				files.add(child);
+			}
+		}
+	}
+
+	/**
+	 * The digests of the files of a workspace. The digest of a file is cached
+	 * as long as the size and the modification time of the file do not change.
+	 * The cache holds the digests of at most {@link #MAX_FILES} files, the
+	 * least recently used digests are dropped first.
+	 */
+	static final class Fingerprints {
+		final static int						MAX_FILES	= 10_000;
+		private final Map<Path, Fingerprint>	cache		= new LinkedHashMap<>(64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Path, Fingerprint> eldest) {
+				return size() > MAX_FILES;
+			}
+		};
+
+		/**
+		 * The digest of a file or {@code null} if the file does not exist or
+		 * cannot be read.
+		 */
+		String digest(File file) {
+			if (!file.isFile()) {
+				return null;
+			}
+			Path path = file.toPath()
+				.toAbsolutePath()
+				.normalize();
+			long length = file.length();
+			long lastModified = file.lastModified();
+			Fingerprint fingerprint;
+			synchronized (cache) {
+				fingerprint = cache.get(path);
+			}
+			if ((fingerprint == null) || (fingerprint.length != length) || (fingerprint.lastModified != lastModified)) {
+				try {
+					fingerprint = new Fingerprint(length, lastModified, SHA256.digest(file)
+						.asHex());
+				} catch (Exception e) {
+					return null;
+				}
+				synchronized (cache) {
+					cache.put(path, fingerprint);
+				}
+			}
+			return fingerprint.digest;
+		}
+
+		int size() {
+			synchronized (cache) {
+				return cache.size();
+			}
+		}
+	}
+
+	private record Fingerprint(long length, long lastModified, String digest) {}
+}
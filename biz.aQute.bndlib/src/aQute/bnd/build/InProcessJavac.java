@@ -0,0 +1,216 @@
+package aQute.bnd.build;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.lib.io.IO;
+
+/**
+ * Compile the sources of projects with the Java compiler of the running VM
+ * instead of forking a {@code javac} process per project.
+ * <p>
+ * The file managers are kept in a pool and reused across compilations, so the
+ * jars of the build paths are only opened once for all the projects of a
+ * workspace. A file manager is only used by one compilation at a time, so
+ * projects can be compiled concurrently. The compiler applies some options,
+ * like the encoding and the boot class path, to the file manager, so a file
+ * manager is only reused for compilations with the same options. The file
+ * manager caches the content of the jars it opened, so a file manager is
+ * discarded when one of the jars it opened has changed since, e.g. because the
+ * project that builds the jar was built again. At most {@link #MAX_POOLED} file
+ * managers are kept, the least recently used ones are closed.
+ */
+class InProcessJavac implements Closeable {
+	private final static Logger			logger		= LoggerFactory.getLogger(InProcessJavac.class);
+	final static int					MAX_POOLED	= 8;
+	private final JavaCompiler			compiler;
+	private final Deque<FileManager>	pool		= new ArrayDeque<>();
+	private boolean						closed;
+
+	/**
+	 * The state of a build path file.
+	 */
+	private record Stamp(boolean directory, long lastModified, long length) {
+		static Stamp of(File file) {
+			// the file manager does not cache the content of directories
+			if (file.isDirectory()) {
+				return new Stamp(true, 0L, 0L);
+			}
+			return new Stamp(false, file.lastModified(), file.length());
+		}
+	}
+
+	/**
+	 * A file manager, the options it was used with and the state of the build
+	 * path files it opened.
+	 */
+	private final static class FileManager implements DiagnosticListener<JavaFileObject> {
+		final StandardJavaFileManager	fileManager;
+		final List<String>				options;
+		final Map<File, Stamp>			stamps	= new HashMap<>();
+		StringWriter					out;
+		boolean							errors;
+
+		FileManager(JavaCompiler compiler, List<String> options) {
+			// no charset, the -encoding option selects it
+			this.fileManager = compiler.getStandardFileManager(this, null, null);
+			this.options = options;
+		}
+
+		/**
+		 * Report the messages of the file manager, e.g. a source file that
+		 * does not match the encoding, with the messages of the compiler.
+		 */
+		@Override
+		public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+				errors = true;
+			}
+			out.append(diagnostic.toString())
+				.append(System.lineSeparator());
+		}
+
+		/**
+		 * Remember the state of the files. Answer {@code false} if a file
+		 * has changed since it was last used.
+		 */
+		boolean use(List<File> files) {
+			for (File file : files) {
+				Stamp stamp = Stamp.of(file);
+				Stamp previous = stamps.put(file, stamp);
+				if ((previous != null) && !previous.equals(stamp)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	InProcessJavac() {
+		this.compiler = ToolProvider.getSystemJavaCompiler();
+	}
+
+	/**
+	 * Answer if the running VM has a Java compiler.
+	 */
+	boolean isAvailable() {
+		return compiler != null;
+	}
+
+	/**
+	 * Compile source files.
+	 *
+	 * @param project the project to report errors on
+	 * @param options the compiler options, without the locations
+	 * @param output the class output directory
+	 * @param classpath the class path
+	 * @param sourcepath the source path
+	 * @param files the source files to compile
+	 * @return {@code true} if the compilation succeeded
+	 */
+	boolean compile(Project project, List<String> options, File output, List<File> classpath,
+		List<File> sourcepath, List<File> files) throws Exception {
+		IO.mkdirs(output);
+		options = List.copyOf(options);
+		List<File> paths = new ArrayList<>(classpath);
+		for (String option : options) {
+			// the boot class path is set with the options
+			if (option.startsWith("-Xbootclasspath")) {
+				String path = option.substring(option.indexOf(':') + 1);
+				for (String file : path.split(File.pathSeparator)) {
+					paths.add(new File(file));
+				}
+			}
+		}
+		FileManager fm = acquire(options, paths);
+		boolean reuse = false;
+		StringWriter out = new StringWriter();
+		fm.out = out;
+		fm.errors = false;
+		try {
+			StandardJavaFileManager fileManager = fm.fileManager;
+			fileManager.setLocation(StandardLocation.CLASS_OUTPUT, List.of(output));
+			fileManager.setLocation(StandardLocation.CLASS_PATH, classpath);
+			fileManager.setLocation(StandardLocation.SOURCE_PATH, sourcepath);
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+			boolean ok;
+			try {
+				ok = compiler.getTask(out, fileManager, null, options, null, units)
+					.call() && !fm.errors;
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				// invalid options
+				out.write(e.getMessage());
+				ok = false;
+			}
+			reuse = true;
+			logger.debug("javac output: {}", out);
+			if (!ok) {
+				project.error("javac failed %s", out);
+			}
+			return ok;
+		} finally {
+			release(fm, reuse);
+		}
+	}
+
+	private FileManager acquire(List<String> options, List<File> paths) {
+		synchronized (pool) {
+			for (Iterator<FileManager> it = pool.iterator(); it.hasNext();) {
+				FileManager fm = it.next();
+				if (!fm.options.equals(options)) {
+					continue;
+				}
+				it.remove();
+				if (fm.use(paths)) {
+					return fm;
+				}
+				// a jar changed since the file manager opened it
+				IO.close(fm.fileManager);
+			}
+		}
+		FileManager fm = new FileManager(compiler, options);
+		fm.use(paths);
+		return fm;
+	}
+
+	private void release(FileManager fm, boolean reuse) {
+		synchronized (pool) {
+			if (reuse && !closed) {
+				pool.addFirst(fm);
+				if (pool.size() <= MAX_POOLED) {
+					return;
+				}
+				fm = pool.removeLast();
+			}
+		}
+		IO.close(fm.fileManager);
+	}
+
+	@Override
+	public void close() {
+		synchronized (pool) {
+			closed = true;
+			pool.forEach(fm -> IO.close(fm.fileManager));
+			pool.clear();
+		}
+	}
+}
@@ -0,0 +1,516 @@
+package aQute.bnd.build;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+
+/**
+ * Build a set of projects of a workspace concurrently.
+ * <p>
+ * The projects and the projects they depend on are scheduled as a graph: a
+ * project is built, i.e. its sources are generated and compiled and its
+ * bundles are built, as soon as all the projects it depends on have been
+ * built. At most {@link #setParallelism(int) parallelism} projects are built
+ * at the same time, on the shared executor of bnd.
+ * <p>
+ * A project is not built when it is up to date: it is not
+ * {@link Project#isStale() stale} and none of its source files is newer than
+ * its bundles or, with {@link Constants#BUILDFINGERPRINT}, the fingerprints of
+ * its inputs and outputs are unchanged. When a project fails, no new projects
+ * are started, unless the build is set to {@link #setKeepGoing(boolean) keep
+ * going}. In that case only the projects that depend on the failed project
+ * are skipped. The projects on a cycle of dependencies are not built and fail
+ * with an error.
+ * <p>
+ * The errors and warnings of a project are reported on the project. The
+ * {@link Result} of the build has the outcome of each project in build order
+ * and the critical path: the chain of dependent projects with the longest
+ * total build time, which is the lower bound of the time the build can take
+ * with unlimited parallelism.
+ * <p>
+ * This engine is used by the {@code bnd parallelbuild} command. The Gradle
+ * build does not use it: the Bnd Workspace Gradle plugin builds every project
+ * in its own Gradle tasks, and Gradle schedules those tasks, concurrently when
+ * it runs with {@code --parallel}.
+ */
+public class ParallelBuild {
+	private final static Logger logger = LoggerFactory.getLogger(ParallelBuild.class);
+
+	/**
+	 * The status of a project after a build.
+	 */
+	public enum Status {
+		/**
+		 * The project was built.
+		 */
+		BUILT,
+		/**
+		 * The project was up to date and not built.
+		 */
+		UPTODATE,
+		/**
+		 * The project failed to build.
+		 */
+		FAILED,
+		/**
+		 * The project was not built because a project it depends on failed,
+		 * or because the build was stopped after a failure.
+		 */
+		SKIPPED;
+
+		boolean isOk() {
+			return (this == BUILT) || (this == UPTODATE);
+		}
+	}
+
+	/**
+	 * The outcome of building a project.
+	 */
+	public static final class Outcome {
+		private final Project	project;
+		private final Status	status;
+		private final long		start;
+		private final long		duration;
+
+		Outcome(Project project, Status status, long start, long duration) {
+			this.project = project;
+			this.status = status;
+			this.start = start;
+			this.duration = duration;
+		}
+
+		public Project getProject() {
+			return project;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * The time in milliseconds after the start of the build the project
+		 * was started.
+		 */
+		public long getStart() {
+			return TimeUnit.NANOSECONDS.toMillis(start);
+		}
+
+		/**
+		 * The time in milliseconds it took to build the project.
+		 */
+		public long getDuration() {
+			return TimeUnit.NANOSECONDS.toMillis(duration);
+		}
+
+		@Override
+		public String toString() {
+			return project + " " + status + " " + getDuration() + "ms";
+		}
+	}
+
+	/**
+	 * The result of a build.
+	 */
+	public static final class Result {
+		private final List<Outcome>	outcomes;
+		private final List<Project>	criticalPath;
+		private final long			criticalPathTime;
+		private final long			elapsed;
+
+		Result(List<Outcome> outcomes, List<Project> criticalPath, long criticalPathTime, long elapsed) {
+			this.outcomes = outcomes;
+			this.criticalPath = criticalPath;
+			this.criticalPathTime = criticalPathTime;
+			this.elapsed = elapsed;
+		}
+
+		/**
+		 * The outcomes of the projects in build order.
+		 */
+		public List<Outcome> getOutcomes() {
+			return outcomes;
+		}
+
+		/**
+		 * The projects on the critical path, in build order.
+		 */
+		public List<Project> getCriticalPath() {
+			return criticalPath;
+		}
+
+		/**
+		 * The total time in milliseconds to build the projects on the critical
+		 * path.
+		 */
+		public long getCriticalPathTime() {
+			return TimeUnit.NANOSECONDS.toMillis(criticalPathTime);
+		}
+
+		/**
+		 * The time in milliseconds the build took.
+		 */
+		public long getElapsed() {
+			return TimeUnit.NANOSECONDS.toMillis(elapsed);
+		}
+
+		/**
+		 * Answer if all projects were built or up to date.
+		 */
+		public boolean isOk() {
+			return outcomes.stream()
+				.allMatch(o -> o.status.isOk());
+		}
+
+		public int count(Status status) {
+			return (int) outcomes.stream()
+				.filter(o -> o.status == status)
+				.count();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("built %s, up to date %s, failed %s, skipped %s in %sms, critical path %sms %s",
+				count(Status.BUILT), count(Status.UPTODATE), count(Status.FAILED), count(Status.SKIPPED),
+				getElapsed(), getCriticalPathTime(), criticalPath);
+		}
+	}
+
+	private final Workspace	workspace;
+	private int				parallelism	= Runtime.getRuntime()
+		.availableProcessors();
+	private boolean			keepGoing;
+	private boolean			test;
+	private boolean			force;
+
+	public ParallelBuild(Workspace workspace) {
+		this.workspace = requireNonNull(workspace);
+	}
+
+	/**
+	 * Set the maximum number of projects that are built at the same time. The
+	 * default is the number of processors.
+	 */
+	public ParallelBuild setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be at least 1: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Continue to build the projects that do not depend on a failed project
+	 * instead of stopping at the first failure.
+	 */
+	public ParallelBuild setKeepGoing(boolean keepGoing) {
+		this.keepGoing = keepGoing;
+		return this;
+	}
+
+	/**
+	 * Build for test.
+	 */
+	public ParallelBuild setTest(boolean test) {
+		this.test = test;
+		return this;
+	}
+
+	/**
+	 * Build all projects, also when they are up to date, and force the
+	 * generation of sources.
+	 */
+	public ParallelBuild setForce(boolean force) {
+		this.force = force;
+		return this;
+	}
+
+	/**
+	 * Build the projects and the projects they depend on.
+	 *
+	 * @param projects the projects to build
+	 * @return the result of the build
+	 */
+	public Result build(Collection<Project> projects) throws Exception {
+		long begin = System.nanoTime();
+
+		Map<Project, Collection<Project>> dependson = new HashMap<>();
+		Set<Project> circular = new LinkedHashSet<>();
+		Set<Project> closure = new LinkedHashSet<>();
+		for (Project project : projects) {
+			closure.addAll(getDependson(project, dependson, circular));
+			closure.add(project);
+		}
+		// The build order of the workspace, see Workspace.getBuildOrder()
+		Set<Project> ordered = new LinkedHashSet<>();
+		for (Project project : workspace.getAllProjects()) {
+			if (closure.contains(project)) {
+				ordered.addAll(getDependson(project, dependson, circular));
+				ordered.add(project);
+			}
+		}
+		ordered.addAll(closure);
+		List<Project> order = new ArrayList<>(ordered);
+
+		Map<Project, Integer> index = new HashMap<>();
+		Map<Project, List<Project>> dependencies = new HashMap<>();
+		Map<Project, List<Project>> dependents = new HashMap<>();
+		Map<Project, Integer> waiting = new HashMap<>();
+		for (Project project : order) {
+			index.put(project, index.size());
+			dependents.put(project, new ArrayList<>());
+		}
+		for (Project project : order) {
+			List<Project> deps = new ArrayList<>();
+			for (Project dependency : getDependson(project, dependson, circular)) {
+				if ((dependency != project) && closure.contains(dependency)) {
+					deps.add(dependency);
+					dependents.get(dependency)
+						.add(project);
+				}
+			}
+			dependencies.put(project, deps);
+			waiting.put(project, deps.size());
+		}
+
+		Map<Project, Outcome> outcomes = new HashMap<>();
+		boolean stopped = false;
+		for (Project project : circular) {
+			outcomes.put(project, new Outcome(project, Status.FAILED, 0L, 0L));
+			stopped |= !keepGoing;
+			skip(project, dependents, outcomes);
+		}
+
+		PriorityQueue<Project> ready = new PriorityQueue<>(Comparator.comparing(index::get));
+		for (Project project : order) {
+			if ((waiting.get(project) == 0) && !outcomes.containsKey(project)) {
+				ready.add(project);
+			}
+		}
+
+		BlockingQueue<Outcome> completions = new LinkedBlockingQueue<>();
+		Executor executor = Processor.getExecutor();
+		int running = 0;
+
+		while (true) {
+			while (!stopped && (running < parallelism) && !ready.isEmpty()) {
+				Project project = ready.poll();
+				running++;
+				executor.execute(() -> completions.add(run(project, begin)));
+			}
+			if (running == 0) {
+				break;
+			}
+
+			Outcome outcome = completions.take();
+			running--;
+			outcomes.put(outcome.project, outcome);
+			logger.debug("{}", outcome);
+
+			if (outcome.status.isOk()) {
+				for (Project dependent : dependents.get(outcome.project)) {
+					if (waiting.merge(dependent, -1, Integer::sum) == 0) {
+						ready.add(dependent);
+					}
+				}
+			} else {
+				stopped |= !keepGoing;
+				skip(outcome.project, dependents, outcomes);
+			}
+		}
+
+		// The projects on a cycle of dependencies never got ready
+		Set<Project> unbuilt = new LinkedHashSet<>(order);
+		unbuilt.removeAll(outcomes.keySet());
+		Map<Project, List<Project>> cycles = new HashMap<>();
+		for (Project project : unbuilt) {
+			Deque<Project> path = new ArrayDeque<>();
+			if (isOnCycle(project, project, dependencies, unbuilt, new HashSet<>(), path)) {
+				cycles.put(project, List.copyOf(path));
+			}
+		}
+		cycles.forEach((project, cycle) -> {
+			project.error("Circular dependency, %s is not built: %s", project, cycle);
+			outcomes.put(project, new Outcome(project, Status.FAILED, 0L, 0L));
+		});
+
+		List<Outcome> result = new ArrayList<>(order.size());
+		for (Project project : order) {
+			result.add(outcomes.computeIfAbsent(project, p -> new Outcome(p, Status.SKIPPED, 0L, 0L)));
+		}
+
+		// The critical path ends at the project with the latest
+		// finish time when all projects start as soon as possible
+		Map<Project, Long> finish = new HashMap<>();
+		Map<Project, Project> predecessor = new HashMap<>();
+		Project last = null;
+		for (Project project : order) {
+			long start = 0L;
+			for (Project dependency : dependencies.get(project)) {
+				long f = finish.getOrDefault(dependency, 0L);
+				if (f > start) {
+					start = f;
+					predecessor.put(project, dependency);
+				}
+			}
+			long f = start + outcomes.get(project).duration;
+			finish.put(project, f);
+			if ((last == null) || (f > finish.get(last))) {
+				last = project;
+			}
+		}
+		Deque<Project> criticalPath = new ArrayDeque<>();
+		for (Project p = last; p != null; p = predecessor.get(p)) {
+			criticalPath.addFirst(p);
+		}
+
+		return new Result(Collections.unmodifiableList(result), List.copyOf(criticalPath),
+			(last != null) ? finish.get(last) : 0L, System.nanoTime() - begin);
+	}
+
+	private Outcome run(Project project, long begin) {
+		long start = System.nanoTime();
+		Status status;
+		try {
+			if (!force && isUpToDate(project)) {
+				status = Status.UPTODATE;
+			} else {
+				project.getGenerate()
+					.generate(force);
+				if (project.isOk()) {
+					project.compile(test);
+				}
+				if (project.isOk()) {
+					project.build(test);
+				}
+				status = project.isOk() ? Status.BUILT : Status.FAILED;
+			}
+		} catch (Throwable t) {
+			project.exception(t, "Failed to build %s", project);
+			status = Status.FAILED;
+		}
+		long end = System.nanoTime();
+		return new Outcome(project, status, start - begin, end - start);
+	}
+
+	private void skip(Project failed, Map<Project, List<Project>> dependents, Map<Project, Outcome> outcomes) {
+		for (Project dependent : dependents.get(failed)) {
+			if (!outcomes.containsKey(dependent)) {
+				outcomes.put(dependent, new Outcome(dependent, Status.SKIPPED, 0L, 0L));
+				skip(dependent, dependents, outcomes);
+			}
+		}
+	}
+
+	/**
+	 * Answer the projects the project depends on. A project that depends on
+	 * itself through its dependencies fails with an error.
+	 */
+	private static Collection<Project> getDependson(Project project, Map<Project, Collection<Project>> dependson,
+		Set<Project> circular) throws Exception {
+		Collection<Project> result = dependson.get(project);
+		if (result == null) {
+			try {
+				result = project.getDependson();
+			} catch (CircularDependencyException e) {
+				project.error("Circular dependency, %s is not built: %s", project, e.getMessage());
+				circular.add(project);
+				result = List.of();
+			}
+			dependson.put(project, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Answer if the project is on a path of dependencies, through the projects
+	 * that were not built, to the target. The path is the chain of dependencies
+	 * from the project to the target.
+	 */
+	private static boolean isOnCycle(Project target, Project project, Map<Project, List<Project>> dependencies,
+		Set<Project> unbuilt, Set<Project> visited, Deque<Project> path) {
+		path.addLast(project);
+		for (Project dependency : dependencies.get(project)) {
+			if (dependency == target) {
+				path.addLast(target);
+				return true;
+			}
+			if (unbuilt.contains(dependency) && visited.add(dependency)
+				&& isOnCycle(target, dependency, dependencies, unbuilt, visited, path)) {
+				return true;
+			}
+		}
+		path.removeLast();
+		return false;
+	}
+
+	/**
+	 * A project is up to date when it is not stale and none of its source
+	 * files is newer than the oldest of its bundles. The fingerprints of a
+	 * project already include its sources.
+	 */
+	private boolean isUpToDate(Project project) throws Exception {
+		if (project.isStale()) {
+			return false;
+		}
+		if (project.is(Constants.BUILDFINGERPRINT)) {
+			// the fingerprints include the sources
+			return true;
+		}
+		File[] files = project.getBuildFiles(false);
+		if (files == null) {
+			return false;
+		}
+		long built = Long.MAX_VALUE;
+		for (File file : files) {
+			built = Math.min(built, file.lastModified());
+		}
+		List<File> sources = new ArrayList<>(project.getSourcePath());
+		if (test) {
+			sources.add(project.getTestSrc());
+		}
+		for (File source : sources) {
+			if (isNewer(source, built)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isNewer(File file, long time) {
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children != null) {
+				for (File child : children) {
+					if (isNewer(child, time)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		return file.lastModified() > time;
+	}
+}
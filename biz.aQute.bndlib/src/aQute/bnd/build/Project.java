@@ -38,6 +38,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -182,7 +183,7 @@ public class Project extends Processor {
 	private volatile Memoize<List<org.osgi.resource.Resource>>	resources						= Memoize
 		.supplier(this::parseBuildResources);
 	private volatile RefreshData								data							= new RefreshData();
-	public Map<String, Container>								unreferencedClasspathEntries	= new HashMap<>();
+	public Map<String, Container>								unreferencedClasspathEntries	= new ConcurrentHashMap<>();
 	public ProjectInstructions									instructions					= getInstructions(
 		ProjectInstructions.class);
 
@@ -1732,6 +1733,10 @@ public class Project extends Processor {
 			return false;
 		}
 
+		if (is(BUILDFINGERPRINT)) {
+			return new BuildState(this).isStale(visited);
+		}
+
 		long buildTime = 0;
 
 		File[] files = getBuildFiles(false);
@@ -1980,6 +1985,9 @@ public class Project extends Processor {
 					}
 					getWorkspace().changedFile(bfs);
 				}
+				if (is(BUILDFINGERPRINT)) {
+					new BuildState(this).save(buildFilesSet);
+				}
 				bfs = null; // avoid delete in finally block
 				builtFiles(buildFilesSet);
 
@@ -3112,79 +3120,70 @@ public class Project extends Processor {
 
 	public void compile(boolean test) throws Exception {
 
-		Command javac = getCommonJavac(false);
-		javac.add("-d", IO.absolutePath(getOutput()));
-
-		StringBuilder buildpath = new StringBuilder();
-
-		String buildpathDel = "";
+		List<File> buildpath = new ArrayList<>();
 		Collection<Container> bp = Container.flatten(getBuildpath());
 		logger.debug("buildpath {}", getBuildpath());
 		for (Container c : bp) {
-			buildpath.append(buildpathDel)
-				.append(IO.absolutePath(c.getFile()));
-			buildpathDel = File.pathSeparator;
-		}
-
-		if (buildpath.length() != 0) {
-			javac.add("-classpath", buildpath.toString());
-		}
-
-		List<File> sp = new ArrayList<>(getSourcePath());
-		StringBuilder sourcepath = new StringBuilder();
-		String sourcepathDel = "";
-
-		for (File sourceDir : sp) {
-			sourcepath.append(sourcepathDel)
-				.append(IO.absolutePath(sourceDir));
-			sourcepathDel = File.pathSeparator;
+			buildpath.add(c.getFile());
 		}
 
-		javac.add("-sourcepath", sourcepath.toString());
+		List<File> sourcepath = new ArrayList<>(getSourcePath());
 
 		Glob javaFiles = new Glob("*.java");
 		List<File> files = new ArrayList<>();
 		getSourcePath().forEach(src -> javaFiles.getFiles(src, files, true, false));
 
-		for (File file : files) {
-			javac.add(IO.absolutePath(file));
-		}
-
 		if (files.isEmpty()) {
 			logger.debug("Not compiled, no source files");
 		} else
-			compile(javac, "src");
+			compile(getCommonJavac(false), getOutput(), buildpath, sourcepath, files, "src");
 
 		if (test) {
-			javac = getCommonJavac(true);
-			javac.add("-d", IO.absolutePath(getTestOutput()));
-
 			Collection<Container> tp = Container.flatten(getTestpath());
 			for (Container c : tp) {
-				buildpath.append(buildpathDel)
-					.append(IO.absolutePath(c.getFile()));
-				buildpathDel = File.pathSeparator;
-			}
-			if (buildpath.length() != 0) {
-				javac.add("-classpath", buildpath.toString());
+				buildpath.add(c.getFile());
 			}
 
-			sourcepath.append(sourcepathDel)
-				.append(IO.absolutePath(getTestSrc()));
-			javac.add("-sourcepath", sourcepath.toString());
+			sourcepath.add(getTestSrc());
 
 			javaFiles.getFiles(getTestSrc(), files, true, false);
-			for (File file : files) {
-				javac.add(IO.absolutePath(file));
-			}
 			if (files.isEmpty()) {
 				logger.debug("Not compiled for test, no test src files");
 			} else
-				compile(javac, "test");
+				compile(getCommonJavac(true), getTestOutput(), buildpath, sourcepath, files, "test");
 		}
 	}
 
-	private void compile(Command javac, String what) throws Exception {
+	private void compile(List<String> options, File output, List<File> buildpath, List<File> sourcepath,
+		List<File> files, String what) throws Exception {
+		if (is(Constants.INPROCESSJAVAC)) {
+			String executable = getProperty("javac");
+			if ((executable != null) && !executable.equals("javac")) {
+				// an external compiler is configured, use it
+				logger.warn("{} is ignored, the javac property selects {}", Constants.INPROCESSJAVAC, executable);
+			} else {
+				InProcessJavac inProcessJavac = getWorkspace().getInProcessJavac();
+				if (inProcessJavac.isAvailable()) {
+					logger.debug("compile in process {} {} {}", what, options, files);
+					inProcessJavac.compile(this, options, output, buildpath, sourcepath, files);
+					return;
+				}
+				logger.debug("No Java compiler in the running VM, using {}", getJavaExecutable("javac"));
+			}
+		}
+
+		Command javac = new Command();
+		javac.add(getJavaExecutable("javac"));
+		javac.addAll(options);
+		javac.add("-d", IO.absolutePath(output));
+		if (!buildpath.isEmpty()) {
+			javac.add("-classpath", toPath(buildpath));
+		}
+		javac.add("-sourcepath", toPath(sourcepath));
+		for (File file : files) {
+			javac.add(IO.absolutePath(file));
+		}
+
 		logger.debug("compile {} {}", what, javac);
 
 		StringBuilder stdout = new StringBuilder();
@@ -3199,9 +3198,14 @@ public class Project extends Processor {
 		}
 	}
 
-	private Command getCommonJavac(boolean test) throws Exception {
-		Command javac = new Command();
-		javac.add(getJavaExecutable("javac"));
+	private static String toPath(List<File> files) {
+		return files.stream()
+			.map(IO::absolutePath)
+			.collect(Collectors.joining(File.pathSeparator));
+	}
+
+	private List<String> getCommonJavac(boolean test) throws Exception {
+		List<String> javac = new ArrayList<>();
 		String target = getProperty("javac.target", "1.6");
 		String profile = getProperty("javac.profile", "");
 		String source = getProperty("javac.source", "1.6");
@@ -3213,14 +3217,19 @@ public class Project extends Processor {
 
 		boolean deprecation = isTrue(getProperty("java.deprecation"));
 
-		javac.add("-encoding", "UTF-8");
+		javac.add("-encoding");
+		javac.add(getProperty(Constants.JAVAC_ENCODING, "UTF-8"));
 
-		javac.add("-source", source);
+		javac.add("-source");
+		javac.add(source);
 
-		javac.add("-target", target);
+		javac.add("-target");
+		javac.add(target);
 
-		if (!profile.isEmpty())
-			javac.add("-profile", profile);
+		if (!profile.isEmpty()) {
+			javac.add("-profile");
+			javac.add(profile);
+		}
 
 		if (deprecation)
 			javac.add("-deprecation");
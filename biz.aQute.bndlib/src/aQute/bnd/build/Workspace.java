@@ -40,6 +40,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
 import java.util.function.BooleanSupplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
@@ -82,8 +83,10 @@ import aQute.bnd.osgi.Resource;
 import aQute.bnd.osgi.Verifier;
 import aQute.bnd.osgi.repository.AggregateRepository;
 import aQute.bnd.osgi.repository.AugmentRepository;
+import aQute.bnd.osgi.repository.PersistentResourcesRepository;
 import aQute.bnd.osgi.repository.WorkspaceRepositoryMarker;
 import aQute.bnd.osgi.resource.RequirementBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
 import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.osgi.resource.ResourceUtils.IdentityCapability;
 import aQute.bnd.remoteworkspace.server.RemoteWorkspaceServer;
@@ -98,6 +101,7 @@ import aQute.bnd.service.lifecycle.LifeCyclePlugin;
 import aQute.bnd.service.repository.Prepare;
 import aQute.bnd.service.repository.RepositoryDigest;
 import aQute.bnd.service.repository.SearchableRepository.ResourceDescriptor;
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.bnd.stream.MapStream;
 import aQute.bnd.url.MultiURLConnectionHandler;
 import aQute.bnd.util.home.Home;
@@ -138,6 +142,9 @@ public class Workspace extends Processor {
 		final CloseableMemoize<WorkspaceExternalPluginHandler>	externalPlugins;
 		final CloseableMemoize<LibraryHandler>					libraryHandler;
 		final Memoize<Parameters>								gestalt;
+		final CloseableMemoize<FileResourceStore>				resourceStore;
+		final CloseableMemoize<InProcessJavac>					javac;
+		final BuildState.Fingerprints							fingerprints	= new BuildState.Fingerprints();
 
 		WorkspaceData() {
 			repositories = Memoize.supplier(Workspace.this::initRepositories);
@@ -145,6 +152,8 @@ public class Workspace extends Processor {
 			classIndex = CloseableMemoize.closeableSupplier(() -> new WorkspaceClassIndex(Workspace.this));
 			externalPlugins = CloseableMemoize
 				.closeableSupplier(() -> new WorkspaceExternalPluginHandler(Workspace.this));
+			resourceStore = CloseableMemoize.closeableSupplier(Workspace.this::openResourceStore);
+			javac = CloseableMemoize.closeableSupplier(InProcessJavac::new);
 			gestalt = Memoize.supplier(() -> {
 				Parameters gestalt = getMergedParameters(Constants.GESTALT);
 				gestalt.mergeWith(overallGestalt, false);
@@ -167,6 +176,8 @@ public class Workspace extends Processor {
 			IO.close(remoteServer);
 			IO.close(classIndex);
 			IO.close(externalPlugins);
+			IO.close(resourceStore);
+			IO.close(javac);
 		}
 	}
 
@@ -794,6 +805,10 @@ public class Workspace extends Processor {
 				pluginsContainer.add(repo);
 			}
 
+			if (is(SHAREDDESCRIPTORS)) {
+				pluginsContainer.add(new Descriptors());
+			}
+
 			resourceRepositoryImpl = new ResourceRepositoryImpl();
 			String cachedir = getProperty(CACHEDIR);
 			if (cachedir == null) {
@@ -1035,6 +1050,68 @@ public class Workspace extends Processor {
 		table.put("Projects in build order", getBuildOrder());
 	}
 
+	/**
+	 * The Java compiler that compiles the projects of this workspace in
+	 * process when {@link Constants#INPROCESSJAVAC} is set.
+	 */
+	InProcessJavac getInProcessJavac() {
+		return data.javac.get();
+	}
+
+	/**
+	 * The cached digests of the files used by the build fingerprints of the
+	 * projects of this workspace, see {@link Constants#BUILDFINGERPRINT}.
+	 */
+	BuildState.Fingerprints getFingerprints() {
+		return data.fingerprints;
+	}
+
+	/**
+	 * Get the function that creates the resource of a file for the
+	 * repositories of this workspace, see
+	 * {@link ResourceBuilder#addFile(File, URI, BiFunction)}. When the
+	 * persistent resource cache is enabled with {@link Constants#RESOURCECACHE},
+	 * the resources are taken from and stored in the cache of this workspace.
+	 * Otherwise the files are parsed.
+	 *
+	 * @return the function that creates the resource of a file
+	 */
+	public BiFunction<File, URI, SupportingResource> getFileResourceStore() {
+		FileResourceStore store = data.resourceStore.get();
+		return store::getResource;
+	}
+
+	private FileResourceStore openResourceStore() {
+		if (!isTrue(getProperty(Constants.RESOURCECACHE))) {
+			return new FileResourceStore(null);
+		}
+		try {
+			return new FileResourceStore(new PersistentResourcesRepository(getCache("resources")));
+		} catch (Exception e) {
+			exception(e, "Could not open the resource cache of workspace %s", getBase());
+			return new FileResourceStore(null);
+		}
+	}
+
+	private static final class FileResourceStore implements AutoCloseable {
+		private final PersistentResourcesRepository cache;
+
+		FileResourceStore(PersistentResourcesRepository cache) {
+			this.cache = cache;
+		}
+
+		SupportingResource getResource(File file, URI uri) {
+			return (cache != null) ? cache.getResource(file, uri) : ResourceBuilder.parse(file, uri);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (cache != null) {
+				cache.close();
+			}
+		}
+	}
+
 	public File getCache(String name) {
 		return getFile(buildDir, CACHEDIR + "/" + name);
 	}
@@ -1,21 +1,38 @@
 package aQute.bnd.build;
 
 import static aQute.bnd.classindex.ClassIndexerAnalyzer.BND_HASHES;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.osgi.framework.namespace.PackageNamespace;
 import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
 import org.osgi.service.repository.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import aQute.bnd.build.Workspace.ResourceRepositoryStrategy;
 import aQute.bnd.classindex.ClassIndexerAnalyzer;
@@ -24,18 +41,36 @@ import aQute.bnd.osgi.BundleId;
 import aQute.bnd.osgi.Descriptors;
 import aQute.bnd.osgi.resource.RequirementBuilder;
 import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.osgi.resource.ResourceUtils.ContentCapability;
 import aQute.bnd.result.Result;
 import aQute.bnd.version.Version;
 import aQute.lib.collections.MultiMap;
-import aQute.lib.hierarchy.Hierarchy;
-import aQute.lib.hierarchy.NamedNode;
-import aQute.lib.zip.JarIndex;
-
+import aQute.lib.io.IO;
+import aQute.libg.cryptography.SHA256;
+
+/**
+ * Search the classes of the bundles in the repositories of a workspace.
+ * <p>
+ * The candidate bundles are found with the package capabilities of the
+ * repositories. The classes of a candidate bundle are indexed by the SHA-256 of
+ * the bundle the first time it is searched. This index is kept in memory and in
+ * the workspace cache, so later searches, also after the repositories were
+ * refreshed or the workspace was opened again, do not open the bundle. A
+ * bundle that changed has a different SHA-256 and is indexed again. The
+ * classes of the bundles that were not searched for 30 days are removed from
+ * the workspace cache.
+ */
 class WorkspaceClassIndex implements AutoCloseable {
-	final Workspace workspace;
+	private final static Logger				logger		= LoggerFactory.getLogger(WorkspaceClassIndex.class);
+	private final static int				MAX_ENTRIES	= 10_000;
+	private final static long				MAX_AGE		= TimeUnit.DAYS.toMillis(30);
+	final Workspace							workspace;
+	private final File						cache;
+	private final Map<String, Set<String>>	index		= new ConcurrentHashMap<>();
 
 	WorkspaceClassIndex(Workspace workspace) {
 		this.workspace = workspace;
+		this.cache = workspace.getCache("classindex");
 	}
 
 	/**
@@ -107,7 +142,7 @@ class WorkspaceClassIndex implements AutoCloseable {
 
 			String binaryClassPath = Descriptors.classToPath(className);
 
-			String error = matchClassNameAgainstResource(binaryClassPath, e.getValue(), bundle, result);
+			String error = matchClassNameAgainstResource(binaryClassPath, resource, e.getValue(), bundle, result);
 			if (error != null) {
 				return Result.err(error);
 			}
@@ -120,47 +155,154 @@ class WorkspaceClassIndex implements AutoCloseable {
 	 * found via the hashes or the package prefix. We try to find the class name
 	 * in the package directory of the resource
 	 */
-	private String matchClassNameAgainstResource(String binaryClassName, List<Capability> caps, BundleId bundle,
-		MultiMap<BundleId, String> result) {
-		try {
+	private String matchClassNameAgainstResource(String binaryClassName, Resource resource, List<Capability> caps,
+		BundleId bundle, MultiMap<BundleId, String> result) {
+		Result<Set<String>> r = getClasses(resource, bundle);
+		if (r.isErr()) {
+			return r.error()
+				.get();
+		}
+		Set<String> classes = r.unwrap();
 
-			Result<File> r = workspace.getBundle(bundle.getBsn(), Version.valueOf(bundle.getVersion()), null);
-			if (r.isErr()) {
-				return r.error()
-					.get();
-			}
+		caps: for (Capability cap : caps) {
 
-			Hierarchy zipIndex = new JarIndex(r.unwrap());
+			String foundPackage = (String) cap.getAttributes()
+				.get(PackageNamespace.PACKAGE_NAMESPACE);
+			if (foundPackage == null)
+				continue caps;
 
-			caps: for (Capability cap : caps) {
+			String path = foundPackage.isEmpty() ? binaryClassName
+				: Descriptors.fqnToBinary(foundPackage) + "/" + binaryClassName;
+			if (classes.contains(path)) {
+				String fqn = Descriptors.binaryClassToFQN(path);
+				result.add(bundle, fqn);
+			}
+		}
+		return null;
+	}
 
-				String foundPackage = (String) cap.getAttributes()
-					.get(PackageNamespace.PACKAGE_NAMESPACE);
-				if (foundPackage == null)
-					continue caps;
+	/*
+	 * Get the paths of the classes in a bundle. The classes of a bundle with a
+	 * content capability are kept by the SHA-256 of the bundle in memory and in
+	 * the workspace cache, so the bundle is only opened the first time it is
+	 * searched. The classes are only kept when the SHA-256 of the bundle that
+	 * was opened matches the content capability.
+	 */
+	private Result<Set<String>> getClasses(Resource resource, BundleId bundle) {
+		ContentCapability content = ResourceUtils.getContentCapability(resource);
+		String sha = (content != null) ? content.osgi_content() : null;
+		if (sha == null) {
+			return readClasses(bundle);
+		}
+		String key = sha.toLowerCase(Locale.ROOT);
+		Set<String> classes = index.get(key);
+		if (classes != null) {
+			return Result.ok(classes);
+		}
+		File file = new File(cache, key);
+		if (file.isFile()) {
+			try {
+				classes = Set.copyOf(Files.readAllLines(file.toPath(), UTF_8));
+				// the modification time is the time of last use for pruning
+				file.setLastModified(System.currentTimeMillis());
+			} catch (IOException e) {
+				logger.debug("Could not read the class index {}", file, e);
+			}
+		}
+		if (classes == null) {
+			try {
+				Result<File> r = getBundle(bundle);
+				if (r.isErr()) {
+					return r.asError();
+				}
+				File bundleFile = r.unwrap();
+				classes = readClasses(bundleFile);
+				String digest = SHA256.digest(bundleFile)
+					.asHex();
+				if (!key.equalsIgnoreCase(digest)) {
+					logger.debug("The SHA-256 {} of {} does not match the content capability {} of {}", digest,
+						bundleFile, key, bundle);
+					return Result.ok(classes);
+				}
+			} catch (Exception e) {
+				return Result.err(Exceptions.causes(e));
+			}
+			store(file, classes);
+		}
+		Set<String> previous = index.putIfAbsent(key, classes);
+		return Result.ok((previous != null) ? previous : classes);
+	}
 
-				String[] foundPath = foundPackage.split("\\.");
+	private Result<Set<String>> readClasses(BundleId bundle) {
+		try {
+			Result<File> r = getBundle(bundle);
+			if (r.isErr()) {
+				return r.asError();
+			}
+			return Result.ok(readClasses(r.unwrap()));
+		} catch (Exception e) {
+			return Result.err(Exceptions.causes(e));
+		}
+	}
 
-				zipIndex.findFolder(foundPath)
-					.ifPresent(folder -> {
+	private Result<File> getBundle(BundleId bundle) throws Exception {
+		return workspace.getBundle(bundle.getBsn(), Version.valueOf(bundle.getVersion()), null);
+	}
 
-						NamedNode clazz = folder.get(binaryClassName)
-							.orElse(null);
-						if (clazz != null) {
-							String path = clazz.path();
-							String fqn = Descriptors.binaryClassToFQN(path);
-							result.add(bundle, fqn);
-							return;
-						}
+	private static Set<String> readClasses(File bundleFile) throws IOException {
+		try (ZipFile zip = new ZipFile(bundleFile)) {
+			Set<String> classes = zip.stream()
+				.map(ZipEntry::getName)
+				.filter(name -> name.endsWith(".class"))
+				.collect(toSet());
+			return Collections.unmodifiableSet(classes);
+		}
+	}
 
-					});
+	/*
+	 * The content of a file is only determined by its name, so the file is
+	 * written aside and moved in place for concurrent readers and writers.
+	 */
+	private void store(File file, Set<String> classes) {
+		try {
+			IO.mkdirs(cache);
+			Path tmp = Files.createTempFile(cache.toPath(), file.getName(), ".tmp");
+			try {
+				Files.write(tmp, new TreeSet<>(classes), UTF_8);
+				Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tmp);
 			}
-		} catch (IOException e1) {
-			return Exceptions.causes(e1);
+		} catch (IOException e) {
+			logger.debug("Could not store the class index {}", file, e);
 		}
-		return null;
 	}
 
+	/*
+	 * Remove the stored classes of the bundles that were not searched for
+	 * MAX_AGE, and of the least recently searched bundles above MAX_ENTRIES.
+	 */
+	void prune() {
+		File[] files = cache.listFiles();
+		if (files == null) {
+			return;
+		}
+		List<Stored> stored = Arrays.stream(files)
+			.map(f -> new Stored(f, f.lastModified()))
+			.sorted(Comparator.comparingLong(Stored::lastUsed)
+				.reversed())
+			.collect(toList());
+		long limit = System.currentTimeMillis() - MAX_AGE;
+		for (int i = 0; i < stored.size(); i++) {
+			Stored s = stored.get(i);
+			if ((i >= MAX_ENTRIES) || (s.lastUsed() < limit)) {
+				IO.delete(s.file());
+			}
+		}
+	}
+
+	private record Stored(File file, long lastUsed) {}
+
 	/*
 	 * We used a wildcard for the package name, we've got a number of potential
 	 * packages. We will look for the longest package
@@ -245,7 +387,15 @@ class WorkspaceClassIndex implements AutoCloseable {
 		return sb.toString();
 	}
 
+	/*
+	 * The stored classes are pruned when a workspace that searched is
+	 * refreshed or closed.
+	 */
 	@Override
-	public void close() {}
+	public void close() {
+		if (!index.isEmpty()) {
+			prune();
+		}
+	}
 
 }
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.IntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,6 +34,7 @@ import org.xml.sax.SAXParseException;
 
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.header.Attrs;
+import aQute.bnd.header.OSGiHeader;
 import aQute.bnd.header.Parameters;
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.osgi.Constants;
@@ -83,9 +85,30 @@ public class ConnectionSettings {
 				.mkdirs();
 			this.client.setLog(file);
 		}
+		String limits = processor.getProperty(Constants.CONNECTION_LIMITS);
+		if (Strings.nonNullOrEmpty(limits)) {
+			Attrs attrs = OSGiHeader.parseProperties(limits, processor);
+			setLimit(attrs, "total", this.client::maxConnections);
+			setLimit(attrs, "host", this.client::maxConnectionsPerHost);
+		}
+		if (processor.is(Constants.CONNECTION_HTTP2)) {
+			this.client.http2(true);
+		}
 		mavenMasterPassphrase = new MasterPassphrase(processor);
 	}
 
+	private void setLimit(Attrs attrs, String key, IntConsumer limit) {
+		String value = attrs.get(key);
+		if (value == null) {
+			return;
+		}
+		try {
+			limit.accept(Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			processor.error("%s: %s must be a number but is %s", Constants.CONNECTION_LIMITS, key, value);
+		}
+	}
+
 	private static final class MasterPassphrase extends ConcurrentInitialize<String> {
 		private final Processor processor;
 
@@ -348,6 +348,9 @@ public class Syntax implements Constants {
 			BUILDPATH + "=osgi;version=4.1", "${repo;bsns}", Verifier.SYMBOLICNAME, path_version),
 		new Syntax(BUILDREPO, "After building a JAR, release the JAR to the given repositories.", BUILDREPO + "=Local",
 			null, null),
+		new Syntax(BUILDFINGERPRINT,
+			"Decide if a project is stale by comparing the content digests of its inputs and outputs with those of its last build instead of the file modification times.",
+			BUILDFINGERPRINT + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(BUILDERIGNORE,
 			"List of project-relative directories to be ignored by the builder. This is processed by the Bndtools builder in Eclipse and the Bnd Gradle plugin for workspace model builds.",
 			BUILDERIGNORE + "=${if;${driver;gradle};bin,bin_test,generated;build}", null, null),
@@ -385,6 +388,12 @@ public class Syntax implements Constants {
 
 		new Syntax(CONNECTION_SETTINGS, "Setting up the communications for bnd.",
 			CONNECTION_SETTINGS + "= ~/.bnd/connection-settings.xml", null, null),
+		new Syntax(CONNECTION_LIMITS,
+			"Limit the number of open connections in total and to a single host. Connections over the limit are queued.",
+			CONNECTION_LIMITS + ": total=32, host=4", null, null),
+		new Syntax(CONNECTION_HTTP2,
+			"Download with the HTTP client of the JDK, which reuses connections and multiplexes requests over HTTP/2.",
+			CONNECTION_HTTP2 + ": true", "true,false", Verifier.TRUEORFALSEPATTERN),
 
 		new Syntax(CONDUIT, "Allows a bnd file to point to files which will be returned when the bnd file is build.",
 			CONDUIT + "= jar/osgi.jar", null, null),
@@ -511,6 +520,9 @@ public class Syntax implements Constants {
 			INCLUDERESOURCE + ": lib/=jar/, {preprocess.txt}, 'literal';literal;=true,", null, null),
 		new Syntax(INIT, "Executes macros while initializing the project for building", INIT + ": ${my_macro} ", null,
 			null),
+		new Syntax(INPROCESSJAVAC,
+			"Compile the sources of a project with the Java compiler of the running VM instead of a javac process.",
+			INPROCESSJAVAC + ": true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(JAVAAGENT, "Specify if classpath jars with Premain-Class headers are to be used as java agents.",
 			JAVAAGENT + ": true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(JAVAC, "Java Compiler Specific Settings.", null, null, null),
@@ -565,6 +577,13 @@ public class Syntax implements Constants {
 			NOCLASSFORNAME + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(NOIMPORTJAVA, "Do not calculate " + IMPORT_PACKAGE + " references for java.* packages.",
 			NOIMPORTJAVA + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(PARALLELANALYSIS,
+			"Parse the class files of the bundle concurrently during analysis, with a worker per processor or the given number of workers. The resulting manifest is identical to a sequential analysis.",
+			PARALLELANALYSIS + "=true", "true,false,NUMBER", null),
+
+		new Syntax(PARALLELSUB,
+			"Build the bundles of the -sub instruction concurrently. The bundles must not depend on each other.",
+			PARALLELSUB + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 
 		new Syntax(NOEE, "Do not calculate the osgi.ee name space Execution Environment from the class file version.",
 			NOEE + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
@@ -618,6 +637,9 @@ public class Syntax implements Constants {
 			RESOURCEONLY + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(SAVEMANIFEST, "Write out the manifest to a separate file after it has been calculated.",
 			SAVEMANIFEST + "=file.txt", null, null),
+		new Syntax(SHAREDDESCRIPTORS,
+			"Share the type and package references of the java namespace between all analyzers of a workspace.",
+			SHAREDDESCRIPTORS + ": true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(SOURCES, "Include sources in the jar.", SOURCES + "=true", "true,false",
 			Verifier.TRUEORFALSEPATTERN),
 		new Syntax(SOURCEPATH, "List of directory names that used to source sources for " + SOURCES + ".",
@@ -682,6 +704,9 @@ public class Syntax implements Constants {
 		new Syntax(REMOTEWORKSPACE,
 			"This setting enables the workspace to be available over a remote procedure call interface.",
 			REMOTEWORKSPACE + ": true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(RESOURCECACHE,
+			"Store the capabilities and requirements of the indexed bundles in the workspace cache so that they are not parsed again when the workspace is opened.",
+			RESOURCECACHE + ": true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(RUNVM, "Additional comma-separated arguments for the VM invocation.",
 			RUNVM + "=-Xmax=30, -DsecondOption=secondValue", null, null),
 		new Syntax(RUNPROGRAMARGS, "Additional comma-separated arguments for the program invocation.",
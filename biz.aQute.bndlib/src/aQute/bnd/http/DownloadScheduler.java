@@ -0,0 +1,246 @@
+package aQute.bnd.http;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+import aQute.bnd.http.HttpClient.Statistics;
+import aQute.bnd.http.HttpRequest.Priority;
+
+/**
+ * Schedules the connections of an {@link HttpClient} so that no more than a
+ * maximum number of connections are open in total and to a single host.
+ * <p>
+ * Connections that cannot be started are queued per host. When a connection
+ * finishes, the queued connection with the highest {@link Priority} is
+ * started. Hosts with queued connections of the same priority take turns, and
+ * the connections to a host are started in the order they were queued. A
+ * connection holds its slot until it releases it, which can be later than its
+ * promise resolves, for example when its request is still running after it
+ * timed out.
+ * The delay before a retry is spent outside the scheduler.
+ */
+final class DownloadScheduler {
+	private final PromiseFactory		promiseFactory;
+	/**
+	 * The hosts with queued or running connections.
+	 */
+	private final Map<String, Host>		hosts	= new HashMap<>();
+	private int							maxConnections;
+	private int							maxConnectionsPerHost;
+	private int							running;
+	private int							queued;
+	private long						sequence;
+	private long						turns;
+	private long						started;
+	private long						completed;
+	private long						queueTime;
+
+	DownloadScheduler(PromiseFactory promiseFactory, int maxConnections, int maxConnectionsPerHost) {
+		this.promiseFactory = requireNonNull(promiseFactory);
+		this.maxConnections = limit(maxConnections);
+		this.maxConnectionsPerHost = limit(maxConnectionsPerHost);
+	}
+
+	/**
+	 * Submit a connection to a host.
+	 *
+	 * @param host the scheme, host and port of the connection
+	 * @param priority the priority of the connection
+	 * @param connection starts the connection when a slot is free and answers
+	 *            the promise of the connection. It is given the action that
+	 *            frees the slot, which must be run when the connection is
+	 *            finished. The slot is also freed if the connection cannot be
+	 *            started.
+	 * @return a promise that resolves with the promise of the connection
+	 */
+	<T> Promise<T> submit(String host, Priority priority, Function<Runnable, Promise<T>> connection) {
+		Job<T> job;
+		synchronized (this) {
+			Host h = hosts.computeIfAbsent(host, Host::new);
+			job = new Job<>(h, priority, sequence++, connection);
+			h.queue.add(job);
+			queued++;
+		}
+		schedule();
+		return job.deferred.getPromise();
+	}
+
+	void maxConnections(int maxConnections) {
+		synchronized (this) {
+			this.maxConnections = limit(maxConnections);
+		}
+		schedule();
+	}
+
+	void maxConnectionsPerHost(int maxConnectionsPerHost) {
+		synchronized (this) {
+			this.maxConnectionsPerHost = limit(maxConnectionsPerHost);
+		}
+		schedule();
+	}
+
+	synchronized int maxConnections() {
+		return maxConnections;
+	}
+
+	synchronized int maxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	synchronized Statistics statistics() {
+		return new Statistics(queued, running, started, completed, TimeUnit.NANOSECONDS.toMillis(queueTime));
+	}
+
+	/**
+	 * Start the queued connections that fit in the free slots. The connections
+	 * are started outside the lock since starting a connection can complete
+	 * it, which schedules again.
+	 */
+	private void schedule() {
+		List<Job<?>> jobs = new ArrayList<>();
+		synchronized (this) {
+			while (running < maxConnections) {
+				Job<?> job = next();
+				if (job == null) {
+					break;
+				}
+				Host host = job.host;
+				host.queue.remove();
+				host.running++;
+				running++;
+				queued--;
+				started++;
+				queueTime += System.nanoTime() - job.queued;
+				host.turn = ++turns;
+				jobs.add(job);
+			}
+		}
+		for (Job<?> job : jobs) {
+			job.start();
+		}
+	}
+
+	/**
+	 * Answer the queued connection with the highest priority of the hosts
+	 * that have a free slot. Among the connections of the same priority, the
+	 * host that had its last turn longest ago wins, and then the connection
+	 * queued first.
+	 */
+	private Job<?> next() {
+		Job<?> next = null;
+		for (Host host : hosts.values()) {
+			if (host.running >= maxConnectionsPerHost) {
+				continue;
+			}
+			Job<?> job = host.queue.peek();
+			if (job == null) {
+				continue;
+			}
+			if (next == null) {
+				next = job;
+				continue;
+			}
+			int compare = job.priority.compareTo(next.priority);
+			if (compare == 0) {
+				compare = Long.compare(next.host.turn, host.turn);
+			}
+			if (compare == 0) {
+				compare = Long.compare(next.sequence, job.sequence);
+			}
+			if (compare > 0) {
+				next = job;
+			}
+		}
+		return next;
+	}
+
+	private void finished(Job<?> job) {
+		synchronized (this) {
+			Host host = job.host;
+			host.running--;
+			running--;
+			completed++;
+			if ((host.running == 0) && host.queue.isEmpty()) {
+				hosts.remove(host.name);
+			}
+		}
+		schedule();
+	}
+
+	private static int limit(int limit) {
+		return (limit > 0) ? limit : Integer.MAX_VALUE;
+	}
+
+	private static final class Host {
+		final String				name;
+		final PriorityQueue<Job<?>>	queue	= new PriorityQueue<>();
+		int							running;
+		/**
+		 * When the host last started a connection.
+		 */
+		long						turn;
+
+		Host(String name) {
+			this.name = name;
+		}
+	}
+
+	private final class Job<T> implements Comparable<Job<?>> {
+		final Host								host;
+		final Priority							priority;
+		final long								sequence;
+		final long								queued		= System.nanoTime();
+		final Function<Runnable, Promise<T>>	connection;
+		final Deferred<T>						deferred;
+		final AtomicBoolean						released	= new AtomicBoolean();
+
+		Job(Host host, Priority priority, long sequence, Function<Runnable, Promise<T>> connection) {
+			this.host = host;
+			this.priority = requireNonNull(priority);
+			this.sequence = sequence;
+			this.connection = connection;
+			this.deferred = promiseFactory.deferred();
+		}
+
+		void start() {
+			Promise<T> promise;
+			try {
+				promise = connection.apply(this::release);
+			} catch (Throwable t) {
+				release();
+				promise = promiseFactory.failed(t);
+			}
+			deferred.resolveWith(promise);
+		}
+
+		void release() {
+			if (released.compareAndSet(false, true)) {
+				finished(this);
+			}
+		}
+
+		/**
+		 * Higher priorities first, then in the order queued.
+		 */
+		@Override
+		public int compareTo(Job<?> other) {
+			int compare = other.priority.compareTo(priority);
+			if (compare != 0) {
+				return compare;
+			}
+			return Long.compare(sequence, other.sequence);
+		}
+	}
+}
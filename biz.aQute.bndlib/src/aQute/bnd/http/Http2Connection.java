@@ -0,0 +1,420 @@
+package aQute.bnd.http;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.security.cert.Certificate;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.lib.io.IO;
+
+/**
+ * A URL connection that sends its request with a {@link java.net.http.HttpClient}.
+ * <p>
+ * The connection is configured like a {@link HttpURLConnection}, so the
+ * {@link aQute.bnd.service.url.URLConnectionHandler} plugins can add their
+ * headers, and the response is read like the response of a
+ * {@link HttpURLConnection}, so it can be handed out in a
+ * {@link aQute.bnd.service.url.TaggedData}. The output is buffered and sent
+ * when the connection connects, like a {@link HttpURLConnection} does without
+ * a streaming mode. The timeout of the request of the JDK client only covers
+ * the time until the response headers arrive, so the body is read with the
+ * read timeout of the connection.
+ * <p>
+ * The JDK client cannot use the SSL socket factory or the host name verifier
+ * of a connection. If a plugin sets them, {@link #isCustomized()} returns
+ * {@code true} and the request must be made with a {@link HttpURLConnection}.
+ */
+final class Http2Connection extends HttpsURLConnection {
+	private final static Logger				logger	= LoggerFactory.getLogger(Http2Connection.class);
+	private final java.net.http.HttpClient	client;
+	private ByteArrayOutputStream			output;
+	private HttpResponse<BodyStream>		response;
+	private IOException						failure;
+	private boolean							customized;
+
+	Http2Connection(URL url, java.net.http.HttpClient client) {
+		super(url);
+		this.client = requireNonNull(client);
+	}
+
+	/**
+	 * Answer if a plugin changed the SSL setup of the connection.
+	 */
+	boolean isCustomized() {
+		return customized;
+	}
+
+	@Override
+	public void setSSLSocketFactory(SSLSocketFactory factory) {
+		super.setSSLSocketFactory(factory);
+		customized = true;
+	}
+
+	@Override
+	public void setHostnameVerifier(HostnameVerifier verifier) {
+		super.setHostnameVerifier(verifier);
+		customized = true;
+	}
+
+	@Override
+	public void connect() throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+		if (connected) {
+			return;
+		}
+		java.net.http.HttpRequest.Builder builder;
+		try {
+			builder = java.net.http.HttpRequest.newBuilder(url.toURI());
+		} catch (URISyntaxException e) {
+			throw new IOException("Invalid URL " + url, e);
+		}
+		if ("http".equalsIgnoreCase(url.getProtocol())) {
+			// no h2c upgrade, HTTP/2 is negotiated with TLS
+			builder.version(Version.HTTP_1_1);
+		}
+		for (Map.Entry<String, List<String>> entry : getRequestProperties().entrySet()) {
+			String name = entry.getKey();
+			for (String value : entry.getValue()) {
+				try {
+					builder.header(name, value);
+				} catch (IllegalArgumentException e) {
+					logger.debug("Header {} is not allowed by the JDK client for {}", name, url);
+				}
+			}
+		}
+		long timeout = (long) getConnectTimeout() + getReadTimeout();
+		if (timeout > 0L) {
+			builder.timeout(Duration.ofMillis(timeout));
+		}
+		BodyPublisher body = (output != null) ? BodyPublishers.ofByteArray(output.toByteArray())
+			: BodyPublishers.noBody();
+		builder.method(getRequestMethod(), body);
+
+		connected = true;
+		try {
+			int readTimeout = getReadTimeout();
+			response = client.send(builder.build(), info -> new BodyStream(url, readTimeout));
+		} catch (HttpTimeoutException e) {
+			failure = new SocketTimeoutException(e.getMessage());
+			failure.initCause(e);
+			throw failure;
+		} catch (IOException e) {
+			failure = e;
+			throw e;
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+			failure = new InterruptedIOException(e.getMessage());
+			failure.initCause(e);
+			throw failure;
+		}
+		responseCode = response.statusCode();
+		if ((responseCode / 100) == 3) {
+			// the body of a redirect or not modified response is not used
+			IO.close(response.body());
+		}
+	}
+
+	@Override
+	public void disconnect() {
+		if (response != null) {
+			IO.close(response.body());
+		}
+	}
+
+	@Override
+	public boolean usingProxy() {
+		return client.proxy()
+			.isPresent();
+	}
+
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+		if (!getDoOutput()) {
+			throw new ProtocolException("Output not enabled for " + url);
+		}
+		if (connected) {
+			throw new ProtocolException("Already connected to " + url);
+		}
+		if (output == null) {
+			output = new ByteArrayOutputStream();
+		}
+		return output;
+	}
+
+	@Override
+	public int getResponseCode() throws IOException {
+		connect();
+		return responseCode;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		connect();
+		if (responseCode >= HTTP_BAD_REQUEST) {
+			String message = "Server returned HTTP response code: " + responseCode + " for URL: " + url;
+			if ((responseCode == HTTP_NOT_FOUND) || (responseCode == HTTP_GONE)) {
+				throw new FileNotFoundException(message);
+			}
+			throw new IOException(message);
+		}
+		return response.body();
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		if ((response == null) || (responseCode < HTTP_BAD_REQUEST)) {
+			return null;
+		}
+		return response.body();
+	}
+
+	@Override
+	public String getHeaderField(String name) {
+		if (!connect0()) {
+			return null;
+		}
+		return response.headers()
+			.firstValue(name)
+			.orElse(null);
+	}
+
+	@Override
+	public Map<String, List<String>> getHeaderFields() {
+		if (!connect0()) {
+			return Map.of();
+		}
+		return response.headers()
+			.map();
+	}
+
+	private boolean connect0() {
+		try {
+			connect();
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String getCipherSuite() {
+		return sslSession().getCipherSuite();
+	}
+
+	@Override
+	public Certificate[] getLocalCertificates() {
+		return sslSession().getLocalCertificates();
+	}
+
+	@Override
+	public Certificate[] getServerCertificates() throws SSLPeerUnverifiedException {
+		return sslSession().getPeerCertificates();
+	}
+
+	private SSLSession sslSession() {
+		if (response == null) {
+			throw new IllegalStateException("Not connected to " + url);
+		}
+		return response.sslSession()
+			.orElseThrow(() -> new IllegalStateException("No SSL session for " + url));
+	}
+
+	/**
+	 * The body of a response. A read fails with a
+	 * {@link SocketTimeoutException} when no data arrives within the read
+	 * timeout, like a read of a {@link HttpURLConnection}. The data is
+	 * requested from the JDK client one list of buffers at a time, so the
+	 * client does not buffer far ahead of the reader.
+	 */
+	static final class BodyStream extends InputStream implements BodySubscriber<BodyStream> {
+		private final static List<ByteBuffer>				END				= List.of();
+		private final URL									url;
+		private final long									timeout;
+		private final BlockingQueue<Object>					queue			= new LinkedBlockingQueue<>();
+		private final AtomicReference<Flow.Subscription>	subscription	= new AtomicReference<>();
+		private Iterator<ByteBuffer>						buffers			= Collections.emptyIterator();
+		private ByteBuffer									current;
+		private boolean										done;
+		private volatile boolean							closed;
+
+		BodyStream(URL url, long timeout) {
+			this.url = url;
+			this.timeout = timeout;
+		}
+
+		/**
+		 * The body is available when the headers arrive, it is read while the
+		 * data arrives.
+		 */
+		@Override
+		public CompletionStage<BodyStream> getBody() {
+			return CompletableFuture.completedStage(this);
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription s) {
+			if (!subscription.compareAndSet(null, s) || closed) {
+				s.cancel();
+				return;
+			}
+			s.request(1L);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> item) {
+			queue.add(item);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			queue.add(t);
+		}
+
+		@Override
+		public void onComplete() {
+			queue.add(END);
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return (read(b, 0, 1) < 0) ? -1 : Byte.toUnsignedInt(b[0]);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len == 0) {
+				return 0;
+			}
+			if (!next()) {
+				return -1;
+			}
+			int n = Math.min(len, current.remaining());
+			current.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return ((current != null) && !closed) ? current.remaining() : 0;
+		}
+
+		/**
+		 * Make the current buffer the next buffer with data.
+		 *
+		 * @return {@code false} at the end of the body
+		 */
+		@SuppressWarnings("unchecked")
+		private boolean next() throws IOException {
+			while ((current == null) || !current.hasRemaining()) {
+				if (closed) {
+					throw new IOException("Stream closed for " + url);
+				}
+				if (buffers.hasNext()) {
+					current = buffers.next();
+					continue;
+				}
+				if (done) {
+					return false;
+				}
+				Object item = take();
+				if (item instanceof Throwable t) {
+					done = true;
+					throw (t instanceof IOException e) ? e : new IOException(t);
+				}
+				if (item == END) {
+					done = true;
+					return false;
+				}
+				buffers = ((List<ByteBuffer>) item).iterator();
+				Flow.Subscription s = subscription.get();
+				if (s != null) {
+					s.request(1L);
+				}
+			}
+			return true;
+		}
+
+		private Object take() throws IOException {
+			try {
+				if (timeout <= 0L) {
+					return queue.take();
+				}
+				Object item = queue.poll(timeout, TimeUnit.MILLISECONDS);
+				if (item == null) {
+					// like a socket, the stream can be read again
+					throw new SocketTimeoutException("Read timed out after " + timeout + "ms for " + url);
+				}
+				return item;
+			} catch (InterruptedException e) {
+				Thread.currentThread()
+					.interrupt();
+				close();
+				InterruptedIOException failure = new InterruptedIOException(e.getMessage());
+				failure.initCause(e);
+				throw failure;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			Flow.Subscription s = subscription.getAndSet(null);
+			if (s != null) {
+				s.cancel();
+			}
+			queue.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Http2Connection:" + url;
+	}
+}
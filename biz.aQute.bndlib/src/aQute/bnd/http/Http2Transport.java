@@ -0,0 +1,78 @@
+package aQute.bnd.http;
+
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URL;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import aQute.bnd.service.url.ProxyHandler.ProxySetup;
+
+/**
+ * Makes the connections of an {@link HttpClient} with the
+ * {@link java.net.http.HttpClient} of the JDK instead of with the
+ * {@link java.net.HttpURLConnection}. The JDK client keeps a pool of
+ * connections per host and multiplexes the requests to a host over a single
+ * HTTP/2 connection when the server supports it.
+ * <p>
+ * There is a JDK client per proxy since the proxy of a JDK client is fixed
+ * when it is built. SOCKS proxies are not supported by the JDK client, the
+ * connections through a SOCKS proxy are made with the
+ * {@link java.net.HttpURLConnection}.
+ */
+final class Http2Transport {
+	private final static Duration							CONNECT_TIMEOUT	= Duration.ofMinutes(2);
+	private final Map<String, java.net.http.HttpClient>	clients			= new ConcurrentHashMap<>();
+
+	/**
+	 * Answer a connection for a URL, or {@code null} if the URL must be
+	 * connected with the {@link java.net.HttpURLConnection}.
+	 *
+	 * @param url the URL
+	 * @param setup the proxy setup, or {@code null} for a direct connection
+	 */
+	Http2Connection openConnection(URL url, ProxySetup setup) {
+		String scheme = url.getProtocol()
+			.toLowerCase(Locale.ROOT);
+		if (!scheme.equals("http") && !scheme.equals("https")) {
+			return null;
+		}
+		Proxy proxy = (setup != null) ? setup.proxy : null;
+		if ((proxy == null) || (proxy.type() == Proxy.Type.DIRECT)) {
+			return new Http2Connection(url, clients.computeIfAbsent("", k -> build(null, null)));
+		}
+		if ((proxy.type() != Proxy.Type.HTTP) || !(proxy.address() instanceof InetSocketAddress address)) {
+			return null;
+		}
+		PasswordAuthentication authentication = setup.authentication;
+		String key = address + ((authentication != null) ? ";" + authentication.getUserName() : "");
+		return new Http2Connection(url, clients.computeIfAbsent(key, k -> build(address, authentication)));
+	}
+
+	private static java.net.http.HttpClient build(InetSocketAddress proxy, PasswordAuthentication authentication) {
+		java.net.http.HttpClient.Builder builder = java.net.http.HttpClient.newBuilder()
+			.version(Version.HTTP_2)
+			// we handle the redirects
+			.followRedirects(Redirect.NEVER)
+			.connectTimeout(CONNECT_TIMEOUT);
+		if (proxy != null) {
+			builder.proxy(ProxySelector.of(proxy));
+			if (authentication != null) {
+				builder.authenticator(new Authenticator() {
+					@Override
+					protected PasswordAuthentication getPasswordAuthentication() {
+						return (getRequestorType() == RequestorType.PROXY) ? authentication : null;
+					}
+				});
+			}
+		}
+		return builder.build();
+	}
+}
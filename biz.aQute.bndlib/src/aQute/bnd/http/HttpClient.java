@@ -38,6 +38,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 
@@ -79,6 +80,15 @@ public class HttpClient implements Closeable, URLConnector {
 	static final long						INITIAL_TIMEOUT	= TimeUnit.MINUTES.toMillis(3);
 	static final long						FINAL_TIMEOUT	= TimeUnit.MINUTES.toMillis(5);
 	static final long						MAX_RETRY_DELAY	= TimeUnit.MINUTES.toMillis(10);
+	/**
+	 * The default maximum number of open connections of a client.
+	 */
+	public static final int					DEFAULT_MAX_CONNECTIONS				= 64;
+	/**
+	 * The default maximum number of open connections of a client to a single
+	 * host.
+	 */
+	public static final int					DEFAULT_MAX_CONNECTIONS_PER_HOST	= 8;
 
 	private final List<ProxyHandler>			proxyHandlers			= new ArrayList<>();
 	private final List<URLConnectionHandler>	connectionHandlers		= new ArrayList<>();
@@ -95,9 +105,24 @@ public class HttpClient implements Closeable, URLConnector {
 	int											retries					= 3;
 	long										retryDelay				= 0L;
 	final Map<URLConnectionHandler, Semaphore>	blocker					= new HashMap<>();
+	private final DownloadScheduler				scheduler;
+	private volatile Http2Transport				http2;
+
+	/**
+	 * The statistics of the connections of a client.
+	 *
+	 * @param queued the number of connections waiting for a free slot
+	 * @param running the number of open connections
+	 * @param started the number of connections started so far
+	 * @param completed the number of connections finished so far
+	 * @param queueTime the total time in milliseconds the started connections
+	 *            waited for a free slot
+	 */
+	public record Statistics(int queued, int running, long started, long completed, long queueTime) {}
 
 	public HttpClient() {
 		promiseFactory = Processor.getPromiseFactory();
+		scheduler = new DownloadScheduler(promiseFactory, DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_HOST);
 	}
 
 	synchronized void init() {
@@ -151,8 +176,13 @@ public class HttpClient implements Closeable, URLConnector {
 
 	private <T> Promise<T> sendAsync(HttpRequest<T> request, int retries, long delay) {
 		HttpConnection<T> connection = new HttpConnection<>(request);
-		return promiseFactory().submit(connection)
-			.timeout(Math.max((retries < 1) ? FINAL_TIMEOUT : INITIAL_TIMEOUT, request.timeout * 10L))
+		return schedule(request, release -> {
+			Promise<T> task = promiseFactory().submit(connection);
+			// the thread keeps the slot until it is finished, also after a
+			// timeout
+			task.onResolve(release);
+			return task.timeout(Math.max((retries < 1) ? FINAL_TIMEOUT : INITIAL_TIMEOUT, request.timeout * 10L));
+		})
 			.recoverWith(failed -> {
 				Throwable failure = failed.getFailure();
 				Throwable logFailure = null;
@@ -192,6 +222,26 @@ public class HttpClient implements Closeable, URLConnector {
 			});
 	}
 
+	/**
+	 * Submit a connection to the scheduler so the connection limits are kept.
+	 * Local files and the cache of an offline client do not need a slot. The
+	 * timeout of the connection starts when it gets a slot. The slot is held
+	 * until the thread of the connection is finished, also when the connection
+	 * timed out. A response stream that is returned to the caller, for example
+	 * in a {@link TaggedData}, is read after the slot is released since the
+	 * caller is not required to close it.
+	 */
+	private <T> Promise<T> schedule(HttpRequest<T> request, Function<Runnable, Promise<T>> connection) {
+		URL url = request.url;
+		if (isOffline() || "file".equalsIgnoreCase(url.getProtocol())) {
+			return connection.apply(() -> {});
+		}
+		String host = url.getProtocol()
+			.toLowerCase(Locale.ROOT) + "://"
+			+ url.getAuthority();
+		return scheduler.submit(host, request.priority, connection);
+	}
+
 	public <T> T send(HttpRequest<T> request) throws Exception {
 		Promise<T> promise = sendAsync(request);
 		Throwable failure = promise.getFailure(); // wait for completion
@@ -355,6 +405,17 @@ public class HttpClient implements Closeable, URLConnector {
 		if (connectionSettings != null) {
 			connectionSettings.report(out);
 		}
+		Statistics statistics = getStatistics();
+		out.format("%n");
+		out.format("Max Connections     %s%n", limit(scheduler.maxConnections()));
+		out.format("Max Per Host        %s%n", limit(scheduler.maxConnectionsPerHost()));
+		out.format("Queued              %s%n", statistics.queued());
+		out.format("Running             %s%n", statistics.running());
+		out.format("Completed           %s%n", statistics.completed());
+	}
+
+	private static String limit(int limit) {
+		return (limit == Integer.MAX_VALUE) ? "unlimited" : Integer.toString(limit);
 	}
 
 	public HttpClient retries(int retries) {
@@ -367,6 +428,61 @@ public class HttpClient implements Closeable, URLConnector {
 		return this;
 	}
 
+	/**
+	 * Set the maximum number of open connections. The connections over the
+	 * limit are queued until a connection finishes. A connection finishes when
+	 * the thread of its request is finished. Reading a response stream that is
+	 * returned to the caller, for example by {@link HttpRequest#asTag()}, is
+	 * not counted.
+	 *
+	 * @param maxConnections the maximum number of connections, 0 or less for
+	 *            no limit. Default is {@value #DEFAULT_MAX_CONNECTIONS}.
+	 * @return this
+	 */
+	public HttpClient maxConnections(int maxConnections) {
+		scheduler.maxConnections(maxConnections);
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of open connections to a single host, identified
+	 * by the scheme, host and port of the URL.
+	 *
+	 * @param maxConnectionsPerHost the maximum number of connections to a
+	 *            host, 0 or less for no limit. Default is
+	 *            {@value #DEFAULT_MAX_CONNECTIONS_PER_HOST}.
+	 * @return this
+	 */
+	public HttpClient maxConnectionsPerHost(int maxConnectionsPerHost) {
+		scheduler.maxConnectionsPerHost(maxConnectionsPerHost);
+		return this;
+	}
+
+	/**
+	 * Make the connections with the {@link java.net.http.HttpClient} of the
+	 * JDK, which pools the connections to a host and multiplexes requests over
+	 * HTTP/2 when the server supports it. The {@link URLConnectionHandler} and
+	 * {@link ProxyHandler} plugins are still used. Requests through a SOCKS
+	 * proxy, or to a server for which a plugin changes the SSL setup, are made
+	 * with the {@link HttpURLConnection}.
+	 *
+	 * @param http2 {@code true} to use the JDK client, default is
+	 *            {@code false}
+	 * @return this
+	 */
+	public HttpClient http2(boolean http2) {
+		this.http2 = http2 ? new Http2Transport() : null;
+		return this;
+	}
+
+	/**
+	 * Answer the statistics of the connections, for example to report the
+	 * queue depth and the throughput of a synchronization.
+	 */
+	public Statistics getStatistics() {
+		return scheduler.statistics();
+	}
+
 	class HttpConnection<T> implements Callable<T> {
 		// These are not in HttpURLConnection
 		private static final int		HTTP_TEMPORARY_REDIRECT			= 307;	// https://developer.mozilla.org/en-US/docs/Web/HTTP/Status/307
@@ -789,6 +905,22 @@ public class HttpClient implements Closeable, URLConnector {
 
 		private URLConnection getProxiedAndConfiguredConnection(URL url, ProxySetup proxy,
 			URLConnectionHandler matching) throws Exception {
+			Http2Transport transport = http2;
+			if (transport != null) {
+				Http2Connection h2c = transport.openConnection(url, proxy);
+				if (h2c != null) {
+					if (matching == null) {
+						return h2c;
+					}
+					matching.handle(h2c);
+					if (!h2c.isCustomized()) {
+						return h2c;
+					}
+					logger.debug("Handler {} changed the SSL setup, connect {} with HttpURLConnection", matching,
+						url);
+				}
+			}
+
 			final URLConnection urlc = proxy != null ? url.openConnection(proxy.proxy) : url.openConnection();
 
 			if (matching == null) {
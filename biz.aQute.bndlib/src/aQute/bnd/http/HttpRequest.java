@@ -1,5 +1,7 @@
 package aQute.bnd.http;
 
+import static java.util.Objects.requireNonNull;
+
 import java.io.File;
 import java.lang.reflect.Type;
 import java.net.MalformedURLException;
@@ -22,6 +24,23 @@ import aQute.service.reporter.Reporter;
  * @param <T>
  */
 public class HttpRequest<T> {
+	/**
+	 * The priority of a request when the client has to queue its connections,
+	 * see {@link HttpClient#maxConnections(int)}.
+	 */
+	public enum Priority {
+		/**
+		 * Work in the background, for example refreshing an index, that can
+		 * wait for the other requests.
+		 */
+		LOW,
+		NORMAL,
+		/**
+		 * Requests a user or a build is waiting for.
+		 */
+		HIGH
+	}
+
 	String				verb			= "GET";
 	boolean				isIdemPotent	= true;
 	Object				upload;
@@ -42,6 +61,7 @@ public class HttpRequest<T> {
 	boolean				updateTag;
 	int					retries;
 	long				retryDelay;
+	Priority			priority		= Priority.NORMAL;
 
 	HttpRequest(HttpClient client) {
 		this.client = client;
@@ -306,6 +326,19 @@ public class HttpRequest<T> {
 		return this;
 	}
 
+	/**
+	 * Set the priority of the request. When the client has to queue the
+	 * connections because of its connection limits, requests with a higher
+	 * priority are connected first.
+	 *
+	 * @param priority the priority, default is {@link Priority#NORMAL}
+	 * @return this
+	 */
+	public HttpRequest<T> priority(Priority priority) {
+		this.priority = requireNonNull(priority);
+		return this;
+	}
+
 	/**
 	 * Idempotent Methods
 	 * <p>
@@ -12,11 +12,15 @@ import aQute.bnd.osgi.Analyzer;
 import aQute.bnd.osgi.Annotation;
 import aQute.bnd.osgi.ClassDataCollector;
 import aQute.bnd.osgi.Clazz;
+import aQute.bnd.osgi.Clazz.QUERY;
 import aQute.bnd.osgi.Descriptors.TypeRef;
+import aQute.bnd.osgi.Instruction;
 import aQute.bnd.xmlattribute.XMLAttributeFinder;
 
 public class DesignateReader extends ClassDataCollector {
-	static final Logger					logger	= LoggerFactory.getLogger(DesignateReader.class);
+	static final Logger					logger			= LoggerFactory.getLogger(DesignateReader.class);
+	private static final Instruction	DESIGNATE_INSTR	= new Instruction(
+		"org.osgi.service.metatype.annotations.Designate");
 
 	private Analyzer					analyzer;
 	private Clazz						clazz;
@@ -42,6 +46,11 @@ public class DesignateReader extends ClassDataCollector {
 	}
 
 	private DesignateDef getDef() throws Exception {
+		if (!clazz.is(QUERY.ANNOTATED, DESIGNATE_INSTR, analyzer)) {
+			// Not annotated with @Designate so there is no need to visit the
+			// class
+			return null;
+		}
 		clazz.parseClassFileWithCollector(this);
 		if (pid != null && designate != null) {
 			if (pids != null && pids.length > 1) {
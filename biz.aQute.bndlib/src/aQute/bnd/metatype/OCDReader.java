@@ -26,10 +26,15 @@ import aQute.bnd.osgi.ClassDataCollector;
 import aQute.bnd.osgi.Clazz;
 import aQute.bnd.osgi.Clazz.FieldDef;
 import aQute.bnd.osgi.Clazz.MethodDef;
+import aQute.bnd.osgi.Clazz.QUERY;
 import aQute.bnd.osgi.Descriptors.TypeRef;
+import aQute.bnd.osgi.Instruction;
 import aQute.bnd.xmlattribute.XMLAttributeFinder;
 
 class OCDReader {
+	private static final Instruction	OCD_INSTR	= new Instruction(
+		"org.osgi.service.metatype.annotations.ObjectClassDefinition");
+
 	final Analyzer				analyzer;
 	private final Clazz			clazz;
 	final Set<Options>			options;
@@ -53,6 +58,11 @@ class OCDReader {
 	}
 
 	private OCDDef getDef() throws Exception {
+		if (!clazz.is(QUERY.ANNOTATED, OCD_INSTR, analyzer)) {
+			// Not annotated with @ObjectClassDefinition so there is no need to
+			// visit the class
+			return null;
+		}
 		clazz.parseClassFileWithCollector(new OCDDataCollector(ocd));
 		if (ocd.id == null) {
 			return null;
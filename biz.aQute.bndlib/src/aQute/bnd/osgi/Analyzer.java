@@ -16,6 +16,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -40,6 +41,8 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
@@ -50,6 +53,9 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.osgi.framework.namespace.ExecutionEnvironmentNamespace;
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -133,7 +139,8 @@ public class Analyzer extends Processor {
 		PackageRef.class, true);
 	private final Contracts							contracts				= new Contracts(this);
 	private final Packages							classpathExports		= new Packages();
-	private final Descriptors						descriptors				= new Descriptors();
+	private final Descriptors						descriptors				= new Descriptors(
+		() -> is(SHAREDDESCRIPTORS) ? getPlugin(Descriptors.class) : null);
 	private final List<Jar>							classpath				= list();
 	private final Map<TypeRef, Clazz>				classspace				= map();
 	private final Map<TypeRef, Clazz>				importedClassesCache	= map();
@@ -2683,6 +2690,8 @@ public class Analyzer extends Processor {
 			.map(Domain::getImportPackage)
 			.orElseGet(() -> new Parameters());
 
+		Map<String, Promise<Clazz>> parsed = parseClassFiles(jar, prefix);
+
 		next: for (String path : jar.getResources()
 			.keySet()) {
 			if (path.startsWith(prefix)) {
@@ -2707,10 +2716,16 @@ public class Analyzer extends Processor {
 					Clazz clazz;
 
 					try {
-						clazz = new Clazz(this, path, resource);
-						clazz.parseClassFile();
+						Promise<Clazz> promise = parsed.get(path);
+						if (promise != null) {
+							clazz = promise.getValue();
+						} else {
+							clazz = new Clazz(this, path, resource);
+							clazz.parseClassFile();
+						}
 					} catch (Exception e) {
-						exception(e, "Invalid class file %s (%s)", relativePath, e);
+						Throwable t = Exceptions.unrollCause(e, InvocationTargetException.class);
+						exception(t, "Invalid class file %s (%s)", relativePath, t);
 						continue next;
 					}
 
@@ -2759,6 +2774,82 @@ public class Analyzer extends Processor {
 		return true;
 	}
 
+	/**
+	 * Parse the class files of the jar below the prefix concurrently. The
+	 * returned promises are keyed by path so that {@link #analyzeJar} can
+	 * consume the parsed classes in the same order as a sequential analysis,
+	 * keeping the calculated manifest identical. The workers only use the
+	 * thread safe {@link Descriptors} of the analyzer, the instructions that
+	 * influence the parsing are read before the workers start.
+	 */
+	private Map<String, Promise<Clazz>> parseClassFiles(Jar jar, String prefix) {
+		int workers = parallelAnalysisWorkers();
+		if (workers < 2) {
+			return Collections.emptyMap();
+		}
+		List<String> paths = jar.getResources()
+			.keySet()
+			.stream()
+			.filter(path -> path.startsWith(prefix) && path.endsWith(".class")
+				&& !path.startsWith("META-INF/", prefix.length()))
+			.collect(toList());
+		workers = Math.min(workers, paths.size());
+		if (workers < 2) {
+			return Collections.emptyMap();
+		}
+
+		boolean noClassForName = is(NOCLASSFORNAME);
+		PromiseFactory promiseFactory = getPromiseFactory();
+		Map<String, Promise<Clazz>> parsed = new HashMap<>(paths.size() * 4 / 3 + 1);
+		List<Deferred<Clazz>> deferreds = new ArrayList<>(paths.size());
+		List<Clazz> clazzes = new ArrayList<>(paths.size());
+		for (String path : paths) {
+			Deferred<Clazz> deferred = promiseFactory.deferred();
+			deferreds.add(deferred);
+			clazzes.add(new Clazz(this, path, jar.getResource(path), noClassForName));
+			parsed.put(path, deferred.getPromise());
+		}
+
+		// Each worker takes the next unparsed class so the load is balanced
+		// over the workers, independent of the size of the class files
+		AtomicInteger next = new AtomicInteger();
+		Runnable worker = () -> {
+			for (int i; (i = next.getAndIncrement()) < paths.size();) {
+				Clazz clazz = clazzes.get(i);
+				Deferred<Clazz> deferred = deferreds.get(i);
+				try {
+					clazz.parseClassFile();
+					deferred.resolve(clazz);
+				} catch (Throwable t) {
+					deferred.fail(t);
+				}
+			}
+		};
+		Executor executor = promiseFactory.executor();
+		for (int i = 0; i < workers; i++) {
+			executor.execute(worker);
+		}
+		return parsed;
+	}
+
+	/**
+	 * Answer the number of workers for {@link Constants#PARALLELANALYSIS}. The
+	 * instruction is either a boolean, which uses a worker per processor, or
+	 * the number of workers.
+	 */
+	private int parallelAnalysisWorkers() {
+		String value = getProperty(PARALLELANALYSIS);
+		if (value == null) {
+			return 0;
+		}
+		value = value.trim();
+		if (value.matches("\\d{1,4}")) {
+			return Integer.parseInt(value);
+		}
+		return isTrue(value) ? Runtime.getRuntime()
+			.availableProcessors() : 0;
+	}
+
 	/**
 	 * Clean up version parameters. Other builders use more fuzzy definitions of
 	 * the version syntax. This method cleans up such a version to match an OSGi
@@ -3291,23 +3382,19 @@ public class Analyzer extends Processor {
 		if (nomatch == null)
 			nomatch = Create.set();
 
-		for (Instruction instruction : instructions.keySet()) {
-			boolean match = false;
-
-			for (Iterator<PackageRef> i = refs.iterator(); i.hasNext();) {
-				PackageRef packageRef = i.next();
-				String packageName = packageRef.getFQN();
-
-				if (instruction.matches(packageName)) {
-					match = true;
-					if (!instruction.isNegated()) {
-						result.merge(packageRef, instruction.isDuplicate(), source.get(packageRef),
-							instructions.get(instruction));
-					}
-					i.remove(); // Can never match again for another pattern
+		// A package can never match again for another pattern
+		InstructionMatcher matcher = instructions.compiled();
+		List<List<PackageRef>> matched = Instructions.partition(matcher, refs, PackageRef::getFQN);
+		for (int i = 0; i < matcher.size(); i++) {
+			Instruction instruction = matcher.get(i);
+			List<PackageRef> packageRefs = matched.get(i);
+			if (!instruction.isNegated()) {
+				for (PackageRef packageRef : packageRefs) {
+					result.merge(packageRef, instruction.isDuplicate(), source.get(packageRef),
+						instructions.get(instruction));
 				}
 			}
-			if (!match && !instruction.isAny())
+			if (packageRefs.isEmpty() && !instruction.isAny())
 				nomatch.add(instruction);
 		}
 
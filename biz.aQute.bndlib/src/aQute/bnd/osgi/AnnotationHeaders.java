@@ -180,6 +180,14 @@ class AnnotationHeaders extends ClassDataCollector implements Closeable {
 		this.instructions = instructions;
 	}
 
+	/*
+	 * Any annotation can be meta-annotated with a header annotation
+	 */
+	@Override
+	public Set<String> relevantAnnotations() {
+		return emptySet();
+	}
+
 	@Override
 	public boolean classStart(Clazz c) {
 		//
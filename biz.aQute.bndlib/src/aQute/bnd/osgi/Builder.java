@@ -36,6 +36,8 @@ import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.zip.ZipException;
 
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -704,12 +706,46 @@ public class Builder extends Analyzer {
 	private Set<Instruction> doExpand(Jar jar, MultiMap<String, Jar> index, Instructions filter) throws Exception {
 		Set<Instruction> unused = Create.set();
 
-		for (Entry<Instruction, Attrs> e : filter.entrySet()) {
-			Instruction instruction = e.getKey();
-			if (instruction.isDuplicate())
+		InstructionMatcher matcher = new InstructionMatcher(filter.keySet()
+			.stream()
+			.filter(instruction -> !instruction.isDuplicate())
+			.collect(toList()));
+
+		//
+		// Assign each package to the first instruction that matches it,
+		// the packages are then handled per instruction
+		//
+		List<List<Entry<String, List<Jar>>>> matched = new ArrayList<>(matcher.size());
+		for (int i = 0; i < matcher.size(); i++) {
+			matched.add(new ArrayList<>());
+		}
+		for (Iterator<Entry<String, List<Jar>>> entry = index.entrySet()
+			.iterator(); entry.hasNext();) {
+			Entry<String, List<Jar>> p = entry.next();
+
+			PackageRef packageRef = getPackageRef(p.getKey());
+			String fqn = packageRef.getFQN();
+			int i = matcher.indexOf(fqn);
+
+			// Skip * and meta data, we're talking packages!
+			if (packageRef.isMetaData()) {
+				while ((i >= 0) && matcher.get(i)
+					.isAny()) {
+					i = matcher.indexOf(fqn, i + 1);
+				}
+			}
+			if (i < 0)
 				continue;
 
-			Attrs directives = e.getValue();
+			// Ensure it is never matched again
+			entry.remove();
+			matched.get(i)
+				.add(p);
+		}
+
+		for (int i = 0; i < matcher.size(); i++) {
+			Instruction instruction = matcher.get(i);
+			Attrs directives = filter.get(instruction);
 
 			String fromDirective = directives.get(FROM_DIRECTIVE, "*");
 			Instruction from = new Instruction(fromDirective);
@@ -717,23 +753,10 @@ public class Builder extends Analyzer {
 
 			boolean used = false;
 
-			for (Iterator<Entry<String, List<Jar>>> entry = index.entrySet()
-				.iterator(); entry.hasNext();) {
-				Entry<String, List<Jar>> p = entry.next();
-
+			for (Entry<String, List<Jar>> p : matched.get(i)) {
 				String directory = p.getKey();
 				PackageRef packageRef = getPackageRef(directory);
 
-				// Skip * and meta data, we're talking packages!
-				if (packageRef.isMetaData() && instruction.isAny())
-					continue;
-
-				if (!instruction.matches(packageRef.getFQN()))
-					continue;
-
-				// Ensure it is never matched again
-				entry.remove();
-
 				// ! effectively removes it from consideration by others (this
 				// includes exports)
 				if (instruction.isNegated()) {
@@ -887,15 +910,16 @@ public class Builder extends Analyzer {
 	 *            the from: directive.
 	 */
 	private Instruction matches(Instructions instructions, String pack, Set<Instruction> unused, String source) {
-		for (Entry<Instruction, Attrs> entry : instructions.entrySet()) {
-			Instruction pattern = entry.getKey();
+		InstructionMatcher matcher = instructions.compiled();
+		for (int i = matcher.indexOf(pack); i >= 0; i = matcher.indexOf(pack, i + 1)) {
+			Instruction pattern = matcher.get(i);
 
 			// It is possible to filter on the source of the
 			// package with the from: directive. This is an
 			// instruction that must match the name of the
 			// source class path entry.
 
-			String from = entry.getValue()
+			String from = instructions.get(pattern)
 				.get(FROM_DIRECTIVE);
 			if (from != null) {
 				Instruction f = new Instruction(from);
@@ -903,13 +927,9 @@ public class Builder extends Analyzer {
 					continue;
 			}
 
-			// Now do the normal
-			// matching
-			if (pattern.matches(pack)) {
-				if (unused != null)
-					unused.remove(pattern);
-				return pattern;
-			}
+			if (unused != null)
+				unused.remove(pattern);
+			return pattern;
 		}
 		return null;
 	}
@@ -1480,6 +1500,10 @@ public class Builder extends Analyzer {
 
 		builders = getSubBuilders();
 
+		if ((builders.size() > 1) && is(PARALLELSUB)) {
+			return parallelBuilds(builders);
+		}
+
 		for (Builder builder : builders) {
 			try {
 				startBuild(builder);
@@ -1497,6 +1521,79 @@ public class Builder extends Analyzer {
 		return result.toArray(new Jar[0]);
 	}
 
+	/**
+	 * Build the sub builders concurrently on the shared executor. The
+	 * {@link #startBuild(Builder)} and {@link #doneBuild(Builder)} callbacks
+	 * and the collection of the errors and warnings of the sub builders are
+	 * done on the calling thread in the order of the sub builders, so the
+	 * result is the same as for a sequential build. A sub builder is started
+	 * right before it is built, and at most one sub builder per processor is
+	 * built at the same time, so with one processor the callbacks are called
+	 * in the same order as for a sequential build.
+	 * <p>
+	 * The sub builders have their own properties, errors and warnings. They
+	 * share the classpath jars of this builder, which are only read, and they
+	 * only read the state of this builder: its properties, which are
+	 * initialized before the sub builders start, its plugins and the cached
+	 * system calls, which are thread safe.
+	 */
+	private Jar[] parallelBuilds(List<Builder> builders) throws Exception {
+		// read the manifests of the shared jars before they are shared
+		for (Jar jar : getClasspath()) {
+			jar.manifest();
+		}
+
+		int size = builders.size();
+		int workers = Math.min(Runtime.getRuntime()
+			.availableProcessors(), size);
+		PromiseFactory promiseFactory = getPromiseFactory();
+		List<Promise<Jar>> promises = new ArrayList<>(size);
+		List<Jar> result = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			while ((promises.size() < size) && (promises.size() < i + workers)) {
+				promises.add(startParallelBuild(builders.get(promises.size()), promiseFactory));
+			}
+			Builder builder = builders.get(i);
+			Promise<Jar> promise = promises.get(i);
+			if (promise != null) {
+				Throwable failure = promise.getFailure();
+				if (failure != null) {
+					builder.exception(failure, "Exception Building %s", builder.getBsn());
+				} else {
+					try {
+						result.add(promise.getValue());
+						doneBuild(builder);
+					} catch (Exception e) {
+						builder.exception(e, "Exception Building %s", builder.getBsn());
+					}
+				}
+			}
+			if (builder != this)
+				getInfo(builder, builder.getBsn() + ": ");
+		}
+		return result.toArray(new Jar[0]);
+	}
+
+	/**
+	 * Start a sub builder and build it on the shared executor.
+	 *
+	 * @return the promise of the jar or {@code null} when the sub builder
+	 *         could not be started
+	 */
+	private Promise<Jar> startParallelBuild(Builder builder, PromiseFactory promiseFactory) {
+		try {
+			startBuild(builder);
+		} catch (Exception e) {
+			builder.exception(e, "Exception Building %s", builder.getBsn());
+			return null;
+		}
+		return promiseFactory.submit(() -> {
+			Jar jar = builder.build();
+			jar.setName(builder.getBsn());
+			return jar;
+		});
+	}
+
 	/**
 	 * Called when we start to build a builder
 	 */
@@ -1557,17 +1654,16 @@ public class Builder extends Analyzer {
 				p = p.getParent();
 			}
 
-			for (Instruction instruction : instructions.keySet()) {
-				if (instruction.matches(file.getName())) {
-
-					if (!instruction.isNegated()) {
-						builders.add(getSubBuilder(file));
-					}
+			Instruction instruction = instructions.matcher(file.getName());
+			if (instruction != null) {
 
-					// Because we matched (even though we could be negated)
-					// we skip any remaining searches
-					continue nextFile;
+				if (!instruction.isNegated()) {
+					builders.add(getSubBuilder(file));
 				}
+
+				// Because we matched (even though we could be negated)
+				// we skip any remaining searches
+				continue nextFile;
 			}
 		}
 		return builders;
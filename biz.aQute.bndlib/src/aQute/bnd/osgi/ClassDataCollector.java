@@ -1,5 +1,7 @@
 package aQute.bnd.osgi;
 
+import java.util.Set;
+
 import aQute.bnd.osgi.Clazz.MethodParameter;
 import aQute.bnd.osgi.Descriptors.TypeRef;
 
@@ -9,6 +11,20 @@ import aQute.bnd.osgi.Descriptors.TypeRef;
  */
 public class ClassDataCollector {
 
+	/**
+	 * The annotations this collector is interested in. When this collector is
+	 * dispatched by the {@link ClassDataCollectors} of the analyzer, a class
+	 * is only visited for this collector when the class, or one of its
+	 * members, is annotated with one of these annotations. An empty set
+	 * selects the classes with any annotation.
+	 *
+	 * @return the fully qualified names of the annotations, or {@code null} to
+	 *         visit every class
+	 */
+	public Set<String> relevantAnnotations() {
+		return null;
+	}
+
 	public void classBegin(int access, TypeRef name) {}
 
 	public boolean classStart(int access, TypeRef className) {
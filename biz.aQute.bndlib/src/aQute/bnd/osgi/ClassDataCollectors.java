@@ -1,9 +1,15 @@
 package aQute.bnd.osgi;
 
+import static java.util.stream.Collectors.toSet;
+
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import aQute.bnd.osgi.Clazz.FieldDef;
 import aQute.bnd.osgi.Clazz.MethodDef;
@@ -16,10 +22,18 @@ import aQute.service.reporter.Reporter;
  * looking for annotations and other stuff. In the early days, the parser tried
  * to not do full parsing to minimize the cost but basically we are now parsing
  * more than necessary because different places began parsing on their own.
+ * <p>
+ * Each class is visited once for all collectors. A collector can declare the
+ * annotations it is interested in with
+ * {@link ClassDataCollector#relevantAnnotations()}, a class is then only
+ * dispatched to the collector when it has one of these annotations. The
+ * annotations of a class are known from parsing the class file, so a class
+ * that no collector is interested in is not visited at all.
  */
 class ClassDataCollectors implements Closeable {
-	final List<ClassDataCollector>	delegates	= new ArrayList<>();
-	final Reporter					reporter;
+	final List<ClassDataCollector>				delegates	= new ArrayList<>();
+	final Map<ClassDataCollector, Set<String>>	relevant	= new IdentityHashMap<>();
+	final Reporter								reporter;
 
 	ClassDataCollectors(Reporter reporter) {
 		this.reporter = reporter;
@@ -27,19 +41,52 @@ class ClassDataCollectors implements Closeable {
 
 	void add(ClassDataCollector cd) {
 		delegates.add(cd);
+		Set<String> annotations = cd.relevantAnnotations();
+		if (annotations != null) {
+			relevant.put(cd, annotations);
+		}
 	}
 
 	void parse(Clazz clazz) throws Exception {
-		clazz.parseClassFileWithCollector(new Collectors(clazz));
+		List<ClassDataCollector> shortlist = shortlist(clazz);
+		if (shortlist.isEmpty()) {
+			return;
+		}
+		clazz.parseClassFileWithCollector(new Collectors(clazz, shortlist));
 	}
 
 	void with(Clazz clazz, ClassDataCollector cd) throws Exception {
-		delegates.add(cd);
+		add(cd);
 		try {
 			parse(clazz);
 		} finally {
 			delegates.remove(cd);
+			relevant.remove(cd);
+		}
+	}
+
+	/*
+	 * The collectors that are interested in the class
+	 */
+	private List<ClassDataCollector> shortlist(Clazz clazz) throws Exception {
+		if (relevant.isEmpty()) {
+			return new ArrayList<>(delegates);
+		}
+		// parsing is done only once, the annotations are then known
+		clazz.parseClassFile();
+		Set<String> annotations = clazz.annotations()
+			.stream()
+			.map(TypeRef::getFQN)
+			.collect(toSet());
+		List<ClassDataCollector> shortlist = new ArrayList<>(delegates.size());
+		for (ClassDataCollector cd : delegates) {
+			Set<String> filter = relevant.get(cd);
+			if ((filter == null) || (!annotations.isEmpty()
+				&& (filter.isEmpty() || !Collections.disjoint(filter, annotations)))) {
+				shortlist.add(cd);
+			}
 		}
+		return shortlist;
 	}
 
 	@Override
@@ -59,9 +106,9 @@ class ClassDataCollectors implements Closeable {
 		private final Clazz						clazz;
 		private final List<ClassDataCollector>	shortlist;
 
-		Collectors(Clazz clazz) {
+		Collectors(Clazz clazz, List<ClassDataCollector> shortlist) {
 			this.clazz = clazz;
-			this.shortlist = new ArrayList<>(delegates);
+			this.shortlist = shortlist;
 		}
 
 		@Override
@@ -770,14 +770,29 @@ public class Clazz {
 	final Analyzer							analyzer;
 	final String							path;
 	final Resource							resource;
+	/**
+	 * The {@link Constants#NOCLASSFORNAME} instruction or {@code null} to ask
+	 * the analyzer when parsing.
+	 */
+	private final Boolean					noClassForName;
 
 	public static final int					TYPEUSE_INDEX_NONE				= TypeAnnotationInfo.TYPEUSE_INDEX_NONE;
 	public static final int					TYPEUSE_TARGET_INDEX_EXTENDS	= TypeAnnotationInfo.TYPEUSE_TARGET_INDEX_EXTENDS;
 
 	public Clazz(Analyzer analyzer, String path, Resource resource) {
+		this(analyzer, path, resource, null);
+	}
+
+	/**
+	 * Create a Clazz that does not read the instructions of the analyzer while
+	 * parsing, so that it can be parsed concurrently with other classes of the
+	 * analyzer.
+	 */
+	Clazz(Analyzer analyzer, String path, Resource resource, Boolean noClassForName) {
 		this.path = path;
 		this.resource = resource;
 		this.analyzer = analyzer;
+		this.noClassForName = noClassForName;
 	}
 
 	public Set<TypeRef> parseClassFile() throws Exception {
@@ -886,7 +901,8 @@ public class Clazz {
 		//
 		// We calculate the method reference index so we can do this
 		// efficiently during code inspection.
-		forName = analyzer.is(Constants.NOCLASSFORNAME) ? -1
+		boolean noForName = (noClassForName != null) ? noClassForName : analyzer.is(Constants.NOCLASSFORNAME);
+		forName = noForName ? -1
 			: findMethodReference("java/lang/Class", "forName", "(Ljava/lang/String;)Ljava/lang/Class;");
 		class$ = findMethodReference(classFile.this_class, "class$", "(Ljava/lang/String;)Ljava/lang/Class;");
 
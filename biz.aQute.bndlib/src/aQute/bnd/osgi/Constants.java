@@ -107,6 +107,7 @@ public interface Constants {
 	String		BNDDRIVER_OSMORC							= "osmorc";
 
 	String		BUILDERIGNORE								= "-builderignore";
+	String		BUILDFINGERPRINT							= "-buildfingerprint";
 	String		BUILDPATH									= "-buildpath";
 	String		BUMPPOLICY									= "-bumppolicy";
 	String		BUNDLEANNOTATIONS							= "-bundleannotations";
@@ -118,6 +119,8 @@ public interface Constants {
 	String		CONDITIONALPACKAGE							= "-conditionalpackage";
 	String		CONNECTION_SETTINGS							= "-connection-settings";
 	String		CONNECTION_LOG								= "-connection-log";
+	String		CONNECTION_LIMITS							= "-connection-limits";
+	String		CONNECTION_HTTP2							= "-connection-http2";
 
 	String		COMPRESSION									= "-compression";
 	String		DIFFIGNORE									= "-diffignore";
@@ -160,6 +163,7 @@ public interface Constants {
 	String		INCLUDEPACKAGE								= "-includepackage";
 	String		INVALIDFILENAMES							= "-invalidfilenames";
 	String		INIT										= "-init";
+	String		INPROCESSJAVAC								= "-inprocessjavac";
 	String		BUILDREPO									= "-buildrepo";
 	String		JAVAAGENT									= "-javaagent";
 	String		JAVAC_ENCODING								= "javac.encoding";
@@ -183,6 +187,7 @@ public interface Constants {
 	String		MAVEN_SCOPE									= "-maven-scope";
 	String		PROFILE										= "-profile";
 	String		SAVEMANIFEST								= "-savemanifest";
+	String		SHAREDDESCRIPTORS							= "-shareddescriptors";
 	String		NAMESECTION									= "-namesection";
 	String		NOBUILDINCACHE								= "-nobuildincache";
 	String		NODEFAULTVERSION							= "-nodefaultversion";
@@ -202,6 +207,8 @@ public interface Constants {
 
 	String		PEDANTIC									= "-pedantic";
 	String		PACKAGEINFOTYPE								= "-packageinfotype";
+	String		PARALLELANALYSIS							= "-parallelanalysis";
+	String		PARALLELSUB									= "-parallelsub";
 	String		PLUGIN										= "-plugin";
 	String		PLUGINPATH									= "-pluginpath";
 	String		PLUGINPATH_URL_ATTR							= "url";
@@ -257,6 +264,7 @@ public interface Constants {
 	String		AUGMENT_REQUIREMENT_DIRECTIVE				= "requirement:";
 
 	String		REMOTEWORKSPACE								= "-remoteworkspace";
+	String		RESOURCECACHE								= "-resourcecache";
 
 	/**
 	 * tag for repos which should be used for Resolving bundles. This is also
@@ -329,7 +337,9 @@ public interface Constants {
 		CONNECTION_SETTINGS, RUNPROVIDEDCAPABILITIES, WORKINGSET, RUNSTORAGE, REPRODUCIBLE, INCLUDEPACKAGE,
 		CDIANNOTATIONS, REMOTEWORKSPACE, MAVEN_DEPENDENCIES, BUILDERIGNORE, STALECHECK, MAVEN_SCOPE, RUNSTARTLEVEL,
 		RUNOPTIONS, NOCLASSFORNAME, EXPORT_APIGUARDIAN, RESOLVE, DEFINE_CONTRACT, GENERATE, RUNFRAMEWORKRESTART,
-		NOIMPORTJAVA, VERSIONDEFAULTS, LIBRARY);
+		NOIMPORTJAVA, VERSIONDEFAULTS, LIBRARY, PARALLELANALYSIS, RESOURCECACHE,
+		PARALLELSUB, BUILDFINGERPRINT, INPROCESSJAVAC, CONNECTION_LIMITS,
+		CONNECTION_HTTP2, SHAREDDESCRIPTORS);
 
 	// Ignore bundle specific headers. These headers do not make a lot of sense
 	// to inherit
@@ -441,6 +451,7 @@ public interface Constants {
 	String		CURRENT_BUNDLEVERSION						= "@bundleversion";
 
 	String		BUILDFILES									= "buildfiles";
+	String		BUILDSTATE									= "buildstate";
 
 	String		EMPTY_HEADER								= "<<EMPTY>>";
 
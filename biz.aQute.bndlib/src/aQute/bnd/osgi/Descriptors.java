@@ -3,26 +3,38 @@ package aQute.bnd.osgi;
 import static java.util.Objects.requireNonNull;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import org.osgi.annotation.versioning.ProviderType;
 
+import aQute.bnd.memoize.Memoize;
 import aQute.bnd.result.Result;
 import aQute.bnd.signatures.ClassSignature;
 import aQute.bnd.signatures.FieldSignature;
 import aQute.bnd.signatures.MethodSignature;
 import aQute.libg.generics.Create;
 
+/**
+ * The descriptor caches are safe for concurrent use so that class files can be
+ * parsed in parallel against a single Analyzer.
+ * <p>
+ * A Descriptors instance can delegate the references to types and packages in
+ * the {@code java} namespace to a shared instance. When the
+ * {@code -shareddescriptors} instruction is set, the Analyzers of a workspace
+ * share the same {@link TypeRef} and {@link PackageRef} instances for the JDK
+ * types through a Descriptors plugin of the workspace.
+ */
 public class Descriptors {
-	private final Map<String, TypeRef>			typeRefCache			= new HashMap<>();
-	private final Map<String, Descriptor>		descriptorCache			= new HashMap<>();
-	private final Map<String, PackageRef>		packageRefCache			= new HashMap<>();
-	private final Map<String, ClassSignature>	classSignatureCache		= new HashMap<>();
-	private final Map<String, MethodSignature>	methodSignatureCache	= new HashMap<>();
-	private final Map<String, FieldSignature>	fieldSignatureCache		= new HashMap<>();
+	private final Map<String, TypeRef>			typeRefCache			= new ConcurrentHashMap<>();
+	private final Map<String, Descriptor>		descriptorCache			= new ConcurrentHashMap<>();
+	private final Map<String, PackageRef>		packageRefCache			= new ConcurrentHashMap<>();
+	private final Map<String, ClassSignature>	classSignatureCache		= new ConcurrentHashMap<>();
+	private final Map<String, MethodSignature>	methodSignatureCache	= new ConcurrentHashMap<>();
+	private final Map<String, FieldSignature>	fieldSignatureCache		= new ConcurrentHashMap<>();
 
 	// MUST BE BEFORE PRIMITIVES, THEY USE THE DEFAULT PACKAGE!!
 	final static PackageRef						DEFAULT_PACKAGE			= new PackageRef();
@@ -47,10 +59,29 @@ public class Descriptors {
 	final static TypeRef						FLOAT					= new ConcreteRef("F", "float",
 		PRIMITIVE_PACKAGE);
 
+	private final Supplier<Descriptors>			shared;
+
 	public Descriptors() {
+		this(() -> null);
+	}
+
+	/**
+	 * The shared instance is only requested on the first lookup in the java
+	 * namespace. If it supplies {@code null}, nothing is shared.
+	 */
+	Descriptors(Supplier<Descriptors> shared) {
+		this.shared = Memoize.supplier(shared);
 		packageRefCache.put(DEFAULT_PACKAGE.getBinary(), DEFAULT_PACKAGE);
 	}
 
+	/**
+	 * Only the java namespace is shared. It cannot be defined outside the JDK
+	 * so the shared symbol table stays bounded.
+	 */
+	private static boolean isShared(String binaryName) {
+		return binaryName.startsWith("java/");
+	}
+
 	@ProviderType
 	public interface TypeRef extends Comparable<TypeRef> {
 		String getBinary();
@@ -465,13 +496,23 @@ public class Descriptors {
 
 		binaryClassName = binaryClassName.replace('.', '$');
 
+		if (isShared(binaryClassName)) {
+			Descriptors descriptors = shared.get();
+			if (descriptors != null) {
+				return descriptors.getTypeRef(binaryClassName);
+			}
+		}
+
 		if ((last >= 0) && (binaryClassName.charAt(0) == '[')) {
 			// We handle arrays here since computeIfAbsent does not like
 			// recursive calls starting in Java 9
 			TypeRef ref = typeRefCache.get(binaryClassName);
 			if (ref == null) {
 				ref = new ArrayRef(getTypeRef(binaryClassName.substring(1)));
-				typeRefCache.put(binaryClassName, ref);
+				TypeRef existing = typeRefCache.putIfAbsent(binaryClassName, ref);
+				if (existing != null) {
+					ref = existing;
+				}
 			}
 			return ref;
 		}
@@ -522,6 +563,13 @@ public class Descriptors {
 		// not com.example.Foo.
 		//
 
+		if (isShared(binaryPackName) || binaryPackName.equals("java")) {
+			Descriptors descriptors = shared.get();
+			if (descriptors != null) {
+				return descriptors.getPackageRef(binaryPackName);
+			}
+		}
+
 		return packageRefCache.computeIfAbsent(binaryPackName, PackageRef::new);
 	}
 
@@ -0,0 +1,173 @@
+package aQute.bnd.osgi;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import aQute.lib.utf8properties.UTF8Properties;
+
+/**
+ * A cache of the expanded values of the properties of a {@link Processor}.
+ * <p>
+ * An expanded value depends on the properties of the processor and its
+ * parents. Each cached value therefore records the processors it was expanded
+ * with, their properties objects, the modification counts of these
+ * properties, their bases, and the generations of their caches. A cached value
+ * is only used when all of these are unchanged. Any change of a property in
+ * the processor or one of its parents, also through the views of
+ * {@link Processor#getProperties()}, a new parent, or a new base therefore
+ * invalidates the value. Changes to a processor that are not visible in its
+ * properties, like {@link Processor#setForceLocal(java.util.Collection)},
+ * {@link #clear() clear} its cache and start a new generation, which
+ * invalidates the values cached by its children as well.
+ * <p>
+ * Not all expansions depend only on the properties. Macros like
+ * {@code ${now}}, {@code ${env;...}}, or {@code ${lsr;...}} depend on the
+ * time, the environment, or the file system. While a value is expanded, the
+ * {@link Macro} reports such macros with {@link #uncacheable()} and the value
+ * is then not cached. Neither are values whose expansion reported an error or
+ * warning, so these are reported again on the next expansion.
+ */
+final class ExpansionCache {
+	private final static ThreadLocal<Scope>	scope		= new ThreadLocal<>();
+	private final Processor					processor;
+	private final Map<String, Entry>		entries		= new ConcurrentHashMap<>();
+	private final AtomicLong				generation	= new AtomicLong();
+
+	ExpansionCache(Processor processor) {
+		this.processor = processor;
+	}
+
+	/**
+	 * Signal that the value being expanded by the current thread, if any, must
+	 * not be cached.
+	 */
+	static void uncacheable() {
+		Scope s = scope.get();
+		if (s != null) {
+			s.cacheable = false;
+		}
+	}
+
+	/**
+	 * Get the expanded value of a property.
+	 *
+	 * @param key the key of the property
+	 * @param expand the function that expands the property
+	 * @return the expanded value, can be {@code null}
+	 */
+	String get(String key, Function<String, String> expand) {
+		Entry entry = entries.get(key);
+		if ((entry != null) && entry.stamp.isCurrent(processor)) {
+			return entry.value;
+		}
+
+		Stamp stamp = Stamp.of(processor);
+		if (stamp == null) {
+			return expand.apply(key);
+		}
+
+		Scope outer = scope.get();
+		Scope current = new Scope();
+		scope.set(current);
+		String value;
+		try {
+			value = expand.apply(key);
+		} finally {
+			scope.set(outer);
+			if ((outer != null) && !current.cacheable) {
+				outer.cacheable = false;
+			}
+		}
+
+		// the expansion itself can modify the properties
+		if (current.cacheable && stamp.isCurrent(processor)) {
+			entries.put(key, new Entry(value, stamp));
+		} else {
+			entries.remove(key);
+		}
+		return value;
+	}
+
+	void clear() {
+		generation.incrementAndGet();
+		entries.clear();
+	}
+
+	private static final class Scope {
+		boolean cacheable = true;
+	}
+
+	private record Entry(String value, Stamp stamp) {}
+
+	/**
+	 * The state of a processor and its parents that an expanded value depends
+	 * on.
+	 */
+	private static final class Stamp {
+		private final Processor[]	processors;
+		private final Properties[]	properties;
+		private final long[]		modifications;
+		private final File[]		bases;
+		private final long[]		generations;
+
+		private Stamp(int depth) {
+			processors = new Processor[depth];
+			properties = new Properties[depth];
+			modifications = new long[depth];
+			bases = new File[depth];
+			generations = new long[depth];
+		}
+
+		/**
+		 * Create a stamp of the processor and its parents.
+		 *
+		 * @return the stamp or {@code null} if the modifications of the
+		 *         properties cannot be tracked
+		 */
+		static Stamp of(Processor processor) {
+			int depth = 0;
+			for (Processor p = processor; p != null; p = p.getParent()) {
+				depth++;
+			}
+			Stamp stamp = new Stamp(depth);
+			int i = 0;
+			for (Processor p = processor; p != null; p = p.getParent(), i++) {
+				if (!(p.getRawProperties() instanceof UTF8Properties properties)) {
+					return null;
+				}
+				long modifications = properties.getModificationCount();
+				if (modifications < 0) {
+					return null;
+				}
+				stamp.processors[i] = p;
+				stamp.properties[i] = properties;
+				stamp.modifications[i] = modifications;
+				stamp.bases[i] = p.getBase();
+				stamp.generations[i] = p.expansions.generation.get();
+			}
+			return stamp;
+		}
+
+		boolean isCurrent(Processor processor) {
+			int i = 0;
+			for (Processor p = processor; p != null; p = p.getParent(), i++) {
+				if ((i >= processors.length) || (processors[i] != p)) {
+					return false;
+				}
+				Properties current = p.getRawProperties();
+				if ((current != properties[i])
+					|| (((UTF8Properties) current).getModificationCount() != modifications[i])
+					|| !Objects.equals(p.getBase(), bases[i])
+					|| (p.expansions.generation.get() != generations[i])) {
+					return false;
+				}
+			}
+			return i == processors.length;
+		}
+	}
+}
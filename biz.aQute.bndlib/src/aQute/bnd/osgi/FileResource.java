@@ -19,7 +19,8 @@ import aQute.lib.io.IOConstants;
 public class FileResource implements Resource {
 	private static final int		THRESHOLD	= IOConstants.PAGE_SIZE * 16;
 	private static final ByteBuffer	CLOSED		= ByteBuffer.allocate(0);
-	private ByteBuffer				buffer;
+	// shared by builders that read the same jar concurrently
+	private volatile ByteBuffer		buffer;
 	private final Path				file;
 	private String					extra;
 	private boolean					deleteOnClose;
@@ -63,8 +64,9 @@ public class FileResource implements Resource {
 
 	@Override
 	public ByteBuffer buffer() throws Exception {
-		if (buffer != null) {
-			return buffer.duplicate();
+		ByteBuffer bb = buffer;
+		if (bb != null) {
+			return bb.duplicate();
 		}
 		if (IO.isWindows() && (size > THRESHOLD)) {
 			return null;
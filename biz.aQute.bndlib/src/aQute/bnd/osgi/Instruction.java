@@ -66,6 +66,7 @@ public class Instruction {
 	private final int				matchFlags;
 	private Pattern					pattern;
 	private boolean					optional;
+	private String					prefix;
 
 	public Instruction(String input) {
 
@@ -145,9 +146,29 @@ public class Instruction {
 			pattern = Glob.toPattern(s, flags);
 			match = s;
 			matchFlags = flags;
+			prefix = globPrefix(s, flags);
 		}
 	}
 
+	/**
+	 * The literal start of a glob, i.e. the leading characters that the glob
+	 * matches as is. There is no prefix for a case insensitive glob or a glob
+	 * with alternatives.
+	 */
+	private static String globPrefix(String glob, int flags) {
+		if (((flags & Pattern.CASE_INSENSITIVE) != 0) || (glob.indexOf('|') >= 0)) {
+			return "";
+		}
+		int n = 0;
+		for (int length = glob.length(); n < length; n++) {
+			char c = glob.charAt(n);
+			if (!Character.isLetterOrDigit(c) && (c != '-') && (c != '_') && (c != '.')) {
+				break;
+			}
+		}
+		return glob.substring(0, n);
+	}
+
 	public static Instruction legacy(String input) {
 		if (input.equals("*")) {
 			return new Instruction(input, null, null, false, 0, true, false, false);
@@ -304,6 +325,21 @@ public class Instruction {
 		return match;
 	}
 
+	/**
+	 * Return a prefix that all values matched by this instruction start with.
+	 * Negation is not taken into account, the prefix is the prefix of the
+	 * values for which {@link #matches(String)} returns {@code true}.
+	 *
+	 * @return the prefix, the empty string when there is no common prefix
+	 */
+	String getPrefix() {
+		if (literal) {
+			return ((matchFlags & Pattern.CASE_INSENSITIVE) != 0) ? "" : match;
+		}
+		String p = prefix;
+		return (p != null) ? p : "";
+	}
+
 	public boolean isDuplicate() {
 		return duplicate;
 	}
@@ -0,0 +1,171 @@
+package aQute.bnd.osgi;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Find the first of an ordered list of instructions that matches a value
+ * without matching every instruction against the value.
+ * <p>
+ * The case sensitive literal instructions are looked up by their literal. The
+ * instructions with a literal prefix, like {@code com.foo.*}, are kept in a
+ * trie of their prefixes so only the instructions whose prefix starts the
+ * value are matched. The remaining instructions are always matched. The
+ * candidates are matched in the order of the instructions, so the result is
+ * the same as matching the instructions one by one. Negation is not taken into
+ * account, like {@link Instruction#matches(String)}.
+ */
+final class InstructionMatcher {
+	/**
+	 * Below this number of instructions matching the instructions one by one is
+	 * cheaper than building the lookup structures.
+	 */
+	private final static int			LINEAR		= 4;
+	private final static int[]			NONE		= new int[0];
+	private final Instruction[]			instructions;
+	private final Map<String, int[]>	literals	= new HashMap<>();
+	private final Node					prefixes	= new Node();
+	private final int[]					others;
+
+	/**
+	 * A node of the trie of prefixes.
+	 */
+	private final static class Node {
+		Map<Character, Node>	children;
+		int[]					indexes	= NONE;
+
+		Node child(char c) {
+			return (children == null) ? null : children.get(c);
+		}
+
+		Node add(char c) {
+			if (children == null) {
+				children = new HashMap<>();
+			}
+			return children.computeIfAbsent(c, k -> new Node());
+		}
+	}
+
+	InstructionMatcher(Collection<Instruction> instructions) {
+		this.instructions = instructions.toArray(new Instruction[0]);
+		int[] others = new int[this.instructions.length];
+		int n = 0;
+		for (int i = 0; i < this.instructions.length; i++) {
+			Instruction instruction = this.instructions[i];
+			String prefix = (this.instructions.length < LINEAR) ? "" : instruction.getPrefix();
+			if (prefix.isEmpty()) {
+				others[n++] = i;
+			} else if (instruction.isLiteral()) {
+				literals.merge(prefix, new int[] {
+					i
+				}, InstructionMatcher::concat);
+			} else {
+				Node node = prefixes;
+				for (int j = 0, length = prefix.length(); j < length; j++) {
+					node = node.add(prefix.charAt(j));
+				}
+				node.indexes = concat(node.indexes, new int[] {
+					i
+				});
+			}
+		}
+		this.others = Arrays.copyOf(others, n);
+	}
+
+	/**
+	 * The number of instructions.
+	 */
+	int size() {
+		return instructions.length;
+	}
+
+	/**
+	 * The instruction at the specified index.
+	 */
+	Instruction get(int index) {
+		return instructions[index];
+	}
+
+	/**
+	 * Find the first instruction that matches the value.
+	 *
+	 * @param value the value to match
+	 * @return the index of the instruction, or -1 if no instruction matches
+	 */
+	int indexOf(String value) {
+		return indexOf(value, 0);
+	}
+
+	/**
+	 * Find the first instruction at or after an index that matches the value.
+	 *
+	 * @param value the value to match
+	 * @param fromIndex the index to start from
+	 * @return the index of the instruction, or -1 if no instruction at or after
+	 *         the index matches
+	 */
+	int indexOf(String value, int fromIndex) {
+		// a literal matches without matching it again, so it is the last
+		// candidate to consider
+		int last = first(literals.getOrDefault(value, NONE), fromIndex);
+		if (last < 0) {
+			last = instructions.length;
+		}
+		int[] candidates = NONE;
+		int n = 0;
+		Node node = prefixes;
+		for (int i = 0, length = value.length(); i < length; i++) {
+			node = node.child(value.charAt(i));
+			if (node == null) {
+				break;
+			}
+			for (int index : node.indexes) {
+				if ((index >= fromIndex) && (index < last)) {
+					if (n == candidates.length) {
+						candidates = Arrays.copyOf(candidates, Math.max(8, n * 2));
+					}
+					candidates[n++] = index;
+				}
+			}
+		}
+		if (n > 1) {
+			Arrays.sort(candidates, 0, n);
+		}
+		int i = 0;
+		int j = 0;
+		while (true) {
+			int next = (i < n) ? candidates[i] : last;
+			while ((j < others.length) && (others[j] < fromIndex)) {
+				j++;
+			}
+			if ((j < others.length) && (others[j] < next)) {
+				next = others[j++];
+			} else {
+				i++;
+			}
+			if (next >= last) {
+				return (last < instructions.length) ? last : -1;
+			}
+			if (instructions[next].matches(value)) {
+				return next;
+			}
+		}
+	}
+
+	private static int first(int[] indexes, int fromIndex) {
+		for (int index : indexes) {
+			if (index >= fromIndex) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private static int[] concat(int[] a, int[] b) {
+		int[] result = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+}
@@ -25,6 +25,7 @@ import aQute.lib.io.IO;
 
 public class Instructions implements Map<Instruction, Attrs> {
 	private LinkedHashMap<Instruction, Attrs>	map;
+	private InstructionMatcher					compiled;
 	public static Instructions					ALWAYS	= new Instructions();
 	static Map<Instruction, Attrs>				EMPTY	= Collections.emptyMap();
 
@@ -53,6 +54,7 @@ public class Instructions implements Map<Instruction, Attrs> {
 
 	@Override
 	public void clear() {
+		compiled = null;
 		map.clear();
 	}
 
@@ -137,6 +139,7 @@ public class Instructions implements Map<Instruction, Attrs> {
 		if (map == null)
 			map = new LinkedHashMap<>();
 
+		compiled = null;
 		return map.put(key, value);
 	}
 
@@ -147,6 +150,7 @@ public class Instructions implements Map<Instruction, Attrs> {
 				return;
 			this.map = new LinkedHashMap<>();
 		}
+		compiled = null;
 		this.map.putAll(map);
 	}
 
@@ -157,12 +161,14 @@ public class Instructions implements Map<Instruction, Attrs> {
 		if (map == null)
 			return null;
 
+		compiled = null;
 		return map.remove(var0);
 	}
 
 	public Attrs remove(Instruction var0) {
 		if (map == null)
 			return null;
+		compiled = null;
 		return map.remove(var0);
 	}
 
@@ -214,19 +220,14 @@ public class Instructions implements Map<Instruction, Attrs> {
 
 		List<T> result = new ArrayList<>();
 
-		for (Instruction instruction : keySet()) {
-			boolean used = false;
-			for (Iterator<T> o = input.iterator(); o.hasNext();) {
-				T oo = o.next();
-				String s = oo.toString();
-				if (instruction.matches(s)) {
-					if (!instruction.isNegated())
-						result.add(oo);
-					o.remove();
-					used = true;
-				}
-			}
-			if (!used && unused != null)
+		InstructionMatcher matcher = compiled();
+		List<List<T>> matched = partition(matcher, input, Object::toString);
+		for (int i = 0; i < matcher.size(); i++) {
+			Instruction instruction = matcher.get(i);
+			List<T> values = matched.get(i);
+			if (!instruction.isNegated())
+				result.addAll(values);
+			if (values.isEmpty() && unused != null)
 				unused.add(instruction);
 		}
 		return result;
@@ -253,12 +254,48 @@ public class Instructions implements Map<Instruction, Attrs> {
 	}
 
 	public Instruction matcher(String value) {
-		for (Instruction i : keySet()) {
-			if (i.matches(value)) {
-				return i;
+		InstructionMatcher matcher = compiled();
+		int index = matcher.indexOf(value);
+		return (index < 0) ? null : matcher.get(index);
+	}
+
+	/**
+	 * The instructions compiled for matching. The instructions are compiled
+	 * again when they are modified.
+	 */
+	InstructionMatcher compiled() {
+		InstructionMatcher matcher = compiled;
+		if ((matcher == null) || (matcher.size() != size())) {
+			compiled = matcher = new InstructionMatcher(keySet());
+		}
+		return matcher;
+	}
+
+	/**
+	 * Assign each value to the first instruction that matches it, the same as
+	 * matching each instruction in order against the values not matched by an
+	 * earlier instruction.
+	 *
+	 * @param matcher the compiled instructions
+	 * @param values the values
+	 * @param name the name of a value to match
+	 * @return for each instruction, the values it matched in the order of the
+	 *         values
+	 */
+	static <T> List<List<T>> partition(InstructionMatcher matcher, Iterable<T> values,
+		Function<? super T, String> name) {
+		List<List<T>> matched = new ArrayList<>(matcher.size());
+		for (int i = 0; i < matcher.size(); i++) {
+			matched.add(new ArrayList<>());
+		}
+		for (T value : values) {
+			int index = matcher.indexOf(name.apply(value));
+			if (index >= 0) {
+				matched.get(index)
+					.add(value);
 			}
 		}
-		return null;
+		return matched;
 	}
 
 	public Instruction finder(String value) {
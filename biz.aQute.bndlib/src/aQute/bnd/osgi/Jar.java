@@ -25,7 +25,7 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
@@ -40,22 +40,19 @@ import java.util.TreeMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 import aQute.bnd.exceptions.Exceptions;
+import aQute.bnd.osgi.ZipWriter.Deflated;
 import aQute.bnd.stream.MapStream;
 import aQute.bnd.version.Version;
 import aQute.lib.base64.Base64;
@@ -545,6 +542,18 @@ public class Jar implements Closeable {
 			return;
 		}
 
+		write(to, null, Collections.emptyMap());
+	}
+
+	/**
+	 * Write the jar.
+	 *
+	 * @param manifest the manifest to write instead of the manifest of this
+	 *            jar, or {@code null}
+	 * @param staged resources to write instead of the resources of this jar
+	 *            with the same path
+	 */
+	private void write(OutputStream to, Manifest manifest, Map<String, Resource> staged) throws Exception {
 		OutputStream out = to;
 		Digester<SHA256> digester = null;
 		sha256 = null;
@@ -554,55 +563,68 @@ public class Jar implements Closeable {
 			out = digester = SHA256.getDigester(out);
 		}
 
-		ZipOutputStream jout = nomanifest || doNotTouchManifest ? new ZipOutputStream(out) : new JarOutputStream(out);
+		try (ZipWriter jout = new ZipWriter(out, !(nomanifest || doNotTouchManifest))) {
+			Set<String> done = new HashSet<>();
 
-		switch (compression) {
-			case STORE :
-				jout.setMethod(ZipOutputStream.STORED);
-				break;
-
-			default :
-				// default is DEFLATED
-		}
-
-		Set<String> done = new HashSet<>();
+			Set<String> directories = new HashSet<>();
 
-		Set<String> directories = new HashSet<>();
-
-		// Write manifest first
-		if (doNotTouchManifest) {
-			Resource r = getResource(manifestName);
-			if (r != null) {
-				writeResource(jout, directories, manifestName, r);
+			// Write manifest first
+			if (doNotTouchManifest) {
+				Resource r = getResource(manifestName);
+				if (r != null) {
+					writeResource(jout, directories, manifestName, r, null);
+					done.add(manifestName);
+				}
+			} else if (!nomanifest) {
+				doManifest(jout, directories, manifestName, manifest);
 				done.add(manifestName);
 			}
-		} else if (!nomanifest) {
-			doManifest(jout, directories, manifestName);
-			done.add(manifestName);
-		}
 
-		// Then write any signature info next since JarInputStream really cares!
-		Map<String, Resource> metainf = getDirectory("META-INF");
-		if (metainf != null) {
-			List<String> signing = metainf.keySet()
-				.stream()
-				.filter(path -> METAINF_SIGNING_P.matcher(path)
-					.matches())
-				.collect(toList());
-			for (String path : signing) {
-				if (done.add(path)) {
-					writeResource(jout, directories, path, metainf.get(path));
+			// Then write any signature info next since JarInputStream really
+			// cares!
+			List<String> paths = new ArrayList<>();
+			Map<String, Resource> metainf = getDirectory("META-INF");
+			if (metainf != null) {
+				List<String> signing = metainf.keySet()
+					.stream()
+					.filter(path -> METAINF_SIGNING_P.matcher(path)
+						.matches())
+					.collect(toList());
+				for (String path : signing) {
+					if (done.add(path)) {
+						paths.add(path);
+					}
 				}
 			}
-		}
 
-		// Write all remaining entries
-		for (Map.Entry<String, Resource> entry : getResources().entrySet()) {
-			// Skip metainf contents
-			if (!done.contains(entry.getKey()))
-				writeResource(jout, directories, entry.getKey(), entry.getValue());
+			// Write all remaining entries
+			for (String path : getResources().keySet()) {
+				// Skip metainf contents
+				if (!done.contains(path))
+					paths.add(path);
+			}
+
+			List<Resource> entries = new ArrayList<>(paths.size());
+			for (String path : paths) {
+				entries.add(staged.getOrDefault(path, getResource(path)));
+			}
+			try (ParallelDeflater ahead = (compression == Compression.DEFLATE) ? ParallelDeflater.start(entries)
+				: null) {
+				for (int i = 0; i < paths.size(); i++) {
+					String path = paths.get(i);
+					Deflated deflated = null;
+					if (ahead != null) {
+						try {
+							deflated = ahead.take(i);
+						} catch (Exception e) {
+							throw new Exception("Problem writing resource " + path, e);
+						}
+					}
+					writeResource(jout, directories, path, entries.get(i), deflated);
+				}
+			}
+			jout.finish();
 		}
-		jout.finish();
 
 		if (digester != null) {
 			this.sha256 = digester.digest();
@@ -662,50 +684,45 @@ public class Jar implements Closeable {
 		// the manifest first, we have a slight problem.
 		// We can also not make multiple passes over the resource
 		// because some resources are not idempotent and/or can
-		// take significant time. So we just copy the jar
-		// to a temporary file, read it in again, calculate
-		// the checksums and save.
-
-		String[] algs = algorithms;
-		algorithms = null;
-		try {
-			File f = File.createTempFile(padString(getName(), 3, '_'), ".jar");
-			write(f);
-			try (Jar tmp = new Jar(f)) {
-				tmp.setCompression(compression);
-				tmp.calcChecksums(algs);
-				tmp.write(out);
-			} finally {
-				IO.delete(f);
-			}
-		} finally {
-			algorithms = algs;
+		// take significant time. So we calculate the digests in
+		// a single pass before writing, staging the resources
+		// that cannot be read again, and write the staged copies.
+		check();
+		stripSignatures();
+		Manifest manifest = new Manifest();
+		Manifest m = getManifest();
+		if (m != null) {
+			manifest.getMainAttributes()
+				.putAll(m.getMainAttributes());
+			manifest.getEntries()
+				.putAll(m.getEntries());
 		}
-	}
-
-	private String padString(String s, int length, char pad) {
-		if (s == null)
-			s = "";
-		if (s.length() >= length)
-			return s;
-		char[] cs = new char[length];
-		Arrays.fill(cs, pad);
 
-		char[] orig = s.toCharArray();
-		System.arraycopy(orig, 0, cs, 0, orig.length);
-		return new String(cs);
+		Map<String, Resource> digested = new TreeMap<>(resources);
+		digested.remove(manifestName);
+		digested.keySet()
+			.removeIf(path -> path.endsWith(Constants.EMPTY_HEADER));
+		try (JarDigests digests = new JarDigests(algorithms, true)) {
+			digests.calculate(digested);
+			digests.addTo(manifest, true);
+			write(out, manifest, digests.staged());
+		}
 	}
 
-	private void doManifest(ZipOutputStream jout, Set<String> directories, String manifestName) throws Exception {
+	private void doManifest(ZipWriter jout, Set<String> directories, String manifestName, Manifest manifest)
+		throws Exception {
 		check();
 		createDirectories(directories, jout, manifestName);
-		JarEntry ze = new JarEntry(manifestName);
-		ZipUtil.setModifiedTime(ze, isReproducible() ? zipEntryConstantTime : lastModified());
+		long time = isReproducible() ? zipEntryConstantTime : lastModified();
 		Resource r = new WriteResource() {
 
 			@Override
 			public void write(OutputStream out) throws Exception {
-				writeManifest(out);
+				if (manifest != null) {
+					writeManifest(manifest, out);
+				} else {
+					writeManifest(out);
+				}
 			}
 
 			@Override
@@ -713,32 +730,27 @@ public class Jar implements Closeable {
 				return 0; // a manifest should not change the date
 			}
 		};
-		putEntry(jout, ze, r);
+		putEntry(jout, manifestName, time, null, r, null);
 	}
 
-	private void putEntry(ZipOutputStream jout, ZipEntry entry, Resource r) throws Exception {
-
+	private void putEntry(ZipWriter jout, String path, long time, byte[] extra, Resource r, Deflated deflated)
+		throws Exception {
 		if (compression == Compression.STORE) {
 			ByteBuffer buffer = r.buffer();
 			if (buffer == null) {
 				buffer = IO.copy(r.openInputStream(), new ByteBufferOutputStream())
 					.toByteBuffer();
 			}
-			entry.setMethod(ZipOutputStream.STORED);
-			CRC32 crc = new CRC32();
-			buffer.mark();
-			crc.update(buffer);
-			buffer.reset();
-			entry.setCrc(crc.getValue());
-			entry.setSize(buffer.remaining());
-			entry.setCompressedSize(buffer.remaining());
-			jout.putNextEntry(entry);
-			IO.copy(buffer, jout);
+			jout.putStored(path, time, extra, buffer);
+		} else if (deflated != null) {
+			jout.putDeflated(path, time, extra, deflated);
 		} else {
-			jout.putNextEntry(entry);
-			r.write(jout);
+			// copy the compressed data of unchanged entries from a zip file
+			if (r instanceof ZipResource zr && jout.putCopy(path, time, extra, zr.getZipFile(), zr.getZipEntry())) {
+				return;
+			}
+			jout.putDeflated(path, time, extra, r::write);
 		}
-		jout.closeEntry();
 	}
 
 	/**
@@ -829,52 +841,39 @@ public class Jar implements Closeable {
 			return s;
 	}
 
-	private void writeResource(ZipOutputStream jout, Set<String> directories, String path, Resource resource)
-		throws Exception {
+	private void writeResource(ZipWriter jout, Set<String> directories, String path, Resource resource,
+		Deflated deflated) throws Exception {
 		if (resource == null)
 			return;
 		try {
 			createDirectories(directories, jout, path);
 			if (path.endsWith(Constants.EMPTY_HEADER))
 				return;
-			ZipEntry ze = new ZipEntry(path);
-			ze.setMethod(ZipEntry.DEFLATED);
+			long time;
 			if (isReproducible()) {
-				ZipUtil.setModifiedTime(ze, zipEntryConstantTime);
+				time = zipEntryConstantTime;
 			} else {
-				long lastModified = resource.lastModified();
-				if (lastModified == 0L) {
-					lastModified = System.currentTimeMillis();
+				time = resource.lastModified();
+				if (time == 0L) {
+					time = System.currentTimeMillis();
 				}
-				ZipUtil.setModifiedTime(ze, lastModified);
 			}
 			String extra = resource.getExtra();
-			if (extra != null) {
-				ze.setExtra(Resource.decodeExtra(extra));
-			}
-			putEntry(jout, ze, resource);
+			putEntry(jout, path, time, (extra != null) ? Resource.decodeExtra(extra) : null, resource, deflated);
 		} catch (Exception e) {
 			throw new Exception("Problem writing resource " + path, e);
 		}
 	}
 
-	void createDirectories(Set<String> directories, ZipOutputStream zip, String name) throws IOException {
+	void createDirectories(Set<String> directories, ZipWriter zip, String name) throws IOException {
 		int index = name.lastIndexOf('/');
 		if (index > 0) {
 			String path = name.substring(0, index);
 			if (directories.contains(path))
 				return;
 			createDirectories(directories, zip, path);
-			ZipEntry ze = new ZipEntry(path + '/');
-			ZipUtil.setModifiedTime(ze, isReproducible() ? zipEntryConstantTime : lastModified());
-			if (compression == Compression.STORE) {
-				ze.setMethod(ZipOutputStream.STORED);
-				ze.setCrc(0L);
-				ze.setSize(0L);
-				ze.setCompressedSize(0L);
-			}
-			zip.putNextEntry(ze);
-			zip.closeEntry();
+			zip.putDirectory(path + '/', isReproducible() ? zipEntryConstantTime : lastModified(),
+				(compression == Compression.STORE) ? ZipEntry.STORED : ZipEntry.DEFLATED);
 			directories.add(path);
 		}
 	}
@@ -1009,56 +1008,18 @@ public class Jar implements Closeable {
 
 	public void calcChecksums(String[] algorithms) throws Exception {
 		check();
-		if (algorithms == null)
-			algorithms = new String[] {
-				"SHA1", "MD5"
-			};
-
 		Manifest m = getManifest();
 		if (m == null) {
 			m = new Manifest();
 			setManifest(m);
 		}
 
-		MessageDigest[] digests = new MessageDigest[algorithms.length];
-		int n = 0;
-		for (String algorithm : algorithms)
-			digests[n++] = MessageDigest.getInstance(algorithm);
-
-		byte[] buffer = new byte[BUFFER_SIZE];
-
-		for (Map.Entry<String, Resource> entry : resources.entrySet()) {
-			String path = entry.getKey();
-			// Skip the manifest
-			if (path.equals(manifestName))
-				continue;
-
-			Attributes attributes = m.getAttributes(path);
-			if (attributes == null) {
-				attributes = new Attributes();
-				getManifest().getEntries()
-					.put(path, attributes);
-			}
-			Resource r = entry.getValue();
-			ByteBuffer bb = r.buffer();
-			if ((bb != null) && bb.hasArray()) {
-				for (MessageDigest d : digests) {
-					d.update(bb);
-					bb.flip();
-				}
-			} else {
-				try (InputStream in = r.openInputStream()) {
-					for (int size; (size = in.read(buffer, 0, buffer.length)) > 0;) {
-						for (MessageDigest d : digests) {
-							d.update(buffer, 0, size);
-						}
-					}
-				}
-			}
-			for (MessageDigest d : digests) {
-				attributes.putValue(d.getAlgorithm() + "-Digest", Base64.encodeBase64(d.digest()));
-				d.reset();
-			}
+		Map<String, Resource> digested = new TreeMap<>(resources);
+		// Skip the manifest
+		digested.remove(manifestName);
+		try (JarDigests digests = new JarDigests(algorithms, false)) {
+			digests.calculate(digested);
+			digests.addTo(m, false);
 		}
 	}
 
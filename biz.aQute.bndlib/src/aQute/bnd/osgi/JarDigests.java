@@ -0,0 +1,274 @@
+package aQute.bnd.osgi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.PromiseFactory;
+
+import aQute.bnd.exceptions.Exceptions;
+import aQute.lib.base64.Base64;
+import aQute.lib.io.ByteBufferOutputStream;
+import aQute.lib.io.IO;
+import aQute.lib.io.IOConstants;
+
+/**
+ * Calculate the digests of the resources of a jar for the
+ * {@code <algorithm>-Digest} attributes of the manifest.
+ * <p>
+ * Each resource is read once. The digests of large resources that can be
+ * read again, i.e. files, embedded data and entries of zip files, are
+ * calculated concurrently, the digests of the other resources on the calling
+ * thread with the same {@link MessageDigest} instances. Since the manifest
+ * must be written before the resources, other resources can be staged while
+ * their digests are calculated: they are then written from the staged
+ * content, which is held in memory or, when it is large, in a temporary file.
+ */
+final class JarDigests implements Closeable {
+	private final static int			STAGE_THRESHOLD		= IOConstants.PAGE_SIZE * 256;
+	private final static long			PARALLEL_THRESHOLD	= IOConstants.PAGE_SIZE * 256;
+	private final String[]				algorithms;
+	private final boolean				stage;
+	private final Map<String, String[]>	digests				= new HashMap<>();
+	private final Map<String, Resource>	staged				= new HashMap<>();
+
+	/**
+	 * @param algorithms the digest algorithms, SHA1 and MD5 when
+	 *            {@code null}
+	 * @param stage stage the resources that cannot be read again
+	 */
+	JarDigests(String[] algorithms, boolean stage) {
+		this.algorithms = (algorithms != null) ? algorithms : new String[] {
+			"SHA1", "MD5"
+		};
+		this.stage = stage;
+	}
+
+	/**
+	 * Calculate the digests of resources.
+	 */
+	void calculate(Map<String, Resource> resources) throws Exception {
+		List<String> large = new ArrayList<>();
+		MessageDigest[] mds = messageDigests();
+		byte[] buffer = new byte[IOConstants.PAGE_SIZE * 16];
+		for (Map.Entry<String, Resource> entry : resources.entrySet()) {
+			String path = entry.getKey();
+			Resource resource = entry.getValue();
+			if (isRepeatable(resource)) {
+				if (resource.size() >= PARALLEL_THRESHOLD) {
+					large.add(path);
+				} else {
+					digests.put(path, digest(resource, mds, buffer));
+				}
+			} else if (stage) {
+				try (Stage out = new Stage(mds)) {
+					resource.write(out);
+					Resource copy = out.resource(resource.lastModified());
+					copy.setExtra(resource.getExtra());
+					staged.put(path, copy);
+				}
+				digests.put(path, encode(mds));
+			} else {
+				digests.put(path, digest(resource, mds, buffer));
+			}
+		}
+		if (large.isEmpty()) {
+			return;
+		}
+
+		PromiseFactory promiseFactory = Processor.getPromiseFactory();
+		List<Deferred<String[]>> deferreds = new ArrayList<>(large.size());
+		for (int i = 0; i < large.size(); i++) {
+			deferreds.add(promiseFactory.deferred());
+		}
+		// Each worker takes the next resource that is not digested yet
+		AtomicInteger next = new AtomicInteger();
+		Runnable worker = () -> {
+			MessageDigest[] workerMds = null;
+			byte[] workerBuffer = new byte[IOConstants.PAGE_SIZE * 16];
+			for (int i; (i = next.getAndIncrement()) < large.size();) {
+				Deferred<String[]> deferred = deferreds.get(i);
+				try {
+					if (workerMds == null) {
+						workerMds = messageDigests();
+					}
+					deferred.resolve(digest(resources.get(large.get(i)), workerMds, workerBuffer));
+				} catch (Throwable t) {
+					deferred.fail(t);
+				}
+			}
+		};
+		int workers = Math.min(Runtime.getRuntime()
+			.availableProcessors(), large.size());
+		Executor executor = promiseFactory.executor();
+		for (int i = 1; i < workers; i++) {
+			executor.execute(worker);
+		}
+		worker.run();
+		for (int i = 0; i < large.size(); i++) {
+			Throwable failure = deferreds.get(i)
+				.getPromise()
+				.getFailure();
+			if (failure != null) {
+				throw Exceptions.duck(failure);
+			}
+			digests.put(large.get(i), deferreds.get(i)
+				.getPromise()
+				.getValue());
+		}
+	}
+
+	/**
+	 * Add the digest attributes to a manifest. The attributes of the entries
+	 * are copied before they are modified.
+	 */
+	void addTo(Manifest manifest, boolean copy) {
+		Map<String, Attributes> entries = manifest.getEntries();
+		digests.forEach((path, values) -> {
+			Attributes attributes = entries.get(path);
+			if (attributes == null) {
+				attributes = new Attributes();
+			} else if (copy) {
+				attributes = new Attributes(attributes);
+			}
+			for (int i = 0; i < algorithms.length; i++) {
+				attributes.putValue(algorithms[i] + "-Digest", values[i]);
+			}
+			entries.put(path, attributes);
+		});
+	}
+
+	/**
+	 * The staged resources by path.
+	 */
+	Map<String, Resource> staged() {
+		return staged;
+	}
+
+	@Override
+	public void close() {
+		staged.values()
+			.forEach(IO::close);
+		staged.clear();
+	}
+
+	private MessageDigest[] messageDigests() throws Exception {
+		MessageDigest[] mds = new MessageDigest[algorithms.length];
+		for (int i = 0; i < algorithms.length; i++) {
+			mds[i] = MessageDigest.getInstance(algorithms[i]);
+		}
+		return mds;
+	}
+
+	private static boolean isRepeatable(Resource resource) {
+		return (resource instanceof FileResource) || (resource instanceof EmbeddedResource)
+			|| (resource instanceof ZipResource);
+	}
+
+	private static String[] digest(Resource resource, MessageDigest[] mds, byte[] buffer) throws Exception {
+		ByteBuffer bb = resource.buffer();
+		if ((bb != null) && bb.hasArray()) {
+			for (MessageDigest md : mds) {
+				md.update(bb.duplicate());
+			}
+		} else {
+			try (InputStream in = resource.openInputStream()) {
+				for (int size; (size = in.read(buffer, 0, buffer.length)) > 0;) {
+					for (MessageDigest md : mds) {
+						md.update(buffer, 0, size);
+					}
+				}
+			}
+		}
+		return encode(mds);
+	}
+
+	private static String[] encode(MessageDigest[] mds) {
+		String[] values = new String[mds.length];
+		for (int i = 0; i < mds.length; i++) {
+			values[i] = Base64.encodeBase64(mds[i].digest());
+		}
+		return values;
+	}
+
+	/**
+	 * Digests and stages the content of a resource, in memory until it gets
+	 * large and then in a temporary file.
+	 */
+	private static final class Stage extends OutputStream {
+		private final MessageDigest[]	mds;
+		private ByteBufferOutputStream	memory	= new ByteBufferOutputStream();
+		private int						size;
+		private Path					file;
+		private OutputStream			fileOut;
+
+		Stage(MessageDigest[] mds) {
+			this.mds = mds;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {
+				(byte) b
+			}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			for (MessageDigest md : mds) {
+				md.update(b, off, len);
+			}
+			if (fileOut == null) {
+				memory.write(b, off, len);
+				size += len;
+				if (size > STAGE_THRESHOLD) {
+					file = Files.createTempFile("jardigests", ".resource");
+					fileOut = IO.outputStream(file);
+					fileOut.write(memory.toByteArray());
+					memory = null;
+				}
+			} else {
+				fileOut.write(b, off, len);
+			}
+		}
+
+		Resource resource(long lastModified) throws IOException {
+			if (file == null) {
+				return new EmbeddedResource(memory.toByteBuffer(), lastModified);
+			}
+			fileOut.close();
+			fileOut = null;
+			Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+			FileResource resource = new FileResource(file);
+			resource.deleteOnClose(true);
+			file = null;
+			return resource;
+		}
+
+		/**
+		 * Delete the temporary file if the content was not staged.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (file != null) {
+				IO.close(fileOut);
+				IO.delete(file);
+			}
+		}
+	}
+}
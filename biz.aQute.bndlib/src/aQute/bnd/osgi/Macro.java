@@ -118,6 +118,12 @@ public class Macro {
 	}
 
 	String process(CharSequence line, Link link) {
+		if (line instanceof String s) {
+			Template template = Template.of(s);
+			if (template != null) {
+				return template.render(this, link);
+			}
+		}
 		StringBuilder sb = new StringBuilder();
 		process(line, 0, '\u0000', '\u0000', sb, link, false);
 		return sb.toString();
@@ -277,6 +283,7 @@ public class Macro {
 				//
 
 				if (args.length == 1) {
+					ExpansionCache.uncacheable();
 					value = System.getProperty(args[0]);
 					if (value != null)
 						return value;
@@ -387,41 +394,75 @@ public class Macro {
 			return null;
 		}
 
+		String macro = toMacroName(args[0]);
+		if (macro == null) {
+			return null;
+		}
+
 		Processor rover = domain;
 		while (rover != null) {
-			String result = doCommand(rover, args[0], args);
-			if (result != null)
+			String result = doCommand(rover, args[0], macro, args);
+			if (result != null) {
+				ExpansionCache.uncacheable();
 				return result;
+			}
 
 			rover = rover.getParent();
 		}
 
 		for (int i = 0; targets != null && i < targets.length; i++) {
-			String result = doCommand(targets[i], args[0], args);
-			if (result != null)
+			String result = doCommand(targets[i], args[0], macro, args);
+			if (result != null) {
+				ExpansionCache.uncacheable();
 				return result;
+			}
 		}
 
-		return doCommand(this, args[0], args);
+		String result = doCommand(this, args[0], macro, args);
+		if ((result != null) && !PURE.contains(args[0])) {
+			ExpansionCache.uncacheable();
+		}
+		return result;
 	}
 
-	private String doCommand(Object target, String method, String[] args) {
-		if (target == null)
-			; // System.err.println("Huh? Target should never be null " +
-		// domain);
-		else {
-			for (int i = 0, len = method.length(); i < len; i++) {
-				char c = method.charAt(i);
-				if (c == '-') {
-					// Assume macro names do not start with '-'
-					if (i == 0) {
-						return null;
-					}
-				} else if (!Character.isJavaIdentifierPart(c)) {
+	/**
+	 * The macros whose result only depends on their arguments and the
+	 * properties. All other macros, like ${now} or ${lsr}, make the expanded
+	 * value uncacheable.
+	 */
+	private static final Set<String> PURE = Set.of("uniq", "removeall", "retainall", "pathseparator", "separator",
+		"filter", "select", "filterout", "reject", "sort", "nsort", "join", "sjoin", "if", "literal", "def", "list",
+		"replace", "replacelist", "replacestring", "toclassname", "toclasspath", "version", "versionmask", "range",
+		"unescape", "startswith", "endswith", "extension", "basenameext", "stem", "substring", "length", "get",
+		"sublist", "first", "last", "max", "min", "nmax", "nmin", "vmax", "vmin", "sum", "average", "reverse",
+		"indexof", "lastindexof", "find", "findlast", "split", "toupper", "tolower", "compare", "ncompare",
+		"vcompare", "matches", "subst", "trim", "format", "isempty", "isnumber", "is", "map", "foreach", "apply",
+		"bytes", "template", "decorated", "version_cleanup", "bndversion");
+
+	/**
+	 * The name of the method suffix of a macro, or {@code null} if the method
+	 * name is not a valid macro name.
+	 */
+	private static String toMacroName(String method) {
+		for (int i = 0, len = method.length(); i < len; i++) {
+			char c = method.charAt(i);
+			if (c == '-') {
+				// Assume macro names do not start with '-'
+				if (i == 0) {
 					return null;
 				}
+			} else if (!Character.isJavaIdentifierPart(c)) {
+				return null;
 			}
+		}
+		return method.replace('-', '_');
+	}
 
+	private String doCommand(Object target, String method, String macro, String[] args) {
+		if (target == null)
+			; // System.err.println("Huh? Target should never be null " +
+		// domain);
+		else {
 			Map<String, BiFunction<Object, String[], Object>> macros = macrosByClass.computeIfAbsent(target.getClass(),
 				c -> Arrays.stream(c.getMethods())
 					.filter(m -> (m.getName()
@@ -457,7 +498,6 @@ public class Macro {
 							}
 						})));
 
-			String macro = method.replace('-', '_');
 			BiFunction<Object, String[], Object> invoker = macros.get(macro);
 			if (invoker == null) {
 				return null;
@@ -1382,6 +1422,161 @@ public class Macro {
 		}
 	}
 
+	/**
+	 * A line parsed into literal text and macro calls. The template of a line
+	 * is parsed once and cached, rendering it gives the same result as
+	 * processing the line character by character.
+	 * <p>
+	 * The expansion of {@code ./} depends on the base of the domain, lines
+	 * with {@code ./} are therefore not parsed into a template.
+	 */
+	static final class Template {
+		private final static int					MAX_ENTRIES	= 8192;
+		private final static int					MAX_LENGTH	= 16 * 1024;
+		private final static Template				EMPTY		= new Template(new Object[0]);
+		private final static Map<String, Template>	cache		= new ConcurrentHashMap<>();
+		/**
+		 * The literal text as a {@code String} and the macro calls as a
+		 * {@code Call}.
+		 */
+		private final Object[]						segments;
+
+		private record Call(String key, List<String> args, char begin, char end) {}
+
+		private Template(Object[] segments) {
+			this.segments = segments;
+		}
+
+		/**
+		 * Get the template of a line.
+		 *
+		 * @param line the line
+		 * @return the template or {@code null} if the line must be processed
+		 *         character by character
+		 */
+		static Template of(String line) {
+			if (line.isEmpty()) {
+				return EMPTY;
+			}
+			if ((line.indexOf('\u0000') >= 0) || line.contains("./")) {
+				return null;
+			}
+			if ((line.indexOf('$') < 0) && !line.contains("\\;")) {
+				return new Template(new Object[] {
+					line
+				});
+			}
+			if (line.length() > MAX_LENGTH) {
+				return parse(line);
+			}
+			Template template = cache.get(line);
+			if (template == null) {
+				if (cache.size() >= MAX_ENTRIES) {
+					cache.clear();
+				}
+				template = parse(line);
+				cache.put(line, template);
+			}
+			return template;
+		}
+
+		/*
+		 * Follows Macro.process for a line without ./
+		 */
+		private static Template parse(String line) {
+			List<Object> segments = new ArrayList<>();
+			StringBuilder text = new StringBuilder();
+			int length = line.length();
+			int index = 0;
+			while (index < length) {
+				char c1 = line.charAt(index++);
+				if (c1 == '\\' && index < length - 1 && (line.charAt(index) == '$' || line.charAt(index) == ';')) {
+					// remove the escape backslash and interpret the dollar or ;
+					// as a literal
+					text.append(line.charAt(index));
+					index++;
+					continue;
+				}
+				if (c1 == '$' && index < length - 2) {
+					char c2 = line.charAt(index);
+					char terminator = getTerminator(c2);
+					if (terminator != 0) {
+						index = parseCall(line, index + 1, c2, terminator, segments, text);
+						continue;
+					}
+				}
+				text.append(c1);
+			}
+			if (text.length() > 0) {
+				segments.add(text.toString());
+			}
+			return new Template(segments.toArray());
+		}
+
+		/*
+		 * Follows Macro.process in a macro. A macro that is not terminated is
+		 * literal text without the $ and the begin character.
+		 */
+		private static int parseCall(String line, int index, char begin, char end, List<Object> segments,
+			StringBuilder text) {
+			int length = line.length();
+			int nesting = 1;
+			List<String> args = new ArrayList<>();
+			StringBuilder variable = new StringBuilder();
+			int pStart = 0;
+			while (index < length) {
+				char c1 = line.charAt(index++);
+				if (c1 == end) {
+					if (--nesting == 0) {
+						args.add(variable.substring(pStart));
+						if (text.length() > 0) {
+							segments.add(text.toString());
+							text.setLength(0);
+						}
+						segments.add(new Call(variable.toString(), List.copyOf(args), begin, end));
+						return index;
+					}
+				} else if (c1 == begin) {
+					nesting++;
+				} else if (c1 == '\\' && index < length - 1
+					&& (line.charAt(index) == '$' || line.charAt(index) == ';')) {
+					variable.append(line.charAt(index));
+					index++;
+					continue;
+				} else if (c1 == ';' && nesting == 1) {
+					args.add(variable.substring(pStart));
+					pStart = variable.length() + 1;
+				}
+				variable.append(c1);
+			}
+			text.append(variable);
+			return index;
+		}
+
+		String render(Macro macro, Link link) {
+			switch (segments.length) {
+				case 0 :
+					return "";
+				case 1 :
+					if (segments[0] instanceof String literal) {
+						return literal;
+					}
+					break;
+				default :
+					break;
+			}
+			StringBuilder sb = new StringBuilder();
+			for (Object segment : segments) {
+				if (segment instanceof Call call) {
+					sb.append(macro.replace(call.key(), call.args(), link, call.begin(), call.end()));
+				} else {
+					sb.append((String) segment);
+				}
+			}
+			return sb.toString();
+		}
+	}
+
 	/**
 	 * Take all the properties and translate them to actual values. This method
 	 * takes the set properties and traverse them over all entries, including
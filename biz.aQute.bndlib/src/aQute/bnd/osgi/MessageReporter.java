@@ -195,6 +195,7 @@ public class MessageReporter {
 					args[i] = Exceptions.causes(t);
 				}
 			}
+			ExpansionCache.uncacheable();
 			String s = Processor.formatArrays(format, args);
 			Message m = new Message(counter.getAndIncrement(), s, true);
 			putMessage(s, m);
@@ -213,6 +214,7 @@ public class MessageReporter {
 	}
 
 	SetLocation warning(String format, Object... args) {
+		ExpansionCache.uncacheable();
 		String s = Processor.formatArrays(format, args);
 		Message m = new Message(counter.getAndIncrement(), s, false);
 		putMessage(s, m);
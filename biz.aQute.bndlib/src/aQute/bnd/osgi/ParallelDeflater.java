@@ -0,0 +1,193 @@
+package aQute.bnd.osgi;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+import aQute.bnd.exceptions.Exceptions;
+import aQute.bnd.osgi.ZipWriter.Deflated;
+
+/**
+ * Deflate the resources of a jar concurrently, ahead of the thread that writes
+ * them in order.
+ * <p>
+ * Only files, embedded data and entries of zip files that cannot be copied as
+ * is are deflated ahead, other resources may not be safe to read on another
+ * thread. The workers take the resources in order and a worker only starts
+ * on a resource when the size of the resources between the resource being
+ * written and this resource is within the memory budget. The data is deflated
+ * exactly as it would be deflated by the writing thread, so the written jar is
+ * the same as when it is written sequentially.
+ */
+final class ParallelDeflater implements Closeable {
+	private final static long				THRESHOLD	= 1024L * 1024L;
+	private final List<Resource>			resources;
+	private final boolean[]					eligible;
+	private final long[]					offsets;
+	private final long						budget;
+	private final AtomicBoolean[]			claimed;
+	private final List<Deferred<Deflated>>	deferreds;
+	private final AtomicInteger				next		= new AtomicInteger();
+	private final Object					lock		= new Object();
+	private final Thread					writer		= Thread.currentThread();
+	private int								position;
+	private volatile boolean				closed;
+
+	/**
+	 * Start deflating the resources if it is worth it.
+	 *
+	 * @param resources the resources in the order they are written, a
+	 *            {@code null} element is skipped
+	 * @return the deflater or {@code null} if the resources are not deflated
+	 *         ahead
+	 */
+	static ParallelDeflater start(List<Resource> resources) throws Exception {
+		int processors = Runtime.getRuntime()
+			.availableProcessors();
+		if (processors < 2) {
+			return null;
+		}
+		long budget = Math.min(64L * 1024L * 1024L, Runtime.getRuntime()
+			.maxMemory() / 8L);
+		ParallelDeflater deflater = new ParallelDeflater(resources, budget);
+		if (deflater.offsets[resources.size()] < THRESHOLD) {
+			return null;
+		}
+		deflater.start(processors);
+		return deflater;
+	}
+
+	private ParallelDeflater(List<Resource> resources, long budget) throws Exception {
+		int size = resources.size();
+		this.resources = resources;
+		this.budget = budget;
+		eligible = new boolean[size];
+		offsets = new long[size + 1];
+		claimed = new AtomicBoolean[size];
+		deferreds = new ArrayList<>(size);
+		PromiseFactory promiseFactory = Processor.getPromiseFactory();
+		for (int i = 0; i < size; i++) {
+			Resource resource = resources.get(i);
+			long length = 0L;
+			if (isEligible(resource)) {
+				length = resource.size();
+				eligible[i] = length >= 0L;
+			}
+			offsets[i + 1] = offsets[i] + Math.max(length, 0L);
+			claimed[i] = new AtomicBoolean(!eligible[i]);
+			deferreds.add(eligible[i] ? promiseFactory.deferred() : null);
+		}
+	}
+
+	private static boolean isEligible(Resource resource) {
+		if (resource instanceof ZipResource zr) {
+			return zr.getZipEntry()
+				.getMethod() != ZipEntry.DEFLATED;
+		}
+		return (resource instanceof FileResource) || (resource instanceof EmbeddedResource);
+	}
+
+	private void start(int processors) {
+		Executor executor = Processor.getPromiseFactory()
+			.executor();
+		for (int i = 1; i < processors; i++) {
+			executor.execute(this::work);
+		}
+	}
+
+	private void work() {
+		if (Thread.currentThread() == writer) {
+			// the executor is saturated and runs the task on the writer
+			return;
+		}
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			for (int i; !closed && ((i = next.getAndIncrement()) < resources.size());) {
+				if (!eligible[i] || !await(i) || !claimed[i].compareAndSet(false, true)) {
+					continue;
+				}
+				Resource resource = resources.get(i);
+				try {
+					deferreds.get(i)
+						.resolve(Deflated.deflate(deflater, resource::write));
+				} catch (Throwable t) {
+					deferreds.get(i)
+						.fail(t);
+				}
+			}
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Wait until a resource is within the memory budget.
+	 *
+	 * @return {@code false} if closed
+	 */
+	private boolean await(int index) {
+		synchronized (lock) {
+			while (!closed && (index != position) && (offsets[index + 1] - offsets[position] > budget)) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread()
+						.interrupt();
+					return false;
+				}
+			}
+			return !closed;
+		}
+	}
+
+	/**
+	 * Take the deflated data of the next resource to write. The deflater
+	 * drops its reference to the data, so the data can be collected once it
+	 * is written.
+	 *
+	 * @param index the index of the resource
+	 * @return the deflated data or {@code null} if the resource must be
+	 *         written by the writer
+	 */
+	Deflated take(int index) throws Exception {
+		synchronized (lock) {
+			position = index;
+			lock.notifyAll();
+		}
+		if (!eligible[index]) {
+			return null;
+		}
+		try {
+			if (claimed[index].compareAndSet(false, true)) {
+				return null;
+			}
+			Promise<Deflated> promise = deferreds.get(index)
+				.getPromise();
+			Throwable failure = promise.getFailure();
+			if (failure != null) {
+				throw Exceptions.duck(failure);
+			}
+			return promise.getValue();
+		} finally {
+			// the worker that claimed the resource is done with it
+			deferreds.set(index, null);
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+	}
+}
@@ -132,6 +132,8 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 	private boolean								fixup				= true;
 	private Processor							parent;
 	private final CopyOnWriteArrayList<File>	included			= new CopyOnWriteArrayList<>();
+	final ExpansionCache						expansions			= new ExpansionCache(this);
+	private final PropertyKeyIndex				keyIndex			= new PropertyKeyIndex(this);
 
 	Collection<String>							filter;
 	Boolean										strict;
@@ -191,6 +193,7 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 
 	public void setParent(Processor parent) {
 		this.parent = parent;
+		expansions.clear();
 		Properties updated = (parent != null) ? new UTF8Properties(parent.getRawProperties()) : new UTF8Properties();
 		updated.putAll(getRawProperties());
 		properties = updated;
@@ -899,6 +902,7 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 		}
 
 		clearPlugins(); // force plugins to reload since properties have changed
+		expansions.clear();
 	}
 
 	/**
@@ -1006,7 +1010,14 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 
 		Instruction ins = new Instruction(key);
 		if (ins.isLiteral()) {
-			return getLiteralProperty(ins.getLiteral(), deflt, this, inherit);
+			if (!inherit) {
+				return getLiteralProperty(ins.getLiteral(), deflt, this, false);
+			}
+			String value = expansions.get(ins.getLiteral(), k -> getLiteralProperty(k, null, this, true));
+			if ((value != null) || (deflt == null)) {
+				return value;
+			}
+			return getReplacer().process(deflt, this);
 		}
 
 		return getWildcardProperty(deflt, separator, inherit, ins);
@@ -1120,9 +1131,22 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 
 	private String getWildcardProperty(String deflt, String separator, boolean inherit, Instruction ins) {
 		// Handle a wildcard key, make sure they're sorted
-		// for consistency
-		String result = stream(inherit).filter(ins::matches)
-			.sorted()
+		// for consistency. Only the keys with the prefix of
+		// the instruction need to be matched.
+		String prefix = ins.getPrefix();
+		Set<String> keys = new TreeSet<>();
+		Predicate<String> keyFilter = ins::matches;
+		for (Processor rover = this; rover != null; rover = rover.getParent()) {
+			rover.keyIndex.collect(prefix, keyFilter, keys);
+			if (!inherit) {
+				break;
+			}
+			Collection<String> roverFilter = rover.filter;
+			if (roverFilter != null) {
+				keyFilter = keyFilter.and(k -> !roverFilter.contains(k));
+			}
+		}
+		String result = keys.stream()
 			.map(k -> getLiteralProperty(k, null, this, inherit))
 			.filter(v -> (v != null) && !v.isEmpty())
 			.collect(Strings.joining(separator, "", "", deflt));
@@ -1613,6 +1637,7 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 
 	public void setForceLocal(Collection<String> local) {
 		filter = local;
+		expansions.clear();
 	}
 
 	/**
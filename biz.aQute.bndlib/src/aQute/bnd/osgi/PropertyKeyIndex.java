@@ -0,0 +1,85 @@
+package aQute.bnd.osgi;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.function.Predicate;
+
+import aQute.lib.utf8properties.UTF8Properties;
+
+/**
+ * A sorted index of the keys of the properties of a {@link Processor}.
+ * <p>
+ * The index answers which keys start with a given prefix without visiting all
+ * keys. It is rebuilt lazily, on the first lookup after the properties have
+ * been modified. When the modifications of the properties cannot be tracked,
+ * all keys are visited on every lookup.
+ */
+final class PropertyKeyIndex {
+	private final static String[]	EMPTY	= new String[0];
+	private final Processor			processor;
+	private Properties				properties;
+	private long					modifications;
+	private String[]				keys	= EMPTY;
+
+	PropertyKeyIndex(Processor processor) {
+		this.processor = processor;
+	}
+
+	/**
+	 * Add the keys of the properties of the processor that start with the
+	 * prefix and are accepted by the filter.
+	 *
+	 * @param prefix the prefix, the empty string for all keys
+	 * @param filter the filter
+	 * @param result the collection the keys are added to
+	 */
+	void collect(String prefix, Predicate<String> filter, Collection<String> result) {
+		Properties current = processor.getRawProperties();
+		String[] sorted = sorted(current);
+		if (sorted == null) {
+			for (Object key : current.keySet()) {
+				if ((key instanceof String k) && k.startsWith(prefix) && filter.test(k)) {
+					result.add(k);
+				}
+			}
+			return;
+		}
+		int i = Arrays.binarySearch(sorted, prefix);
+		if (i < 0) {
+			i = -(i + 1);
+		}
+		for (; i < sorted.length; i++) {
+			String k = sorted[i];
+			if (!k.startsWith(prefix)) {
+				break;
+			}
+			if (filter.test(k)) {
+				result.add(k);
+			}
+		}
+	}
+
+	private synchronized String[] sorted(Properties current) {
+		if (!(current instanceof UTF8Properties utf8)) {
+			return null;
+		}
+		long count = utf8.getModificationCount();
+		if (count < 0) {
+			return null;
+		}
+		if ((current != properties) || (count != modifications)) {
+			// read the count before the keys, a concurrent modification then
+			// causes another rebuild on the next lookup
+			keys = current.keySet()
+				.stream()
+				.filter(String.class::isInstance)
+				.map(String.class::cast)
+				.sorted()
+				.toArray(String[]::new);
+			properties = current;
+			modifications = count;
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,201 @@
+package aQute.bnd.osgi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+import aQute.lib.io.IO;
+
+/**
+ * The central directory of a ZIP file, used to locate the compressed data of
+ * its entries so that it can be copied by a {@link ZipWriter}.
+ * <p>
+ * The data of an entry is only located when the central directory and the
+ * local header agree with the given {@link ZipEntry} of a {@link java.util.zip.ZipFile}
+ * for the same file, so that a file that changed since it was opened, or an
+ * entry that cannot be copied, is never copied.
+ */
+final class ZipCentralDirectory implements Closeable {
+	private final static int				LOCSIG			= 0x04034b50;
+	private final static int				CENSIG			= 0x02014b50;
+	private final static int				ENDSIG			= 0x06054b50;
+	private final static int				ZIP64_ENDSIG	= 0x06064b50;
+	private final static int				ZIP64_LOCSIG	= 0x07064b50;
+	private final static int				EXTID_ZIP64		= 0x0001;
+	private final static long				ZIP64_MAGICVAL	= 0xFFFFFFFFL;
+	private final static int				ENDHDR			= 22;
+	private final static int				LOCHDR			= 30;
+	private final static int				CENHDR			= 46;
+
+	private final FileChannel				channel;
+	private final Map<String, Located>		entries;
+
+	private record Located(int flag, int method, long crc, long csize, long size, long offset) {}
+
+	private ZipCentralDirectory(FileChannel channel, Map<String, Located> entries) {
+		this.channel = channel;
+		this.entries = entries;
+	}
+
+	/**
+	 * Read the central directory of a ZIP file.
+	 *
+	 * @return the central directory or {@code null} if it cannot be read
+	 */
+	static ZipCentralDirectory open(Path path) {
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			Map<String, Located> entries = read(channel);
+			if (entries != null) {
+				return new ZipCentralDirectory(channel, entries);
+			}
+		} catch (IOException | RuntimeException e) {
+			// not copied
+		}
+		IO.close(channel);
+		return null;
+	}
+
+	private static Map<String, Located> read(FileChannel channel) throws IOException {
+		long length = channel.size();
+		int tail = (int) Math.min(length, ENDHDR + 0xFFFF);
+		ByteBuffer bb = read(channel, length - tail, tail);
+		int end = -1;
+		for (int i = tail - ENDHDR; i >= 0; i--) {
+			if ((bb.getInt(i) == ENDSIG) && (i + ENDHDR + Short.toUnsignedInt(bb.getShort(i + 20)) == tail)) {
+				end = i;
+				break;
+			}
+		}
+		if (end < 0) {
+			return null;
+		}
+		long endPosition = length - tail + end;
+		long cenSize = Integer.toUnsignedLong(bb.getInt(end + 12));
+		long cenOffset = Integer.toUnsignedLong(bb.getInt(end + 16));
+		long cenEnd = endPosition;
+		if ((end >= 20) && (bb.getInt(end - 20) == ZIP64_LOCSIG)) {
+			long zip64End = bb.getLong(end - 12);
+			ByteBuffer z = read(channel, zip64End, 56);
+			if (z.getInt(0) != ZIP64_ENDSIG) {
+				return null;
+			}
+			cenSize = z.getLong(40);
+			cenOffset = z.getLong(48);
+			cenEnd = zip64End;
+		}
+		// data prepended to the ZIP file, e.g. a launcher script
+		long base = cenEnd - cenSize - cenOffset;
+		if ((base < 0L) || (cenSize > Integer.MAX_VALUE)) {
+			return null;
+		}
+
+		ByteBuffer cen = read(channel, base + cenOffset, (int) cenSize);
+		Map<String, Located> entries = new HashMap<>();
+		int p = 0;
+		while (p + CENHDR <= cen.limit()) {
+			if (cen.getInt(p) != CENSIG) {
+				return null;
+			}
+			int flag = Short.toUnsignedInt(cen.getShort(p + 8));
+			int method = Short.toUnsignedInt(cen.getShort(p + 10));
+			long crc = Integer.toUnsignedLong(cen.getInt(p + 16));
+			long csize = Integer.toUnsignedLong(cen.getInt(p + 20));
+			long size = Integer.toUnsignedLong(cen.getInt(p + 24));
+			int nameLength = Short.toUnsignedInt(cen.getShort(p + 28));
+			int extraLength = Short.toUnsignedInt(cen.getShort(p + 30));
+			int commentLength = Short.toUnsignedInt(cen.getShort(p + 32));
+			long offset = Integer.toUnsignedLong(cen.getInt(p + 42));
+			byte[] name = new byte[nameLength];
+			cen.position(p + CENHDR);
+			cen.get(name);
+
+			// ZIP64 extended information
+			int e = p + CENHDR + nameLength;
+			int extraEnd = e + extraLength;
+			while (e + 4 <= extraEnd) {
+				int tag = Short.toUnsignedInt(cen.getShort(e));
+				int dataLength = Short.toUnsignedInt(cen.getShort(e + 2));
+				int d = e + 4;
+				if (tag == EXTID_ZIP64) {
+					if ((size == ZIP64_MAGICVAL) && (d + 8 <= extraEnd)) {
+						size = cen.getLong(d);
+						d += 8;
+					}
+					if ((csize == ZIP64_MAGICVAL) && (d + 8 <= extraEnd)) {
+						csize = cen.getLong(d);
+						d += 8;
+					}
+					if ((offset == ZIP64_MAGICVAL) && (d + 8 <= extraEnd)) {
+						offset = cen.getLong(d);
+					}
+				}
+				e += 4 + dataLength;
+			}
+			entries.put(new String(name, UTF_8), new Located(flag, method, crc, csize, size, base + offset));
+			p += CENHDR + nameLength + extraLength + commentLength;
+		}
+		return entries;
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer bb = ByteBuffer.allocate(length)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		while (bb.hasRemaining()) {
+			if (channel.read(bb, position + bb.position()) < 0) {
+				throw new IOException("unexpected end of ZIP file");
+			}
+		}
+		bb.flip();
+		return bb;
+	}
+
+	/**
+	 * Locate the compressed data of an entry.
+	 *
+	 * @param entry the entry as read by a {@link java.util.zip.ZipFile} of
+	 *            this file
+	 * @return the position of the compressed data in the file or -1 if the
+	 *         data of the entry cannot be copied
+	 */
+	long dataPosition(ZipEntry entry) throws IOException {
+		Located located = entries.get(entry.getName());
+		if ((located == null) || ((located.flag() & 1) != 0) || (located.method() != entry.getMethod())
+			|| (located.crc() != entry.getCrc()) || (located.csize() != entry.getCompressedSize())
+			|| (located.size() != entry.getSize())) {
+			return -1L;
+		}
+		ByteBuffer loc = read(channel, located.offset(), LOCHDR);
+		if (loc.getInt(0) != LOCSIG) {
+			return -1L;
+		}
+		long position = located.offset() + LOCHDR + Short.toUnsignedInt(loc.getShort(26))
+			+ Short.toUnsignedInt(loc.getShort(28));
+		if (position + located.csize() > channel.size()) {
+			return -1L;
+		}
+		return position;
+	}
+
+	/**
+	 * Read compressed data.
+	 */
+	int read(ByteBuffer dst, long position) throws IOException {
+		return channel.read(dst, position);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -13,13 +13,14 @@ import aQute.lib.io.IO;
 import aQute.lib.zip.ZipUtil;
 
 public class ZipResource implements Resource {
-	private ByteBuffer		buffer;
-	private final ZipFile	zip;
-	private final ZipEntry	entry;
-	private final boolean	closeZipFile;
-	private long			lastModified;
-	private long			size;
-	private String			extra;
+	// shared by builders that read the same jar concurrently
+	private volatile ByteBuffer	buffer;
+	private final ZipFile		zip;
+	private final ZipEntry		entry;
+	private final boolean		closeZipFile;
+	private volatile long		lastModified;
+	private volatile long		size;
+	private String				extra;
 
 	ZipResource(Path path, String entryName) throws IOException {
 		this(new ZipFile(path.toFile()), entryName);
@@ -55,13 +56,14 @@ public class ZipResource implements Resource {
 	}
 
 	private ByteBuffer getBuffer() throws Exception {
-		if (buffer != null) {
-			return buffer;
+		ByteBuffer bb = buffer;
+		if (bb != null) {
+			return bb;
 		}
 		if (size == -1) {
 			return buffer = ByteBuffer.wrap(IO.read(zip.getInputStream(entry)));
 		}
-		ByteBuffer bb = IO.copy(zip.getInputStream(entry), ByteBuffer.allocate((int) size));
+		bb = IO.copy(zip.getInputStream(entry), ByteBuffer.allocate((int) size));
 		bb.flip();
 		return buffer = bb;
 	}
@@ -87,8 +89,9 @@ public class ZipResource implements Resource {
 
 	@Override
 	public long lastModified() {
-		if (lastModified != -11L) {
-			return lastModified;
+		long time = lastModified;
+		if (time != -11L) {
+			return time;
 		}
 		return lastModified = ZipUtil.getModifiedTime(entry);
 	}
@@ -105,12 +108,21 @@ public class ZipResource implements Resource {
 
 	@Override
 	public long size() throws Exception {
-		if (size >= 0) {
-			return size;
+		long length = size;
+		if (length >= 0) {
+			return length;
 		}
 		return size = getBuffer().limit();
 	}
 
+	ZipFile getZipFile() {
+		return zip;
+	}
+
+	ZipEntry getZipEntry() {
+		return entry;
+	}
+
 	@Override
 	public void close() throws IOException {
 		if (closeZipFile) {
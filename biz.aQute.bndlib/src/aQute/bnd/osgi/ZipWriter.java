@@ -0,0 +1,606 @@
+package aQute.bnd.osgi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import aQute.bnd.exceptions.ConsumerWithException;
+import aQute.lib.io.ByteBufferOutputStream;
+import aQute.lib.io.IO;
+import aQute.lib.io.IOConstants;
+
+/**
+ * Write a ZIP or JAR file.
+ * <p>
+ * Unlike {@link java.util.zip.ZipOutputStream}, this writer can copy the
+ * compressed data of an entry of another ZIP file as is, with its original
+ * CRC and sizes, instead of inflating and deflating it again. Deflated entries
+ * are always written with a data descriptor, whether their data is deflated
+ * while writing or copied, so the output does not depend on where the data
+ * came from. Directories are written as empty entries with the method of the
+ * other entries, as {@link java.util.zip.ZipOutputStream} writes them.
+ * <p>
+ * The modification times are UTC times as used by
+ * {@link aQute.lib.zip.ZipUtil#setModifiedTime(ZipEntry, long)}. The extended
+ * timestamp and ZIP64 fields of the given extra data are dropped since they
+ * are generated by this writer.
+ */
+final class ZipWriter implements Closeable {
+	private final static int							LOCSIG				= 0x04034b50;
+	private final static int							EXTSIG				= 0x08074b50;
+	private final static int							CENSIG				= 0x02014b50;
+	private final static int							ENDSIG				= 0x06054b50;
+	private final static int							ZIP64_ENDSIG		= 0x06064b50;
+	private final static int							ZIP64_LOCSIG		= 0x07064b50;
+	private final static int							FLAG_DESCRIPTOR		= 0x0008;
+	private final static int							FLAG_UTF8			= 0x0800;
+	private final static int							EXTID_ZIP64			= 0x0001;
+	private final static int							EXTID_EXTT			= 0x5455;
+	private final static int							JAR_MAGIC			= 0xCAFE;
+	private final static long							ZIP64_MAGICVAL		= 0xFFFFFFFFL;
+	private final static int							ZIP64_MAGICCOUNT	= 0xFFFF;
+	private final static long							DOSTIME_BEFORE_1980	= (1 << 21) | (1 << 16);
+	private final static TimeZone						tz					= TimeZone.getDefault();
+
+	private final OutputStream							out;
+	private final boolean								jar;
+	private final List<Entry>							entries				= new ArrayList<>();
+	private final Set<String>							names				= new HashSet<>();
+	private final Map<String, ZipCentralDirectory>		sources				= new HashMap<>();
+	private final Deflater								deflater			= new Deflater(
+		Deflater.DEFAULT_COMPRESSION, true);
+	private final CRC32									crc					= new CRC32();
+	private final OutputStream							sink				= new Sink();
+	private final byte[]								buffer				= new byte[IOConstants.PAGE_SIZE * 16];
+	private final ByteBuffer							header				= ByteBuffer.allocate(256)
+		.order(ByteOrder.LITTLE_ENDIAN);
+	private long										written;
+	private boolean										finished;
+
+	/**
+	 * Create a writer.
+	 *
+	 * @param out the stream to write to, it is not closed by this writer
+	 * @param jar if the output is a JAR file, the first entry is then marked
+	 *            as in {@link java.util.jar.JarOutputStream}
+	 */
+	ZipWriter(OutputStream out, boolean jar) {
+		this.out = out;
+		this.jar = jar;
+	}
+
+	private static final class Entry {
+		final byte[]	name;
+		final int		method;
+		final int		flag;
+		final long		dostime;
+		final long		mtime;
+		final byte[]	extra;
+		long			crc;
+		long			csize;
+		long			size;
+		long			offset;
+
+		Entry(byte[] name, int method, int flag, long dostime, long mtime, byte[] extra) {
+			this.name = name;
+			this.method = method;
+			this.flag = flag;
+			this.dostime = dostime;
+			this.mtime = mtime;
+			this.extra = extra;
+		}
+
+		boolean isZip64() {
+			return (csize >= ZIP64_MAGICVAL) || (size >= ZIP64_MAGICVAL);
+		}
+
+		int version() {
+			return (method == ZipEntry.STORED) ? 10 : 20;
+		}
+	}
+
+	/**
+	 * Write a directory entry.
+	 *
+	 * @param method the method of the entry, {@link ZipEntry#STORED} or
+	 *            {@link ZipEntry#DEFLATED}
+	 */
+	void putDirectory(String name, long time, int method) throws IOException {
+		if (method == ZipEntry.STORED) {
+			putStored(name, time, null, ByteBuffer.allocate(0));
+			return;
+		}
+		Entry e = entry(name, ZipEntry.DEFLATED, time, null);
+		writeLocal(e);
+		DeflatingOutputStream dout = new DeflatingOutputStream(deflater, buffer, sink);
+		dout.finish();
+		e.crc = dout.getCrc();
+		e.size = deflater.getBytesRead();
+		e.csize = deflater.getBytesWritten();
+		writeDescriptor(e);
+	}
+
+	/**
+	 * Write a stored entry.
+	 */
+	void putStored(String name, long time, byte[] extra, ByteBuffer data) throws IOException {
+		Entry e = entry(name, ZipEntry.STORED, time, extra);
+		crc.reset();
+		data.mark();
+		crc.update(data);
+		data.reset();
+		e.crc = crc.getValue();
+		e.size = e.csize = data.remaining();
+		writeLocal(e);
+		if (data.hasArray()) {
+			writeBytes(data.array(), data.arrayOffset() + data.position(), data.remaining());
+		} else {
+			while (data.hasRemaining()) {
+				int length = Math.min(buffer.length, data.remaining());
+				data.get(buffer, 0, length);
+				writeBytes(buffer, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Write a deflated entry. The data is deflated while it is written to the
+	 * stream given to the consumer.
+	 */
+	void putDeflated(String name, long time, byte[] extra, ConsumerWithException<OutputStream> data) throws Exception {
+		Entry e = entry(name, ZipEntry.DEFLATED, time, extra);
+		writeLocal(e);
+		DeflatingOutputStream dout = new DeflatingOutputStream(deflater, buffer, sink);
+		data.accept(dout);
+		dout.finish();
+		e.crc = dout.getCrc();
+		e.size = deflater.getBytesRead();
+		e.csize = deflater.getBytesWritten();
+		writeDescriptor(e);
+	}
+
+	/**
+	 * Write a deflated entry whose data was deflated ahead.
+	 */
+	void putDeflated(String name, long time, byte[] extra, Deflated deflated) throws IOException {
+		Entry e = entry(name, ZipEntry.DEFLATED, time, extra);
+		writeLocal(e);
+		writeBytes(deflated.data, 0, deflated.data.length);
+		e.crc = deflated.crc;
+		e.size = deflated.size;
+		e.csize = deflated.data.length;
+		writeDescriptor(e);
+	}
+
+	/**
+	 * The data of an entry deflated ahead of writing the entry, e.g. on
+	 * another thread. It is deflated exactly as when it is deflated while
+	 * writing the entry, so the written entry is the same.
+	 */
+	static final class Deflated {
+		final byte[]	data;
+		final long		crc;
+		final long		size;
+
+		private Deflated(byte[] data, long crc, long size) {
+			this.data = data;
+			this.crc = crc;
+			this.size = size;
+		}
+
+		/**
+		 * Deflate the data written to the stream given to the consumer.
+		 *
+		 * @param deflater a deflater for raw deflate data that is not used by
+		 *            another thread
+		 */
+		static Deflated deflate(Deflater deflater, ConsumerWithException<OutputStream> data) throws Exception {
+			ByteBufferOutputStream bbos = new ByteBufferOutputStream();
+			DeflatingOutputStream dout = new DeflatingOutputStream(deflater, new byte[IOConstants.PAGE_SIZE * 16],
+				bbos);
+			data.accept(dout);
+			dout.finish();
+			return new Deflated(bbos.toByteArray(), dout.getCrc(), deflater.getBytesRead());
+		}
+	}
+
+	/**
+	 * Deflate the data written to this stream to a sink.
+	 */
+	private static final class DeflatingOutputStream extends OutputStream {
+		private final Deflater		deflater;
+		private final CRC32			crc	= new CRC32();
+		private final byte[]		buffer;
+		private final OutputStream	sink;
+
+		DeflatingOutputStream(Deflater deflater, byte[] buffer, OutputStream sink) {
+			this.deflater = deflater;
+			this.buffer = buffer;
+			this.sink = sink;
+			deflater.reset();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {
+				(byte) b
+			}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return;
+			}
+			crc.update(b, off, len);
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				deflate();
+			}
+		}
+
+		void finish() throws IOException {
+			deflater.finish();
+			while (!deflater.finished()) {
+				deflate();
+			}
+		}
+
+		long getCrc() {
+			return crc.getValue();
+		}
+
+		private void deflate() throws IOException {
+			int length = deflater.deflate(buffer, 0, buffer.length);
+			if (length > 0) {
+				sink.write(buffer, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Write a deflated entry by copying the compressed data of an entry of a
+	 * ZIP file.
+	 *
+	 * @return {@code false} if the data of the entry cannot be copied, e.g.
+	 *         because it is not deflated, and nothing was written
+	 */
+	boolean putCopy(String name, long time, byte[] extra, ZipFile zip, ZipEntry source) throws IOException {
+		if ((source.getMethod() != ZipEntry.DEFLATED) || (source.getCompressedSize() < 0L)) {
+			return false;
+		}
+		ZipCentralDirectory directory = sources.get(zip.getName());
+		if ((directory == null) && !sources.containsKey(zip.getName())) {
+			directory = ZipCentralDirectory.open(Paths.get(zip.getName()));
+			sources.put(zip.getName(), directory);
+		}
+		if (directory == null) {
+			return false;
+		}
+		long position = directory.dataPosition(source);
+		if (position < 0L) {
+			return false;
+		}
+		Entry e = entry(name, ZipEntry.DEFLATED, time, extra);
+		writeLocal(e);
+		ByteBuffer bb = ByteBuffer.wrap(buffer);
+		for (long remaining = source.getCompressedSize(); remaining > 0L;) {
+			bb.clear();
+			if (remaining < bb.capacity()) {
+				bb.limit((int) remaining);
+			}
+			int length = directory.read(bb, position);
+			if (length < 0) {
+				throw new ZipException("unexpected end of ZIP file " + zip.getName());
+			}
+			writeBytes(buffer, 0, length);
+			position += length;
+			remaining -= length;
+		}
+		e.crc = source.getCrc();
+		e.size = source.getSize();
+		e.csize = source.getCompressedSize();
+		writeDescriptor(e);
+		return true;
+	}
+
+	/**
+	 * Write the central directory. No entries can be written afterwards.
+	 */
+	void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		long offset = written;
+		for (Entry e : entries) {
+			writeCentral(e);
+		}
+		writeEnd(offset, written - offset);
+		out.flush();
+	}
+
+	/**
+	 * Release the resources of this writer. The output stream is not closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		deflater.end();
+		for (ZipCentralDirectory directory : sources.values()) {
+			IO.close(directory);
+		}
+		sources.clear();
+	}
+
+	private Entry entry(String name, int method, long time, byte[] extra) throws ZipException {
+		if (finished) {
+			throw new ZipException("ZIP file is finished");
+		}
+		if (!names.add(name)) {
+			throw new ZipException("duplicate entry: " + name);
+		}
+		int flag = FLAG_UTF8;
+		if (method == ZipEntry.DEFLATED) {
+			flag |= FLAG_DESCRIPTOR;
+		}
+		// as ZipUtil.setModifiedTime and ZipEntry.setTime
+		long local = time - tz.getOffset(time);
+		long dostime = dosTime(local);
+		long mtime = -1L;
+		if (dostime == DOSTIME_BEFORE_1980 || dostime < 0L) {
+			long seconds = Math.floorDiv(local, 1000L);
+			if (seconds >= Integer.MIN_VALUE && seconds <= Integer.MAX_VALUE) {
+				mtime = seconds;
+			}
+			if (dostime < 0L) {
+				dostime = dosTime(LocalDateTime.of(2107, 12, 31, 23, 59, 58));
+			}
+		}
+		extra = strip(extra);
+		if (jar && entries.isEmpty()) {
+			byte[] magic = new byte[extra.length + 4];
+			magic[0] = (byte) JAR_MAGIC;
+			magic[1] = (byte) (JAR_MAGIC >> 8);
+			System.arraycopy(extra, 0, magic, 4, extra.length);
+			extra = magic;
+		}
+		Entry e = new Entry(name.getBytes(UTF_8), method, flag, dostime, mtime, extra);
+		e.offset = written;
+		entries.add(e);
+		return e;
+	}
+
+	/**
+	 * The MS-DOS time of a local time, or -1 if it is after the last MS-DOS
+	 * time.
+	 */
+	private static long dosTime(long local) {
+		LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(local), ZoneId.systemDefault());
+		if (ldt.getYear() < 1980) {
+			return DOSTIME_BEFORE_1980;
+		}
+		if (ldt.getYear() > 2107) {
+			return -1L;
+		}
+		return dosTime(ldt);
+	}
+
+	private static long dosTime(LocalDateTime ldt) {
+		return ((ldt.getYear() - 1980) << 25 | ldt.getMonthValue() << 21 | ldt.getDayOfMonth() << 16
+			| ldt.getHour() << 11 | ldt.getMinute() << 5 | ldt.getSecond() >> 1) & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Remove the extended timestamp and ZIP64 fields from extra data.
+	 */
+	private static byte[] strip(byte[] extra) {
+		if (extra == null) {
+			return new byte[0];
+		}
+		ByteBuffer bb = ByteBuffer.wrap(extra)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer result = ByteBuffer.allocate(extra.length);
+		while (bb.remaining() >= 4) {
+			int start = bb.position();
+			int tag = Short.toUnsignedInt(bb.getShort());
+			int size = Short.toUnsignedInt(bb.getShort());
+			if (size > bb.remaining()) {
+				bb.position(start);
+				break;
+			}
+			bb.position(bb.position() + size);
+			if ((tag != EXTID_EXTT) && (tag != EXTID_ZIP64)) {
+				result.put(extra, start, size + 4);
+			}
+		}
+		result.put(bb);
+		return Arrays.copyOf(result.array(), result.position());
+	}
+
+	private void writeLocal(Entry e) throws IOException {
+		ByteBuffer h = header();
+		h.putInt(LOCSIG);
+		h.putShort((short) e.version());
+		h.putShort((short) e.flag);
+		h.putShort((short) e.method);
+		h.putInt((int) e.dostime);
+		if ((e.flag & FLAG_DESCRIPTOR) != 0) {
+			h.putInt(0);
+			h.putInt(0);
+			h.putInt(0);
+		} else {
+			h.putInt((int) e.crc);
+			h.putInt((int) e.csize);
+			h.putInt((int) e.size);
+		}
+		h.putShort((short) e.name.length);
+		h.putShort((short) (extraTimeLength(e) + e.extra.length));
+		writeHeader(h);
+		writeBytes(e.name, 0, e.name.length);
+		writeExtraTime(e);
+		writeBytes(e.extra, 0, e.extra.length);
+	}
+
+	private void writeDescriptor(Entry e) throws IOException {
+		ByteBuffer h = header();
+		h.putInt(EXTSIG);
+		h.putInt((int) e.crc);
+		if (e.isZip64()) {
+			h.putLong(e.csize);
+			h.putLong(e.size);
+		} else {
+			h.putInt((int) e.csize);
+			h.putInt((int) e.size);
+		}
+		writeHeader(h);
+	}
+
+	private void writeCentral(Entry e) throws IOException {
+		int zip64 = 0;
+		if (e.size >= ZIP64_MAGICVAL) {
+			zip64 += 8;
+		}
+		if (e.csize >= ZIP64_MAGICVAL) {
+			zip64 += 8;
+		}
+		if (e.offset >= ZIP64_MAGICVAL) {
+			zip64 += 8;
+		}
+		int version = (zip64 > 0) ? 45 : e.version();
+		ByteBuffer h = header();
+		h.putInt(CENSIG);
+		h.putShort((short) version);
+		h.putShort((short) version);
+		h.putShort((short) e.flag);
+		h.putShort((short) e.method);
+		h.putInt((int) e.dostime);
+		h.putInt((int) e.crc);
+		h.putInt((int) Math.min(e.csize, ZIP64_MAGICVAL));
+		h.putInt((int) Math.min(e.size, ZIP64_MAGICVAL));
+		h.putShort((short) e.name.length);
+		h.putShort((short) (((zip64 > 0) ? zip64 + 4 : 0) + extraTimeLength(e) + e.extra.length));
+		h.putShort((short) 0); // comment length
+		h.putShort((short) 0); // disk number
+		h.putShort((short) 0); // internal attributes
+		h.putInt(0); // external attributes
+		h.putInt((int) Math.min(e.offset, ZIP64_MAGICVAL));
+		writeHeader(h);
+		writeBytes(e.name, 0, e.name.length);
+		if (zip64 > 0) {
+			h = header();
+			h.putShort((short) EXTID_ZIP64);
+			h.putShort((short) zip64);
+			if (e.size >= ZIP64_MAGICVAL) {
+				h.putLong(e.size);
+			}
+			if (e.csize >= ZIP64_MAGICVAL) {
+				h.putLong(e.csize);
+			}
+			if (e.offset >= ZIP64_MAGICVAL) {
+				h.putLong(e.offset);
+			}
+			writeHeader(h);
+		}
+		writeExtraTime(e);
+		writeBytes(e.extra, 0, e.extra.length);
+	}
+
+	private void writeEnd(long offset, long length) throws IOException {
+		int count = entries.size();
+		boolean zip64 = (offset >= ZIP64_MAGICVAL) || (length >= ZIP64_MAGICVAL) || (count >= ZIP64_MAGICCOUNT);
+		ByteBuffer h = header();
+		if (zip64) {
+			long end = written;
+			h.putInt(ZIP64_ENDSIG);
+			h.putLong(44L); // size of the remaining record
+			h.putShort((short) 45);
+			h.putShort((short) 45);
+			h.putInt(0); // disk number
+			h.putInt(0); // central directory disk number
+			h.putLong(count);
+			h.putLong(count);
+			h.putLong(length);
+			h.putLong(offset);
+			h.putInt(ZIP64_LOCSIG);
+			h.putInt(0); // disk with the ZIP64 end record
+			h.putLong(end);
+			h.putInt(1); // number of disks
+		}
+		h.putInt(ENDSIG);
+		h.putShort((short) 0); // disk number
+		h.putShort((short) 0); // central directory disk number
+		h.putShort((short) Math.min(count, ZIP64_MAGICCOUNT));
+		h.putShort((short) Math.min(count, ZIP64_MAGICCOUNT));
+		h.putInt((int) Math.min(length, ZIP64_MAGICVAL));
+		h.putInt((int) Math.min(offset, ZIP64_MAGICVAL));
+		h.putShort((short) 0); // comment length
+		writeHeader(h);
+	}
+
+	private static int extraTimeLength(Entry e) {
+		return (e.mtime != -1L) ? 9 : 0;
+	}
+
+	private void writeExtraTime(Entry e) throws IOException {
+		if (e.mtime != -1L) {
+			ByteBuffer h = header();
+			h.putShort((short) EXTID_EXTT);
+			h.putShort((short) 5);
+			h.put((byte) 1); // modification time
+			h.putInt((int) e.mtime);
+			writeHeader(h);
+		}
+	}
+
+	private ByteBuffer header() {
+		header.clear();
+		return header;
+	}
+
+	private void writeHeader(ByteBuffer h) throws IOException {
+		writeBytes(h.array(), 0, h.position());
+	}
+
+	/**
+	 * The compressed data of entries deflated while writing.
+	 */
+	private final class Sink extends OutputStream {
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {
+				(byte) b
+			}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			writeBytes(b, off, len);
+		}
+	}
+
+	private void writeBytes(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		written += len;
+	}
+}
@@ -0,0 +1,149 @@
+package aQute.bnd.osgi.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.osgi.namespace.service.ServiceNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Namespace;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.ResourceUtils;
+
+/**
+ * An index of the capabilities of a set of resources.
+ * <p>
+ * The capabilities of each namespace are indexed on the primary attribute of
+ * the namespace. This is the attribute with the name of the namespace, e.g.
+ * {@code osgi.wiring.package} or {@code osgi.identity}, except for the service
+ * namespace where it is {@code objectClass}. A requirement whose filter pins
+ * the primary attribute to one or more values only has to be matched against
+ * the capabilities with those values. All other requirements are matched
+ * against all the capabilities in the namespace.
+ * <p>
+ * The candidates are always returned in the order the capabilities were added
+ * to the index.
+ */
+class CapabilityIndex {
+	private final Map<String, NamespaceIndex> namespaces = new HashMap<>();
+	private int ordinal;
+
+	void add(Resource resource) {
+		for (Capability capability : resource.getCapabilities(null)) {
+			namespaces.computeIfAbsent(capability.getNamespace(), NamespaceIndex::new)
+				.add(new Entry(ordinal++, capability));
+		}
+	}
+
+	void clear() {
+		namespaces.clear();
+		ordinal = 0;
+	}
+
+	/**
+	 * Returns the capabilities which may match the requirement. The returned
+	 * capabilities must still be matched against the requirement.
+	 */
+	Stream<Capability> candidates(Requirement requirement) {
+		NamespaceIndex index = namespaces.get(requirement.getNamespace());
+		if (index == null) {
+			return Stream.empty();
+		}
+		return index.candidates(requirement.getDirectives()
+			.get(Namespace.REQUIREMENT_FILTER_DIRECTIVE));
+	}
+
+	private static String primaryAttribute(String namespace) {
+		if (ServiceNamespace.SERVICE_NAMESPACE.equals(namespace)) {
+			return ServiceNamespace.CAPABILITY_OBJECTCLASS_ATTRIBUTE;
+		}
+		return namespace;
+	}
+
+	private record Entry(int ordinal, Capability capability) {
+		static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::ordinal);
+	}
+
+	private static class NamespaceIndex {
+		final String					attribute;
+		final List<Entry>				all			= new ArrayList<>();
+		final Map<String, List<Entry>>	byValue		= new HashMap<>();
+		// capabilities whose primary attribute is not a string
+		final List<Entry>				unindexed	= new ArrayList<>();
+		final Map<String, Set<String>>	filters		= new ConcurrentHashMap<>();
+
+		NamespaceIndex(String namespace) {
+			this.attribute = primaryAttribute(namespace);
+		}
+
+		void add(Entry entry) {
+			all.add(entry);
+			Object value = entry.capability()
+				.getAttributes()
+				.get(attribute);
+			if (value instanceof String string) {
+				index(string, entry);
+			} else if (value instanceof Collection<?> collection
+				&& collection.stream()
+					.allMatch(String.class::isInstance)) {
+				collection.forEach(element -> index((String) element, entry));
+			} else if (value instanceof String[] array) {
+				for (String element : array) {
+					index(element, entry);
+				}
+			} else if (value != null) {
+				unindexed.add(entry);
+			}
+			// capabilities without the attribute can never match an equality
+		}
+
+		private void index(String value, Entry entry) {
+			List<Entry> entries = byValue.computeIfAbsent(value, k -> new ArrayList<>(1));
+			// a multi-valued attribute can list the same value more than once
+			if (entries.isEmpty() || (entries.get(entries.size() - 1) != entry)) {
+				entries.add(entry);
+			}
+		}
+
+		Stream<Capability> candidates(String filter) {
+			Set<String> values = (filter == null) ? Set.of()
+				: filters.computeIfAbsent(filter, f -> ResourceUtils.filterEqualityValues(f, attribute));
+			if (values.isEmpty()) {
+				return all.stream()
+					.map(Entry::capability);
+			}
+			List<List<Entry>> sources = new ArrayList<>(values.size() + 1);
+			for (String value : values) {
+				List<Entry> entries = byValue.get(value);
+				if (entries != null) {
+					sources.add(entries);
+				}
+			}
+			if (!unindexed.isEmpty()) {
+				sources.add(unindexed);
+			}
+			switch (sources.size()) {
+				case 0 :
+					return Stream.empty();
+				case 1 :
+					return sources.get(0)
+						.stream()
+						.map(Entry::capability);
+				default :
+					return sources.stream()
+						.flatMap(List::stream)
+						.distinct()
+						.sorted(Entry.ORDER)
+						.map(Entry::capability);
+			}
+		}
+	}
+}
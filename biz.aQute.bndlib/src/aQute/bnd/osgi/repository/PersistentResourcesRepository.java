@@ -1,14 +1,255 @@
 package aQute.bnd.osgi.repository;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.osgi.resource.PersistentResource;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.service.resource.SupportingResource;
+import aQute.bnd.util.dto.DTO;
+import aQute.lib.persistentmap.PersistentMap;
+import aQute.libg.cryptography.SHA1;
 
-public class PersistentResourcesRepository {
-	static class ResourceDTO {
+/**
+ * A repository of the resources of files that is persisted in a directory.
+ * <p>
+ * The resource of a file is stored together with the path, size, and last
+ * modification time of the file. When the repository is opened, the stored
+ * resources are reloaded without opening the files again. Entries whose file
+ * has been removed or has changed since it was stored are discarded. A file
+ * that is not in the repository, or whose entry is stale, is parsed with
+ * {@link ResourceBuilder#parse(File, URI)} when its resource is requested.
+ * <p>
+ * The {@link #getResource(File, URI)} method can be used as the store of
+ * {@link ResourceBuilder#addFile(File, URI, java.util.function.BiFunction)}.
+ * The files are parsed outside the lock of the repository so that different
+ * files can be parsed concurrently.
+ */
+public class PersistentResourcesRepository extends BaseRepository implements Closeable {
+	public static class ResourceDTO extends DTO {
 		public String				path;
+		public long					size;
 		public long					modified;
+		public String				uri;
 		public PersistentResource	resource;
 	}
 
-	// private PersistentMap<ResourceDTO> map;
+	private final PersistentMap<ResourceDTO>	map;
+	private final Map<String, Entry>			entries	= new LinkedHashMap<>();
+	private ResourcesRepository					repository;
+
+	/**
+	 * Open the repository stored in the given directory.
+	 *
+	 * @param dir the directory, it is created if it does not exist
+	 */
+	public PersistentResourcesRepository(File dir) throws Exception {
+		map = new PersistentMap<>(dir, ResourceDTO.class);
+		List<String> stale = new ArrayList<>();
+		try {
+			for (Map.Entry<String, ResourceDTO> e : map.entrySet()) {
+				Entry entry = new Entry(e.getValue());
+				if (entry.isCurrent()) {
+					entries.put(e.getKey(), entry);
+				} else {
+					stale.add(e.getKey());
+				}
+			}
+			stale.forEach(map::remove);
+		} catch (Exception e) {
+			// the content is a cache, start afresh when it is unreadable
+			entries.clear();
+			map.clear();
+		}
+	}
+
+	/**
+	 * Get the resource of a file. The resource is parsed from the file when
+	 * the repository has no entry for the file or when the file has changed
+	 * since the entry was stored.
+	 *
+	 * @param file the file
+	 * @param uri the URI of the content capability, or {@code null} for the URI
+	 *            of the file
+	 * @return the resource of the file
+	 * @throws IllegalArgumentException when the file cannot be parsed
+	 */
+	public SupportingResource getResource(File file, URI uri) {
+		file = file.getAbsoluteFile();
+		if (uri == null) {
+			uri = file.toURI();
+		}
+		String key = key(file);
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if ((entry != null) && entry.isCurrent() && entry.dto.uri.equals(uri.toString())) {
+				return entry.getResource();
+			}
+		}
+
+		// Parse outside the lock so that files are parsed concurrently. The
+		// size and time are read first so that a change during the parse
+		// makes the entry stale.
+		ResourceDTO dto = new ResourceDTO();
+		dto.path = file.getPath();
+		dto.size = file.length();
+		dto.modified = file.lastModified();
+		dto.uri = uri.toString();
+		SupportingResource resource = ResourceBuilder.parse(file, uri);
+		dto.resource = new PersistentResource(resource);
+
+		synchronized (this) {
+			// another thread may have stored the file in the meantime
+			Entry entry = entries.get(key);
+			if ((entry != null) && entry.isCurrent() && entry.dto.uri.equals(dto.uri)
+				&& (entry.dto.size == dto.size) && (entry.dto.modified == dto.modified)) {
+				return entry.getResource();
+			}
+			map.put(key, dto);
+			entries.put(key, new Entry(dto, resource));
+			repository = null;
+			return resource;
+		}
+	}
+
+	/**
+	 * Get the resource of a file using the URI of the file.
+	 *
+	 * @param file the file
+	 * @return the resource of the file
+	 */
+	public SupportingResource getResource(File file) {
+		return getResource(file, null);
+	}
+
+	/**
+	 * Remove the entry of a file.
+	 *
+	 * @param file the file
+	 * @return {@code true} if the repository had an entry for the file
+	 */
+	public synchronized boolean remove(File file) {
+		String key = key(file.getAbsoluteFile());
+		if (entries.remove(key) == null) {
+			return false;
+		}
+		map.remove(key);
+		repository = null;
+		return true;
+	}
+
+	/**
+	 * Remove the entries whose file has been removed or changed since it was
+	 * stored.
+	 */
+	public synchronized void refresh() {
+		for (Iterator<Map.Entry<String, Entry>> i = entries.entrySet()
+			.iterator(); i.hasNext();) {
+			Map.Entry<String, Entry> e = i.next();
+			if (!e.getValue()
+				.isCurrent()) {
+				i.remove();
+				map.remove(e.getKey());
+				repository = null;
+			}
+		}
+	}
+
+	@Override
+	public Map<Requirement, Collection<Capability>> findProviders(Collection<? extends Requirement> requirements) {
+		return getRepository().findProviders(requirements);
+	}
+
+	/**
+	 * Get the resources in this repository.
+	 *
+	 * @return the resources in this repository
+	 */
+	public List<Resource> getResources() {
+		return getRepository().getResources();
+	}
+
+	private synchronized ResourcesRepository getRepository() {
+		ResourcesRepository r = repository;
+		if (r == null) {
+			List<Resource> resources = new ArrayList<>(entries.size());
+			for (Entry entry : entries.values()) {
+				resources.add(entry.getResource());
+			}
+			repository = r = new ResourcesRepository(resources);
+		}
+		return r;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		map.close();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "PersistentResourcesRepository[" + entries.size() + "]";
+	}
+
+	private static String key(File file) {
+		try {
+			return SHA1.digest(file.getPath()
+				.getBytes(UTF_8))
+				.asHex();
+		} catch (Exception e) {
+			throw Exceptions.duck(e);
+		}
+	}
+
+	private static class Entry {
+		final ResourceDTO	dto;
+		SupportingResource	resource;
 
+		Entry(ResourceDTO dto) {
+			this.dto = dto;
+		}
+
+		Entry(ResourceDTO dto, SupportingResource resource) {
+			this.dto = dto;
+			this.resource = resource;
+		}
+
+		/**
+		 * The entry is current when the file still has the size and last
+		 * modification time it had when the entry was stored.
+		 */
+		boolean isCurrent() {
+			if ((dto.path == null) || (dto.uri == null) || (dto.resource == null)) {
+				return false;
+			}
+			File file = new File(dto.path);
+			return file.isFile() && (file.length() == dto.size) && (file.lastModified() == dto.modified);
+		}
+
+		SupportingResource getResource() {
+			if (resource == null) {
+				try {
+					resource = (SupportingResource) dto.resource.getResource();
+				} catch (Exception e) {
+					throw Exceptions.duck(e);
+				}
+			}
+			return resource;
+		}
+	}
 }
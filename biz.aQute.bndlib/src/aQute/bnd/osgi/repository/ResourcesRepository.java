@@ -19,10 +19,16 @@ import aQute.bnd.service.resource.SupportingResource;
 
 /**
  * A repository that contains a set of resources.
+ * <p>
+ * The capabilities of the resources are indexed so that requirements which
+ * pin the primary attribute of their namespace, e.g. an
+ * {@code osgi.wiring.package} requirement for a specific package, are only
+ * matched against the capabilities with that attribute value.
  */
 
 public class ResourcesRepository extends BaseRepository {
 	private final Set<Resource>									resources;
+	private final CapabilityIndex								index;
 	private final Map<String, Predicate<Map<String, Object>>>	cache;
 
 	/**
@@ -30,6 +36,7 @@ public class ResourcesRepository extends BaseRepository {
 	 */
 	public ResourcesRepository() {
 		resources = new LinkedHashSet<>();
+		index = new CapabilityIndex();
 		cache = new ConcurrentHashMap<>();
 	}
 
@@ -71,9 +78,7 @@ public class ResourcesRepository extends BaseRepository {
 	 * @return A list of capabilities that satisfy the requirement.
 	 */
 	public List<Capability> findProvider(Requirement requirement) {
-		String namespace = requirement.getNamespace();
-		return resources.stream()
-			.flatMap(resource -> ResourceUtils.capabilityStream(resource, namespace))
+		return index.candidates(requirement)
 			.filter(ResourceUtils.matcher(requirement, this::filterPredicate))
 			.collect(ResourceUtils.toCapabilities());
 	}
@@ -100,9 +105,16 @@ public class ResourcesRepository extends BaseRepository {
 	 */
 	public void add(Resource resource) {
 		if (resource != null) {
-			resources.add(resource);
+			addResource(resource);
 			if (resource instanceof SupportingResource cr)
-				resources.addAll(cr.getSupportingResources());
+				cr.getSupportingResources()
+					.forEach(this::addResource);
+		}
+	}
+
+	private void addResource(Resource resource) {
+		if (resources.add(resource)) {
+			index.add(resource);
 		}
 	}
 
@@ -123,6 +135,7 @@ public class ResourcesRepository extends BaseRepository {
 	 */
 	protected void set(Collection<? extends Resource> resources) {
 		this.resources.clear();
+		index.clear();
 		addAll(resources);
 	}
 
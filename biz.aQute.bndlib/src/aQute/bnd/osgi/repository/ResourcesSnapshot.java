@@ -0,0 +1,333 @@
+package aQute.bnd.osgi.repository;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.framework.Version;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.lib.io.IO;
+import aQute.lib.io.IOConstants;
+
+/**
+ * A compact binary snapshot of a list of resources, for example the resources
+ * parsed from an OSGi repository index.
+ * <p>
+ * A snapshot starts with a header holding the format version and a key,
+ * typically the digest of the index the resources were parsed from. The
+ * header is followed by a table of all the strings used in the resources,
+ * each string is stored once, and the resources. The attributes keep their
+ * type, so no strings need to be parsed into versions or numbers when a
+ * snapshot is read.
+ * <p>
+ * A snapshot is only read when its key is the expected key, otherwise the
+ * resources must be parsed from their source again. A snapshot that cannot be
+ * read, for example because it is damaged, is treated like a missing snapshot.
+ * Small snapshots are read into memory, large snapshots are mapped, see
+ * {@link IO#read(Path)}, except on Windows where a mapped file cannot be
+ * replaced until the mapping is garbage collected.
+ * <p>
+ * Reading a snapshot marks it as used, so the snapshots that were not used for
+ * some time can be removed with {@link #prune(File, long, int)}.
+ */
+public final class ResourcesSnapshot {
+	private final static int	MAGIC		= 0x62736e70;	// "bsnp"
+	private final static int	FORMAT		= 1;
+
+	private final static byte	T_STRING	= 0;
+	private final static byte	T_LONG		= 1;
+	private final static byte	T_DOUBLE	= 2;
+	private final static byte	T_VERSION	= 3;
+	private final static byte	T_LIST		= 4;
+
+	private ResourcesSnapshot() {}
+
+	/**
+	 * Write a snapshot of the resources. The snapshot is written to a
+	 * temporary file first which then replaces the file, so a reader never
+	 * sees a partially written snapshot.
+	 *
+	 * @param file the snapshot file
+	 * @param key the key of the snapshot, for example the digest of the index
+	 * @param resources the resources
+	 * @throws IOException when the snapshot cannot be written
+	 * @throws IllegalArgumentException when an attribute has a type that
+	 *             cannot be stored
+	 */
+	public static void write(File file, String key, Collection<? extends Resource> resources) throws IOException {
+		Map<String, Integer> strings = new HashMap<>();
+		List<String> table = new ArrayList<>();
+		for (Resource resource : resources) {
+			for (Capability capability : resource.getCapabilities(null)) {
+				collect(strings, table, capability.getNamespace(), capability.getAttributes(),
+					capability.getDirectives());
+			}
+			for (Requirement requirement : resource.getRequirements(null)) {
+				collect(strings, table, requirement.getNamespace(), requirement.getAttributes(),
+					requirement.getDirectives());
+			}
+		}
+
+		Path target = file.toPath();
+		IO.mkdirs(target.getParent());
+		Path tmp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(IO.outputStream(tmp), IOConstants.PAGE_SIZE * 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT);
+				writeString(out, key);
+
+				out.writeInt(table.size());
+				for (String s : table) {
+					writeString(out, s);
+				}
+
+				out.writeInt(resources.size());
+				for (Resource resource : resources) {
+					List<Capability> capabilities = resource.getCapabilities(null);
+					out.writeInt(capabilities.size());
+					for (Capability capability : capabilities) {
+						write(out, strings, capability.getNamespace(), capability.getAttributes(),
+							capability.getDirectives());
+					}
+					List<Requirement> requirements = resource.getRequirements(null);
+					out.writeInt(requirements.size());
+					for (Requirement requirement : requirements) {
+						write(out, strings, requirement.getNamespace(), requirement.getAttributes(),
+							requirement.getDirectives());
+					}
+				}
+			}
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Read a snapshot of resources.
+	 *
+	 * @param file the snapshot file
+	 * @param key the expected key of the snapshot
+	 * @return the resources, or {@code null} if there is no snapshot, the
+	 *         snapshot has another key or format version, or the snapshot is
+	 *         damaged
+	 * @throws IOException when the snapshot cannot be read
+	 */
+	public static List<Resource> read(File file, String key) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		ByteBuffer bb = IO.read(file.toPath());
+		try {
+			if ((bb.getInt() != MAGIC) || (bb.getInt() != FORMAT) || !key.equals(readString(bb))) {
+				return null;
+			}
+
+			// every string has a length
+			String[] table = new String[readCount(bb, Integer.BYTES)];
+			for (int i = 0; i < table.length; i++) {
+				table[i] = readString(bb);
+			}
+			Map<String, Version> versions = new HashMap<>();
+
+			// every resource has a count of capabilities and requirements
+			int count = readCount(bb, 2 * Integer.BYTES);
+			List<Resource> resources = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				ResourceBuilder rb = new ResourceBuilder();
+				for (int c = bb.getInt(); c > 0; c--) {
+					rb.addCapability(read(bb, table, versions));
+				}
+				for (int r = bb.getInt(); r > 0; r--) {
+					rb.addRequirement(read(bb, table, versions));
+				}
+				resources.add(rb.build());
+			}
+			if (bb.hasRemaining()) {
+				return null;
+			}
+			file.setLastModified(System.currentTimeMillis());
+			return resources;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Delete the snapshots in a directory that were not read or written for
+	 * some time and the least recently used snapshots above a maximum number.
+	 *
+	 * @param dir the directory with the snapshots
+	 * @param maxAge the time in milliseconds after which an unused snapshot is
+	 *            deleted
+	 * @param maxCount the maximum number of snapshots to keep
+	 */
+	public static void prune(File dir, long maxAge, int maxCount) {
+		File[] files = dir.listFiles(File::isFile);
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified)
+			.reversed());
+		long limit = System.currentTimeMillis() - maxAge;
+		for (int i = 0; i < files.length; i++) {
+			if ((i >= maxCount) || (files[i].lastModified() < limit)) {
+				IO.delete(files[i]);
+			}
+		}
+	}
+
+	private static void collect(Map<String, Integer> strings, List<String> table, String namespace,
+		Map<String, Object> attributes, Map<String, String> directives) {
+		intern(strings, table, namespace);
+		attributes.forEach((k, v) -> {
+			intern(strings, table, k);
+			collectValue(strings, table, v);
+		});
+		directives.forEach((k, v) -> {
+			intern(strings, table, k);
+			intern(strings, table, v);
+		});
+	}
+
+	private static void collectValue(Map<String, Integer> strings, List<String> table, Object value) {
+		if (value instanceof String || value instanceof Version) {
+			intern(strings, table, value.toString());
+		} else if (value instanceof List<?> list) {
+			list.forEach(v -> collectValue(strings, table, v));
+		}
+	}
+
+	private static void intern(Map<String, Integer> strings, List<String> table, String s) {
+		strings.computeIfAbsent(s, k -> {
+			table.add(k);
+			return table.size() - 1;
+		});
+	}
+
+	private static void write(DataOutputStream out, Map<String, Integer> strings, String namespace,
+		Map<String, Object> attributes, Map<String, String> directives) throws IOException {
+		out.writeInt(strings.get(namespace));
+		out.writeInt(attributes.size());
+		for (Map.Entry<String, Object> e : attributes.entrySet()) {
+			out.writeInt(strings.get(e.getKey()));
+			writeValue(out, strings, e.getValue());
+		}
+		out.writeInt(directives.size());
+		for (Map.Entry<String, String> e : directives.entrySet()) {
+			out.writeInt(strings.get(e.getKey()));
+			out.writeInt(strings.get(e.getValue()));
+		}
+	}
+
+	private static void writeValue(DataOutputStream out, Map<String, Integer> strings, Object value)
+		throws IOException {
+		if (value instanceof String) {
+			out.writeByte(T_STRING);
+			out.writeInt(strings.get(value));
+		} else if (value instanceof Version) {
+			out.writeByte(T_VERSION);
+			out.writeInt(strings.get(value.toString()));
+		} else if (value instanceof Long l) {
+			out.writeByte(T_LONG);
+			out.writeLong(l);
+		} else if (value instanceof Double d) {
+			out.writeByte(T_DOUBLE);
+			out.writeDouble(d);
+		} else if (value instanceof List<?> list) {
+			out.writeByte(T_LIST);
+			out.writeInt(list.size());
+			for (Object v : list) {
+				writeValue(out, strings, v);
+			}
+		} else {
+			throw new IllegalArgumentException("Unsupported attribute type " + value.getClass()
+				.getName());
+		}
+	}
+
+	private static CapReqBuilder read(ByteBuffer bb, String[] table, Map<String, Version> versions) {
+		CapReqBuilder builder = new CapReqBuilder(table[bb.getInt()]);
+		for (int a = bb.getInt(); a > 0; a--) {
+			String name = table[bb.getInt()];
+			builder.addAttribute(name, readValue(bb, table, versions));
+		}
+		for (int d = bb.getInt(); d > 0; d--) {
+			String name = table[bb.getInt()];
+			builder.addDirective(name, table[bb.getInt()]);
+		}
+		return builder;
+	}
+
+	private static Object readValue(ByteBuffer bb, String[] table, Map<String, Version> versions) {
+		byte type = bb.get();
+		switch (type) {
+			case T_STRING :
+				return table[bb.getInt()];
+			case T_VERSION :
+				return versions.computeIfAbsent(table[bb.getInt()], Version::parseVersion);
+			case T_LONG :
+				return bb.getLong();
+			case T_DOUBLE :
+				return bb.getDouble();
+			case T_LIST :
+				// every value has a type
+				int size = readCount(bb, Byte.BYTES);
+				List<Object> list = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(bb, table, versions));
+				}
+				return list;
+			default :
+				throw new IllegalArgumentException("Unknown attribute type " + type);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer bb) {
+		byte[] bytes = new byte[readCount(bb, Byte.BYTES)];
+		bb.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * Read a count of elements. A damaged snapshot can have any count, so the
+	 * count must not be negative or need more than the remaining bytes.
+	 *
+	 * @param minSize the minimum number of bytes of an element
+	 */
+	private static int readCount(ByteBuffer bb, int minSize) {
+		int count = bb.getInt();
+		if ((count < 0) || (count > bb.remaining() / minSize)) {
+			throw new IllegalArgumentException("Invalid count " + count);
+		}
+		return count;
+	}
+}
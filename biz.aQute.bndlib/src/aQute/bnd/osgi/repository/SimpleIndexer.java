@@ -8,20 +8,32 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.osgi.annotation.versioning.ConsumerType;
 import org.osgi.resource.Resource;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+import org.osgi.util.promise.Promises;
 
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.osgi.Domain;
+import aQute.bnd.osgi.Processor;
 import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.osgi.resource.ResourceUtils.ContentCapability;
 import aQute.lib.io.IO;
+import aQute.libg.cryptography.SHA256;
 import aQute.libg.reporter.slf4j.Slf4jReporter;
 import aQute.service.reporter.Reporter;
 
@@ -74,6 +86,8 @@ public class SimpleIndexer {
 	private long			increment	= -1L;
 	private FileAnalyzer	analyzer;
 	private Reporter		reporter	= new Slf4jReporter(SimpleIndexer.class);
+	private int				parallel	= 1;
+	private File			previous;
 
 	public SimpleIndexer() {}
 
@@ -131,6 +145,35 @@ public class SimpleIndexer {
 		return this;
 	}
 
+	/**
+	 * Index up to the specified number of files concurrently. The order of the
+	 * resources does not depend on the number of files indexed concurrently.
+	 * The {@link FileAnalyzer}, if any, must be thread safe when more than one
+	 * file is indexed concurrently.
+	 *
+	 * @param parallel the maximum number of files indexed concurrently, the
+	 *            default is 1
+	 */
+	public SimpleIndexer parallel(int parallel) {
+		this.parallel = Math.max(parallel, 1);
+		return this;
+	}
+
+	/**
+	 * Reuse the resources of a previously generated index. The resource of a
+	 * file in the previous index is reused when the file has the same URL,
+	 * size and SHA-256 digest. The index does not record the modification
+	 * times of the files, so the digest of every file of the same size is
+	 * verified.
+	 *
+	 * @param previous the previously generated index, it is ignored if it
+	 *            does not exist
+	 */
+	public SimpleIndexer previous(File previous) {
+		this.previous = previous;
+		return this;
+	}
+
 	/**
 	 * Generate the index to the specified output stream.
 	 *
@@ -157,12 +200,43 @@ public class SimpleIndexer {
 	 * @return the set of resources handled so far.
 	 */
 	public List<Resource> getResources() {
-		List<Resource> resources = files.stream()
+		List<File> indexable = files.stream()
 			.filter(f -> f.isFile() && !f.isHidden() && f.canRead())
-			.map(this::indexFile)
+			.collect(Collectors.toList());
+		Map<URI, Resource> previousResources = previousResources();
+		Resource[] resources = new Resource[indexable.size()];
+		AtomicInteger next = new AtomicInteger();
+		Runnable worker = () -> {
+			for (int i; (i = next.getAndIncrement()) < resources.length;) {
+				resources[i] = indexFile(indexable.get(i), previousResources);
+			}
+		};
+		int workers = Math.min(parallel, resources.length);
+		if (workers > 1) {
+			PromiseFactory promiseFactory = Processor.getPromiseFactory();
+			List<Promise<Void>> promises = new ArrayList<>(workers - 1);
+			for (int i = 1; i < workers; i++) {
+				promises.add(promiseFactory.submit(() -> {
+					worker.run();
+					return null;
+				}));
+			}
+			worker.run();
+			try {
+				// the workers report the files that could not be indexed
+				Promises.all(promises)
+					.getFailure();
+			} catch (InterruptedException e) {
+				Thread.currentThread()
+					.interrupt();
+				throw Exceptions.duck(e);
+			}
+		} else {
+			worker.run();
+		}
+		return Arrays.stream(resources)
 			.filter(Objects::nonNull)
 			.collect(Collectors.toList());
-		return resources;
 	}
 
 	public SimpleIndexer reporter(Reporter reporter) {
@@ -187,21 +261,64 @@ public class SimpleIndexer {
 		return repository;
 	}
 
-	private Resource indexFile(File file) {
+	private Map<URI, Resource> previousResources() {
+		Map<URI, Resource> previousResources = new HashMap<>();
+		if ((previous == null) || !previous.isFile()) {
+			return previousResources;
+		}
 		try {
+			// keep the URLs as they are in the index
+			for (Resource resource : XMLResourceParser.getResources(previous, URI.create(""))) {
+				ContentCapability content = ResourceUtils.getContentCapability(resource);
+				if ((content != null) && (content.url() != null)) {
+					previousResources.put(content.url(), resource);
+				}
+			}
+		} catch (Exception e) {
+			report(() -> reporter.warning("Could not read the previous index %s: %s", previous, e));
+		}
+		return previousResources;
+	}
+
+	private Resource indexFile(File file, Map<URI, Resource> previousResources) {
+		try {
+			URI uri = relativize(file);
+			Resource previousResource = previousResources.get(uri);
+			if ((previousResource != null) && isUnchanged(file, previousResource)) {
+				return previousResource;
+			}
 			ResourceBuilder resourceBuilder = new ResourceBuilder();
-			if (resourceBuilder.addFile(file, relativize(file))) {
+			if (resourceBuilder.addFile(file, uri)) {
 				if (analyzer != null) {
 					analyzer.analyzeFile(file, resourceBuilder.safeResourceBuilder());
 				}
 				return resourceBuilder.build();
 			}
 		} catch (Exception e) {
-			reporter.exception(e, "Could not index file %s", file);
+			report(() -> reporter.exception(e, "Could not index file %s", file));
 		}
 		return null;
 	}
 
+	private boolean isUnchanged(File file, Resource previousResource) throws Exception {
+		ContentCapability content = ResourceUtils.getContentCapability(previousResource);
+		if (content.size() != file.length()) {
+			return false;
+		}
+		return SHA256.digest(file)
+			.asHex()
+			.equalsIgnoreCase(content.osgi_content());
+	}
+
+	/**
+	 * The workers share the reporter.
+	 */
+	private void report(Runnable report) {
+		synchronized (reporter) {
+			report.run();
+		}
+	}
+
 	private URI relativize(File file) {
 		if (base == null) {
 			return file.toURI();
@@ -218,8 +335,8 @@ public class SimpleIndexer {
 		} catch (URISyntaxException e) {
 			throw Exceptions.duck(e);
 		}
-		reporter.trace("Resolving %s relative to %s; Relative Path: %s, URI: %s", filePath, base, relativePath,
-			relativeURI);
+		report(() -> reporter.trace("Resolving %s relative to %s; Relative Path: %s, URI: %s", filePath, base,
+			relativePath, relativeURI));
 		return relativeURI;
 	}
 
@@ -63,6 +63,7 @@ public class XMLResourceParser extends Processor {
 	private int						depth;
 	private String					name;
 	private long					increment;
+	private boolean					referrals;
 
 	public static List<Resource> getResources(URI uri) throws Exception {
 		try (XMLResourceParser parser = new XMLResourceParser(uri)) {
@@ -137,6 +138,15 @@ public class XMLResourceParser extends Processor {
 		return increment;
 	}
 
+	/**
+	 * Answer whether the parsed index referred to other indexes.
+	 *
+	 * @return {@code true} if the index had referrals
+	 */
+	public boolean hasReferrals() {
+		return referrals;
+	}
+
 	List<Resource> getResources() {
 		if (!isOk())
 			return null;
@@ -207,6 +217,7 @@ public class XMLResourceParser extends Processor {
 	}
 
 	private void parseReferral() throws Exception {
+		referrals = true;
 		if (--depth < 0)
 			error("Too deep, traversed %s", traversed);
 		else {
@@ -26,8 +26,10 @@ import java.security.PrivilegedAction;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -246,6 +248,21 @@ abstract class FilterImpl implements Filter {
 
 	abstract boolean matches0(Map<String, ?> map);
 
+	/**
+	 * Returns the values one of which the specified attribute must be equal to
+	 * for this filter to match.
+	 * <p>
+	 * This is used to look up candidates in an index keyed on the attribute
+	 * value. Only the string equality of the attribute is considered.
+	 *
+	 * @param attribute The attribute name.
+	 * @return The values or {@code null} if this filter does not require the
+	 *         attribute to be equal to a fixed value.
+	 */
+	Set<String> equalityValues(String attribute) {
+		return null;
+	}
+
 	/**
 	 * Returns this {@code Filter}'s filter string.
 	 * <p>
@@ -329,6 +346,17 @@ abstract class FilterImpl implements Filter {
 			return true;
 		}
 
+		@Override
+		Set<String> equalityValues(String attribute) {
+			for (FilterImpl operand : operands) {
+				Set<String> values = operand.equalityValues(attribute);
+				if (values != null) {
+					return values;
+				}
+			}
+			return null;
+		}
+
 		@Override
 		StringBuilder normalize(StringBuilder sb) {
 			sb.append('(')
@@ -357,6 +385,19 @@ abstract class FilterImpl implements Filter {
 			return false;
 		}
 
+		@Override
+		Set<String> equalityValues(String attribute) {
+			Set<String> values = new LinkedHashSet<>();
+			for (FilterImpl operand : operands) {
+				Set<String> operandValues = operand.equalityValues(attribute);
+				if (operandValues == null) {
+					return null;
+				}
+				values.addAll(operandValues);
+			}
+			return values;
+		}
+
 		@Override
 		StringBuilder normalize(StringBuilder sb) {
 			sb.append('(')
@@ -696,6 +737,15 @@ abstract class FilterImpl implements Filter {
 			this.value = value;
 		}
 
+		@Override
+		Set<String> equalityValues(String attribute) {
+			// LessEqual, GreaterEqual and Approx are not equality
+			if ((getClass() == Equal.class) && attr.equals(attribute)) {
+				return Collections.singleton(value);
+			}
+			return null;
+		}
+
 		private <T> T convert(Class<T> type, Function<String, ? extends T> converter) {
 			@SuppressWarnings("unchecked")
 			T converted = (T) cached;
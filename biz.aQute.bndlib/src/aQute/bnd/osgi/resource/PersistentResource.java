@@ -1,19 +1,18 @@
 package aQute.bnd.osgi.resource;
 
 import java.lang.reflect.Array;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Stream;
 
 import org.osgi.framework.Version;
 import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
+import org.osgi.service.repository.ContentNamespace;
 
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.bnd.stream.MapStream;
 import aQute.bnd.util.dto.DTO;
 import aQute.lib.collections.MultiMap;
@@ -27,9 +26,10 @@ import aQute.lib.hex.Hex;
  */
 public class PersistentResource extends DTO implements Resource {
 
-	public Namespace[]	namespaces;
-	transient Resource	resource;
-	public byte[]		sha;
+	public Namespace[]			namespaces;
+	transient Resource			resource;
+	public byte[]				sha;
+	public PersistentResource[]	supporting;
 
 	public static class Namespace extends DTO implements Comparable<Namespace> {
 		public String	name;
@@ -125,75 +125,97 @@ public class PersistentResource extends DTO implements Resource {
 		for (Requirement req : resource.getRequirements(null))
 			reqMap.add(req.getNamespace(), req);
 
-		Set<String> names = new HashSet<>(capMap.keySet());
-		names.addAll(reqMap.keySet());
-
-		namespaces = new Namespace[names.size()];
+		// The capabilities and the requirements are stored in separate
+		// namespace entries, in the order of the resource, so that the
+		// resource has the same order when it is rebuilt
+		namespaces = new Namespace[capMap.size() + reqMap.size()];
 		int i = 0;
 
-		for (String name : names) {
-
+		for (Map.Entry<String, List<Capability>> entry : capMap.entrySet()) {
 			Namespace ns = new Namespace();
-			ns.name = name;
-			List<Requirement> requirements = reqMap.get(name);
-			if (requirements != null && requirements.size() > 0) {
-
-				ns.requirements = new RCData[requirements.size()];
-				int rqi = 0;
-				for (Requirement r : requirements)
-					ns.requirements[rqi++] = getData(true, r.getAttributes(), r.getDirectives());
+			ns.name = entry.getKey();
+			List<Capability> capabilities = entry.getValue();
+			ns.capabilities = new RCData[capabilities.size()];
+			int rci = 0;
+			for (Capability c : capabilities)
+				ns.capabilities[rci++] = getData(false, c.getAttributes(), c.getDirectives());
+			namespaces[i++] = ns;
+		}
 
-			}
+		for (Map.Entry<String, List<Requirement>> entry : reqMap.entrySet()) {
+			Namespace ns = new Namespace();
+			ns.name = entry.getKey();
+			List<Requirement> requirements = entry.getValue();
+			ns.requirements = new RCData[requirements.size()];
+			int rqi = 0;
+			for (Requirement r : requirements)
+				ns.requirements[rqi++] = getData(true, r.getAttributes(), r.getDirectives());
+			namespaces[i++] = ns;
+		}
 
-			List<Capability> capabilities = capMap.get(name);
-			if (capabilities != null && capabilities.size() > 0) {
+		List<Capability> content = capMap.get(ContentNamespace.CONTENT_NAMESPACE);
+		if (content != null && content.size() > 0) {
+			Object value = content.get(0)
+				.getAttributes()
+				.get(ContentNamespace.CONTENT_NAMESPACE);
+			if (value != null && Hex.isHex(value.toString()))
+				sha = Hex.toByteArray(value.toString());
+		}
 
-				ns.capabilities = new RCData[capabilities.size()];
-				int rci = 0;
-				for (Capability c : capabilities)
-					ns.capabilities[rci++] = getData(false, c.getAttributes(), c.getDirectives());
-			}
-			namespaces[i++] = ns;
+		if (resource instanceof SupportingResource sr && !sr.getSupportingResources()
+			.isEmpty()) {
+			supporting = sr.getSupportingResources()
+				.stream()
+				.map(PersistentResource::new)
+				.toArray(PersistentResource[]::new);
 		}
-		Arrays.sort(namespaces);
 	}
 
 	public Resource getResource() throws Exception {
 		if (resource == null) {
 			ResourceBuilder rb = new ResourceBuilder();
+			addTo(rb);
+			if (supporting != null) {
+				for (PersistentResource pr : supporting) {
+					ResourceBuilder srb = new ResourceBuilder(rb.resource);
+					pr.addTo(srb);
+					rb.addSupportingResource(srb.build());
+				}
+			}
+			resource = rb.build();
+		}
+		return resource;
+	}
 
-			for (Namespace ns : namespaces) {
-				if (ns.capabilities != null)
-					for (RCData rcdata : ns.capabilities) {
+	private void addTo(ResourceBuilder rb) throws Exception {
+		for (Namespace ns : namespaces) {
+			if (ns.capabilities != null)
+				for (RCData rcdata : ns.capabilities) {
 
-						CapReqBuilder capb = new CapReqBuilder(ns.name);
+					CapReqBuilder capb = new CapReqBuilder(ns.name);
 
-						for (Attr attrs : rcdata.properties) {
-							if (attrs.directive)
-								capb.addDirective(attrs.key, (String) attrs.value);
-							else
-								capb.addAttribute(attrs.key, attrs.getValue());
-						}
-						rb.addCapability(capb);
+					for (Attr attrs : rcdata.properties) {
+						if (attrs.directive)
+							capb.addDirective(attrs.key, (String) attrs.value);
+						else
+							capb.addAttribute(attrs.key, attrs.getValue());
 					}
-				if (ns.requirements != null)
-					for (RCData rcdata : ns.requirements) {
-
-						CapReqBuilder reqb = new CapReqBuilder(ns.name);
-
-						for (Attr attrs : rcdata.properties) {
-							if (attrs.directive)
-								reqb.addDirective(attrs.key, (String) attrs.value);
-							else
-								reqb.addAttribute(attrs.key, attrs.getValue());
-						}
-						rb.addRequirement(reqb);
-					}
-			}
+					rb.addCapability(capb);
+				}
+			if (ns.requirements != null)
+				for (RCData rcdata : ns.requirements) {
 
-			resource = rb.build();
+					CapReqBuilder reqb = new CapReqBuilder(ns.name);
+
+					for (Attr attrs : rcdata.properties) {
+						if (attrs.directive)
+							reqb.addDirective(attrs.key, (String) attrs.value);
+						else
+							reqb.addAttribute(attrs.key, attrs.getValue());
+					}
+					rb.addRequirement(reqb);
+				}
 		}
-		return resource;
 	}
 
 	private static int getType(Object value) {
@@ -222,6 +244,9 @@ public class PersistentResource extends DTO implements Resource {
 	}
 
 	private static Attr getAttributeAttr(String key, Object value) {
+		if (value instanceof DeferredValue<?> deferred)
+			value = deferred.get();
+
 		Attr attr = new Attr();
 		attr.key = key;
 		attr.value = value;
@@ -247,6 +272,7 @@ public class PersistentResource extends DTO implements Resource {
 			} else {
 				attr.type = DataType.STRING.ordinal();
 			}
+			return attr;
 		}
 
 		attr.type = getType(value);
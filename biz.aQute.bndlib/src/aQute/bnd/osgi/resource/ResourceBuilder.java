@@ -20,6 +20,7 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.function.BiFunction;
 import java.util.function.Supplier;
 import java.util.jar.Manifest;
 import java.util.stream.Stream;
@@ -76,7 +77,7 @@ import aQute.service.reporter.Reporter;
 public class ResourceBuilder {
 	public static final String						SYNTHETIC			= "bnd.synthetic";
 	private static final FileResourceCache			cache				= FileResourceCache.getInstance();
-	private final ResourceImpl						resource;
+	final ResourceImpl								resource;
 	private final MultiMap<String, CapabilityImpl>	capabilities		= new MultiMap<>();
 	private final MultiMap<String, RequirementImpl>	requirements		= new MultiMap<>();
 	private final List<Resource>					supportingResources	= new ArrayList<>();
@@ -991,8 +992,23 @@ public class ResourceBuilder {
 	}
 
 	public boolean addFile(File file, URI uri) throws Exception {
+		return addFile(file, uri, ResourceBuilder::parse);
+	}
 
-		SupportingResource resource = cache.getResource(file, uri, () -> parse(file, uri));
+	/**
+	 * Add the resource of a file. When the resource of the file is not cached
+	 * in memory, it is obtained from the store, for example the persistent
+	 * resource cache of a workspace. The store must parse the file itself when
+	 * it does not have its resource.
+	 *
+	 * @param file the file
+	 * @param uri the URI of the content capability
+	 * @param store creates the resource of a file, like
+	 *            {@link #parse(File, URI)}
+	 * @return {@code true} if the resource has an identity
+	 */
+	public boolean addFile(File file, URI uri, BiFunction<File, URI, SupportingResource> store) throws Exception {
+		SupportingResource resource = cache.getResource(file, uri, () -> store.apply(file, uri));
 		addResource(resource);
 		return resource.hasIdentity();
 	}
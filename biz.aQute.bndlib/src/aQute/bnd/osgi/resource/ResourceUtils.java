@@ -431,6 +431,32 @@ public abstract class ResourceUtils {
 		}
 	}
 
+	/**
+	 * Returns the values one of which the specified attribute must be equal to
+	 * for a capability to match the specified filter. For example, the filter
+	 * {@code (&(osgi.wiring.package=com.example)(version>=1.0))} requires the
+	 * {@code osgi.wiring.package} attribute to be {@code com.example}.
+	 *
+	 * @param filterString The filter string. May be {@code null}.
+	 * @param attribute The attribute name.
+	 * @return The values or an empty set if the filter does not require the
+	 *         attribute to be equal to a fixed value.
+	 */
+	public static Set<String> filterEqualityValues(String filterString, String attribute) {
+		if (filterString != null) {
+			try {
+				Set<String> values = FilterImpl.createFilter(filterString)
+					.equalityValues(attribute);
+				if (values != null) {
+					return values;
+				}
+			} catch (InvalidSyntaxException e) {
+				// fall through
+			}
+		}
+		return Sets.of();
+	}
+
 	public static boolean matches(Requirement requirement, Resource resource) {
 		return capabilityStream(resource, requirement.getNamespace()).anyMatch(matcher(requirement));
 	}
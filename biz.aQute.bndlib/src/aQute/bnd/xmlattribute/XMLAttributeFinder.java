@@ -10,9 +10,12 @@ import aQute.bnd.osgi.Analyzer;
 import aQute.bnd.osgi.Annotation;
 import aQute.bnd.osgi.ClassDataCollector;
 import aQute.bnd.osgi.Clazz;
+import aQute.bnd.osgi.Clazz.QUERY;
 import aQute.bnd.osgi.Descriptors.TypeRef;
+import aQute.bnd.osgi.Instruction;
 
 public class XMLAttributeFinder extends ClassDataCollector {
+	private static final Instruction	XMLATTRIBUTE_INSTR	= new Instruction("aQute.bnd.annotation.xml.XMLAttribute");
 
 	private final Analyzer				analyzer;
 
@@ -30,7 +33,10 @@ public class XMLAttributeFinder extends ClassDataCollector {
 		Clazz clazz = analyzer.findClass(name);
 		if (clazz != null) {
 			xmlAttr = null;
-			clazz.parseClassFileWithCollector(this);
+			// only annotations annotated with @XMLAttribute must be visited
+			if (clazz.is(QUERY.ANNOTATED, XMLATTRIBUTE_INSTR, analyzer)) {
+				clazz.parseClassFileWithCollector(this);
+			}
 			annoCache.put(name, xmlAttr);
 			return xmlAttr;
 		}
@@ -21,6 +21,7 @@ import java.util.TreeSet;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import org.osgi.resource.Capability;
@@ -47,6 +48,7 @@ import aQute.bnd.service.RepositoryListenerPlugin;
 import aQute.bnd.service.RepositoryPlugin;
 import aQute.bnd.service.clipboard.Clipboard;
 import aQute.bnd.service.repository.Prepare;
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.bnd.util.repository.DownloadListenerPromise;
 import aQute.bnd.version.Version;
 import aQute.lib.converter.Converter;
@@ -189,16 +191,17 @@ public class BndPomRepository extends BaseRepository
 
 			boolean transitive = configuration.transitive(true);
 			boolean dependencyManagement = configuration.dependencyManagement(false);
+			BiFunction<File, URI, SupportingResource> store = workspace.getFileResourceStore();
 
 			if (pomFiles != null) {
-				repoImpl = new PomRepository(repository, client, location, transitive, dependencyManagement)
+				repoImpl = new PomRepository(repository, client, location, transitive, dependencyManagement, store)
 					.uris(pomFiles);
 			} else if (archives != null) {
-				repoImpl = new PomRepository(repository, client, location, transitive, dependencyManagement)
+				repoImpl = new PomRepository(repository, client, location, transitive, dependencyManagement, store)
 					.archives(archives);
 			} else if (query != null) {
 				repoImpl = new SearchRepository(repository, location, query, queryUrl, workspace, client, transitive,
-					dependencyManagement);
+					dependencyManagement, store);
 			} else {
 				repository.close();
 				return false;
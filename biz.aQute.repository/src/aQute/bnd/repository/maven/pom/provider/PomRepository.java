@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import org.osgi.resource.Resource;
@@ -20,6 +21,8 @@ import org.slf4j.LoggerFactory;
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.osgi.repository.XMLResourceGenerator;
 import aQute.bnd.osgi.repository.XMLResourceParser;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.bnd.service.url.TaggedData;
 import aQute.maven.api.Archive;
 import aQute.maven.api.Revision;
@@ -37,10 +40,12 @@ class PomRepository extends InnerRepository {
 	private final PromiseFactory	promiseFactory;
 	final boolean					transitive;
 	final boolean					dependencyManagement;
+	private final BiFunction<File, URI, SupportingResource>	store;
 
 	PomRepository(MavenRepository repo, HttpClient client, File location, boolean transitive,
-		boolean dependencyManagement) {
+		boolean dependencyManagement, BiFunction<File, URI, SupportingResource> store) {
 		super(repo, location);
+		this.store = store;
 		this.transitive = transitive;
 		this.dependencyManagement = dependencyManagement;
 		this.archives = new ArrayList<>();
@@ -50,7 +55,7 @@ class PomRepository extends InnerRepository {
 	}
 
 	public PomRepository(MavenRepository repo, HttpClient client, File location) {
-		this(repo, client, location, true, false);
+		this(repo, client, location, true, false, ResourceBuilder::parse);
 	}
 
 	PomRepository revisions(Collection<Revision> revisions) throws Exception {
@@ -81,11 +86,12 @@ class PomRepository extends InnerRepository {
 	}
 
 	void readUris() throws Exception {
-		save(new Traverser(getMavenRepository(), client, transitive, dependencyManagement).uris(uris));
+		save(new Traverser(getMavenRepository(), client, transitive, dependencyManagement, store).uris(uris));
 	}
 
 	void readArchives() throws Exception {
-		save(new Traverser(getMavenRepository(), client, transitive, dependencyManagement).archives(archives));
+		save(new Traverser(getMavenRepository(), client, transitive, dependencyManagement, store)
+			.archives(archives));
 	}
 
 	void save(Traverser traverser) throws Exception {
@@ -4,12 +4,14 @@ import static java.util.stream.Collectors.toList;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 import org.osgi.resource.Resource;
 import org.osgi.util.promise.Promise;
@@ -19,6 +21,7 @@ import org.slf4j.LoggerFactory;
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.osgi.repository.XMLResourceGenerator;
 import aQute.bnd.osgi.repository.XMLResourceParser;
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.maven.api.Archive;
 import aQute.maven.api.Program;
 import aQute.maven.api.Revision;
@@ -36,10 +39,13 @@ class SearchRepository extends InnerRepository {
 	final File					cacheFile;
 	final boolean				transitive;
 	final boolean				dependencyManagement;
+	final BiFunction<File, URI, SupportingResource>	store;
 
 	SearchRepository(MavenRepository repo, File location, String query, String queryUrl, Reporter reporter,
-		HttpClient client, boolean transitive, boolean dependencyManagement) throws Exception {
+		HttpClient client, boolean transitive, boolean dependencyManagement,
+		BiFunction<File, URI, SupportingResource> store) throws Exception {
 		super(repo, location);
+		this.store = store;
 		this.query = query;
 		this.queryUrl = queryUrl;
 		this.reporter = reporter;
@@ -53,7 +59,7 @@ class SearchRepository extends InnerRepository {
 	@Override
 	void refresh() throws Exception {
 		SearchResult result = query();
-		Traverser traverser = new Traverser(getMavenRepository(), client, transitive, dependencyManagement)
+		Traverser traverser = new Traverser(getMavenRepository(), client, transitive, dependencyManagement, store)
 			.revisions(result.response.docsToRevisions());
 		Promise<Map<Archive, Resource>> p = traverser.getResources();
 		Collection<Resource> resources = p.getValue()
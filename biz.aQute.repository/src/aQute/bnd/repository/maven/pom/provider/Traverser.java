@@ -14,6 +14,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import org.osgi.resource.Resource;
@@ -28,6 +29,7 @@ import aQute.bnd.http.HttpClient;
 import aQute.bnd.maven.MavenCapability;
 import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.bnd.version.MavenVersion;
 import aQute.maven.api.Archive;
 import aQute.maven.api.IPom.Dependency;
@@ -50,9 +52,16 @@ class Traverser {
 	final HttpClient						client;
 	final boolean							transitive;
 	final boolean							dependencyManagement;
+	final BiFunction<File, URI, SupportingResource>	store;
 
 	Traverser(MavenRepository repo, HttpClient client, boolean transitive, boolean dependencyManagement) {
+		this(repo, client, transitive, dependencyManagement, ResourceBuilder::parse);
+	}
+
+	Traverser(MavenRepository repo, HttpClient client, boolean transitive, boolean dependencyManagement,
+		BiFunction<File, URI, SupportingResource> store) {
 		this.repo = repo;
+		this.store = store;
 		this.client = client;
 		this.dependencyManagement = dependencyManagement;
 		this.promiseFactory = client.promiseFactory();
@@ -228,7 +237,7 @@ class Traverser {
 			File binary = repo.get(archive)
 				.getValue();
 
-			boolean hasIdentity = rb.addFile(binary, binary.toURI());
+			boolean hasIdentity = rb.addFile(binary, binary.toURI(), store);
 			addInformationCapability(rb, name, version.getOSGiVersion(), archive.toString(),
 				hasIdentity ? null : Constants.NOT_A_BUNDLE_S);
 		} catch (Exception e) {
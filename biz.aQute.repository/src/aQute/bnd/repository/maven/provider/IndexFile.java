@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Formatter;
@@ -23,6 +24,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 
 import org.osgi.resource.Resource;
@@ -46,6 +48,7 @@ import aQute.bnd.osgi.repository.ResourcesRepository;
 import aQute.bnd.osgi.resource.ResourceBuilder;
 import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.osgi.resource.ResourceUtils.BundleCap;
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.bnd.stream.MapStream;
 import aQute.bnd.version.MavenVersion;
 import aQute.bnd.version.Version;
@@ -80,6 +83,7 @@ class IndexFile {
 	final Map<Archive, Resource>				archives	= new ConcurrentHashMap<>();
 	final Set<String>							multi;
 	final String								source;
+	final BiFunction<File, URI, SupportingResource>	store;
 
 	private volatile long						lastModified;
 	private long								last		= 0L;
@@ -92,8 +96,9 @@ class IndexFile {
 	 * Constructor
 	 */
 	IndexFile(Processor domain, Reporter reporter, File file, String source, IMavenRepo repo,
-		PromiseFactory promiseFactory, Set<String> multi) throws Exception {
+		PromiseFactory promiseFactory, Set<String> multi, BiFunction<File, URI, SupportingResource> store) throws Exception {
 		this.source = source;
+		this.store = store;
 		this.domain = (domain != null) ? domain : new Processor();
 		this.replacer = this.domain.getReplacer();
 		this.reporter = reporter;
@@ -329,7 +334,7 @@ class IndexFile {
 	private Map<Archive, Resource> parseSingle(Archive archive, File single) throws Exception {
 		ResourceBuilder rb = new ResourceBuilder();
 		MavenVersion version = archive.revision.version;
-		boolean hasIdentity = rb.addFile(single, single.toURI());
+		boolean hasIdentity = rb.addFile(single, single.toURI(), store);
 		if (!hasIdentity) {
 			String name = archive.getWithoutVersion();
 			BridgeRepository.addInformationCapability(rb, name, version.getOSGiVersion(), archive.toString(),
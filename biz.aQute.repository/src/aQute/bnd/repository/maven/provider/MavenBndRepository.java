@@ -31,6 +31,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
@@ -59,6 +60,7 @@ import aQute.bnd.osgi.PreprocessResource;
 import aQute.bnd.osgi.Processor;
 import aQute.bnd.osgi.Resource;
 import aQute.bnd.osgi.repository.BaseRepository;
+import aQute.bnd.osgi.resource.ResourceBuilder;
 import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.repository.maven.provider.ReleaseDTO.ExtraDTO;
 import aQute.bnd.repository.maven.provider.ReleaseDTO.JavadocPackages;
@@ -73,6 +75,7 @@ import aQute.bnd.service.clipboard.Clipboard;
 import aQute.bnd.service.maven.PomOptions;
 import aQute.bnd.service.maven.ToDependencyPom;
 import aQute.bnd.service.release.ReleaseBracketingPlugin;
+import aQute.bnd.service.resource.SupportingResource;
 import aQute.bnd.unmodifiable.Sets;
 import aQute.bnd.util.repository.DownloadListenerPromise;
 import aQute.bnd.version.Version;
@@ -681,7 +684,10 @@ public class MavenBndRepository extends BaseRepository implements RepositoryPlug
 			}
 			Set<String> multi = Strings.splitAsStream(configuration.multi())
 				.collect(Sets.toSet());
-			this.index = new IndexFile(domain, reporter, indexFile, source, storage, client.promiseFactory(), multi);
+			BiFunction<File, URI, SupportingResource> store = workspace.isPresent() ? workspace.get()
+				.getFileResourceStore() : ResourceBuilder::parse;
+			this.index = new IndexFile(domain, reporter, indexFile, source, storage, client.promiseFactory(), multi,
+				store);
 			this.index.open();
 
 			try (Formatter f = new Formatter()) {
@@ -1,5 +1,6 @@
 package aQute.bnd.repository.osgi;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toList;
 
 import java.io.BufferedInputStream;
@@ -28,8 +29,10 @@ import org.slf4j.LoggerFactory;
 
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.http.HttpRequest;
+import aQute.bnd.http.HttpRequest.Priority;
 import aQute.bnd.osgi.repository.BridgeRepository;
 import aQute.bnd.osgi.repository.ResourcesRepository;
+import aQute.bnd.osgi.repository.ResourcesSnapshot;
 import aQute.bnd.osgi.repository.XMLResourceParser;
 import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.osgi.resource.ResourceUtils.ContentCapability;
@@ -37,10 +40,13 @@ import aQute.bnd.service.url.State;
 import aQute.bnd.service.url.TaggedData;
 import aQute.bnd.version.Version;
 import aQute.lib.io.IO;
+import aQute.libg.cryptography.SHA1;
 import aQute.libg.cryptography.SHA256;
 
 class OSGiIndex {
-	private final static Logger				logger	= LoggerFactory.getLogger(OSGiIndex.class);
+	private final static Logger				logger				= LoggerFactory.getLogger(OSGiIndex.class);
+	private final static long				SNAPSHOT_MAX_AGE	= TimeUnit.DAYS.toMillis(30);
+	private final static int				SNAPSHOT_MAX_COUNT	= 100;
 	private final Promise<BridgeRepository>	repository;
 	private final HttpClient				client;
 	private final PromiseFactory			promiseFactory;
@@ -100,6 +106,14 @@ class OSGiIndex {
 					this.status = "Not Found " + uri;
 					return Collections.emptyList();
 				}
+				File snapshot = getSnapshot(uri);
+				String key = uri + "#" + SHA256.digest(file)
+					.asHex();
+				List<Resource> resources = readSnapshot(snapshot, key);
+				if (resources != null) {
+					logger.debug("{}: Read {} resources of {} from snapshot {}", name, resources.size(), uri, snapshot);
+					return resources;
+				}
 				// file could be xml, gzipped xml, OR zip with index.xml or
 				// index.xml.gz entry
 				try (InputStream in = new BufferedInputStream(IO.stream(file))) {
@@ -113,7 +127,7 @@ class OSGiIndex {
 									case "index.xml" :
 									case "index.xml.gz" :
 										try (XMLResourceParser xrp = new XMLResourceParser(zin, name, uri)) {
-											return xrp.parse();
+											return parse(xrp, snapshot, key);
 										}
 									default :
 										break;
@@ -124,12 +138,48 @@ class OSGiIndex {
 						}
 					}
 					try (XMLResourceParser xrp = new XMLResourceParser(in, name, uri)) {
-						return xrp.parse();
+						return parse(xrp, snapshot, key);
 					}
 				}
 			});
 	}
 
+	/**
+	 * Parse an index and write a snapshot of the parsed resources so the next
+	 * read of the same index does not need to parse the XML. Indexes with
+	 * referrals are not snapshot since the referred indexes can change
+	 * independently. The snapshots of indexes that are no longer read, for
+	 * example because the index URL was changed, are removed.
+	 */
+	private List<Resource> parse(XMLResourceParser xrp, File snapshot, String key) throws Exception {
+		List<Resource> resources = xrp.parse();
+		if ((resources != null) && !xrp.hasReferrals()) {
+			try {
+				ResourcesSnapshot.write(snapshot, key, resources);
+			} catch (Exception e) {
+				logger.debug("{}: Could not write snapshot {}", name, snapshot, e);
+				IO.delete(snapshot);
+			}
+			ResourcesSnapshot.prune(snapshot.getParentFile(), SNAPSHOT_MAX_AGE, SNAPSHOT_MAX_COUNT);
+		}
+		return resources;
+	}
+
+	private List<Resource> readSnapshot(File snapshot, String key) {
+		try {
+			return ResourcesSnapshot.read(snapshot, key);
+		} catch (Exception e) {
+			logger.debug("{}: Could not read snapshot {}", name, snapshot, e);
+			return null;
+		}
+	}
+
+	private File getSnapshot(URI uri) throws Exception {
+		return IO.getFile(cache, ".snapshots/" + SHA1.digest(uri.toString()
+			.getBytes(UTF_8))
+			.asHex() + ".bin");
+	}
+
 	private static final int readUnsignedShort(InputStream in) throws IOException {
 		int b1 = in.read();
 		int b2 = in.read();
@@ -163,6 +213,7 @@ class OSGiIndex {
 		Promise<TaggedData> promise = client.build()
 			.useCache(file, staleTime)
 			.asTag()
+			.priority(Priority.HIGH)
 			.async(url);
 		if (remoteDigest == null) {
 			return promise;
@@ -229,6 +280,7 @@ class OSGiIndex {
 				Promise<TaggedData> async = client.build()
 					.useCache()
 					.asTag()
+					.priority(Priority.LOW)
 					.async(uri);
 				promises.add(async.then(resolved -> {
 					switch (resolved.getValue()
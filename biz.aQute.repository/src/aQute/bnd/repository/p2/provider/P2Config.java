@@ -37,6 +37,14 @@ public interface P2Config {
 	 */
 	String tags();
 
+	/**
+	 * If true, the index is built from the metadata of the P2 repository, the
+	 * {@code content.xml} files, and the bundles are only downloaded when
+	 * they are used. Bundles that the metadata does not describe well enough
+	 * are still downloaded to index them.
+	 */
+	boolean metadata();
+
 	/**
 	 * If not set or false, this assumes a P2 repository, i.e. the url points to
 	 * a P2 repository directory. If set to true, the url is assumed to point to
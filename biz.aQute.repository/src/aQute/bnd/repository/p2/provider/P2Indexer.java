@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import aQute.bnd.http.HttpClient;
+import aQute.bnd.http.HttpRequest.Priority;
 import aQute.bnd.osgi.repository.BridgeRepository;
 import aQute.bnd.osgi.repository.ResourcesRepository;
 import aQute.bnd.osgi.repository.XMLResourceGenerator;
@@ -42,6 +44,7 @@ import aQute.lib.io.IO;
 import aQute.libg.cryptography.MD5;
 import aQute.p2.api.Artifact;
 import aQute.p2.api.ArtifactProvider;
+import aQute.p2.api.Unit;
 import aQute.p2.packed.Unpack200;
 import aQute.p2.provider.P2Impl;
 import aQute.p2.provider.TargetImpl;
@@ -63,11 +66,21 @@ class P2Indexer implements Closeable {
 	final File								indexFile;
 	private final HttpClient				client;
 	private final PromiseFactory			promiseFactory;
+	private final boolean					metadata;
 	private volatile BridgeRepository		bridge;
 	private static final SupportingResource	RECOVERY	= new ResourceBuilder().build();
 
 	P2Indexer(Unpack200 processor, Reporter reporter, File location, HttpClient client, URI url, String name)
 		throws Exception {
+		this(processor, reporter, location, client, url, name, false);
+	}
+
+	/**
+	 * @param metadata build the resources from the p2 metadata when it
+	 *            describes the bundles, and only download the other bundles
+	 */
+	P2Indexer(Unpack200 processor, Reporter reporter, File location, HttpClient client, URI url, String name,
+		boolean metadata) throws Exception {
 		this.processor = processor;
 		this.reporter = reporter;
 		this.location = location;
@@ -76,6 +89,7 @@ class P2Indexer implements Closeable {
 		this.promiseFactory = client.promiseFactory();
 		this.url = url;
 		this.name = name;
+		this.metadata = metadata;
 		this.urlHash = client.toName(url);
 		IO.mkdirs(this.location);
 
@@ -113,6 +127,7 @@ class P2Indexer implements Closeable {
 		Promise<File> go = client.build()
 			.useCache(MAX_STALE)
 			.asTag()
+			.priority(Priority.HIGH)
 			.async(url.toURL())
 			.map(tag -> processor.unpackAndLinkIfNeeded(tag, link));
 
@@ -135,7 +150,7 @@ class P2Indexer implements Closeable {
 		if (index.isFile()) {
 			try (XMLResourceParser xp = new XMLResourceParser(index.toURI())) {
 				List<Resource> resources = xp.parse();
-				if (urlHash.equals(xp.name())) {
+				if (indexName().equals(xp.name())) {
 					return new ResourcesRepository(resources);
 				}
 			}
@@ -152,6 +167,7 @@ class P2Indexer implements Closeable {
 			p2 = new P2Impl(processor, client, this.url, promiseFactory);
 
 		List<Artifact> artifacts = p2.getBundles();
+		UnitResources units = metadata ? new UnitResources(getUnits(p2)) : null;
 		Set<ArtifactID> visitedArtifacts = new HashSet<>(artifacts.size());
 		Set<URI> visitedURIs = new HashSet<>(artifacts.size());
 
@@ -164,6 +180,10 @@ class P2Indexer implements Closeable {
 					if (!visitedArtifacts.add(id))
 						return null;
 				}
+				SupportingResource resource = (units != null) ? units.getResource(a) : null;
+				if (resource != null) {
+					return promiseFactory.resolved(resource);
+				}
 				Promise<SupportingResource> fetched = fetch(a, 2, 1000L)
 					.map(tag -> processor.unpackAndLinkIfNeeded(tag, null))
 					.map(file -> {
@@ -187,10 +207,28 @@ class P2Indexer implements Closeable {
 			.getValue();
 	}
 
+	private List<Unit> getUnits(ArtifactProvider p2) {
+		try {
+			return p2.getUnits();
+		} catch (Exception e) {
+			logger.info("{}: Failed to read the metadata, all bundles are downloaded", name, e);
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * The name of the saved index, so an index is not reused when the way it
+	 * is made changes.
+	 */
+	private String indexName() {
+		return metadata ? urlHash + "-metadata" : urlHash;
+	}
+
 	private Promise<TaggedData> fetch(Artifact a, int retries, long delay) {
 		return client.build()
 			.useCache(MAX_STALE)
 			.asTag()
+			.priority(Priority.LOW)
 			.async(a.uri)
 			.then(success -> success.thenAccept(tag -> checkDownload(a, tag))
 				.recoverWith(failed -> {
@@ -244,7 +282,7 @@ class P2Indexer implements Closeable {
 	private ResourcesRepository save(ResourcesRepository repository) throws IOException, Exception {
 		XMLResourceGenerator xrg = new XMLResourceGenerator();
 		xrg.repository(repository)
-			.name(urlHash)
+			.name(indexName())
 			.save(indexFile);
 		return repository;
 	}
@@ -0,0 +1,263 @@
+package aQute.bnd.repository.p2.provider;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.jar.Manifest;
+
+import org.osgi.framework.Version;
+import org.osgi.framework.namespace.BundleNamespace;
+import org.osgi.framework.namespace.HostNamespace;
+import org.osgi.framework.namespace.IdentityNamespace;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.resource.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.header.Attrs;
+import aQute.bnd.header.Parameters;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Domain;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.service.resource.SupportingResource;
+import aQute.p2.api.Artifact;
+import aQute.p2.api.Classifier;
+import aQute.p2.api.Unit;
+import aQute.p2.api.Unit.ArtifactKey;
+import aQute.p2.api.Unit.Provided;
+import aQute.p2.api.Unit.Required;
+
+/**
+ * Build the resources of bundles from the installable units of a p2 metadata
+ * repository instead of from the downloaded bundles.
+ * <p>
+ * The manifest headers that the publisher copied into the {@code manifest}
+ * touchpoint instruction are used as is. The other headers are made from the
+ * provided and required capabilities of the unit. The p2 metadata of a package
+ * only has its name and version, so an {@code Export-Package} header made from
+ * the unit has no {@code uses} directives and no other attributes, unlike the
+ * header of the bundle.
+ * <p>
+ * A unit that cannot describe its bundle, for example because it does not
+ * provide an {@code osgi.bundle} capability or its artifact has no SHA-256
+ * checksum for the content capability, gives no resource so the bundle is
+ * downloaded instead.
+ */
+final class UnitResources {
+	private final static Logger	logger		= LoggerFactory.getLogger(UnitResources.class);
+	/**
+	 * The property p2 uses for the SHA-256 checksum of a download.
+	 */
+	final static String			SHA_256		= "download.checksum.sha-256";
+	// the p2 namespaces of bundles, fragment hosts and packages
+	private final static String	BUNDLE		= "osgi.bundle";
+	private final static String	FRAGMENT	= "osgi.fragment";
+	private final static String	PACKAGE		= "java.package";
+	private final static String	P2_PREFIX	= "org.eclipse.";
+
+	private final Map<String, Unit> units = new HashMap<>();
+
+	UnitResources(List<Unit> units) {
+		for (Unit unit : units) {
+			for (ArtifactKey key : unit.artifacts) {
+				if (Classifier.BUNDLE.name.equals(key.classifier)) {
+					try {
+						this.units.putIfAbsent(key(key.id, Version.parseVersion(key.version)), unit);
+					} catch (IllegalArgumentException e) {
+						logger.debug("Ignoring unit {} with an invalid artifact version {}", unit.id, key.version);
+					}
+				}
+			}
+		}
+	}
+
+	private static String key(String id, Version version) {
+		return id + ":" + version;
+	}
+
+	/**
+	 * Answer the resource for an artifact from the unit of the artifact.
+	 *
+	 * @param artifact the bundle artifact
+	 * @return the resource, or {@code null} if the metadata does not describe
+	 *         the bundle well enough and the bundle must be downloaded
+	 */
+	SupportingResource getResource(Artifact artifact) {
+		Unit unit = units.get(key(artifact.id, artifact.version));
+		if (unit == null) {
+			return null;
+		}
+
+		String sha256 = artifact.getProperty(SHA_256);
+		if ((sha256 == null) || (sha256.length() != 64) || Artifact.FORMAT_PACKED.equals(artifact.format)) {
+			return null;
+		}
+		long size = artifact.download_size;
+		if (size < 0L) {
+			return null;
+		}
+
+		try {
+			Map<String, String> headers = getHeaders(unit);
+			if (headers == null) {
+				return null;
+			}
+			Domain manifest = Domain.domain(headers);
+			// the supporting resources of a multi release jar need the jar
+			if (manifest.getMultiRelease()) {
+				return null;
+			}
+			ResourceBuilder rb = new ResourceBuilder();
+			if (!rb.addManifest(manifest)) {
+				return null;
+			}
+			rb.addContentCapability(artifact.uri, sha256.toUpperCase(Locale.ROOT), size, null);
+			return rb.build();
+		} catch (Exception e) {
+			logger.debug("Cannot build the resource of {} from its metadata", artifact.uri, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Answer the manifest headers of the bundle of a unit.
+	 */
+	static Map<String, String> getHeaders(Unit unit) throws IOException {
+		Map<String, String> headers = new LinkedHashMap<>();
+		if (unit.manifest != null) {
+			Manifest manifest = new Manifest(new ByteArrayInputStream((unit.manifest + "\n").getBytes(UTF_8)));
+			for (Map.Entry<Object, Object> entry : manifest.getMainAttributes()
+				.entrySet()) {
+				headers.put(entry.getKey()
+					.toString(), (String) entry.getValue());
+			}
+		}
+
+		Provided bundle = provided(unit, BUNDLE);
+		if (bundle == null) {
+			return null;
+		}
+		headers.putIfAbsent(Constants.BUNDLE_MANIFESTVERSION, "2");
+		headers.computeIfAbsent(Constants.BUNDLE_SYMBOLICNAME,
+			k -> unit.singleton ? bundle.name + ";singleton:=true" : bundle.name);
+		headers.putIfAbsent(Constants.BUNDLE_VERSION, bundle.version);
+
+		String host = null;
+		if (headers.containsKey(Constants.FRAGMENT_HOST)) {
+			host = new Parameters(headers.get(Constants.FRAGMENT_HOST)).keySet()
+				.stream()
+				.findFirst()
+				.orElse(null);
+		} else {
+			Provided fragment = provided(unit, FRAGMENT);
+			if (fragment != null) {
+				host = fragment.name;
+				Parameters fragmentHost = new Parameters();
+				Attrs attrs = new Attrs();
+				for (Required required : unit.requires) {
+					if (BUNDLE.equals(required.namespace) && host.equals(required.name)) {
+						putRange(attrs, HostNamespace.CAPABILITY_BUNDLE_VERSION_ATTRIBUTE, required.range);
+					}
+				}
+				fragmentHost.add(host, attrs);
+				headers.put(Constants.FRAGMENT_HOST, fragmentHost.toString());
+			}
+		}
+
+		Parameters exports = new Parameters();
+		Parameters capabilities = new Parameters();
+		for (Provided provided : unit.provides) {
+			if (PACKAGE.equals(provided.namespace)) {
+				Attrs attrs = new Attrs();
+				if (provided.version != null) {
+					attrs.put(PackageNamespace.CAPABILITY_VERSION_ATTRIBUTE, provided.version);
+				}
+				exports.add(provided.name, attrs);
+			} else if (isGeneric(provided.namespace) && !provided.properties.isEmpty()) {
+				Attrs attrs = new Attrs();
+				provided.properties.forEach(attrs::put);
+				capabilities.add(provided.namespace, attrs);
+			}
+		}
+
+		Parameters imports = new Parameters();
+		Parameters bundles = new Parameters();
+		Parameters requirements = new Parameters();
+		for (Required required : unit.requires) {
+			Attrs attrs = new Attrs();
+			if (required.optional || (required.filter != null)) {
+				attrs.put(Namespace.REQUIREMENT_RESOLUTION_DIRECTIVE + ":", Namespace.RESOLUTION_OPTIONAL);
+			}
+			if (required.match != null) {
+				if (isGeneric(required.namespace)) {
+					attrs.put(Namespace.REQUIREMENT_FILTER_DIRECTIVE + ":", required.match);
+					requirements.add(required.namespace, attrs);
+				}
+			} else if (required.name == null) {
+				continue;
+			} else if (PACKAGE.equals(required.namespace)) {
+				putRange(attrs, PackageNamespace.CAPABILITY_VERSION_ATTRIBUTE, required.range);
+				imports.add(required.name, attrs);
+			} else if (BUNDLE.equals(required.namespace)
+				&& !Objects.equals(host, required.name)) {
+				putRange(attrs, BundleNamespace.CAPABILITY_BUNDLE_VERSION_ATTRIBUTE, required.range);
+				bundles.add(required.name, attrs);
+			}
+		}
+
+		putIfAbsent(headers, Constants.EXPORT_PACKAGE, exports);
+		putIfAbsent(headers, Constants.IMPORT_PACKAGE, imports);
+		putIfAbsent(headers, Constants.REQUIRE_BUNDLE, bundles);
+		putIfAbsent(headers, Constants.PROVIDE_CAPABILITY, capabilities);
+		putIfAbsent(headers, Constants.REQUIRE_CAPABILITY, requirements);
+		return headers;
+	}
+
+	private static Provided provided(Unit unit, String namespace) {
+		return unit.provides.stream()
+			.filter(provided -> namespace.equals(provided.namespace) && (provided.name != null))
+			.findFirst()
+			.orElse(null);
+	}
+
+	/**
+	 * The p2 namespaces and the namespaces made from the manifest headers are
+	 * not generic capabilities.
+	 */
+	private static boolean isGeneric(String namespace) {
+		if (namespace == null) {
+			return false;
+		}
+		switch (namespace) {
+			case IdentityNamespace.IDENTITY_NAMESPACE :
+			case BundleNamespace.BUNDLE_NAMESPACE :
+			case HostNamespace.HOST_NAMESPACE :
+			case PackageNamespace.PACKAGE_NAMESPACE :
+			case BUNDLE :
+			case FRAGMENT :
+			case PACKAGE :
+				return false;
+			default :
+				return !namespace.startsWith(P2_PREFIX);
+		}
+	}
+
+	private static void putRange(Attrs attrs, String key, String range) {
+		if ((range != null) && !range.equals("0.0.0")) {
+			attrs.put(key, range);
+		}
+	}
+
+	private static void putIfAbsent(Map<String, String> headers, String name, Parameters parameters) {
+		if (!parameters.isEmpty() && !headers.containsKey(name)) {
+			headers.put(name, parameters.toString());
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package aQute.p2.api;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,4 +25,12 @@ public interface ArtifactProvider {
 			.collect(Collectors.toList());
 	}
 
+	/**
+	 * Answer the installable units of the metadata repositories that describe
+	 * bundles. A provider without metadata answers an empty list.
+	 */
+	default List<Unit> getUnits() throws Exception {
+		return Collections.emptyList();
+	}
+
 }
@@ -0,0 +1,93 @@
+package aQute.p2.api;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import aQute.bnd.util.dto.DTO;
+
+/**
+ * An installable unit of a p2 metadata repository, a {@code unit} element of
+ * a {@code content.xml} file. Only the parts needed to describe a bundle
+ * without downloading it are kept. The versions and ranges are the strings as
+ * written in the metadata.
+ *
+ * @formatter:off
+ * <pre>
+ * <unit id='org.example' version='1.0.0.v20240101'>
+ *   <provides size='3'>
+ *     <provided namespace='org.eclipse.equinox.p2.iu' name='org.example' version='1.0.0.v20240101'/>
+ *     <provided namespace='osgi.bundle' name='org.example' version='1.0.0.v20240101'/>
+ *     <provided namespace='java.package' name='org.example.api' version='1.0.0'/>
+ *   </provides>
+ *   <requires size='2'>
+ *     <required namespace='java.package' name='org.slf4j' range='[1.7.0,2.0.0)' optional='true'/>
+ *     <requiredProperties namespace='osgi.ee' match='(&amp;(osgi.ee=JavaSE)(version=11))'/>
+ *   </requires>
+ *   <artifacts size='1'>
+ *     <artifact classifier='osgi.bundle' id='org.example' version='1.0.0.v20240101'/>
+ *   </artifacts>
+ *   <touchpointData size='1'>
+ *     <instructions size='1'>
+ *       <instruction key='manifest'>Bundle-SymbolicName: org.example;singleton:=true&#xA;Bundle-Version: 1.0.0.v20240101</instruction>
+ *     </instructions>
+ *   </touchpointData>
+ * </unit>
+ * </pre>
+ * @formatter:on
+ */
+public class Unit extends DTO {
+
+	/**
+	 * A {@code provided} capability.
+	 */
+	public static class Provided extends DTO {
+		public String				namespace;
+		public String				name;
+		public String				version;
+		/**
+		 * The properties of a generic capability. A typed property is keyed
+		 * by its name and type, for example {@code version:Version}.
+		 */
+		public Map<String, String>	properties	= new LinkedHashMap<>();
+	}
+
+	/**
+	 * A {@code required} capability, or a {@code requiredProperties}
+	 * requirement with a {@link #match} filter.
+	 */
+	public static class Required extends DTO {
+		public String	namespace;
+		public String	name;
+		public String	range;
+		public String	match;
+		/**
+		 * The filter that tells when the requirement applies, for example
+		 * only on a particular platform.
+		 */
+		public String	filter;
+		public boolean	optional;
+	}
+
+	/**
+	 * The key of an artifact of the unit in the artifact repository.
+	 */
+	public static class ArtifactKey extends DTO {
+		public String	classifier;
+		public String	id;
+		public String	version;
+	}
+
+	public String				id;
+	public String				version;
+	public boolean				singleton	= true;
+	/**
+	 * The {@code manifest} touchpoint instruction, the manifest headers the
+	 * publisher copied from the bundle, or {@code null}.
+	 */
+	public String				manifest;
+	public List<Provided>		provides	= new ArrayList<>();
+	public List<Required>		requires	= new ArrayList<>();
+	public List<ArtifactKey>	artifacts	= new ArrayList<>();
+}
@@ -3,12 +3,14 @@ package aQute.p2.provider;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
 import org.osgi.framework.Version;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import aQute.bnd.osgi.Processor;
 import aQute.lib.converter.Converter;
@@ -43,9 +45,14 @@ import aQute.p2.api.Classifier;
  *   </artifacts>
  * </pre>
  * @formatter:on
+ * <p>
+ * The document is read in a single pass with a streaming reader and is never
+ * held in memory. Artifacts are mapped as soon as they are read when the
+ * mappings precede them, which is the order in which p2 writes the document.
+ * Otherwise they are kept until the end of the document.
  */
 
-class ArtifactRepository extends XMLBase {
+class ArtifactRepository {
 
 	static class Rule {
 		final Filter	filter;
@@ -75,89 +82,155 @@ class ArtifactRepository extends XMLBase {
 	private boolean	unpack;
 
 	ArtifactRepository(InputStream in, URI base, boolean unpack) throws Exception {
-		super(getDocument(in));
 		this.base = base;
 		this.unpack = unpack;
-		parse();
+		parse(in);
 	}
 
-	private Rule createRule(Node ruleNode) {
-		String filter = getAttribute(ruleNode, "filter");
-		String output = getAttribute(ruleNode, "output");
+	private Rule createRule(XMLStreamReader reader) {
+		String filter = reader.getAttributeValue(null, "filter");
+		String output = reader.getAttributeValue(null, "output");
 		return new Rule(filter, output);
 	}
 
-	void parse() throws Exception {
+	/**
+	 * An artifact read before the mappings.
+	 */
+	private record Pending(XMLArtifact xmlArtifact, Map<String, String> properties) {}
 
-		final Map<String, String> properties = getProperties("repository/properties/property");
-		properties.put("repoUrl", base.resolve("")
-			.toString());
+	void parse(InputStream in) throws Exception {
+		XMLStreamReader reader = XMLBase.getReader(in);
 		try (Processor parent = new Processor()) {
-			parent.addProperties(properties);
-
-			rules = getRules();
-
-			NodeList artifactNodes = getNodes("repository/artifacts/artifact");
-			for (int i = 0; i < artifactNodes.getLength(); i++) {
-				final Node artifactNode = artifactNodes.item(i)
-					.cloneNode(true);
-				final XMLArtifact xmlArtifact = getFromType(artifactNode, XMLArtifact.class);
-
-				Classifier classifier;
-				if (Classifier.BUNDLE.name.equals(xmlArtifact.classifier)) {
-					classifier = Classifier.BUNDLE;
-				} else if (Classifier.FEATURE.name.equals(xmlArtifact.classifier)) {
-					classifier = Classifier.FEATURE;
-				} else {
-					continue;
-				}
-
-				Map<String, String> artifactProperties = getProperties(artifactNode, "properties/property");
-				xmlArtifact.format = artifactProperties.get("format");
-				if (Artifact.FORMAT_PACKED.equals(xmlArtifact.format) && !unpack) {
-					continue;
-				}
+			if ((XMLBase.nextElement(reader) != XMLStreamConstants.START_ELEMENT)
+				|| !"repository".equals(reader.getLocalName())) {
+				return;
+			}
 
-				Map<String, String> map = Converter.cnv(new TypeReference<Map<String, String>>() {}, xmlArtifact);
-				try (Processor domain = new Processor(parent)) {
-					domain.addProperties(map);
-
-					for (Rule r : rules) {
-						if (r.matches(map)) {
-							String s = domain.getReplacer()
-								.process(r.output);
-							URI uri = new URI(s).normalize();
-
-							Artifact artifact = new Artifact();
-							artifact.classifier = classifier;
-							artifact.uri = uri;
-							artifact.id = xmlArtifact.id;
-							artifact.version = new Version(xmlArtifact.version);
-							artifact.md5 = artifactProperties.get("download.md5");
-							artifact.format = xmlArtifact.format;
-							String download_size = artifactProperties.getOrDefault("download.size", "-1L");
-							try {
-								artifact.download_size = Long.parseLong(download_size);
-							} catch (NumberFormatException e) {
-								artifact.download_size = -1L;
+			Map<String, String> properties = new HashMap<>();
+			List<Pending> pending = new ArrayList<>();
+			boolean ready = false;
+			while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+				switch (reader.getLocalName()) {
+					case "properties" :
+						properties.putAll(XMLBase.getProperties(reader));
+						break;
+					case "mappings" :
+						if (rules == null) {
+							rules = new ArrayList<>();
+						}
+						rules.addAll(getRules(reader));
+						break;
+					case "artifacts" :
+						while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+							if (!"artifact".equals(reader.getLocalName())) {
+								XMLBase.skip(reader);
+								continue;
 							}
-							artifact.setProperties(artifactProperties);
-							artifacts.add(artifact);
-							break;
+							XMLArtifact xmlArtifact = XMLBase.getFromType(reader, XMLArtifact.class);
+							Map<String, String> artifactProperties = getArtifactProperties(reader);
+							if (rules == null) {
+								pending.add(new Pending(xmlArtifact, artifactProperties));
+								continue;
+							}
+							if (!ready) {
+								setup(parent, properties);
+								ready = true;
+							}
+							addArtifact(parent, xmlArtifact, artifactProperties);
 						}
+						break;
+					default :
+						XMLBase.skip(reader);
+						break;
+				}
+			}
+
+			if (rules == null) {
+				rules = new ArrayList<>();
+			}
+			if (!ready) {
+				setup(parent, properties);
+			}
+			for (Pending p : pending) {
+				addArtifact(parent, p.xmlArtifact(), p.properties());
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void setup(Processor parent, Map<String, String> properties) {
+		properties.put("repoUrl", base.resolve("")
+			.toString());
+		parent.addProperties(properties);
+	}
+
+	private Map<String, String> getArtifactProperties(XMLStreamReader reader) throws Exception {
+		Map<String, String> artifactProperties = new HashMap<>();
+		while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+			if ("properties".equals(reader.getLocalName())) {
+				artifactProperties.putAll(XMLBase.getProperties(reader));
+			} else {
+				XMLBase.skip(reader);
+			}
+		}
+		return artifactProperties;
+	}
+
+	private void addArtifact(Processor parent, XMLArtifact xmlArtifact, Map<String, String> artifactProperties)
+		throws Exception {
+		Classifier classifier;
+		if (Classifier.BUNDLE.name.equals(xmlArtifact.classifier)) {
+			classifier = Classifier.BUNDLE;
+		} else if (Classifier.FEATURE.name.equals(xmlArtifact.classifier)) {
+			classifier = Classifier.FEATURE;
+		} else {
+			return;
+		}
+
+		xmlArtifact.format = artifactProperties.get("format");
+		if (Artifact.FORMAT_PACKED.equals(xmlArtifact.format) && !unpack) {
+			return;
+		}
+
+		Map<String, String> map = Converter.cnv(new TypeReference<Map<String, String>>() {}, xmlArtifact);
+		try (Processor domain = new Processor(parent)) {
+			domain.addProperties(map);
+
+			for (Rule r : rules) {
+				if (r.matches(map)) {
+					String s = domain.getReplacer()
+						.process(r.output);
+					URI uri = new URI(s).normalize();
+
+					Artifact artifact = new Artifact();
+					artifact.classifier = classifier;
+					artifact.uri = uri;
+					artifact.id = xmlArtifact.id;
+					artifact.version = new Version(xmlArtifact.version);
+					artifact.md5 = artifactProperties.get("download.md5");
+					artifact.format = xmlArtifact.format;
+					String download_size = artifactProperties.getOrDefault("download.size", "-1L");
+					try {
+						artifact.download_size = Long.parseLong(download_size);
+					} catch (NumberFormatException e) {
+						artifact.download_size = -1L;
 					}
+					artifact.setProperties(artifactProperties);
+					artifacts.add(artifact);
+					break;
 				}
 			}
 		}
 	}
 
-	List<Rule> getRules() throws Exception {
+	List<Rule> getRules(XMLStreamReader reader) throws Exception {
 		List<Rule> rules = new ArrayList<>();
-		NodeList ruleNodes = getNodes("repository/mappings/rule");
-		for (int i = 0; i < ruleNodes.getLength(); i++) {
-			Node ruleNode = ruleNodes.item(i);
-			Rule rule = createRule(ruleNode);
-			rules.add(rule);
+		while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+			if ("rule".equals(reader.getLocalName())) {
+				rules.add(createRule(reader));
+			}
+			XMLBase.skip(reader);
 		}
 		return rules;
 	}
@@ -5,8 +5,8 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 
 import aQute.lib.strings.Strings;
 
@@ -30,22 +30,39 @@ import aQute.lib.strings.Strings;
  * </pre>
  */
 
-class CompositeArtifacts extends XMLBase {
-	final List<URI>	uris	= new ArrayList<>();
-	final URI		base;
+class CompositeArtifacts {
+	final List<URI>		uris	= new ArrayList<>();
+	final URI			base;
+	final InputStream	in;
 
 	CompositeArtifacts(InputStream in, URI base) throws Exception {
-		super(getDocument(in));
+		this.in = in;
 		this.base = base;
 	}
 
 	void parse() throws Exception {
-		NodeList nodes = getNodes("repository/children/child");
-		for (int i = 0; i < nodes.getLength(); i++) {
-			Node child = nodes.item(i);
-			String textContent = Strings.trim(getAttribute(child, "location"));
-			URI uri = base.resolve(textContent);
-			uris.add(uri);
+		XMLStreamReader reader = XMLBase.getReader(in);
+		try {
+			if ((XMLBase.nextElement(reader) != XMLStreamConstants.START_ELEMENT)
+				|| !"repository".equals(reader.getLocalName())) {
+				return;
+			}
+			while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+				if (!"children".equals(reader.getLocalName())) {
+					XMLBase.skip(reader);
+					continue;
+				}
+				while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+					if ("child".equals(reader.getLocalName())) {
+						String textContent = Strings.trim(reader.getAttributeValue(null, "location"));
+						URI uri = base.resolve(textContent);
+						uris.add(uri);
+					}
+					XMLBase.skip(reader);
+				}
+			}
+		} finally {
+			reader.close();
 		}
 	}
 
@@ -0,0 +1,192 @@
+package aQute.p2.provider;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import aQute.lib.strings.Strings;
+import aQute.p2.api.Classifier;
+import aQute.p2.api.Unit;
+import aQute.p2.api.Unit.ArtifactKey;
+import aQute.p2.api.Unit.Provided;
+import aQute.p2.api.Unit.Required;
+
+/**
+ * @formatter:off
+ * <pre>
+ * <?xml version='1.0' encoding='UTF-8'?>
+ * <?metadataRepository version='1.1.0'?>
+ * <repository name='Exported Repository' type='org.eclipse.equinox.internal.p2.metadata.repository.LocalMetadataRepository' version='1'>
+ *   <properties size='2'>
+ *     <property name='p2.timestamp' value='1318203752195'/>
+ *     <property name='p2.compressed' value='true'/>
+ *   </properties>
+ *   <units size='4'>
+ *     <unit id='name.njbartlett.eclipse.macbadge' version='1.0.0.201110100042'>
+ *       ...
+ *     </unit>
+ *   </units>
+ * </repository>
+ * </pre>
+ * @formatter:on
+ * <p>
+ * The document is read in a single pass with a streaming reader. Only the
+ * units with a bundle artifact are kept, so features, groups and categories
+ * do not take memory.
+ */
+class MetadataRepository {
+	final List<Unit> units = new ArrayList<>();
+
+	MetadataRepository(InputStream in) throws Exception {
+		parse(in);
+	}
+
+	void parse(InputStream in) throws Exception {
+		XMLStreamReader reader = XMLBase.getReader(in);
+		try {
+			if ((XMLBase.nextElement(reader) != XMLStreamConstants.START_ELEMENT)
+				|| !"repository".equals(reader.getLocalName())) {
+				return;
+			}
+			while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+				if (!"units".equals(reader.getLocalName())) {
+					XMLBase.skip(reader);
+					continue;
+				}
+				while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+					if (!"unit".equals(reader.getLocalName())) {
+						XMLBase.skip(reader);
+						continue;
+					}
+					Unit unit = parseUnit(reader);
+					if (unit.artifacts.stream()
+						.anyMatch(key -> Classifier.BUNDLE.name.equals(key.classifier))) {
+						units.add(unit);
+					}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private Unit parseUnit(XMLStreamReader reader) throws Exception {
+		Unit unit = new Unit();
+		unit.id = reader.getAttributeValue(null, "id");
+		unit.version = reader.getAttributeValue(null, "version");
+		unit.singleton = !"false".equals(reader.getAttributeValue(null, "singleton"));
+		while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+			switch (reader.getLocalName()) {
+				case "provides" :
+					parseProvides(reader, unit.provides);
+					break;
+				case "requires" :
+					parseRequires(reader, unit.requires);
+					break;
+				case "artifacts" :
+					while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+						if ("artifact".equals(reader.getLocalName())) {
+							ArtifactKey key = new ArtifactKey();
+							key.classifier = reader.getAttributeValue(null, "classifier");
+							key.id = reader.getAttributeValue(null, "id");
+							key.version = reader.getAttributeValue(null, "version");
+							unit.artifacts.add(key);
+						}
+						XMLBase.skip(reader);
+					}
+					break;
+				case "touchpointData" :
+					unit.manifest = parseManifest(reader);
+					break;
+				default :
+					XMLBase.skip(reader);
+					break;
+			}
+		}
+		return unit;
+	}
+
+	private void parseProvides(XMLStreamReader reader, List<Provided> provides) throws Exception {
+		while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+			if (!"provided".equals(reader.getLocalName())) {
+				XMLBase.skip(reader);
+				continue;
+			}
+			Provided provided = new Provided();
+			provided.namespace = reader.getAttributeValue(null, "namespace");
+			provided.name = reader.getAttributeValue(null, "name");
+			provided.version = reader.getAttributeValue(null, "version");
+			while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+				if (!"properties".equals(reader.getLocalName())) {
+					XMLBase.skip(reader);
+					continue;
+				}
+				while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+					if ("property".equals(reader.getLocalName())) {
+						String name = reader.getAttributeValue(null, "name");
+						String type = reader.getAttributeValue(null, "type");
+						if ((type != null) && !type.equals("String")) {
+							name = name + ":" + type;
+						}
+						provided.properties.put(name, reader.getAttributeValue(null, "value"));
+					}
+					XMLBase.skip(reader);
+				}
+			}
+			provides.add(provided);
+		}
+	}
+
+	private void parseRequires(XMLStreamReader reader, List<Required> requires) throws Exception {
+		while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+			String element = reader.getLocalName();
+			if (!"required".equals(element) && !"requiredProperties".equals(element)) {
+				XMLBase.skip(reader);
+				continue;
+			}
+			Required required = new Required();
+			required.namespace = reader.getAttributeValue(null, "namespace");
+			required.name = reader.getAttributeValue(null, "name");
+			required.range = reader.getAttributeValue(null, "range");
+			if ("requiredProperties".equals(element)) {
+				required.match = reader.getAttributeValue(null, "match");
+			}
+			required.optional = "true".equals(reader.getAttributeValue(null, "optional"))
+				|| "0".equals(reader.getAttributeValue(null, "min"));
+			while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+				if ("filter".equals(reader.getLocalName())) {
+					required.filter = Strings.trim(reader.getElementText());
+				} else {
+					XMLBase.skip(reader);
+				}
+			}
+			requires.add(required);
+		}
+	}
+
+	private String parseManifest(XMLStreamReader reader) throws Exception {
+		String manifest = null;
+		while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+			if (!"instructions".equals(reader.getLocalName())) {
+				XMLBase.skip(reader);
+				continue;
+			}
+			while (XMLBase.nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+				if ("instruction".equals(reader.getLocalName())
+					&& "manifest".equals(reader.getAttributeValue(null, "key"))) {
+					manifest = Strings.trim(reader.getElementText());
+				} else {
+					XMLBase.skip(reader);
+				}
+			}
+		}
+		return manifest;
+	}
+
+	List<Unit> getUnits() {
+		return units;
+	}
+}
@@ -32,6 +32,7 @@ import aQute.lib.strings.Strings;
 import aQute.p2.api.Artifact;
 import aQute.p2.api.ArtifactProvider;
 import aQute.p2.api.P2Index;
+import aQute.p2.api.Unit;
 import aQute.p2.packed.Unpack200;
 
 public class P2Impl implements ArtifactProvider {
@@ -72,6 +73,93 @@ public class P2Impl implements ArtifactProvider {
 		return getBundles();
 	}
 
+	@Override
+	public List<Unit> getUnits() throws Exception {
+		Set<URI> cycles = Collections.newSetFromMap(new ConcurrentHashMap<URI, Boolean>());
+		return getUnits(cycles, base).getValue();
+	}
+
+	private Promise<List<Unit>> getUnits(Set<URI> cycles, URI uri) {
+		if (!cycles.add(uri)) {
+			return promiseFactory.resolved(Collections.emptyList());
+		}
+
+		try {
+			String type = uri.getPath();
+			logger.info("getUnits type={}", uri);
+			if (type.endsWith("/compositeContent.xml")) {
+				return parseCompositeContent(cycles, hideAndSeek(uri), uri);
+			} else if (type.endsWith("/content.xml.xz")) {
+				return parseContent(hideAndSeek(uri), uri);
+			} else if (type.endsWith("/content.xml")) {
+				return parseContent(hideAndSeek(uri), uri);
+			} else if (type.endsWith("/p2.index")) {
+				return getIndex(uri).flatMap(index -> getUnits(cycles, index.content));
+			}
+			uri = normalize(uri).resolve("p2.index");
+			defaults.add(uri);
+			return getIndex(uri).flatMap(index -> getUnits(cycles, index.content));
+		} catch (Exception e) {
+			logger.error("getUnits", e);
+			return promiseFactory.failed(e);
+		}
+	}
+
+	private Promise<List<Unit>> parseContent(InputStream in, URI uri) throws Exception {
+		if (in == null) {
+			logger.info("No content for {}", uri);
+			return promiseFactory.resolved(Collections.emptyList());
+		}
+
+		return promiseFactory.submit(() -> {
+			try {
+				MetadataRepository mr = new MetadataRepository(in);
+				return mr.getUnits();
+			} finally {
+				IO.close(in);
+			}
+		});
+	}
+
+	private Promise<List<Unit>> parseCompositeContent(Set<URI> cycles, InputStream in, URI base) throws Exception {
+		if (in == null) {
+			logger.info("No such composite {}", base);
+			return promiseFactory.resolved(Collections.emptyList());
+		}
+
+		CompositeArtifacts ca = new CompositeArtifacts(in, base);
+		try {
+			ca.parse();
+		} finally {
+			IO.close(in);
+		}
+
+		return getUnits(cycles, ca.uris);
+	}
+
+	private Promise<List<Unit>> getUnits(Set<URI> cycles, final Collection<URI> uris) {
+		Deferred<List<Unit>> deferred = promiseFactory.deferred();
+		promiseFactory.executor()
+			.execute(() -> {
+				try {
+					deferred.resolveWith(uris.stream()
+						.map(uri -> getUnits(cycles, base.resolve(uri)).recover(failed -> {
+							if (!defaults.contains(uri)) {
+								logger.info("Failed to get units for {}", uri, failed.getFailure());
+							}
+							return Collections.emptyList();
+						}))
+						.collect(promiseFactory.toPromise())
+						.map(ll -> ll.stream()
+							.flatMap(List::stream)
+							.collect(toList())));
+				} catch (Throwable e) {
+					deferred.fail(e);
+				}
+			});
+		return deferred.getPromise();
+	}
+
 	private Promise<List<Artifact>> getArtifacts(Set<URI> cycles, URI uri) {
 		if (!cycles.add(uri)) {
 			return promiseFactory.resolved(Collections.emptyList());
@@ -122,7 +210,11 @@ public class P2Impl implements ArtifactProvider {
 		}
 
 		CompositeArtifacts ca = new CompositeArtifacts(in, base);
-		ca.parse();
+		try {
+			ca.parse();
+		} finally {
+			IO.close(in);
+		}
 
 		return getArtifacts(cycles, ca.uris);
 	}
@@ -214,14 +306,18 @@ public class P2Impl implements ArtifactProvider {
 	 * @formatter:on
 	 */
 	private Promise<List<Artifact>> parseIndexArtifacts(Set<URI> cycles, final URI uri) throws Exception {
+		return getIndex(uri).flatMap(index -> getArtifacts(cycles, index.artifacts));
+	}
+
+	private Promise<P2Index> getIndex(final URI uri) throws Exception {
 		Promise<File> file = client.build()
 			.useCache()
 			.get()
 			.async(uri.toURL());
-		return file.flatMap(f -> parseIndexArtifacts(cycles, uri, f));
+		return file.map(f -> getIndex(uri, f));
 	}
 
-	private Promise<List<Artifact>> parseIndexArtifacts(Set<URI> cycles, URI uri, File file) throws Exception {
+	private P2Index getIndex(URI uri, File file) throws Exception {
 		P2Index index;
 
 		if (file == null) {
@@ -233,7 +329,7 @@ public class P2Impl implements ArtifactProvider {
 		canonicalize(index.artifacts);
 		canonicalize(index.content);
 
-		return getArtifacts(cycles, index.artifacts);
+		return index;
 	}
 
 	private void canonicalize(List<URI> artifacts) throws URISyntaxException {
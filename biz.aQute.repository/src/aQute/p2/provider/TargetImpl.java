@@ -35,6 +35,7 @@ import aQute.lib.xml.XML;
 import aQute.p2.api.Artifact;
 import aQute.p2.api.ArtifactProvider;
 import aQute.p2.api.Classifier;
+import aQute.p2.api.Unit;
 import aQute.p2.packed.Unpack200;
 import aQute.p2.provider.Feature.Plugin;
 
@@ -97,6 +98,26 @@ public class TargetImpl implements ArtifactProvider {
 			.collect(Collectors.toList());
 	}
 
+	/*
+	 * The units of all the locations. They describe at least the selected
+	 * bundles, the units of bundles that were not selected are not used.
+	 */
+	@Override
+	public List<Unit> getUnits() throws Exception {
+		List<Promise<List<Unit>>> promises = new ArrayList<>();
+
+		for (Location location : getLocationsFromTargetPlatformXML(base)) {
+			P2Impl p2 = new P2Impl(processor, client, location.repository, promiseFactory);
+			promises.add(promiseFactory.submit(p2::getUnits));
+		}
+
+		return promiseFactory.all(promises)
+			.getValue()
+			.stream()
+			.flatMap(List::stream)
+			.collect(Collectors.toList());
+	}
+
 	/*
 	 * use the location units to filter the found bundles. If the unit version
 	 * =0.0.0 (LAZY), then we must have the latest version. If the version is
@@ -16,6 +16,10 @@ import java.util.Map;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
@@ -32,6 +36,7 @@ import aQute.lib.xml.XML;
 class XMLBase {
 	final static DocumentBuilderFactory	dbf	= XML.newDocumentBuilderFactory();
 	final static XPathFactory			xpf	= XPathFactory.newInstance();
+	final static XMLInputFactory		xif	= XML.newXMLInputFactory();
 	final XPath							xp;
 	final Document						document;
 
@@ -54,6 +59,85 @@ class XMLBase {
 		return db.parse(in);
 	}
 
+	/**
+	 * Create a streaming reader for large documents. The reader is positioned
+	 * before the root element and must be closed by the caller; closing the
+	 * reader does not close the stream.
+	 */
+	static XMLStreamReader getReader(InputStream in) throws XMLStreamException {
+		return xif.createXMLStreamReader(in);
+	}
+
+	/**
+	 * Move the reader to the next start or end element, skipping text,
+	 * comments and processing instructions.
+	 *
+	 * @return {@link XMLStreamConstants#START_ELEMENT},
+	 *         {@link XMLStreamConstants#END_ELEMENT} or
+	 *         {@link XMLStreamConstants#END_DOCUMENT}
+	 */
+	static int nextElement(XMLStreamReader reader) throws XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			switch (event) {
+				case XMLStreamConstants.START_ELEMENT :
+				case XMLStreamConstants.END_ELEMENT :
+					return event;
+				default :
+					break;
+			}
+		}
+		return XMLStreamConstants.END_DOCUMENT;
+	}
+
+	/**
+	 * Skip the element the reader is on, including all its children. The
+	 * reader is left on the end element.
+	 */
+	static void skip(XMLStreamReader reader) throws XMLStreamException {
+		for (int depth = 1; depth > 0;) {
+			switch (nextElement(reader)) {
+				case XMLStreamConstants.START_ELEMENT :
+					depth++;
+					break;
+				case XMLStreamConstants.END_ELEMENT :
+					depth--;
+					break;
+				default :
+					return;
+			}
+		}
+	}
+
+	/**
+	 * Read the {@code property} children of the element the reader is on,
+	 * typically a {@code properties} element. The reader is left on the end
+	 * element.
+	 */
+	static Map<String, String> getProperties(XMLStreamReader reader) throws XMLStreamException {
+		Map<String, String> properties = new HashMap<>();
+		while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+			if ("property".equals(reader.getLocalName())) {
+				String name = reader.getAttributeValue(null, "name");
+				String value = reader.getAttributeValue(null, "value");
+				properties.put(name, value);
+			}
+			skip(reader);
+		}
+		return properties;
+	}
+
+	static <T> T getFromType(XMLStreamReader reader, Class<T> clazz) throws Exception {
+		T a = newInstance(clazz);
+		for (Field f : clazz.getDeclaredFields()) {
+			String s = reader.getAttributeValue(null, f.getName());
+			if (s != null) {
+				setField(f, a, Converter.cnv(f.getGenericType(), s));
+			}
+		}
+		return a;
+	}
+
 	NodeList getNodes(String path) throws Exception {
 		return getNodes(document, path);
 	}
@@ -23,7 +23,9 @@ import org.osgi.service.repository.Repository;
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.osgi.resource.RequirementBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
 import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.osgi.resource.ResourceUtils.ContentCapability;
 import aQute.bnd.service.RepositoryPlugin;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.bnd.version.Version;
@@ -265,4 +267,98 @@ public class P2IndexerTest {
 			}
 		}
 	}
+
+	@Test
+	public void testMetadata() throws Exception {
+		try (HttpClient client = new HttpClient()) {
+			client.setCache(IO.getFile(tmp, "cache"));
+
+			File input = IO.getFile("testdata/p2/metadata");
+			try (P2Indexer p2 = new P2Indexer(new Unpack200(), new Slf4jReporter(P2IndexerTest.class), tmp, client,
+				input.toURI(), getName(), true)) {
+				assertThat(p2.list(null)).containsExactly("name.njbartlett.eclipse.macbadge");
+
+				Resource resource = findProvider(p2, "osgi.identity",
+					"(osgi.identity=name.njbartlett.eclipse.macbadge)");
+				assertThat(resource).isNotNull();
+
+				ContentCapability content = ResourceUtils.getContentCapability(resource);
+				assertThat(content.osgi_content())
+					.isEqualToIgnoringCase("0cfdf2f1a2dc897005a4fb6729be3c2ea016140cdcbabd316da1b7ef3e250370");
+				assertThat(content.size()).isEqualTo(4672L);
+
+				assertThat(resource.getCapabilities("osgi.wiring.package")).isEmpty();
+				assertThat(resource.getRequirements("osgi.wiring.bundle")).hasSize(1);
+				assertThat(resource.getRequirements("osgi.wiring.package")).hasSize(9);
+
+				File f = p2.get("name.njbartlett.eclipse.macbadge", new Version("1.0.0.201110100042"), null);
+				assertThat(f).isNotNull()
+					.hasName("name.njbartlett.eclipse.macbadge-1.0.0.201110100042.jar");
+				assertThat(SHA256.digest(f)
+					.asHex()).isEqualToIgnoringCase(content.osgi_content());
+			}
+		}
+	}
+
+	@Test
+	public void testMetadataSameAsBundle() throws Exception {
+		try (HttpClient client = new HttpClient()) {
+			client.setCache(IO.getFile(tmp, "cache"));
+
+			File input = IO.getFile("testdata/p2/metadata");
+			try (P2Indexer p2 = new P2Indexer(new Unpack200(), new Slf4jReporter(P2IndexerTest.class), tmp, client,
+				input.toURI(), getName(), true)) {
+				Resource metadata = findProvider(p2, "osgi.identity",
+					"(osgi.identity=name.njbartlett.eclipse.macbadge)");
+				assertThat(metadata).isNotNull();
+
+				File bundle = IO
+					.getFile("testdata/p2/macbadge/plugins/name.njbartlett.eclipse.macbadge_1.0.0.201110100042.jar");
+				ResourceBuilder rb = new ResourceBuilder();
+				assertThat(rb.addFile(bundle, bundle.toURI())).isTrue();
+				Resource downloaded = rb.build();
+
+				assertThat(metadata.getCapabilities(null)
+					.toString()).isEqualTo(downloaded.getCapabilities(null)
+						.toString());
+				assertThat(metadata.getRequirements(null)
+					.toString()).isEqualTo(downloaded.getRequirements(null)
+						.toString());
+			}
+		}
+	}
+
+	@Test
+	public void testMetadataWithoutChecksum() throws Exception {
+		try (HttpClient client = new HttpClient()) {
+			client.setCache(IO.getFile(tmp, "cache"));
+
+			// the artifacts have no SHA-256 checksum, so they are downloaded
+			File input = IO.getFile("testdata/p2/macbadge");
+			try (P2Indexer p2 = new P2Indexer(new Unpack200(), new Slf4jReporter(P2IndexerTest.class), tmp, client,
+				input.toURI(), getName(), true)) {
+				assertThat(p2.list(null)).containsExactly("name.njbartlett.eclipse.macbadge");
+
+				Resource resource = findProvider(p2, "osgi.identity",
+					"(osgi.identity=name.njbartlett.eclipse.macbadge)");
+				assertThat(resource).isNotNull();
+				assertThat(ResourceUtils.getContentCapability(resource)
+					.osgi_content()).isEqualToIgnoringCase(
+						"0cfdf2f1a2dc897005a4fb6729be3c2ea016140cdcbabd316da1b7ef3e250370");
+				assertThat(resource.getRequirements("osgi.wiring.package")).hasSize(9);
+			}
+		}
+	}
+
+	private static Resource findProvider(P2Indexer p2, String namespace, String filter) {
+		RequirementBuilder rb = new RequirementBuilder(namespace);
+		rb.addDirective("filter", filter);
+		Requirement requirement = rb.synthetic();
+		Set<Resource> resources = ResourceUtils.getResources(p2.findProviders(Collections.singleton(requirement))
+			.get(requirement));
+		assertThat(resources).hasSizeLessThanOrEqualTo(1);
+		return resources.stream()
+			.findFirst()
+			.orElse(null);
+	}
 }
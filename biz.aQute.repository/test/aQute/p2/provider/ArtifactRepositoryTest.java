@@ -0,0 +1,112 @@
+package aQute.p2.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.jar.JarFile;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.lib.io.IO;
+import aQute.p2.api.Artifact;
+import aQute.p2.api.Classifier;
+
+public class ArtifactRepositoryTest {
+	final static URI	base		= URI.create("http://example.org/repo/");
+
+	final static String	mappings	= "<mappings size='2'>"
+		+ "<rule filter='(&amp; (classifier=osgi.bundle))' output='${repoUrl}/plugins/${id}_${version}.jar'/>"
+		+ "<rule filter='(&amp; (classifier=org.eclipse.update.feature))' output='${mirror}/features/${id}_${version}.jar'/>"
+		+ "</mappings>";
+
+	final static String	properties	= "<properties size='1'><property name='mirror' value='http://mirror.org'/></properties>";
+
+	final static String	artifacts	= "<artifacts size='3'>"
+		+ "<artifact classifier='osgi.bundle' id='a' version='1.0.0'>"
+		+ "<!-- comment --><processing size='1'><step id='x' required='true'/></processing>"
+		+ "<properties size='2'><property name='download.size' value='42'/>"
+		+ "<property name='download.md5' value='abc'/></properties></artifact>"
+		+ "<artifact classifier='org.eclipse.update.feature' id='f' version='2.0.0'/>"
+		+ "<artifact classifier='binary' id='b' version='3.0.0'/>" + "</artifacts>";
+
+	@Test
+	public void testArtifacts() throws Exception {
+		try (JarFile jar = new JarFile(IO.getFile("testdata/p2/macbadge/artifacts.jar"));
+			InputStream in = jar.getInputStream(jar.getEntry("artifacts.xml"))) {
+			ArtifactRepository repository = new ArtifactRepository(in, base, false);
+			List<Artifact> list = repository.getArtifacts();
+			assertThat(list).hasSize(2);
+
+			Artifact bundle = list.get(0);
+			assertThat(bundle.classifier).isEqualTo(Classifier.BUNDLE);
+			assertThat(bundle.id).isEqualTo("name.njbartlett.eclipse.macbadge");
+			assertThat(bundle.version.toString()).isEqualTo("1.0.0.201110100042");
+			assertThat(bundle.download_size).isEqualTo(4672L);
+			assertThat(bundle.uri).isEqualTo(
+				URI.create("http://example.org/repo/plugins/name.njbartlett.eclipse.macbadge_1.0.0.201110100042.jar"));
+
+			Artifact feature = list.get(1);
+			assertThat(feature.classifier).isEqualTo(Classifier.FEATURE);
+			assertThat(feature.uri).isEqualTo(URI.create(
+				"http://example.org/repo/features/name.njbartlett.eclipse.macbadge.feature_1.0.0.201110100042.jar"));
+		}
+	}
+
+	@Test
+	public void testStreamedInDocumentOrder() throws Exception {
+		List<Artifact> list = parse("<repository>" + properties + mappings + artifacts + "</repository>");
+		assertArtifacts(list);
+	}
+
+	@Test
+	public void testMappingsAfterArtifacts() throws Exception {
+		List<Artifact> list = parse("<repository>" + artifacts + mappings + properties + "</repository>");
+		assertArtifacts(list);
+	}
+
+	@Test
+	public void testNoRepository() throws Exception {
+		assertThat(parse("<other>" + properties + mappings + artifacts + "</other>")).isEmpty();
+		assertThat(parse("<repository>" + artifacts + "</repository>")).isEmpty();
+	}
+
+	@Test
+	public void testCompositeArtifacts() throws Exception {
+		String xml = "<?xml version='1.0' encoding='UTF-8'?>"
+			+ "<?compositeArtifactRepository version='1.0.0'?><repository name='composite'>"
+			+ properties
+			+ "<children size='2'><child location='childOne'/><!-- comment --><child location=' ../childTwo/ '/></children>"
+			+ "</repository>";
+		CompositeArtifacts composite = new CompositeArtifacts(stream(xml), base);
+		composite.parse();
+		assertThat(composite.uris).containsExactly(URI.create("http://example.org/repo/childOne"),
+			URI.create("http://example.org/childTwo/"));
+	}
+
+	private static void assertArtifacts(List<Artifact> list) {
+		assertThat(list).hasSize(2);
+
+		Artifact bundle = list.get(0);
+		assertThat(bundle.id).isEqualTo("a");
+		assertThat(bundle.md5).isEqualTo("abc");
+		assertThat(bundle.download_size).isEqualTo(42L);
+		assertThat(bundle.uri).isEqualTo(URI.create("http://example.org/repo/plugins/a_1.0.0.jar"));
+
+		Artifact feature = list.get(1);
+		assertThat(feature.id).isEqualTo("f");
+		assertThat(feature.download_size).isEqualTo(-1L);
+		assertThat(feature.uri).isEqualTo(URI.create("http://mirror.org/features/f_2.0.0.jar"));
+	}
+
+	private static List<Artifact> parse(String xml) throws Exception {
+		return new ArtifactRepository(stream(xml), base, false).getArtifacts();
+	}
+
+	private static InputStream stream(String xml) {
+		return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -5,12 +5,15 @@ import static aQute.bnd.osgi.resource.ResourceUtils.createWildcardRequirement;
 import static aQute.bnd.osgi.resource.ResourceUtils.getIdentityCapability;
 import static java.util.Collections.singleton;
 
+import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,9 +27,12 @@ import org.osgi.resource.Wire;
 import org.osgi.service.repository.Repository;
 import org.osgi.service.resolver.ResolutionException;
 import org.osgi.service.resolver.Resolver;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.osgi.Processor;
 import aQute.bnd.osgi.repository.ResourcesRepository;
@@ -38,6 +44,7 @@ import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.osgi.resource.ResourceUtils.IdentityCapability;
 import aQute.bnd.repository.osgi.OSGiRepository;
 import aQute.lib.collections.MultiMap;
+import aQute.lib.io.IO;
 import aQute.lib.justif.Justif;
 import aQute.lib.strings.Strings;
 
@@ -48,6 +55,7 @@ public class ResolverValidator extends Processor {
 	Resolver					resolver		= new BndResolver(reporter);
 	List<URI>					repositories	= new ArrayList<>();
 	Resource					system			= null;
+	int							parallel		= 1;
 
 	public enum ResolutionType {
 		OK,
@@ -82,6 +90,16 @@ public class ResolverValidator extends Processor {
 		this.system = resource;
 	}
 
+	/**
+	 * Set the maximum number of resources that are resolved concurrently. The
+	 * default is 1, resolving the resources one at a time.
+	 *
+	 * @param parallel the maximum number of concurrent resolutions
+	 */
+	public void setParallel(int parallel) {
+		this.parallel = Math.max(parallel, 1);
+	}
+
 	public List<Resolution> validate() throws Exception {
 		try (OSGiRepository repository = new OSGiRepository(); HttpClient httpClient = new HttpClient()) {
 			Map<String, String> map = new HashMap<>();
@@ -111,14 +129,20 @@ public class ResolverValidator extends Processor {
 		setProperty("-runfw", "dummy");
 		setProperty("-runprovidedcapabilities.extra", "${native_capability}");
 		List<Resolution> result = new ArrayList<>();
-		List<Resource> resourceList = new ArrayList<>(resources);
+		List<Resource> resourceList = new LinkedList<>(resources);
+		Repository index = (parallel > 1) && !(repository instanceof ResourcesRepository)
+			? new ResourcesRepository(getAllResources(repository))
+			: repository;
+		Speculation speculation = new Speculation(index);
 
 		while (!resourceList.isEmpty()) {
+			speculation.submit(resourceList);
 			Resource resource = resourceList.remove(0);
-			Resolution resolution = resolve(repository, resource);
+			Resolution resolution = speculation.take(resource);
 			result.add(resolution);
 			for (Resource resolved : resolution.resolved) {
 				if (resourceList.remove(resolved)) {
+					speculation.discard(resolved);
 					Resolution curResolution = new Resolution();
 					curResolution.resource = resolved;
 					curResolution.type = ResolutionType.OK;
@@ -150,8 +174,100 @@ public class ResolverValidator extends Processor {
 		return resources;
 	}
 
-	private BndrunResolveContext getResolveContext() throws Exception {
-		BndrunResolveContext context = new BndrunResolveContext(this, null, this, reporter) {
+	/**
+	 * Resolves the resources at the head of the worklist ahead of time. The
+	 * resolutions are taken in the order of the worklist, so the results are
+	 * the same as when the resources are resolved one at a time. A resource
+	 * that was resolved as part of an earlier resource is removed from the
+	 * worklist and its resolution is discarded.
+	 */
+	private class Speculation {
+		private final Repository									repository;
+		private final PromiseFactory								promiseFactory	= Processor.getPromiseFactory();
+		private final Map<Resource, Promise<ProcessorResolution>>	running			= new HashMap<>();
+		private final List<Promise<ProcessorResolution>>			discarded		= new ArrayList<>();
+
+		Speculation(Repository repository) {
+			this.repository = repository;
+		}
+
+		/**
+		 * Start the resolutions of the resources at the head of the worklist.
+		 * The head of the worklist is always started.
+		 */
+		void submit(List<Resource> resourceList) throws Exception {
+			discarded.removeIf(Promise::isDone);
+			Iterator<Resource> iterator = resourceList.iterator();
+			Resource head = iterator.next();
+			if (!running.containsKey(head)) {
+				while (running.size() + discarded.size() >= parallel) {
+					// wait until a discarded resolution frees its slot
+					discarded.remove(0)
+						.getFailure();
+				}
+				running.put(head, start(head));
+			}
+			while (iterator.hasNext() && (running.size() + discarded.size() < parallel)) {
+				Resource resource = iterator.next();
+				if (!running.containsKey(resource)) {
+					running.put(resource, start(resource));
+				}
+			}
+		}
+
+		/**
+		 * Take the resolution of the head of the worklist and report its
+		 * errors and warnings.
+		 */
+		Resolution take(Resource resource) throws Exception {
+			ProcessorResolution resolution;
+			try {
+				resolution = running.remove(resource)
+					.getValue();
+			} catch (InvocationTargetException e) {
+				throw Exceptions.duck(Exceptions.unrollCause(e, InvocationTargetException.class));
+			}
+			try (Processor model = resolution.model) {
+				getInfo(model);
+			}
+			return resolution.resolution;
+		}
+
+		/**
+		 * Discard the resolution of a resource that was resolved as part of
+		 * an earlier resource.
+		 */
+		void discard(Resource resource) {
+			Promise<ProcessorResolution> promise = running.remove(resource);
+			if (promise != null) {
+				discarded.add(promise.onSuccess(resolution -> IO.close(resolution.model)));
+			}
+		}
+
+		private Promise<ProcessorResolution> start(Resource resource) {
+			if (parallel > 1) {
+				return promiseFactory.submit(() -> resolution(resource));
+			}
+			try {
+				return promiseFactory.resolved(resolution(resource));
+			} catch (Exception e) {
+				return promiseFactory.failed(e);
+			}
+		}
+
+		private ProcessorResolution resolution(Resource resource) throws Exception {
+			Processor model = new Processor(ResolverValidator.this);
+			return new ProcessorResolution(model, resolve(repository, resource, model));
+		}
+	}
+
+	/**
+	 * A resolution and the processor that holds its errors and warnings.
+	 */
+	private record ProcessorResolution(Processor model, Resolution resolution) {}
+
+	private BndrunResolveContext getResolveContext(Processor model, LogReporter reporter) throws Exception {
+		BndrunResolveContext context = new BndrunResolveContext(model, null, this, reporter) {
 			@Override
 			void loadFramework(ResourceBuilder systemBuilder) throws Exception {
 				systemBuilder.addCapabilities(system.getCapabilities(null));
@@ -166,12 +282,22 @@ public class ResolverValidator extends Processor {
 	}
 
 	public Resolution resolve(Repository repository, Resource resource) throws Exception {
+		return resolve(repository, resource, this);
+	}
+
+	/**
+	 * Resolve a resource with the properties of a model that reports the
+	 * errors.
+	 */
+	private Resolution resolve(Repository repository, Resource resource, Processor model) throws Exception {
 		Resolution resolution = new Resolution();
+		LogReporter reporter = (model == this) ? this.reporter : new LogReporter(model);
+		Resolver resolver = (model == this) ? this.resolver : new BndResolver(reporter);
 
 		Requirement identity = getIdentity(resource);
-		setProperty("-runrequires", ResourceUtils.toRequireCapability(identity));
+		model.setProperty("-runrequires", ResourceUtils.toRequireCapability(identity));
 
-		BndrunResolveContext context = getResolveContext();
+		BndrunResolveContext context = getResolveContext(model, reporter);
 
 		context.addRepository(repository);
 		context.init();
@@ -226,10 +352,10 @@ public class ResolverValidator extends Processor {
 				}
 			}
 
-			error("%s", ResolveProcess.format(e, false));
+			model.error("%s", ResolveProcess.format(e, false));
 		} catch (Exception e) {
 			e.printStackTrace();
-			error("resolving %s failed with %s", context.getInputResource()
+			model.error("resolving %s failed with %s", context.getInputResource()
 				.getRequirements(null), e);
 			resolution.message = e.getMessage();
 		}
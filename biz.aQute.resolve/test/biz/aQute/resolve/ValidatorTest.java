@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.osgi.framework.namespace.PackageNamespace.PACKAGE_NAMESPACE;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -154,4 +155,33 @@ public class ValidatorTest {
 			assertTrue(validator.check());
 		}
 	}
+
+	@Test
+	public void testParallel() throws Exception {
+		for (String index : List.of("testdata/repo1.index.xml", "testdata/larger-repo.xml")) {
+			List<String> sequential = validate(index, 1);
+			List<String> parallel = validate(index, 4);
+			assertFalse(sequential.isEmpty());
+			assertEquals(sequential, parallel);
+		}
+	}
+
+	private List<String> validate(String index, int parallel) throws Exception {
+		try (ResolverValidator validator = new ResolverValidator();) {
+			ResourceBuilder system = new ResourceBuilder();
+			system.addEE(EE.JavaSE_1_8);
+			system.addManifest(OSGI_CORE.R8_0_0.getManifest());
+			validator.setSystem(system.build());
+			validator.setParallel(parallel);
+			List<Resource> resources = XMLResourceParser.getResources(IO.getFile(index)
+				.toURI());
+			List<String> result = new ArrayList<>();
+			validator.validateResources(new ResourcesRepository(resources), resources)
+				.forEach(resolution -> result.add(resolution.resource + " " + resolution.type + " "
+					+ resolution.resolved + " " + resolution.missing));
+			result.addAll(validator.getErrors());
+			result.addAll(validator.getWarnings());
+			return result;
+		}
+	}
 }
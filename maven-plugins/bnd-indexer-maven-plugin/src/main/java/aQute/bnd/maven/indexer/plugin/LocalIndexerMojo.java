@@ -56,6 +56,20 @@ public class LocalIndexerMojo extends AbstractMojo {
 	@Parameter(property = "bnd.indexer.name", defaultValue = "${project.artifactId}")
 	private String				indexName;
 
+	/**
+	 * The number of files indexed concurrently. The default is the number of
+	 * processors.
+	 */
+	@Parameter(property = "bnd.indexer.parallel", defaultValue = "0")
+	private int					parallel;
+
+	/**
+	 * Reuse the entries of the existing output file for the files that did not
+	 * change since it was generated.
+	 */
+	@Parameter(property = "bnd.indexer.incremental", defaultValue = "false")
+	private boolean				incremental;
+
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
 
@@ -93,7 +107,13 @@ public class LocalIndexerMojo extends AbstractMojo {
 			logger.debug("Included files: {}", toIndex);
 			IO.mkdirs(outputFile.getParentFile());
 			final SimpleIndexer simpleIndexer = new SimpleIndexer().reporter(processor)
-				.files(toIndex);
+				.files(toIndex)
+				.parallel(parallel > 0 ? parallel
+					: Runtime.getRuntime()
+						.availableProcessors());
+			if (incremental) {
+				simpleIndexer.previous(outputFile);
+			}
 			if (!absolute) {
 				simpleIndexer.base(baseFile.toURI());
 			}